@@ -0,0 +1,64 @@
+package org.sharlychess.papiconverter.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.sharlychess.papiconverter.JsonToPapiConverter;
+import org.sharlychess.papiconverter.TournamentFormat;
+import org.sharlychess.papiconverter.VerboseOutput;
+
+/**
+ * Compares JSON to PAPI conversions written in place with the default Jackcess
+ * auto-sync (pages forced to disk as rows are written) and in bulk mode (temporary
+ * file without auto-sync, one sync and a rename). Run it with the output directory on
+ * the media to measure, such as a spinning disk or a USB stick: on an SSD or a RAM
+ * disk, syncs are cheap and both modes are close.
+ * Usage: BulkWriteBenchmark <tournament.json> <output-dir> [iterations]
+ */
+public class BulkWriteBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkWriteBenchmark <tournament.json> <output-dir> [iterations]");
+            System.exit(1);
+        }
+        String json = args[0];
+        Path outputDir = Paths.get(args[1]);
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Files.createDirectories(outputDir);
+        String output = outputDir.resolve("bulk-benchmark.papi").toString();
+        VerboseOutput.setMessageStream(new PrintStream(OutputStream.nullOutputStream()));
+
+        System.out.println("Input: " + json + " (" + Files.size(Paths.get(json)) / 1024 + " KiB), output directory: "
+            + outputDir.toAbsolutePath() + ", conversions per mode: " + iterations);
+        System.out.println();
+        System.out.println("| Mode | Median ms | Min ms | Max ms | Speedup |");
+        System.out.println("| --- | --- | --- | --- | --- |");
+        double inPlace = report("In place, auto-sync", json, output, iterations, false, 0);
+        report("Bulk (--bulk)", json, output, iterations, true, inPlace);
+        Files.deleteIfExists(Paths.get(output));
+    }
+
+    /**
+     * Runs the conversions of one mode, the first one as a warm-up.
+     * @return The median time in milliseconds
+     */
+    private static double report(String mode, String json, String output, int iterations, boolean bulk,
+            double baseline) throws Exception {
+        JsonToPapiConverter.convert(json, output, TournamentFormat.JSON, bulk);
+        double[] times = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            JsonToPapiConverter.convert(json, output, TournamentFormat.JSON, bulk);
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        double median = times[iterations / 2];
+        System.out.printf("| %s | %.1f | %.1f | %.1f | %s |%n", mode, median, times[0], times[iterations - 1],
+            baseline > 0 ? String.format("%.2fx", baseline / median) : "1.00x");
+        return median;
+    }
+}
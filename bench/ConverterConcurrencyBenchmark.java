@@ -0,0 +1,94 @@
+package org.sharlychess.papiconverter.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.sharlychess.papiconverter.TournamentConverter;
+
+/**
+ * Measures how the throughput of one shared {@link TournamentConverter} scales with
+ * the number of threads converting at the same time, in both directions.
+ * Each thread runs the same number of conversions, so perfect scaling keeps the
+ * time per level constant and multiplies the conversions per second.
+ * Usage: ConverterConcurrencyBenchmark <tournament.json> <template.papi> [iterations]
+ */
+public class ConverterConcurrencyBenchmark {
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ConverterConcurrencyBenchmark <tournament.json> <template.papi> [iterations]");
+            System.exit(1);
+        }
+        byte[] json = Files.readAllBytes(Paths.get(args[0]));
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        TournamentConverter converter = TournamentConverter.builder()
+            .template(Paths.get(args[1]))
+            .build();
+        byte[] papi = converter.toPapi(json).getData();
+        int players = converter.toDocument(papi).getTournament().getPlayers().size();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads <= Math.max(4, cores * 2); threads *= 2) {
+            threadCounts.add(threads);
+        }
+
+        System.out.println("Players: " + players + ", processors: " + cores + ", conversions per thread: " + iterations);
+        System.out.println();
+        System.out.println("| Conversion | Threads | Conversions/s | Players/s | Speedup |");
+        System.out.println("| --- | --- | --- | --- | --- |");
+        report("PAPI to JSON", threadCounts, players, iterations, () -> converter.toDocument(papi));
+        report("JSON to PAPI", threadCounts, players, iterations, () -> converter.toPapi(json));
+    }
+
+    private static void report(String conversion, List<Integer> threadCounts, int players, int iterations,
+            Task task) throws Exception {
+        // Warm-up
+        run(threadCounts.get(threadCounts.size() - 1), iterations, task);
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            double seconds = run(threads, iterations, task);
+            double perSecond = threads * iterations / seconds;
+            if (baseline == 0) {
+                baseline = perSecond;
+            }
+            System.out.printf("| %s | %d | %.1f | %.0f | %.2fx |%n", conversion, threads, perSecond,
+                perSecond * players, perSecond / baseline);
+        }
+    }
+
+    /**
+     * Runs the task the given number of times on each thread, all threads sharing the converter.
+     * @return The elapsed time in seconds
+     */
+    private static double run(int threads, int iterations, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        task.run();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (System.nanoTime() - start) / 1e9;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.sharlychess.papiconverter.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.sharlychess.papiconverter.PairingRules;
+import org.sharlychess.papiconverter.PlayerData;
+import org.sharlychess.papiconverter.PlayerField;
+import org.sharlychess.papiconverter.RoundData;
+import org.sharlychess.papiconverter.TournamentData;
+import org.sharlychess.papiconverter.TournamentJson;
+
+/**
+ * Compares the streaming tournament codec with the former databind path
+ * (readTree for parsing, maps per player and round written by the default
+ * pretty printer for serializing): throughput and allocated bytes per run.
+ * Usage: JsonCodecBenchmark <tournament.json> [iterations]
+ */
+public class JsonCodecBenchmark {
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: JsonCodecBenchmark <tournament.json> [iterations]");
+            System.exit(1);
+        }
+        byte[] json = Files.readAllBytes(Paths.get(args[0]));
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+        TournamentData tournament = TournamentJson.read(new ByteArrayInputStream(json));
+        int players = tournament.getPlayers().size();
+
+        System.out.println("| Operation | Path | ms/run | Players/s | MB/s | Allocated/run |");
+        System.out.println("| --- | --- | --- | --- | --- | --- |");
+        report("Parse", "databind", json.length, players, iterations,
+            () -> mapper.readTree(json));
+        report("Parse", "streaming codec", json.length, players, iterations,
+            () -> TournamentJson.read(new ByteArrayInputStream(json)));
+        report("Serialize", "databind", json.length, players, iterations,
+            () -> writer.writeValueAsBytes(toMaps(tournament)));
+        report("Serialize", "streaming codec", json.length, players, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+            TournamentJson.write(tournament, out);
+            return out;
+        });
+    }
+
+    private static void report(String operation, String path, int bytes, int players, int iterations, Task task) throws Exception {
+        // Warm-up
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = (THREADS.getThreadAllocatedBytes(thread) - allocatedBefore) / iterations;
+        System.out.printf("| %s | %s | %.2f | %.0f | %.1f | %.1f MB |%n", operation, path,
+            seconds * 1000 / iterations, players * iterations / seconds,
+            bytes * (double) iterations / seconds / (1024 * 1024), allocated / (1024.0 * 1024));
+    }
+
+    /**
+     * Builds the untyped maps the converter used to serialize: one map per player and per round.
+     */
+    private static Map<String, Object> toMaps(TournamentData tournament) {
+        List<Map<String, Object>> players = new ArrayList<>();
+        for (PlayerData player : tournament.getPlayers()) {
+            Map<String, Object> map = new HashMap<>();
+            for (PlayerField field : PlayerField.values()) {
+                if (player.get(field) != null) {
+                    map.put(field.jsonName(), player.get(field));
+                }
+            }
+            Map<String, Map<String, Object>> rounds = new HashMap<>();
+            for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+                RoundData round = player.getRound(roundNum);
+                if (round != null) {
+                    Map<String, Object> roundMap = new HashMap<>();
+                    if (round.getColor() != null) {
+                        roundMap.put("color", round.getColor());
+                    }
+                    if (round.getOpponent() != null) {
+                        roundMap.put("opponent", round.getOpponent());
+                    }
+                    if (round.getResult() != null) {
+                        roundMap.put("result", round.getResult());
+                    }
+                    rounds.put(String.valueOf(roundNum), roundMap);
+                }
+            }
+            if (!rounds.isEmpty()) {
+                map.put("rounds", rounds);
+            }
+            players.add(map);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("variables", tournament.getVariables());
+        data.put("players", players);
+        return data;
+    }
+}
@@ -0,0 +1,94 @@
+package org.sharlychess.papiconverter.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import org.sharlychess.papiconverter.TournamentData;
+import org.sharlychess.papiconverter.TournamentJson;
+import org.sharlychess.papiconverter.TournamentSnapshot;
+
+/**
+ * Compares the binary snapshot with the JSON export of the same tournament:
+ * encoded size (raw and gzip, as served over HTTP) and encode/decode time.
+ * Usage: SnapshotBenchmark <tournament.json> [iterations]
+ */
+public class SnapshotBenchmark {
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SnapshotBenchmark <tournament.json> [iterations]");
+            System.exit(1);
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        TournamentData tournament = TournamentJson.read(Paths.get(args[0]));
+        int players = tournament.getPlayers().size();
+
+        // Encode both formats as the converter writes them
+        ByteArrayOutputStream jsonOut = new ByteArrayOutputStream();
+        TournamentJson.write(tournament, jsonOut);
+        byte[] json = jsonOut.toByteArray();
+        ByteArrayOutputStream snapshotOut = new ByteArrayOutputStream();
+        TournamentSnapshot.write(tournament, snapshotOut);
+        byte[] snapshot = snapshotOut.toByteArray();
+
+        // The snapshot must decode to the same document
+        ByteArrayOutputStream roundTrip = new ByteArrayOutputStream();
+        TournamentJson.write(TournamentSnapshot.read(new ByteArrayInputStream(snapshot)), roundTrip);
+        if (!Arrays.equals(json, roundTrip.toByteArray())) {
+            throw new IllegalStateException("Snapshot round trip differs from the JSON export");
+        }
+
+        System.out.println("Players: " + players);
+        System.out.println();
+        System.out.println("| Format | Size | Gzip size |");
+        System.out.println("| --- | --- | --- |");
+        System.out.printf("| JSON | %d bytes | %d bytes |%n", json.length, gzipSize(json));
+        System.out.printf("| Snapshot | %d bytes | %d bytes |%n", snapshot.length, gzipSize(snapshot));
+        System.out.println();
+        System.out.println("| Operation | Format | ms/run | Players/s |");
+        System.out.println("| --- | --- | --- | --- |");
+        report("Decode", "JSON", players, iterations,
+            () -> TournamentJson.read(new ByteArrayInputStream(json)));
+        report("Decode", "Snapshot", players, iterations,
+            () -> TournamentSnapshot.read(new ByteArrayInputStream(snapshot)));
+        report("Encode", "JSON", players, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+            TournamentJson.write(tournament, out);
+            return out;
+        });
+        report("Encode", "Snapshot", players, iterations, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(snapshot.length);
+            TournamentSnapshot.write(tournament, out);
+            return out;
+        });
+    }
+
+    private static int gzipSize(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.size();
+    }
+
+    private static void report(String operation, String format, int players, int iterations, Task task) throws Exception {
+        // Warm-up
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("| %s | %s | %.2f | %.0f |%n", operation, format,
+            seconds * 1000 / iterations, players * iterations / seconds);
+    }
+}
@@ -0,0 +1,173 @@
+package org.sharlychess.papiconverter.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.sharlychess.papiconverter.PlayerData;
+import org.sharlychess.papiconverter.PlayerField;
+import org.sharlychess.papiconverter.RoundData;
+import org.sharlychess.papiconverter.Standings;
+import org.sharlychess.papiconverter.StandingsEngine;
+import org.sharlychess.papiconverter.Tiebreak;
+import org.sharlychess.papiconverter.TournamentColumns;
+
+/**
+ * Compares the columnar standings engine with recomputing the same values from
+ * the nested round maps of the JSON export, as export consumers do.
+ * Usage: StandingsBenchmark [players] [rounds] [iterations]
+ */
+public class StandingsBenchmark {
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+
+    private static final List<Tiebreak> TIEBREAKS = Arrays.asList(
+        Tiebreak.BUCHHOLZ, Tiebreak.BRESILIEN, Tiebreak.SONNEBORN_BERGER, Tiebreak.PERFORMANCE, Tiebreak.CUMULATIVE);
+
+    public static void main(String[] args) throws Exception {
+        int playerCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int roundCount = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        List<PlayerData> players = generate(playerCount, roundCount, new Random(42));
+        List<Map<String, Object>> maps = toMaps(players);
+        TournamentColumns columns = TournamentColumns.fromPlayers(players);
+
+        // Both paths must agree before they are timed
+        Standings standings = StandingsEngine.compute(columns, TIEBREAKS);
+        double[][] fromMaps = computeFromMaps(maps);
+        for (int i = 0; i < playerCount; i++) {
+            if (standings.score(i) != fromMaps[0][i] || standings.tiebreak(0, i) != fromMaps[1][i]
+                    || standings.tiebreak(2, i) != fromMaps[2][i] || standings.tiebreak(3, i) != fromMaps[3][i]) {
+                throw new IllegalStateException("Standings differ for player " + i);
+            }
+        }
+
+        System.out.println("Players: " + playerCount + ", rounds: " + roundCount);
+        System.out.println();
+        System.out.println("| Path | ms/run |");
+        System.out.println("| --- | --- |");
+        report("Nested round maps (score, Buchholz, SB, performance)", iterations, () -> computeFromMaps(maps));
+        report("Columns: load from players", iterations, () -> TournamentColumns.fromPlayers(players));
+        report("Columns: standings engine (" + TIEBREAKS.size() + " tiebreaks and ranking)", iterations,
+            () -> StandingsEngine.compute(columns, TIEBREAKS));
+    }
+
+    /**
+     * Generates a Swiss-like tournament: random pairings in each round, bye for the odd player.
+     */
+    private static List<PlayerData> generate(int playerCount, int roundCount, Random random) {
+        List<PlayerData> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            PlayerData player = new PlayerData();
+            player.set(PlayerField.LAST_NAME, "Player" + i);
+            player.set(PlayerField.ELO, 1000 + random.nextInt(1800));
+            players.add(player);
+        }
+        int[] order = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            order[i] = i;
+        }
+        for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+            for (int i = playerCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            for (int k = 0; k + 1 < playerCount; k += 2) {
+                int white = order[k];
+                int black = order[k + 1];
+                int result = 1 + random.nextInt(3);
+                players.get(white).setRound(roundNum, new RoundData("B", black, result));
+                players.get(black).setRound(roundNum, new RoundData("N", white, 4 - result));
+            }
+            if (playerCount % 2 == 1) {
+                players.get(order[playerCount - 1]).setRound(roundNum, new RoundData("R", null, 6));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Builds the maps a consumer gets from parsing the JSON export.
+     */
+    private static List<Map<String, Object>> toMaps(List<PlayerData> players) {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (PlayerData player : players) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("elo", player.get(PlayerField.ELO));
+            Map<String, Map<String, Object>> rounds = new HashMap<>();
+            for (int roundNum = 1; roundNum <= 24; roundNum++) {
+                RoundData round = player.getRound(roundNum);
+                if (round != null) {
+                    Map<String, Object> roundMap = new HashMap<>();
+                    roundMap.put("color", round.getColor());
+                    if (round.getOpponent() != null) {
+                        roundMap.put("opponent", round.getOpponent());
+                    }
+                    roundMap.put("result", round.getResult());
+                    rounds.put(String.valueOf(roundNum), roundMap);
+                }
+            }
+            map.put("rounds", rounds);
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    /**
+     * Score, Buchholz, Sonneborn-Berger and performance from the nested maps.
+     */
+    @SuppressWarnings("unchecked")
+    private static double[][] computeFromMaps(List<Map<String, Object>> players) {
+        int n = players.size();
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            Map<String, Map<String, Object>> rounds = (Map<String, Map<String, Object>>) players.get(i).get("rounds");
+            for (Map<String, Object> round : rounds.values()) {
+                scores[i] += StandingsEngine.halfPoints((Integer) round.get("result")) / 2.0;
+            }
+        }
+        double[] buchholz = new double[n];
+        double[] sonnebornBerger = new double[n];
+        double[] performance = new double[n];
+        for (int i = 0; i < n; i++) {
+            Map<String, Map<String, Object>> rounds = (Map<String, Map<String, Object>>) players.get(i).get("rounds");
+            double ratingSum = 0;
+            int games = 0;
+            int balance = 0;
+            for (Map<String, Object> round : rounds.values()) {
+                Integer opponent = (Integer) round.get("opponent");
+                int result = (Integer) round.get("result");
+                if (opponent == null || result == 0) {
+                    continue;
+                }
+                buchholz[i] += scores[opponent];
+                sonnebornBerger[i] += scores[opponent] * StandingsEngine.halfPoints(result) / 2.0;
+                ratingSum += (Integer) players.get(opponent).get("elo");
+                games++;
+                balance += result - 2;
+            }
+            performance[i] = games > 0 ? Math.round(ratingSum / games + 400.0 * balance / games) : 0;
+        }
+        return new double[][] { scores, buchholz, sonnebornBerger, performance };
+    }
+
+    private static void report(String path, int iterations, Task task) throws Exception {
+        // Warm-up
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("| %s | %.2f |%n", path, seconds * 1000 / iterations);
+    }
+}
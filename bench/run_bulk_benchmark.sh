@@ -0,0 +1,28 @@
+#!/bin/bash
+set -e
+
+# Compares JSON to PAPI conversions written in place (default auto-sync) and with --bulk.
+# Usage: ./bench/run_bulk_benchmark.sh [output-dir] [players] [iterations]
+#
+# Give an output directory on the media to measure (spinning disk, USB stick, network share);
+# by default the output is written under build/, usually on the system SSD.
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+OUT_DIR="$ROOT_DIR/build/bench-bulk"
+TARGET_DIR="${1:-$OUT_DIR/output}"
+PLAYERS="${2:-512}"
+ITERATIONS="${3:-5}"
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$BENCH_DIR"/BulkWriteBenchmark.java
+
+"$ROOT_DIR/generate_training_tournament.sh" "$OUT_DIR/tournament.json" "$PLAYERS" 9
+(cd "$ROOT_DIR" && java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.bench.BulkWriteBenchmark \
+  "$OUT_DIR/tournament.json" "$TARGET_DIR" "$ITERATIONS")
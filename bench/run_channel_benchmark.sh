@@ -0,0 +1,31 @@
+#!/bin/bash
+set -e
+
+# Compares full table scans through the default Jackcess FileChannel and the
+# memory-mapped read-only channel used for the FFE player database.
+# Usage: ./bench/run_channel_benchmark.sh [file.mdb] [table] [iterations]
+#
+# Without a file, a generated 2048-player tournament is converted to PAPI and
+# its JOUEUR table is scanned. Pass the FFE Data.mdb and JOUEUR for the large case.
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+OUT_DIR="$ROOT_DIR/build/bench-channel"
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$BENCH_DIR"/ChannelScanBenchmark.java
+
+INPUT="$1"
+if [ -z "$INPUT" ]; then
+  "$ROOT_DIR/generate_training_tournament.sh" "$OUT_DIR/tournament.json" 2048 9
+  (cd "$ROOT_DIR" && java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.PapiConverter \
+    "$OUT_DIR/tournament.json" "$OUT_DIR/tournament.papi" > /dev/null)
+  INPUT="$OUT_DIR/tournament.papi"
+fi
+java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.bench.ChannelScanBenchmark "$INPUT" "${2:-JOUEUR}" "${3:-20}"
@@ -0,0 +1,25 @@
+#!/bin/bash
+set -e
+
+# Measures how the throughput of one shared TournamentConverter instance scales
+# with the number of threads, for PAPI to JSON and JSON to PAPI conversions.
+# Usage: ./bench/run_concurrency_benchmark.sh [players] [iterations]
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+PLAYERS="${1:-512}"
+ITERATIONS="${2:-20}"
+OUT_DIR="$ROOT_DIR/build/bench-concurrency"
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$BENCH_DIR"/ConverterConcurrencyBenchmark.java
+
+"$ROOT_DIR/generate_training_tournament.sh" "$OUT_DIR/tournament.json" "$PLAYERS" 9
+java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.bench.ConverterConcurrencyBenchmark \
+  "$OUT_DIR/tournament.json" "$ROOT_DIR/static/template-3.3.8.papi" "$ITERATIONS"
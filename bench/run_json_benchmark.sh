@@ -0,0 +1,36 @@
+#!/bin/bash
+set -e
+
+# Compares parse/serialize throughput and allocation of the streaming tournament
+# codec with the former Jackson databind path.
+# Usage: ./bench/run_json_benchmark.sh [players] [iterations]
+#
+# Jackson databind is no longer an application dependency; the benchmark
+# downloads its own copy into bench/lib.
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+PLAYERS="${1:-2048}"
+ITERATIONS="${2:-50}"
+OUT_DIR="$ROOT_DIR/build/bench"
+
+mkdir -p "$BENCH_DIR/lib"
+for artifact in jackson-databind jackson-annotations; do
+  if [ ! -f "$BENCH_DIR/lib/$artifact-2.15.2.jar" ]; then
+    echo "Downloading $artifact..."
+    curl -sL -o "$BENCH_DIR/lib/$artifact-2.15.2.jar" \
+      "https://repo1.maven.org/maven2/com/fasterxml/jackson/core/$artifact/2.15.2/$artifact-2.15.2.jar"
+  fi
+done
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar "$BENCH_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$BENCH_DIR"/*.java
+
+"$ROOT_DIR/generate_training_tournament.sh" "$OUT_DIR/tournament.json" "$PLAYERS" 9
+java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.bench.JsonCodecBenchmark "$OUT_DIR/tournament.json" "$ITERATIONS"
@@ -0,0 +1,24 @@
+#!/bin/bash
+set -e
+
+# Compares the binary tournament snapshot with the JSON export:
+# encoded size and encode/decode time.
+# Usage: ./bench/run_snapshot_benchmark.sh [players] [iterations]
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+PLAYERS="${1:-2048}"
+ITERATIONS="${2:-200}"
+OUT_DIR="$ROOT_DIR/build/bench-snapshot"
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$BENCH_DIR"/SnapshotBenchmark.java
+
+"$ROOT_DIR/generate_training_tournament.sh" "$OUT_DIR/tournament.json" "$PLAYERS" 9
+java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.bench.SnapshotBenchmark "$OUT_DIR/tournament.json" "$ITERATIONS"
@@ -0,0 +1,21 @@
+#!/bin/bash
+set -e
+
+# Compares the columnar standings engine with recomputing the standings from
+# the nested round maps of the JSON export.
+# Usage: ./bench/run_standings_benchmark.sh [players] [rounds] [iterations]
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+OUT_DIR="$ROOT_DIR/build/bench-standings"
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$BENCH_DIR"/StandingsBenchmark.java
+
+java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.bench.StandingsBenchmark "${1:-5000}" "${2:-13}" "${3:-1000}"
@@ -0,0 +1,80 @@
+#!/bin/bash
+set -e
+
+# Compares two native binaries (e.g. default build vs. PGO build) on startup time,
+# peak RSS and conversion throughput, and prints a Markdown table.
+# Usage: ./benchmark_native.sh <reference-binary> <candidate-binary> [runs]
+#
+# Set BENCH_PLAYERDB to the path of an FFE Data.mdb to include the player database conversion.
+
+ROOT_DIR="$(cd "$(dirname "$0")" && pwd)"
+REFERENCE="$1"
+CANDIDATE="$2"
+RUNS="${3:-5}"
+PLAYERS=2048
+
+if [ -z "$REFERENCE" ] || [ -z "$CANDIDATE" ]; then
+  echo "Usage: $0 <reference-binary> <candidate-binary> [runs]"
+  exit 1
+fi
+
+WORK_DIR="$(mktemp -d)"
+trap 'rm -rf "$WORK_DIR"' EXIT
+cd "$ROOT_DIR"
+
+"$ROOT_DIR/generate_training_tournament.sh" "$WORK_DIR/bench.json" "$PLAYERS" 9
+"$REFERENCE" "$WORK_DIR/bench.json" "$WORK_DIR/bench.papi" > /dev/null
+
+# Prints "<seconds> <peak-rss-kb>" for one run of a command
+measure() {
+  local output
+  if [ "$(uname)" = "Darwin" ]; then
+    output=$( { /usr/bin/time -l "$@" > /dev/null 2> /dev/null; } 2>&1 || true )
+    local seconds=$(echo "$output" | awk '/ real / {print $1}')
+    local rss=$(echo "$output" | awk '/maximum resident set size/ {print int($1 / 1024)}')
+  else
+    output=$( { /usr/bin/time -v "$@" > /dev/null 2> /dev/null; } 2>&1 || true )
+    local seconds=$(echo "$output" | awk -F': ' '/Elapsed \(wall clock\)/ {n = split($2, t, ":"); s = 0; for (i = 1; i <= n; i++) s = s * 60 + t[i]; print s}')
+    local rss=$(echo "$output" | awk -F': ' '/Maximum resident set size/ {print $2}')
+  fi
+  echo "$seconds $rss"
+}
+
+# Prints "<best-seconds> <max-peak-rss-kb>" over several runs
+best_of() {
+  local best="" peak=0
+  for ((i = 0; i < RUNS; i++)); do
+    read -r seconds rss <<< "$(measure "$@")"
+    if [ -z "$best" ] || awk -v a="$seconds" -v b="$best" 'BEGIN { exit !(a < b) }'; then
+      best="$seconds"
+    fi
+    if [ "${rss:-0}" -gt "$peak" ]; then
+      peak="$rss"
+    fi
+  done
+  echo "$best $peak"
+}
+
+report() {
+  local mode="$1" items="$2"
+  shift 2
+  read -r ref_time ref_rss <<< "$(best_of "$REFERENCE" "$@")"
+  read -r cand_time cand_rss <<< "$(best_of "$CANDIDATE" "$@")"
+  if [ "$items" -gt 0 ]; then
+    ref_rate=$(awk -v n="$items" -v t="$ref_time" 'BEGIN { printf "%.0f/s", (t > 0 ? n / t : 0) }')
+    cand_rate=$(awk -v n="$items" -v t="$cand_time" 'BEGIN { printf "%.0f/s", (t > 0 ? n / t : 0) }')
+  else
+    ref_rate="-"
+    cand_rate="-"
+  fi
+  echo "| $mode | ${ref_time}s | ${cand_time}s | ${ref_rss} KB | ${cand_rss} KB | $ref_rate | $cand_rate |"
+}
+
+echo "| Mode | Time (reference) | Time (candidate) | Peak RSS (reference) | Peak RSS (candidate) | Players (reference) | Players (candidate) |"
+echo "| --- | --- | --- | --- | --- | --- | --- |"
+report "Startup (usage)" 0 --help
+report "JSON to PAPI ($PLAYERS players)" "$PLAYERS" "$WORK_DIR/bench.json" "$WORK_DIR/out.papi"
+report "PAPI to JSON ($PLAYERS players)" "$PLAYERS" "$WORK_DIR/bench.papi" "$WORK_DIR/out.json"
+if [ -n "$BENCH_PLAYERDB" ] && [ -f "$BENCH_PLAYERDB" ]; then
+  report "Player database" 0 --playerdb "$BENCH_PLAYERDB" "$WORK_DIR/players.sql"
+fi
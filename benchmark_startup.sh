@@ -0,0 +1,58 @@
+#!/bin/bash
+set -e
+
+# Compares the cold start of the jlink'd JVM distribution with and without the
+# AppCDS archive built by build_cds_linux.sh, and prints a Markdown table.
+# Usage: ./benchmark_startup.sh [runs]
+
+ROOT_DIR="$(cd "$(dirname "$0")" && pwd)"
+RUNS="${1:-10}"
+JAVA="$ROOT_DIR/jre-linux/bin/java"
+ARCHIVE="$ROOT_DIR/jre-linux/lib/papiconverter.jsa"
+MAIN_CLASS=org.sharlychess.papiconverter.PapiConverter
+# Same classpath as the launcher
+CP="$ROOT_DIR/dist/java/papiconverter.jar"
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="$CP:$jar"
+done
+
+if [ ! -f "$ARCHIVE" ]; then
+  echo "Error: $ARCHIVE not found, run build_cds_linux.sh first"
+  exit 1
+fi
+
+WORK_DIR="$(mktemp -d)"
+trap 'rm -rf "$WORK_DIR"' EXIT
+cd "$ROOT_DIR"
+
+"$JAVA" -cp "$CP" $MAIN_CLASS "$ROOT_DIR/example.json" "$WORK_DIR/example.papi" > /dev/null
+
+# Prints "<best-ms> <mean-ms>" over RUNS runs of a command
+time_runs() {
+  local best="" total=0
+  for ((i = 0; i < RUNS; i++)); do
+    local start=$(date +%s%N)
+    "$@" > /dev/null 2>&1 || true
+    local elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    total=$((total + elapsed))
+    if [ -z "$best" ] || [ "$elapsed" -lt "$best" ]; then
+      best=$elapsed
+    fi
+  done
+  echo "$best $((total / RUNS))"
+}
+
+report() {
+  local mode="$1"
+  shift
+  read -r off_best off_mean <<< "$(time_runs "$JAVA" -Xshare:off -cp "$CP" $MAIN_CLASS "$@")"
+  read -r cds_best cds_mean <<< "$(time_runs "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -cp "$CP" $MAIN_CLASS "$@")"
+  local speedup=$(awk -v a="$off_mean" -v b="$cds_mean" 'BEGIN { printf "%.2fx", (b > 0 ? a / b : 0) }')
+  echo "| $mode | ${off_best} ms | ${off_mean} ms | ${cds_best} ms | ${cds_mean} ms | $speedup |"
+}
+
+echo "| Mode | Best (no CDS) | Mean (no CDS) | Best (CDS) | Mean (CDS) | Speedup (mean) |"
+echo "| --- | --- | --- | --- | --- | --- |"
+report "Startup (usage)"
+report "JSON to PAPI (example.json)" "$ROOT_DIR/example.json" "$WORK_DIR/out.papi"
+report "PAPI to JSON (example.json)" "$WORK_DIR/example.papi" "$WORK_DIR/out.json"
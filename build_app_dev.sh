@@ -18,7 +18,7 @@ export PATH="$JAVA_HOME/bin:$PATH"
 echo "Using Java: $(java -version 2>&1 | head -n 1)"
 
 # Build classpath for libraries (same as Windows version)
-CP="$ROOT_DIR/lib/jackcess-4.0.5.jar:$ROOT_DIR/lib/commons-lang3-3.12.0.jar:$ROOT_DIR/lib/commons-logging-1.2.jar:$ROOT_DIR/lib/jackson-core-2.15.2.jar:$ROOT_DIR/lib/jackson-databind-2.15.2.jar:$ROOT_DIR/lib/jackson-annotations-2.15.2.jar:$ROOT_DIR/lib/h2-2.2.224.jar:$ROOT_DIR/lib/slf4j-api-2.0.9.jar:$ROOT_DIR/lib/slf4j-simple-2.0.9.jar"
+CP="$ROOT_DIR/lib/jackcess-4.0.5.jar:$ROOT_DIR/lib/commons-lang3-3.12.0.jar:$ROOT_DIR/lib/commons-logging-1.2.jar:$ROOT_DIR/lib/jackson-core-2.15.2.jar:$ROOT_DIR/lib/h2-2.2.224.jar:$ROOT_DIR/lib/slf4j-api-2.0.9.jar:$ROOT_DIR/lib/slf4j-simple-2.0.9.jar"
 
 echo "Cleaning previous build..."
 rm -rf "$BUILD_DIR" "$DIST_DIR"
@@ -33,8 +33,6 @@ jar xf "$ROOT_DIR/lib/jackcess-4.0.5.jar"
 jar xf "$ROOT_DIR/lib/commons-lang3-3.12.0.jar"
 jar xf "$ROOT_DIR/lib/commons-logging-1.2.jar"
 jar xf "$ROOT_DIR/lib/jackson-core-2.15.2.jar"
-jar xf "$ROOT_DIR/lib/jackson-databind-2.15.2.jar"
-jar xf "$ROOT_DIR/lib/jackson-annotations-2.15.2.jar"
 jar xf "$ROOT_DIR/lib/h2-2.2.224.jar"
 jar xf "$ROOT_DIR/lib/slf4j-api-2.0.9.jar"
 jar xf "$ROOT_DIR/lib/slf4j-simple-2.0.9.jar"
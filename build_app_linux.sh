@@ -48,8 +48,18 @@ echo "Creating launcher..."
 cat > "$ROOT_DIR/papi-converter" << 'EOF'
 #!/bin/bash
 DIR="$(cd "$(dirname "$0")" && pwd)"
-CP="$DIR/dist/java/papiconverter.jar:$DIR/lib/*"
-"$DIR/jre-linux/bin/java" -cp "$CP" org.sharlychess.papiconverter.PapiConverter "$@"
+CP="$DIR/dist/java/papiconverter.jar"
+# Sorted, so the classpath is the same as when the CDS archive was dumped
+for jar in "$DIR"/lib/*.jar; do
+  CP="$CP:$jar"
+done
+# Map the class data sharing archive built by build_cds_linux.sh, if present.
+# JVM warnings go to stderr so they never end up in piped output.
+JAVA_OPTS=(-Xlog:disable -Xlog:all=warning:stderr)
+if [ -f "$DIR/jre-linux/lib/papiconverter.jsa" ]; then
+  JAVA_OPTS+=(-XX:SharedArchiveFile="$DIR/jre-linux/lib/papiconverter.jsa" -Xshare:auto)
+fi
+"$DIR/jre-linux/bin/java" "${JAVA_OPTS[@]}" -cp "$CP" org.sharlychess.papiconverter.PapiConverter "$@"
 EOF
 
 chmod +x "$ROOT_DIR/papi-converter"
@@ -34,15 +34,39 @@ echo "Creating JAR..."
 cd "$BUILD_DIR"
 jar cfe "$ROOT_DIR/papiconverter.jar" org.sharlychess.papiconverter.PapiConverter .
 
+# Native image options shared by the instrumented and final builds.
+# Pure static lookup tables are initialized at build time; Flight Recorder support is
+# kept for --jfr.
+NATIVE_IMAGE_OPTS=(
+  --no-fallback
+  -H:+UnlockExperimentalVMOptions
+  -H:ReflectionConfigurationFiles=src/main/resources/META-INF/native-image/reflect-config.json
+  -H:ResourceConfigurationFiles=src/main/resources/META-INF/native-image/resource-config.json
+  -H:+JNI
+  --enable-url-protocols=http,https
+  --enable-monitoring=jfr
+  --initialize-at-build-time=org.sharlychess.papiconverter.VariableMapping,org.sharlychess.papiconverter.PairingRules,org.sharlychess.papiconverter.PlayerConverter,org.sharlychess.papiconverter.PlayerField,org.sharlychess.papiconverter.TournamentFormat,org.sharlychess.papiconverter.Tiebreak,org.sharlychess.papiconverter.StandingsEngine
+)
+
+cd "$ROOT_DIR"
+
+# Profile-guided optimization: build an instrumented binary, run the training
+# workload on it, then build the final binary with the collected profiles.
+# Set PGO=0 to build with default optimizations only.
+PGO_OPTS=()
+if [ "${PGO:-1}" = "1" ]; then
+  echo "Building instrumented native binary..."
+  native-image "${NATIVE_IMAGE_OPTS[@]}" --pgo-instrument \
+    -cp "$ROOT_DIR/papiconverter.jar:$LIB_CLASSPATH" org.sharlychess.papiconverter.PapiConverter "$BUILD_DIR/papi-converter-instrumented"
+
+  echo "Running PGO training workload..."
+  "$ROOT_DIR/pgo_training.sh" "$BUILD_DIR/papi-converter-instrumented" "$BUILD_DIR/pgo"
+  PGO_OPTS=(--pgo="$(ls "$BUILD_DIR"/pgo/*.iprof | paste -sd, -)")
+fi
+
 # Build native image
 echo "Building native binary..."
-cd "$ROOT_DIR"
-native-image --no-fallback \
-  -H:+UnlockExperimentalVMOptions \
-  -H:ReflectionConfigurationFiles=src/main/resources/META-INF/native-image/reflect-config.json \
-  -H:ResourceConfigurationFiles=src/main/resources/META-INF/native-image/resource-config.json \
-  -H:+JNI \
-  --enable-url-protocols=http,https \
+native-image "${NATIVE_IMAGE_OPTS[@]}" ${PGO_OPTS[@]+"${PGO_OPTS[@]}"} \
   -cp "$ROOT_DIR/papiconverter.jar:$LIB_CLASSPATH" org.sharlychess.papiconverter.PapiConverter "$DIST_DIR/papi-converter"
 
 # Clean up intermediate files
@@ -54,3 +78,4 @@ echo "Copying static resources..."
 cp -r "$ROOT_DIR/static" "$DIST_DIR/"
 
 echo "Build completed successfully! Binary is located at $DIST_DIR/papi-converter"
+echo "Binary size: $(du -h "$DIST_DIR/papi-converter" | cut -f1)"
@@ -0,0 +1,81 @@
+#!/bin/bash
+set -e
+
+# Builds an AppCDS archive for the jlink'd runtime in jre-linux.
+# The classes loaded by a training run of each conversion mode are dumped into
+# jre-linux/lib/papiconverter.jsa, which the papi-converter launcher maps at startup.
+# Run after build_app_linux.sh and build_jre_linux.sh.
+#
+# Set CDS_PLAYERDB to the path of an FFE Data.mdb to also archive the H2 classes
+# used by the player database conversion.
+
+ROOT_DIR="$(cd "$(dirname "$0")" && pwd)"
+JAVA="$ROOT_DIR/jre-linux/bin/java"
+ARCHIVE="$ROOT_DIR/jre-linux/lib/papiconverter.jsa"
+MAIN_CLASS=org.sharlychess.papiconverter.PapiConverter
+
+# Must match the launcher's classpath (see build_app_linux.sh), jars in sorted order
+CP="$ROOT_DIR/dist/java/papiconverter.jar"
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="$CP:$jar"
+done
+
+if [ ! -x "$JAVA" ]; then
+  echo "Error: $JAVA not found, run build_jre_linux.sh first"
+  exit 1
+fi
+if [ ! -f "$ROOT_DIR/dist/java/papiconverter.jar" ]; then
+  echo "Error: dist/java/papiconverter.jar not found, run build_app_linux.sh first"
+  exit 1
+fi
+
+WORK_DIR="$(mktemp -d)"
+trap 'rm -rf "$WORK_DIR"' EXIT
+cd "$ROOT_DIR"
+
+echo "Generating training tournament..."
+"$ROOT_DIR/generate_training_tournament.sh" "$WORK_DIR/training.json" 64 5
+printf '{"round": 5, "results": [{"player": 0, "opponent": 5, "color": "B", "result": 2}]}\n' > "$WORK_DIR/round.json"
+
+train() {
+  local name="$1"
+  shift
+  echo "Training: $name"
+  "$JAVA" -Xshare:off -XX:DumpLoadedClassList="$WORK_DIR/$name.classlist" -cp "$CP" $MAIN_CLASS "$@" > /dev/null
+}
+
+train usage || true
+train json-to-papi "$WORK_DIR/training.json" "$WORK_DIR/training.papi"
+train bulk --bulk "$WORK_DIR/training.json" "$WORK_DIR/training-bulk.papi"
+train papi-to-json "$WORK_DIR/training.papi" "$WORK_DIR/training-export.json"
+train standings --standings "$WORK_DIR/training.papi" "$WORK_DIR/training-standings.json"
+train metrics --metrics="$WORK_DIR/metrics.json" --progress "$WORK_DIR/training.papi" "$WORK_DIR/training-metrics.json" 2> /dev/null
+train incremental --incremental "$WORK_DIR/training.papi" "$WORK_DIR/training-export.json"
+train update --update "$WORK_DIR/training.json" "$WORK_DIR/training.papi"
+train results --results "$WORK_DIR/round.json" "$WORK_DIR/training.papi"
+train check --check "$WORK_DIR/training.papi" || true
+mkdir -p "$WORK_DIR/archive"
+cp "$WORK_DIR/training.papi" "$WORK_DIR/archive/"
+train archive --archive "$WORK_DIR/archive" "$WORK_DIR/archive.sql"
+train pipe --to json - - < "$WORK_DIR/training.papi"
+train snapshot --format bin "$WORK_DIR/training.papi" "$WORK_DIR/training.tsnap"
+train snapshot-to-papi "$WORK_DIR/training.tsnap" "$WORK_DIR/training-snapshot.papi"
+train diff --diff "$WORK_DIR/training-snapshot.papi" "$WORK_DIR/training.papi" "$WORK_DIR/diff.json"
+
+if [ -n "$CDS_PLAYERDB" ] && [ -f "$CDS_PLAYERDB" ]; then
+  train playerdb --playerdb "$CDS_PLAYERDB" "$WORK_DIR/players.sql"
+else
+  echo "Warning: CDS_PLAYERDB not set, the player database classes are not archived"
+fi
+
+# Class lists keep the order of first loading; duplicates across modes are dropped
+awk '!seen[$0]++' "$WORK_DIR"/*.classlist > "$WORK_DIR/papiconverter.classlist"
+
+echo "Dumping CDS archive..."
+rm -f "$ARCHIVE"
+"$JAVA" -Xshare:dump \
+  -XX:SharedClassListFile="$WORK_DIR/papiconverter.classlist" \
+  -XX:SharedArchiveFile="$ARCHIVE" \
+  -cp "$CP" > "$WORK_DIR/dump.log" 2>&1 || { cat "$WORK_DIR/dump.log"; exit 1; }
+
+echo "CDS archive written to $ARCHIVE ($(du -h "$ARCHIVE" | cut -f1))"
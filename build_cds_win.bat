@@ -0,0 +1,88 @@
+@echo off
+setlocal enabledelayedexpansion
+
+:: Builds an AppCDS archive for the jlink'd runtime in jre-win.
+:: The classes loaded by a training run of each conversion mode are dumped into
+:: jre-win\lib\papiconverter.jsa, which papi-converter.bat maps at startup.
+:: Run after build_app_win.bat and build_jre_win.bat.
+::
+:: Set CDS_PLAYERDB to the path of an FFE Data.mdb to also archive the H2 classes
+:: used by the player database conversion.
+
+set ROOTDIR=%~dp0
+set ROOTDIR=%ROOTDIR:~0,-1%
+set JAVA=%ROOTDIR%\jre-win\bin\java.exe
+set ARCHIVE=%ROOTDIR%\jre-win\lib\papiconverter.jsa
+set MAINCLASS=org.sharlychess.papiconverter.PapiConverter
+set WORKDIR=%TEMP%\papi-converter-cds
+
+:: Must match the launcher's classpath
+set CP=%ROOTDIR%\dist\java\papiconverter.jar
+
+if not exist "%JAVA%" (
+    echo Error: %JAVA% not found, run build_jre_win.bat first
+    exit /b 1
+)
+if not exist "%CP%" (
+    echo Error: dist\java\papiconverter.jar not found, run build_app_win.bat first
+    exit /b 1
+)
+
+if exist "%WORKDIR%" rmdir /s /q "%WORKDIR%"
+mkdir "%WORKDIR%"
+cd /d %ROOTDIR%
+
+echo {"round": 1, "results": [{"player": 0, "opponent": 1, "color": "B", "result": 2}]} > "%WORKDIR%\round.json"
+
+echo Training: usage
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\usage.classlist" -cp "%CP%" %MAINCLASS% > nul
+echo Training: json-to-papi
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\json-to-papi.classlist" -cp "%CP%" %MAINCLASS% "%ROOTDIR%\example.json" "%WORKDIR%\training.papi" > nul || exit /b 1
+echo Training: bulk
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\bulk.classlist" -cp "%CP%" %MAINCLASS% --bulk "%ROOTDIR%\example.json" "%WORKDIR%\training-bulk.papi" > nul || exit /b 1
+echo Training: papi-to-json
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\papi-to-json.classlist" -cp "%CP%" %MAINCLASS% "%WORKDIR%\training.papi" "%WORKDIR%\training.json" > nul || exit /b 1
+echo Training: standings
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\standings.classlist" -cp "%CP%" %MAINCLASS% --standings "%WORKDIR%\training.papi" "%WORKDIR%\training-standings.json" > nul || exit /b 1
+echo Training: metrics
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\metrics.classlist" -cp "%CP%" %MAINCLASS% --metrics="%WORKDIR%\metrics.json" --progress "%WORKDIR%\training.papi" "%WORKDIR%\training-metrics.json" > nul 2> nul || exit /b 1
+echo Training: incremental
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\incremental.classlist" -cp "%CP%" %MAINCLASS% --incremental "%WORKDIR%\training.papi" "%WORKDIR%\training.json" > nul || exit /b 1
+echo Training: update
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\update.classlist" -cp "%CP%" %MAINCLASS% --update "%ROOTDIR%\example.json" "%WORKDIR%\training.papi" > nul || exit /b 1
+echo Training: results
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\results.classlist" -cp "%CP%" %MAINCLASS% --results "%WORKDIR%\round.json" "%WORKDIR%\training.papi" > nul || exit /b 1
+echo Training: check
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\check.classlist" -cp "%CP%" %MAINCLASS% --check "%WORKDIR%\training.papi" > nul
+echo Training: archive
+mkdir "%WORKDIR%\archive"
+copy /y "%WORKDIR%\training.papi" "%WORKDIR%\archive\" > nul
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\archive.classlist" -cp "%CP%" %MAINCLASS% --archive "%WORKDIR%\archive" "%WORKDIR%\archive.sql" > nul || exit /b 1
+echo Training: pipe
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\pipe.classlist" -cp "%CP%" %MAINCLASS% --to json - - < "%WORKDIR%\training.papi" > nul || exit /b 1
+echo Training: snapshot
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\snapshot.classlist" -cp "%CP%" %MAINCLASS% --format bin "%WORKDIR%\training.papi" "%WORKDIR%\training.tsnap" > nul || exit /b 1
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\snapshot-to-papi.classlist" -cp "%CP%" %MAINCLASS% "%WORKDIR%\training.tsnap" "%WORKDIR%\training-snapshot.papi" > nul || exit /b 1
+echo Training: diff
+"%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\diff.classlist" -cp "%CP%" %MAINCLASS% --diff "%WORKDIR%\training-snapshot.papi" "%WORKDIR%\training.papi" "%WORKDIR%\diff.json" > nul || exit /b 1
+
+if defined CDS_PLAYERDB (
+    echo Training: playerdb
+    "%JAVA%" -Xshare:off -XX:DumpLoadedClassList="%WORKDIR%\playerdb.classlist" -cp "%CP%" %MAINCLASS% --playerdb "%CDS_PLAYERDB%" "%WORKDIR%\players.sql" > nul || exit /b 1
+) else (
+    echo Warning: CDS_PLAYERDB not set, the player database classes are not archived
+)
+
+:: Duplicate entries across modes are ignored by the dump
+copy /b "%WORKDIR%\*.classlist" "%WORKDIR%\papiconverter.classlist.all" > nul
+
+echo Dumping CDS archive...
+if exist "%ARCHIVE%" del "%ARCHIVE%"
+"%JAVA%" -Xshare:dump -XX:SharedClassListFile="%WORKDIR%\papiconverter.classlist.all" -XX:SharedArchiveFile="%ARCHIVE%" -cp "%CP%" > "%WORKDIR%\dump.log" 2>&1
+if errorlevel 1 (
+    type "%WORKDIR%\dump.log"
+    exit /b 1
+)
+
+rmdir /s /q "%WORKDIR%"
+echo CDS archive written to %ARCHIVE%
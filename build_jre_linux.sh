@@ -1,5 +1,5 @@
 #!/bin/bash
 jlink \
-  --add-modules java.base,java.sql,java.scripting \
+  --add-modules java.base,java.sql,java.scripting,java.management,java.xml,jdk.jfr \
   --output jre-linux \
   --strip-debug --no-man-pages --no-header-files --compress=2
@@ -1,3 +1,3 @@
-jlink --add-modules java.base,java.sql,java.scripting ^
+jlink --add-modules java.base,java.sql,java.scripting,java.management,java.xml,jdk.jfr ^
       --output jre-win ^
       --strip-debug --no-man-pages --no-header-files --compress=2
@@ -0,0 +1,68 @@
+#!/bin/bash
+set -e
+
+# Generates a synthetic tournament JSON file used as training and benchmark workload.
+# Usage: ./generate_training_tournament.sh <output.json> [players] [rounds]
+#
+# Players are paired by XOR of their index with the round number, which gives
+# symmetric pairings without any player meeting the same opponent twice.
+# The number of players is rounded up to a power of two for that reason.
+
+OUTPUT="$1"
+PLAYERS="${2:-2048}"
+ROUNDS="${3:-9}"
+
+if [ -z "$OUTPUT" ]; then
+  echo "Usage: $0 <output.json> [players] [rounds]"
+  exit 1
+fi
+
+awk -v players="$PLAYERS" -v rounds="$ROUNDS" '
+# Bitwise XOR (macOS awk has no xor builtin)
+function bxor(a, b,    result, bit) {
+  result = 0
+  bit = 1
+  while (a > 0 || b > 0) {
+    if ((a % 2) != (b % 2)) result += bit
+    a = int(a / 2)
+    b = int(b / 2)
+    bit *= 2
+  }
+  return result
+}
+
+BEGIN {
+  n = 1
+  while (n < players) n *= 2
+
+  print "{"
+  print "  \"variables\": {"
+  print "    \"name\": \"Training Open\","
+  print "    \"type\": \"Swiss\","
+  print "    \"rounds\": \"" rounds "\","
+  print "    \"pairing\": \"Suisse\","
+  print "    \"timeControl\": \"90min+30sec\","
+  print "    \"tiebreak1\": \"Buchholz\","
+  print "    \"tiebreak2\": \"Performance\","
+  print "    \"venue\": \"Training Hall\","
+  print "    \"startDate\": \"2024-01-15\","
+  print "    \"endDate\": \"2024-01-21\""
+  print "  },"
+  print "  \"players\": ["
+  for (i = 0; i < n; i++) {
+    printf "    {\"lastName\": \"Player%d\", \"firstName\": \"Training\", \"gender\": \"%s\", ", i, (i % 5 == 0 ? "F" : "M")
+    printf "\"birthDate\": \"%02d/%02d/%d\", \"elo\": %d, \"rapidElo\": %d, \"blitzElo\": %d, ", (i % 28) + 1, (i % 12) + 1, 1950 + (i % 60), 2700 - i % 1500, 2650 - i % 1400, 2600 - i % 1300
+    printf "\"federation\": \"FRA\", \"club\": \"Club %d\", \"nrFFE\": \"K%05d\", \"rounds\": {", i % 300, i
+    for (r = 1; r <= rounds; r++) {
+      j = bxor(i, r)
+      outcome = ((i < j ? i : j) + r) % 3
+      if (outcome == 0) result = (i < j ? 3 : 1)
+      else if (outcome == 1) result = 2
+      else result = (i < j ? 1 : 3)
+      printf "%s\"%d\": {\"color\": \"%s\", \"opponent\": %d, \"result\": %d}", (r > 1 ? ", " : ""), r, (i < j ? "B" : "N"), j, result
+    }
+    printf "}}%s\n", (i < n - 1 ? "," : "")
+  }
+  print "  ]"
+  print "}"
+}' > "$OUTPUT"
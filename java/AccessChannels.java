@@ -0,0 +1,71 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import com.healthmarketscience.jackcess.*;
+import com.healthmarketscience.jackcess.util.MemFileChannel;
+
+/**
+ * Opens Access databases on channels other than a plain file, so that
+ * conversions can run without temporary files.
+ */
+public class AccessChannels {
+
+    /**
+     * Name given to databases that are not backed by a file. Jackcess only
+     * uses it for messages since the channel is provided.
+     */
+    private static final String IN_MEMORY_NAME = "in-memory.mdb";
+
+    /**
+     * Reads a whole Access file from a stream into memory.
+     * @param in The stream containing the Access file
+     * @return A writable in-memory channel with the file contents
+     * @throws IOException if the stream cannot be read
+     */
+    public static MemFileChannel readToMemory(InputStream in) throws IOException {
+        return MemFileChannel.newChannel(in);
+    }
+
+    /**
+     * Opens a database on an existing channel. The channel is not closed with the database.
+     * @param channel The channel containing the Access file
+     * @param readOnly true to open the database read-only
+     * @return The open database
+     * @throws IOException if the database cannot be opened
+     */
+    public static Database open(FileChannel channel, boolean readOnly) throws IOException {
+        return open(new File(IN_MEMORY_NAME), channel, readOnly);
+    }
+    
+    /**
+     * Opens a database file through a channel opened by the caller. The channel is not closed with the database.
+     * @param file The database file, used for messages
+     * @param channel The channel on the file
+     * @param readOnly true to open the database read-only
+     * @return The open database
+     * @throws IOException if the database cannot be opened
+     */
+    public static Database open(File file, FileChannel channel, boolean readOnly) throws IOException {
+        return new DatabaseBuilder(file)
+            .setChannel(channel)
+            .setReadOnly(readOnly)
+            .open();
+    }
+
+    /**
+     * Writes the whole content of an in-memory channel to a stream.
+     * @param channel The in-memory channel
+     * @param out The destination stream, left open
+     * @return The number of bytes written
+     * @throws IOException if the stream cannot be written
+     */
+    public static long writeTo(MemFileChannel channel, OutputStream out) throws IOException {
+        long size = channel.transferTo(out);
+        out.flush();
+        return size;
+    }
+}
@@ -0,0 +1,381 @@
+package org.sharlychess.papiconverter;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Checks the pairing invariants of a PAPI file.
+ *
+ * The JOUEUR table is loaded in one scan into primitive arrays (one per round slot),
+ * then every round slot of every player is checked against its opponent's:
+ * symmetric pairings, mirrored colors and results, byes mirrored on EXEMPT (Ref 1),
+ * and valid color and result codes.
+ */
+public class ConsistencyChecker {
+
+    /**
+     * A violated invariant, located by round and player.
+     */
+    public static final class Violation {
+        private final int round;
+        private final int ref;
+        private final String player;
+        private final String message;
+
+        Violation(int round, int ref, String player, String message) {
+            this.round = round;
+            this.ref = ref;
+            this.player = player;
+            this.message = message;
+        }
+
+        /** @return Round number (1-24), or 0 if the violation is not tied to a round */
+        public int getRound() {
+            return round;
+        }
+
+        /** @return PAPI Ref of the player */
+        public int getRef() {
+            return ref;
+        }
+
+        /** @return Description of the violation */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            String location = "Ref " + ref + (player.isEmpty() ? "" : " (" + player + ")");
+            return (round > 0 ? "Round " + round + ", " : "") + location + ": " + message;
+        }
+    }
+
+    /**
+     * The JOUEUR columns checked, one entry per row in scan order.
+     */
+    static final class JoueurColumns {
+        int count;
+        int[] refs;
+        String[] names;
+        final int[][] opponents = new int[PairingRules.MAX_ROUNDS][];
+        final byte[][] colors = new byte[PairingRules.MAX_ROUNDS][];
+        final int[][] results = new int[PairingRules.MAX_ROUNDS][];
+
+        JoueurColumns(int capacity) {
+            refs = new int[capacity];
+            names = new String[capacity];
+            for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+                opponents[r] = new int[capacity];
+                colors[r] = new byte[capacity];
+                results[r] = new int[capacity];
+            }
+        }
+
+        void ensureCapacity() {
+            if (count < refs.length) {
+                return;
+            }
+            int capacity = Math.max(16, refs.length * 2);
+            refs = Arrays.copyOf(refs, capacity);
+            names = Arrays.copyOf(names, capacity);
+            for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+                opponents[r] = Arrays.copyOf(opponents[r], capacity);
+                colors[r] = Arrays.copyOf(colors[r], capacity);
+                results[r] = Arrays.copyOf(results[r], capacity);
+            }
+        }
+    }
+
+    /**
+     * Checks a PAPI file and prints every violation to standard output.
+     * @param papiFile Path to the PAPI file
+     * @return The number of violations
+     * @throws Exception if the file cannot be read
+     */
+    public static int run(String papiFile) throws Exception {
+        if (!Files.exists(Paths.get(papiFile))) {
+            throw new Exception("PAPI file not found: " + papiFile);
+        }
+        VerboseOutput.println("Checking " + papiFile + "...");
+
+        long start = System.nanoTime();
+        JoueurColumns columns = SnapshotReader.read(Paths.get(papiFile), ConsistencyChecker::load);
+        long loaded = System.nanoTime();
+        List<Violation> violations = check(columns);
+        long checked = System.nanoTime();
+
+        for (Violation violation : violations) {
+            VerboseOutput.alwaysPrintln(violation.toString());
+        }
+        VerboseOutput.println(String.format("  Loaded %d players in %.1f ms, checked %d round slots in %.1f ms",
+            columns.count, (loaded - start) / 1e6, columns.count * PairingRules.MAX_ROUNDS, (checked - loaded) / 1e6));
+        if (violations.isEmpty()) {
+            VerboseOutput.alwaysPrintln("No consistency problems found");
+        } else {
+            VerboseOutput.alwaysPrintln(violations.size() + " consistency problem(s) found");
+        }
+        return violations.size();
+    }
+
+    /**
+     * Checks the JOUEUR table of an open database.
+     * @param db The database
+     * @return The violations, by round then by Ref
+     * @throws Exception if the table cannot be read
+     */
+    public static List<Violation> check(Database db) throws Exception {
+        return check(load(db));
+    }
+
+    /**
+     * Loads the checked JOUEUR columns in one scan.
+     */
+    static JoueurColumns load(Database db) throws Exception {
+        return load(db, new JoueurColumns(db.getTable("JOUEUR").getRowCount()));
+    }
+
+    /**
+     * Loads the checked JOUEUR columns in one scan into existing arrays, which grow if needed.
+     * @param columns The columns to overwrite
+     * @return The columns
+     */
+    static JoueurColumns load(Database db, JoueurColumns columns) throws Exception {
+        Table joueurTable = db.getTable("JOUEUR");
+        String[] colorColumns = new String[PairingRules.MAX_ROUNDS];
+        String[] opponentColumns = new String[PairingRules.MAX_ROUNDS];
+        String[] resultColumns = new String[PairingRules.MAX_ROUNDS];
+        for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+            String prefix = PairingRules.roundPrefix(r + 1);
+            colorColumns[r] = prefix + "Cl";
+            opponentColumns[r] = prefix + "Adv";
+            resultColumns[r] = prefix + "Res";
+        }
+
+        columns.count = 0;
+        for (Row row : joueurTable) {
+            Object refObj = row.get("Ref");
+            if (!(refObj instanceof Number)) {
+                continue;
+            }
+            columns.ensureCapacity();
+            int p = columns.count++;
+            columns.refs[p] = ((Number) refObj).intValue();
+            columns.names[p] = playerName(row);
+            for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+                columns.opponents[r][p] = intValue(row.get(opponentColumns[r]));
+                columns.colors[r][p] = colorCode(row.get(colorColumns[r]));
+                columns.results[r][p] = intValue(row.get(resultColumns[r]));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Checks every round slot of every player.
+     */
+    static List<Violation> check(JoueurColumns columns) {
+        List<Violation> violations = new ArrayList<>();
+        int count = columns.count;
+
+        // Rows in Ref order, and the row of each Ref
+        long[] keys = new long[count];
+        for (int p = 0; p < count; p++) {
+            keys[p] = ((long) columns.refs[p] << 32) | p;
+        }
+        Arrays.sort(keys);
+        int[] rowsByRef = new int[count];
+        int[] sortedRefs = new int[count];
+        for (int i = 0; i < count; i++) {
+            rowsByRef[i] = (int) keys[i];
+            sortedRefs[i] = (int) (keys[i] >> 32);
+            if (sortedRefs[i] < 1) {
+                // Opponent columns use 0 for no opponent, so such a row cannot be paired
+                violations.add(violation(columns, 0, rowsByRef[i], "invalid Ref, Refs start at 1"));
+            } else if (i > 0 && sortedRefs[i] == sortedRefs[i - 1]) {
+                violations.add(violation(columns, 0, rowsByRef[i], "duplicate Ref"));
+            }
+        }
+        PlayerIndex index = PlayerIndex.of(sortedRefs);
+        int exemptIndex = index.indexOf(PairingRules.EXEMPT_REF);
+        int exemptRow = exemptIndex >= 0 ? rowsByRef[exemptIndex] : -1;
+        boolean exemptMissingReported = false;
+
+        for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+            int roundNum = r + 1;
+            int[] opponents = columns.opponents[r];
+            byte[] colors = columns.colors[r];
+            int[] results = columns.results[r];
+
+            for (int i = 0; i < count; i++) {
+                int p = rowsByRef[i];
+                int ref = columns.refs[p];
+                int opponentRef = opponents[p];
+                int color = colors[p];
+                int result = results[p];
+
+                if (color != 0 && color != 'B' && color != 'N' && color != 'R' && color != 'F') {
+                    violations.add(violation(columns, roundNum, p, "invalid color '" + (char) color + "'"));
+                }
+                if (result < 0 || result > PairingRules.MAX_RESULT) {
+                    violations.add(violation(columns, roundNum, p, "invalid result " + result));
+                    continue;
+                }
+
+                if (ref == PairingRules.EXEMPT_REF) {
+                    checkExemptSide(columns, index, rowsByRef, roundNum, p, violations);
+                    continue;
+                }
+
+                if (opponentRef <= 0) {
+                    if (PairingRules.mirrorResult(result) > 0) {
+                        violations.add(violation(columns, roundNum, p, "result " + result + " without opponent"));
+                    }
+                    continue;
+                }
+                if (opponentRef == ref) {
+                    violations.add(violation(columns, roundNum, p, "paired against itself"));
+                    continue;
+                }
+
+                if (opponentRef == PairingRules.EXEMPT_REF) {
+                    // Bye: the result is the bye result, and EXEMPT points back to this player
+                    // (or to another player with a bye in the same round, as it holds only one)
+                    if (result != 0 && result != PairingRules.BYE_RESULT) {
+                        violations.add(violation(columns, roundNum, p, "result " + result
+                            + " against EXEMPT, expected " + PairingRules.BYE_RESULT));
+                    }
+                    if (exemptRow < 0) {
+                        if (!exemptMissingReported) {
+                            violations.add(violation(columns, roundNum, p, "bye against EXEMPT, but there is no EXEMPT row (Ref 1)"));
+                            exemptMissingReported = true;
+                        }
+                        continue;
+                    }
+                    int exemptOpponent = opponents[exemptRow];
+                    if (exemptOpponent != ref && !hasBye(index, rowsByRef, opponents, exemptOpponent)) {
+                        violations.add(violation(columns, roundNum, p, "bye not mirrored on EXEMPT ("
+                            + describeOpponent(exemptOpponent) + " on the EXEMPT row)"));
+                    }
+                    continue;
+                }
+
+                int opponentIndex = index.indexOf(opponentRef);
+                if (opponentIndex < 0) {
+                    violations.add(violation(columns, roundNum, p, "opponent Ref " + opponentRef + " does not exist"));
+                    continue;
+                }
+                int q = rowsByRef[opponentIndex];
+                int mirroredOpponent = opponents[q];
+                if (mirroredOpponent != ref) {
+                    violations.add(violation(columns, roundNum, p, "plays Ref " + opponentRef + ", but Ref " + opponentRef
+                        + " has " + describeOpponent(mirroredOpponent)));
+                    continue;
+                }
+
+                // Symmetric pair: compare both sides once, from the lower Ref
+                if (ref > opponentRef) {
+                    continue;
+                }
+                int opponentColor = colors[q];
+                if (opponentColor != mirrorColor(color)) {
+                    violations.add(violation(columns, roundNum, p, "color " + describeColor(color) + " against Ref "
+                        + opponentRef + " with color " + describeColor(opponentColor)));
+                }
+                int opponentResult = results[q];
+                int expectedResult = PairingRules.mirrorResult(result);
+                if (expectedResult < 0) {
+                    violations.add(violation(columns, roundNum, p, "result " + result + " cannot have an opponent (Ref "
+                        + opponentRef + ")"));
+                } else if (opponentResult != expectedResult) {
+                    violations.add(violation(columns, roundNum, p, "result " + result + " against Ref " + opponentRef
+                        + " with result " + opponentResult + ", expected " + expectedResult));
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Checks the EXEMPT side of a bye.
+     */
+    private static void checkExemptSide(JoueurColumns columns, PlayerIndex index, int[] rowsByRef, int roundNum,
+            int exemptRow, List<Violation> violations) {
+        int r = roundNum - 1;
+        int opponentRef = columns.opponents[r][exemptRow];
+        if (opponentRef <= 0) {
+            return;
+        }
+        int opponentIndex = index.indexOf(opponentRef);
+        if (opponentIndex < 0) {
+            violations.add(violation(columns, roundNum, exemptRow, "opponent Ref " + opponentRef + " does not exist"));
+            return;
+        }
+        int byeRow = rowsByRef[opponentIndex];
+        if (columns.opponents[r][byeRow] != PairingRules.EXEMPT_REF) {
+            violations.add(violation(columns, roundNum, exemptRow, "bye of Ref " + opponentRef + ", but Ref " + opponentRef
+                + " has " + describeOpponent(columns.opponents[r][byeRow])));
+            return;
+        }
+        if (columns.results[r][exemptRow] != PairingRules.EXEMPT_RESULT) {
+            violations.add(violation(columns, roundNum, exemptRow, "result " + columns.results[r][exemptRow]
+                + " for the bye of Ref " + opponentRef + ", expected " + PairingRules.EXEMPT_RESULT));
+        }
+        if (columns.colors[r][exemptRow] != PairingRules.EXEMPT_COLOR.charAt(0)) {
+            violations.add(violation(columns, roundNum, exemptRow, "color " + describeColor(columns.colors[r][exemptRow])
+                + " for the bye of Ref " + opponentRef + ", expected " + PairingRules.EXEMPT_COLOR));
+        }
+    }
+
+    private static boolean hasBye(PlayerIndex index, int[] rowsByRef, int[] opponents, int ref) {
+        int playerIndex = ref > 0 ? index.indexOf(ref) : -1;
+        return playerIndex >= 0 && opponents[rowsByRef[playerIndex]] == PairingRules.EXEMPT_REF;
+    }
+
+    private static int mirrorColor(int color) {
+        if (color == 'B') {
+            return 'N';
+        } else if (color == 'N') {
+            return 'B';
+        }
+        return color;
+    }
+
+    private static String describeColor(int color) {
+        return color == 0 ? "none" : String.valueOf((char) color);
+    }
+
+    private static String describeOpponent(int ref) {
+        if (ref <= 0) {
+            return "no opponent";
+        }
+        return ref == PairingRules.EXEMPT_REF ? "EXEMPT as opponent" : "Ref " + ref + " as opponent";
+    }
+
+    private static Violation violation(JoueurColumns columns, int roundNum, int row, String message) {
+        return new Violation(roundNum, columns.refs[row], columns.names[row], message);
+    }
+
+    static String playerName(Row row) {
+        Object lastName = row.get(PlayerField.LAST_NAME.column());
+        Object firstName = row.get(PlayerField.FIRST_NAME.column());
+        String name = (lastName != null ? lastName.toString() : "") + " " + (firstName != null ? firstName.toString() : "");
+        return name.trim();
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static byte colorCode(Object color) {
+        if (color == null) {
+            return 0;
+        }
+        String text = color.toString().trim();
+        return text.isEmpty() ? 0 : (byte) text.charAt(0);
+    }
+}
@@ -0,0 +1,303 @@
+package org.sharlychess.papiconverter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local cache of conversion outputs, keyed by the content of the inputs.
+ *
+ * The key is the SHA-256 of the converter version, the conversion options and the
+ * bytes of every input file, streamed once. On a hit, the cached file is copied to
+ * the output, so an unchanged input only costs its hashing and a file copy. On a miss,
+ * the conversion runs and its output is copied to a private temporary file renamed
+ * into place, so concurrent runs and interrupted runs never leave a partial entry.
+ * Entries and outputs never share a file: editing an output doesn't change the cache.
+ *
+ * The cache is bounded in size: every hit refreshes the modification time of a small
+ * recency file next to its entry, and the least recently used entries are deleted
+ * when the total size exceeds the limit.
+ */
+public class ConversionCache {
+
+    /** Default size limit of a cache directory */
+    public static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+
+    /** Bumped when the converters change their output for the same input */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String ENTRY_SUFFIX = ".out";
+    private static final String USED_SUFFIX = ".used";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * A conversion writing its output file.
+     */
+    public interface Conversion {
+        void run() throws Exception;
+    }
+
+    /**
+     * Creates a cache in a directory, created if needed.
+     * @param directory The cache directory
+     * @param maxBytes Size limit of the cached outputs
+     */
+    public ConversionCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Produces an output file from the cache, or by running the conversion and caching its output.
+     * @param inputs Files the output depends on
+     * @param options Options of the conversion that change its output
+     * @param output The output file
+     * @param conversion Writes the output file
+     * @return true if the output came from the cache
+     * @throws Exception if an input cannot be read or the conversion fails
+     */
+    public boolean convert(List<Path> inputs, String options, Path output, Conversion conversion) throws Exception {
+        for (Path input : inputs) {
+            if (!Files.isRegularFile(input)) {
+                throw new Exception("Input file not found: " + input);
+            }
+        }
+        Files.createDirectories(directory);
+        long[] stamps = stamps(inputs);
+        String key;
+        Metrics.Phase inputHashPhase = Metrics.phase("input hash");
+        try {
+            key = key(inputs, options);
+        } finally {
+            inputHashPhase.close();
+        }
+        Path entry = directory.resolve(key + ENTRY_SUFFIX);
+
+        if (Files.isRegularFile(entry)) {
+            try {
+                markUsed(entry);
+                materialize(entry, output);
+                VerboseOutput.alwaysPrintln("Output served from the conversion cache (" + key.substring(0, 12) + ")");
+                Metrics.add(Metrics.BYTES_WRITTEN, Files.size(output));
+                return true;
+            } catch (IOException e) {
+                // Evicted by another run in the meantime: convert
+                VerboseOutput.println("  Cache entry " + key.substring(0, 12) + " unavailable: " + e.getMessage());
+            }
+        }
+
+        conversion.run();
+        if (!Arrays.equals(stamps, stamps(inputs))) {
+            // The input changed while it was converted: the output may not match the hash
+            VerboseOutput.println("  Input changed during the conversion, output not cached");
+            return false;
+        }
+        try {
+            store(output, entry);
+            evict();
+        } catch (IOException e) {
+            VerboseOutput.warningPrintln("Warning: Could not update the conversion cache: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Computes the cache key of a conversion.
+     */
+    private static String key(List<Path> inputs, String options) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(("papi-converter " + FORMAT_VERSION + " " + converterVersion() + "\n" + options + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        long hashed = 0;
+        for (Path input : inputs) {
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+                buffer.clear();
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    hashed += buffer.remaining();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+            digest.update((byte) 0);
+        }
+        Metrics.add(Metrics.BYTES_READ, hashed);
+        StringBuilder key = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Identifies the converter build: the jar version when there is one, otherwise
+     * the size and date of the jar, class directory or native executable.
+     */
+    private static String converterVersion() {
+        String version = ConversionCache.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        try {
+            Path code = null;
+            CodeSource source = ConversionCache.class.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null) {
+                code = Paths.get(source.getLocation().toURI());
+            } else if (ProcessHandle.current().info().command().isPresent()) {
+                code = Paths.get(ProcessHandle.current().info().command().get());
+            }
+            if (code != null) {
+                return Files.size(code) + "@" + Files.getLastModifiedTime(code).toMillis();
+            }
+        } catch (Exception e) {
+            // Fall through: the cache then only depends on the format version
+        }
+        return "unknown";
+    }
+
+    /**
+     * Gets the size and modification time of the inputs, to detect changes during a conversion.
+     */
+    private static long[] stamps(List<Path> inputs) throws IOException {
+        long[] stamps = new long[inputs.size() * 2];
+        for (int i = 0; i < inputs.size(); i++) {
+            stamps[2 * i] = Files.size(inputs.get(i));
+            stamps[2 * i + 1] = Files.getLastModifiedTime(inputs.get(i)).toMillis();
+        }
+        return stamps;
+    }
+
+    /**
+     * Replaces the output with a copy of the entry, through a temporary file next to the output.
+     */
+    private static void materialize(Path entry, Path output) throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        copyIntoPlace(entry, output);
+    }
+
+    /**
+     * Adds an output to the cache: copied to a private temporary file, then renamed into place.
+     */
+    private void store(Path output, Path entry) throws IOException {
+        copyIntoPlace(output, entry);
+        markUsed(entry);
+        VerboseOutput.println("  Output added to the conversion cache");
+    }
+
+    /**
+     * Copies a file to a temporary file in the directory of the target, then renames it
+     * to the target, so the target is never seen partially written.
+     */
+    private static void copyIntoPlace(Path source, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + "." + ProcessHandle.current().pid()
+            + "-" + Thread.currentThread().threadId() + TEMP_SUFFIX);
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Records the use of an entry in its recency file. Best effort: a read-only cache
+     * still serves its entries.
+     */
+    private static void markUsed(Path entry) {
+        Path used = usedFile(entry);
+        try {
+            if (!Files.exists(used)) {
+                Files.createFile(used);
+            }
+            Files.setLastModifiedTime(used, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            VerboseOutput.println("  Could not record the use of cache entry " + entry.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private static Path usedFile(Path entry) {
+        String name = entry.getFileName().toString();
+        return entry.resolveSibling(name.substring(0, name.length() - ENTRY_SUFFIX.length()) + USED_SUFFIX);
+    }
+
+    /**
+     * Gets the last use of an entry: its recency file, or the entry itself when it has none.
+     */
+    private static long lastUsed(Path entry) throws IOException {
+        Path used = usedFile(entry);
+        try {
+            return Files.getLastModifiedTime(used).toMillis();
+        } catch (IOException e) {
+            return Files.getLastModifiedTime(entry).toMillis();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits its size limit.
+     */
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, long[]> attributes = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            for (Path entry : stream) {
+                try {
+                    long size = Files.size(entry);
+                    attributes.put(entry, new long[] { size, lastUsed(entry) });
+                    entries.add(entry);
+                    total += size;
+                } catch (IOException e) {
+                    // Deleted by another run
+                }
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        entries.sort((a, b) -> Long.compare(attributes.get(a)[1], attributes.get(b)[1]));
+        int evicted = 0;
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            try {
+                // Only a file this run deleted frees space; another run accounts for its own deletions
+                if (Files.deleteIfExists(entry)) {
+                    evicted++;
+                    total -= attributes.get(entry)[0];
+                }
+                Files.deleteIfExists(usedFile(entry));
+            } catch (IOException e) {
+                VerboseOutput.println("  Could not evict cache entry " + entry.getFileName() + ": " + e.getMessage());
+            }
+        }
+        VerboseOutput.println("  Evicted " + evicted + " least recently used cache entries");
+    }
+}
@@ -0,0 +1,125 @@
+package org.sharlychess.papiconverter;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of the converters.
+ *
+ * Events follow the usual JFR pattern: create, {@code begin()}, do the work, then
+ * set the fields and {@code commit()} only if {@code shouldCommit()} returns true.
+ * When no recording enables them, the JIT removes the allocation and the check
+ * fails immediately, so fields that cost something to compute (such as file sizes)
+ * are only computed under {@code shouldCommit()}.
+ */
+final class ConversionEvents {
+
+    private static final String CATEGORY = "PAPI Converter";
+
+    private ConversionEvents() {
+    }
+
+    /**
+     * A whole conversion, from the input to the flushed output.
+     */
+    @Name("org.sharlychess.papiconverter.Conversion")
+    @Label("Conversion")
+    @Category(CATEGORY)
+    @Description("Conversion of a tournament or player database, from start to end")
+    @StackTrace(false)
+    static final class Conversion extends Event {
+        @Label("Mode")
+        @Description("papi-to-json, json-to-papi, json-update or playerdb, with the document format")
+        String mode;
+
+        @Label("Input")
+        String input;
+
+        @Label("Output")
+        String output;
+
+        @Label("Rows")
+        @Description("Player rows converted")
+        long rows;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+    }
+
+    /**
+     * A full scan of a table.
+     */
+    @Name("org.sharlychess.papiconverter.TableScan")
+    @Label("Table Scan")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class TableScan extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Rows")
+        @Description("Rows read by the scan")
+        long rows;
+    }
+
+    /**
+     * A batch of rows written, such as an H2 batch commit or a run of JOUEUR inserts.
+     */
+    @Name("org.sharlychess.papiconverter.RowBatch")
+    @Label("Row Batch")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class RowBatch extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("First Row")
+        @Description("Number of rows written before the batch")
+        long firstRow;
+
+        @Label("Rows")
+        long rows;
+    }
+
+    /**
+     * A round of the EXEMPT row (Ref 1) written to mirror a bye.
+     */
+    @Name("org.sharlychess.papiconverter.ExemptUpdate")
+    @Label("EXEMPT Update")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ExemptUpdate extends Event {
+        @Label("Round")
+        int round;
+
+        @Label("Player Ref")
+        @Description("PAPI Ref of the player with the bye, 0 when the round is reset")
+        int playerRef;
+    }
+
+    /**
+     * Output written to its destination: database pages, document or SQL dump.
+     */
+    @Name("org.sharlychess.papiconverter.OutputFlush")
+    @Label("Output Flush")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class OutputFlush extends Event {
+        @Label("Output")
+        String output;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,246 @@
+package org.sharlychess.papiconverter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader of the FIDE rating list downloads.
+ *
+ * Reads the fixed-width TXT and the XML formats, either as is or zipped as
+ * downloaded, of the combined list (standard, rapid and blitz) or of a single list,
+ * whose rating is standard unless the file name contains "rapid" or "blitz". TXT
+ * columns are located from the header line. Players are handed to a {@link Sink}
+ * one by one, so memory does not depend on the size of the list.
+ */
+final class FideRatingList {
+
+    private static final int STANDARD = 0;
+    private static final int RAPID = 1;
+    private static final int BLITZ = 2;
+
+    /** Rating column of a single list TXT file, named after the month (e.g. "MAR25") */
+    private static final Pattern MONTH_COLUMN = Pattern.compile("[A-Z]{3}\\d{2}");
+
+    /**
+     * Receives the players of the list. Absent ratings and titles are 0.
+     */
+    interface Sink {
+        void accept(int fideId, int title, int standard, int rapid, int blitz) throws Exception;
+    }
+
+    private FideRatingList() {
+    }
+
+    /**
+     * Reads a FIDE rating list file.
+     * @param file TXT, XML or ZIP file
+     * @param sink Receives each player with a FIDE ID
+     * @return The number of players in the list
+     * @throws Exception if the file cannot be read or is not a FIDE rating list
+     */
+    static int read(Path file, Sink sink) throws Exception {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            if (name.endsWith(".zip")) {
+                ZipInputStream zip = new ZipInputStream(in);
+                ZipEntry entry = zip.getNextEntry();
+                if (entry == null) {
+                    throw new Exception("Empty FIDE rating list archive: " + file);
+                }
+                return read(zip, entry.getName().toLowerCase(Locale.ROOT), sink);
+            }
+            return read(in, name, sink);
+        }
+    }
+
+    private static int read(InputStream in, String name, Sink sink) throws Exception {
+        int kind = name.contains("rapid") ? RAPID : name.contains("blitz") ? BLITZ : STANDARD;
+        return name.endsWith(".xml") ? readXml(in, kind, sink) : readText(in, kind, sink);
+    }
+
+    /**
+     * Reads the fixed-width TXT format, one player per line after the header.
+     */
+    private static int readText(InputStream in, int kind, Sink sink) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1), 1 << 16);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new Exception("Empty FIDE rating list");
+        }
+
+        // Start of each header column; a column ends where the next one starts
+        List<String> names = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        Matcher token = Pattern.compile("\\S+").matcher(header);
+        while (token.find()) {
+            names.add(token.group());
+            starts.add(token.start());
+        }
+        starts.add(Integer.MAX_VALUE);
+
+        int nameColumn = names.indexOf("Name");
+        int[][] ratings = new int[3][];
+        ratings[STANDARD] = column(names, starts, "SRtng");
+        ratings[RAPID] = column(names, starts, "RRtng");
+        ratings[BLITZ] = column(names, starts, "BRtng");
+        if (ratings[STANDARD] == null && ratings[RAPID] == null && ratings[BLITZ] == null) {
+            for (int i = 0; i < names.size(); i++) {
+                if (MONTH_COLUMN.matcher(names.get(i)).matches()) {
+                    ratings[kind] = new int[] { starts.get(i), starts.get(i + 1) };
+                }
+            }
+        }
+        if (!header.startsWith("ID") || nameColumn < 0
+                || (ratings[STANDARD] == null && ratings[RAPID] == null && ratings[BLITZ] == null)) {
+            throw new Exception("Not a FIDE rating list header: " + header.trim());
+        }
+        int idEnd = starts.get(nameColumn);
+        int[] title = column(names, starts, "Tit");
+        int[] womanTitle = column(names, starts, "WTit");
+
+        int players = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            players++;
+            int fideId = parseInt(line, 0, idEnd);
+            if (fideId > 0) {
+                sink.accept(fideId,
+                    Math.max(titleCode(field(line, title)), titleCode(field(line, womanTitle))),
+                    parseInt(line, ratings[STANDARD]), parseInt(line, ratings[RAPID]), parseInt(line, ratings[BLITZ]));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Reads the XML format, one player element at a time.
+     */
+    private static int readXml(InputStream in, int kind, Sink sink) throws Exception {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            int players = 0;
+            int fideId = 0;
+            int title = 0;
+            int[] ratings = new int[3];
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "player":
+                            fideId = 0;
+                            title = 0;
+                            ratings[STANDARD] = ratings[RAPID] = ratings[BLITZ] = 0;
+                            break;
+                        case "fideid":
+                            fideId = parseInt(reader.getElementText());
+                            break;
+                        case "title":
+                        case "w_title":
+                            title = Math.max(title, titleCode(reader.getElementText().trim()));
+                            break;
+                        case "rating":
+                            ratings[kind] = parseInt(reader.getElementText());
+                            break;
+                        case "rapid_rating":
+                            ratings[RAPID] = parseInt(reader.getElementText());
+                            break;
+                        case "blitz_rating":
+                            ratings[BLITZ] = parseInt(reader.getElementText());
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "player".equals(reader.getLocalName())) {
+                    players++;
+                    if (fideId > 0) {
+                        sink.accept(fideId, title, ratings[STANDARD], ratings[RAPID], ratings[BLITZ]);
+                    }
+                }
+            }
+            return players;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Gets the bounds of a header column, or null if the header has no such column.
+     */
+    private static int[] column(List<String> names, List<Integer> starts, String name) {
+        int index = names.indexOf(name);
+        return index < 0 ? null : new int[] { starts.get(index), starts.get(index + 1) };
+    }
+
+    private static String field(String line, int[] column) {
+        if (column == null || column[0] >= line.length()) {
+            return "";
+        }
+        return line.substring(column[0], Math.min(column[1], line.length())).trim();
+    }
+
+    private static int parseInt(String line, int[] column) {
+        return column == null ? 0 : parseInt(line, column[0], column[1]);
+    }
+
+    private static int parseInt(String text) {
+        return parseInt(text, 0, text.length());
+    }
+
+    /**
+     * Parses the digits of a fixed-width field without allocating, 0 if it is empty or not a number.
+     */
+    private static int parseInt(String line, int start, int end) {
+        end = Math.min(end, line.length());
+        int value = 0;
+        boolean digits = false;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits = true;
+            } else if (c != ' ' && c != '\t') {
+                return 0;
+            } else if (digits && i + 1 < end && line.charAt(i + 1) != ' ') {
+                return 0;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Converts a FIDE title to the code used in the player database.
+     * Candidate master titles have no code there and count as no title.
+     */
+    private static int titleCode(String title) {
+        switch (title) {
+            case "WFM": return 3;  // WOMAN_FIDE_MASTER
+            case "FM": return 4;   // FIDE_MASTER
+            case "WIM": return 5;  // WOMAN_INTERNATIONAL_MASTER
+            case "IM": return 6;   // INTERNATIONAL_MASTER
+            case "WGM": return 7;  // WOMAN_GRANDMASTER
+            case "GM": return 8;   // GRANDMASTER
+            default: return 0;     // NONE (CM, WCM and unknown titles)
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.sharlychess.papiconverter;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Java Flight Recorder recording started by --jfr=&lt;file&gt;.
+ *
+ * The settings start from the JDK "default" profile (low overhead, continuous use),
+ * enable the converter events of {@link ConversionEvents} without threshold and raise
+ * the sampling rates that matter for short conversions. The recording is written to
+ * the file when the program exits.
+ */
+public class FlightRecording {
+
+    private static final String[] CONVERTER_EVENTS = {
+        "org.sharlychess.papiconverter.Conversion",
+        "org.sharlychess.papiconverter.TableScan",
+        "org.sharlychess.papiconverter.RowBatch",
+        "org.sharlychess.papiconverter.ExemptUpdate",
+        "org.sharlychess.papiconverter.OutputFlush"
+    };
+
+    /**
+     * Starts a recording dumped to a file on exit.
+     * @param file Path to the .jfr file
+     * @throws Exception if Flight Recorder is not available
+     */
+    public static void start(String file) throws Exception {
+        Path destination = Paths.get(file).toAbsolutePath();
+        Recording recording = new Recording(settings());
+        recording.setName("papi-converter");
+        recording.setToDisk(true);
+        recording.setDumpOnExit(true);
+        recording.setDestination(destination);
+        recording.start();
+        VerboseOutput.println("Recording Flight Recorder events to " + destination);
+    }
+
+    /**
+     * Gets the settings of the recording.
+     */
+    static Map<String, String> settings() {
+        Map<String, String> settings = new HashMap<>();
+        try {
+            settings.putAll(Configuration.getConfiguration("default").getSettings());
+        } catch (Exception e) {
+            // The JDK profiles are not available (e.g. in a native image): converter events only
+            VerboseOutput.println("  Flight Recorder default profile not available, recording converter events only");
+        }
+        for (String event : CONVERTER_EVENTS) {
+            settings.put(event + "#enabled", "true");
+            settings.put(event + "#threshold", "0 ms");
+        }
+        // Conversions last a few hundred milliseconds: sample often enough to see their hot methods
+        settings.put("jdk.ExecutionSample#period", "10 ms");
+        settings.put("jdk.ObjectAllocationSample#throttle", "300/s");
+        settings.put("jdk.FileRead#threshold", "1 ms");
+        settings.put("jdk.FileWrite#threshold", "1 ms");
+        return settings;
+    }
+}
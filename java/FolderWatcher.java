@@ -0,0 +1,286 @@
+package org.sharlychess.papiconverter;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a folder for PAPI files and converts each one to JSON (or to a binary
+ * snapshot) once PAPI has finished saving it.
+ *
+ * File system events are coalesced per file: every event for a file pushes back
+ * a single pending check. The check only triggers a conversion when the file's
+ * size and modification time have not moved during the quiet period, so a burst
+ * of writes from PAPI results in one conversion. Different files are converted
+ * in parallel, while a single file is never converted twice at the same time.
+ */
+public class FolderWatcher {
+
+    /**
+     * Time a file must stay unchanged before it is converted.
+     */
+    private static final long QUIET_PERIOD_MS = 500;
+
+    /**
+     * Size and modification time of a file, used to detect that it stopped changing.
+     */
+    private static final class FileStamp {
+        final long size;
+        final long modified;
+
+        FileStamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static FileStamp of(Path file) {
+            try {
+                return new FileStamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                return null; // File was deleted or renamed in the meantime
+            }
+        }
+
+        boolean sameAs(FileStamp other) {
+            return other != null && size == other.size && modified == other.modified;
+        }
+    }
+
+    /**
+     * Per-file debounce state. All fields are guarded by the instance lock.
+     */
+    private static final class FileState {
+        ScheduledFuture<?> pendingCheck;
+        FileStamp lastSeen;
+        FileStamp lastConverted;
+        boolean converting;
+        boolean rerun;
+    }
+
+    private final Path watchDir;
+    private final Path outputDir;
+    private final TournamentFormat format;
+    private final boolean standings;
+    private final Map<Path, FileState> states = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("papi-watch-debounce"));
+    private final ExecutorService workers = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors()), daemonThreads("papi-watch-worker"));
+
+    private FolderWatcher(Path watchDir, Path outputDir, TournamentFormat format, boolean standings) {
+        this.watchDir = watchDir;
+        this.outputDir = outputDir;
+        this.format = format;
+        this.standings = standings;
+    }
+
+    /**
+     * Watches a directory and converts every PAPI file that is created or modified in it.
+     * This method blocks until the thread is interrupted.
+     * @param watchDir Directory containing the PAPI files
+     * @param outputDir Directory for the JSON files, or null to write them next to the PAPI files
+     * @throws Exception if the directory cannot be watched
+     */
+    public static void watch(String watchDir, String outputDir) throws Exception {
+        watch(watchDir, outputDir, TournamentFormat.JSON, false);
+    }
+
+    /**
+     * Watches a directory and converts every PAPI file that is created or modified in it.
+     * This method blocks until the thread is interrupted.
+     * @param watchDir Directory containing the PAPI files
+     * @param outputDir Directory for the documents, or null to write them next to the PAPI files
+     * @param format Encoding of the documents written
+     * @param standings true to add the standings to the documents (JSON only)
+     * @throws Exception if the directory cannot be watched
+     */
+    public static void watch(String watchDir, String outputDir, TournamentFormat format, boolean standings) throws Exception {
+        Path dir = Paths.get(watchDir).toAbsolutePath();
+        if (!Files.isDirectory(dir)) {
+            throw new Exception("Watch directory not found: " + watchDir);
+        }
+
+        Path outDir = outputDir != null ? Paths.get(outputDir).toAbsolutePath() : dir;
+        if (!Files.isDirectory(outDir)) {
+            Files.createDirectories(outDir);
+            VerboseOutput.println("Created directory: " + outDir);
+        }
+
+        new FolderWatcher(dir, outDir, format, standings).run();
+    }
+
+    private void run() throws Exception {
+        try (WatchService watchService = watchDir.getFileSystem().newWatchService()) {
+            watchDir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+            VerboseOutput.alwaysPrintln("Watching " + watchDir + " for PAPI files (output: " + outputDir + ")");
+            VerboseOutput.flush();
+
+            while (true) {
+                WatchKey key;
+                try {
+                    key = watchService.take(); // Blocks without using CPU until something happens
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were dropped: re-check every PAPI file in the folder
+                        rescanDirectory();
+                        continue;
+                    }
+                    Path file = watchDir.resolve((Path) event.context());
+                    if (isPapiFile(file)) {
+                        fileChanged(file);
+                    }
+                }
+
+                if (!key.reset()) {
+                    VerboseOutput.errorPrintln("Watch directory is no longer accessible: " + watchDir);
+                    break;
+                }
+            }
+        } finally {
+            scheduler.shutdownNow();
+            workers.shutdown();
+        }
+    }
+
+    private void rescanDirectory() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(watchDir)) {
+            for (Path file : files) {
+                if (isPapiFile(file)) {
+                    fileChanged(file);
+                }
+            }
+        } catch (IOException e) {
+            VerboseOutput.errorPrintln("Warning: Could not rescan " + watchDir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a change and (re)starts the quiet period for the file.
+     */
+    private void fileChanged(Path file) {
+        FileState state = states.computeIfAbsent(file, f -> new FileState());
+        synchronized (state) {
+            state.lastSeen = FileStamp.of(file);
+            scheduleCheck(file, state);
+        }
+    }
+
+    private void scheduleCheck(Path file, FileState state) {
+        if (state.pendingCheck != null) {
+            state.pendingCheck.cancel(false);
+        }
+        state.pendingCheck = scheduler.schedule(() -> checkStable(file, state), QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs at the end of the quiet period: converts the file if it did not change meanwhile.
+     */
+    private void checkStable(Path file, FileState state) {
+        FileStamp current = FileStamp.of(file);
+        synchronized (state) {
+            state.pendingCheck = null;
+            if (current == null) {
+                states.remove(file);
+                return;
+            }
+            if (!current.sameAs(state.lastSeen)) {
+                // Still being written: wait for another quiet period
+                state.lastSeen = current;
+                scheduleCheck(file, state);
+                return;
+            }
+            if (current.sameAs(state.lastConverted)) {
+                return; // Spurious event, content already published
+            }
+            if (state.converting) {
+                state.rerun = true; // Picked up again when the running conversion ends
+                return;
+            }
+            state.converting = true;
+            state.lastConverted = current;
+        }
+        workers.execute(() -> convertFile(file, state));
+    }
+
+    private void convertFile(Path file, FileState state) {
+        String fileName = file.getFileName().toString();
+        Path jsonFile = outputDir.resolve(fileName.replaceAll("(?i)\\.mdb$|\\.papi$", format.extension()));
+        Path tempFile = outputDir.resolve("." + jsonFile.getFileName() + ".tmp");
+
+        long start = System.nanoTime();
+        try {
+            PapiToJsonConverter.convert(file.toString(), tempFile.toString(), false, format, standings);
+            publish(tempFile, jsonFile);
+            VerboseOutput.alwaysPrintln("Published " + jsonFile + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            VerboseOutput.errorPrintln("Error converting " + file + ": " + e.getMessage());
+            if (VerboseOutput.isVerbose()) {
+                e.printStackTrace();
+            }
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // Nothing else to do
+            }
+            synchronized (state) {
+                state.lastConverted = null; // Retry on the next change
+            }
+        } finally {
+            VerboseOutput.flush();
+            synchronized (state) {
+                state.converting = false;
+                if (state.rerun) {
+                    state.rerun = false;
+                    state.lastSeen = FileStamp.of(file);
+                    scheduleCheck(file, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the published JSON in one step so readers never see a partial file.
+     */
+    private static void publish(Path tempFile, Path jsonFile) throws IOException {
+        try {
+            Files.move(tempFile, jsonFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, jsonFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isPapiFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return (name.endsWith(".papi") || name.endsWith(".mdb")) && !name.startsWith(".");
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
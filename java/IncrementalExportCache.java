@@ -0,0 +1,161 @@
+package org.sharlychess.papiconverter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-player cache used by incremental PAPI to JSON exports.
+ *
+ * For every player the cache keeps the fingerprint of its JOUEUR row and the
+ * JSON fragment it was converted to. It is stored next to the JSON output so
+ * that successive runs only re-convert the players whose row changed.
+ *
+ * Fragments contain JSON indexes of opponents, which depend on the full list
+ * of player references. The cache is therefore discarded as a whole when that
+ * list changes (player added or removed).
+ */
+public class IncrementalExportCache {
+
+    private static final int MAGIC = 0x50415043; // "PAPC"
+    private static final int VERSION = 2;
+
+    /**
+     * Cached conversion of a single player row.
+     */
+    private static final class Entry {
+        final long fingerprint;
+        final String fragment;
+
+        Entry(long fingerprint, String fragment) {
+            this.fingerprint = fingerprint;
+            this.fragment = fragment;
+        }
+    }
+
+    private final Path cacheFile;
+    private int[] refs = new int[0];
+    private Map<Integer, Entry> entries = new HashMap<>();
+    private Map<Integer, Entry> nextEntries = new HashMap<>();
+
+    private IncrementalExportCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Gets the cache file used for a given JSON output file.
+     * @param jsonFile Path to the JSON output file
+     * @return Path to the cache file
+     */
+    public static Path cacheFileFor(String jsonFile) {
+        return Paths.get(jsonFile + ".cache");
+    }
+
+    /**
+     * Loads the cache from disk. A missing or unreadable cache results in an empty cache.
+     * @param cacheFile Path to the cache file
+     * @return The loaded cache
+     */
+    public static IncrementalExportCache load(Path cacheFile) {
+        IncrementalExportCache cache = new IncrementalExportCache(cacheFile);
+        if (!Files.exists(cacheFile)) {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                VerboseOutput.println("  Ignoring incompatible cache file: " + cacheFile);
+                return cache;
+            }
+            int count = in.readInt();
+            int[] refs = new int[count];
+            Map<Integer, Entry> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                refs[i] = in.readInt();
+                long fingerprint = in.readLong();
+                byte[] fragment = new byte[in.readInt()];
+                in.readFully(fragment);
+                entries.put(refs[i], new Entry(fingerprint, new String(fragment, StandardCharsets.UTF_8)));
+            }
+            cache.refs = refs;
+            cache.entries = entries;
+        } catch (IOException e) {
+            VerboseOutput.warningPrintln("  Warning: Could not read cache file " + cacheFile + ", doing a full conversion: " + e.getMessage());
+        }
+        return cache;
+    }
+
+    /**
+     * Starts a new run with the given sorted list of player references.
+     * Cached fragments are only kept if the list did not change.
+     * @param playerRefs PAPI references of all exported players, in output order
+     */
+    public void beginRun(int[] playerRefs) {
+        if (!Arrays.equals(refs, playerRefs)) {
+            if (!entries.isEmpty()) {
+                VerboseOutput.println("  Player list changed, cache invalidated");
+            }
+            entries = new HashMap<>();
+        }
+        refs = playerRefs.clone();
+        nextEntries = new HashMap<>(playerRefs.length * 2);
+    }
+
+    /**
+     * Gets the cached fragment of a player if its row did not change.
+     * @param ref PAPI reference of the player
+     * @param fingerprint Fingerprint of the current row
+     * @return The cached JSON fragment, or null if the player must be re-converted
+     */
+    public String get(int ref, long fingerprint) {
+        Entry entry = entries.get(ref);
+        if (entry != null && entry.fingerprint == fingerprint) {
+            nextEntries.put(ref, entry);
+            return entry.fragment;
+        }
+        return null;
+    }
+
+    /**
+     * Stores the fragment of a re-converted player.
+     * @param ref PAPI reference of the player
+     * @param fingerprint Fingerprint of the current row
+     * @param fragment JSON fragment of the player
+     */
+    public void put(int ref, long fingerprint, String fragment) {
+        nextEntries.put(ref, new Entry(fingerprint, fragment));
+    }
+
+    /**
+     * Saves the entries of the current run, replacing the previous cache file atomically.
+     * @throws IOException if the cache cannot be written
+     */
+    public void save() throws IOException {
+        entries = nextEntries;
+        Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(refs.length);
+            for (int ref : refs) {
+                Entry entry = entries.get(ref);
+                byte[] fragment = entry != null ? entry.fragment.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                out.writeInt(ref);
+                out.writeLong(entry != null ? entry.fingerprint : 0L);
+                out.writeInt(fragment.length);
+                out.write(fragment);
+            }
+        }
+        Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
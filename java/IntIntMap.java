@@ -0,0 +1,90 @@
+package org.sharlychess.papiconverter;
+
+/**
+ * Hash map from positive int keys to int values, without boxing.
+ *
+ * Open addressing with linear probing in two parallel arrays; key 0 marks an empty
+ * slot, so 0 and negative keys are rejected. The table doubles when it is half full.
+ * There is no removal.
+ */
+final class IntIntMap {
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates a map sized for the expected number of keys.
+     * @param expectedSize Expected number of keys
+     */
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /** @return Number of keys */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Associates a value with a key, replacing the previous value.
+     * @param key The key, greater than 0
+     * @param value The value
+     */
+    void put(int key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int slot = find(keys, key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Gets the value of a key.
+     * @param key The key
+     * @param missing Value returned when the key is absent
+     * @return The value, or missing
+     */
+    int get(int key, int missing) {
+        if (key <= 0) {
+            return missing;
+        }
+        int slot = find(keys, key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    /**
+     * Finds the slot of a key, or the empty slot where it would go.
+     */
+    private static int find(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -1,22 +1,38 @@
 package org.sharlychess.papiconverter;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
 import com.healthmarketscience.jackcess.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.healthmarketscience.jackcess.util.MemFileChannel;
 
 /**
- * Handles conversion from JSON format to PAPI database format.
+ * Handles conversion from JSON format, or another {@link TournamentFormat},
+ * to PAPI database format.
  */
 public class JsonToPapiConverter {
     
+    /**
+     * Players added per RowBatch event when a JOUEUR table is written.
+     */
+    private static final int PLAYER_BATCH_SIZE = 256;
+    
     /**
      * Converts a JSON file to PAPI (.mdb) format.
      * @param jsonFile Path to the input JSON file
@@ -24,26 +40,59 @@ public class JsonToPapiConverter {
      * @throws Exception if conversion fails
      */
     public static void convert(String jsonFile, String mdbFile) throws Exception {
-        VerboseOutput.println("Converting JSON to MDB...");
+        convert(jsonFile, mdbFile, TournamentFormat.JSON);
+    }
+    
+    /**
+     * Converts a tournament document to PAPI (.mdb) format.
+     * @param jsonFile Path to the input file
+     * @param mdbFile Path to the output PAPI file
+     * @param format Encoding of the input file
+     * @throws Exception if conversion fails
+     */
+    public static void convert(String jsonFile, String mdbFile, TournamentFormat format) throws Exception {
+        convert(jsonFile, mdbFile, format, false);
+    }
+    
+    /**
+     * Converts a tournament document to PAPI (.mdb) format.
+     * @param jsonFile Path to the input file
+     * @param mdbFile Path to the output PAPI file
+     * @param format Encoding of the input file
+     * @param bulk true to write a temporary file without auto-sync, synced once and renamed over the output
+     * @throws Exception if conversion fails
+     */
+    public static void convert(String jsonFile, String mdbFile, TournamentFormat format, boolean bulk) throws Exception {
+        convert(jsonFile, mdbFile, format, bulk, null);
+    }
+    
+    /**
+     * Converts a tournament document to PAPI (.mdb) format, completing the players from the player database.
+     * @param jsonFile Path to the input file
+     * @param mdbFile Path to the output PAPI file
+     * @param format Encoding of the input file
+     * @param bulk true to write a temporary file without auto-sync, synced once and renamed over the output
+     * @param directory Player database filling in missing ratings, clubs and FIDE fields, or null
+     * @throws Exception if conversion fails
+     */
+    public static void convert(String jsonFile, String mdbFile, TournamentFormat format, boolean bulk,
+            PlayerDirectory directory) throws Exception {
+        VerboseOutput.println("Converting " + format.label() + " to MDB...");
+        ConversionEvents.Conversion event = new ConversionEvents.Conversion();
+        event.begin();
         
         // Generate output filename if not provided
         if (mdbFile == null) {
-            mdbFile = jsonFile.replaceAll("\\.json$", ".papi");
+            mdbFile = outputFileFor(jsonFile, format);
         }
         
-        // Read and parse JSON content
-        String jsonContent = Files.readString(Paths.get(jsonFile));
-        VerboseOutput.println("Reading JSON from: " + jsonFile);
-        
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode rootNode = mapper.readTree(jsonContent);
+        // Read and parse the input document
+        TournamentData tournament = readDocument(Paths.get(jsonFile), format);
+        VerboseOutput.println("Reading " + format.label() + " from: " + jsonFile);
+        enrich(tournament, directory);
+        TournamentValidator.validate(tournament);
         
-        // Check for template file - make path relative to executable location
-        String executableDir = getExecutableDirectory();
-        String templateFile = findTemplateFile(executableDir);
-        if (templateFile == null) {
-            throw new Exception("Template file not found. Searched in: " + executableDir + "/static/ and parent directories");
-        }
+        String templateFile = locateTemplateFile();
         
         // Copy template to output location
         VerboseOutput.println("Copying template file: " + templateFile);
@@ -58,24 +107,348 @@ public class JsonToPapiConverter {
             VerboseOutput.println("Created directory: " + parentDir.getAbsolutePath());
         }
         
-        Files.copy(Paths.get(templateFile), Paths.get(mdbFile), StandardCopyOption.REPLACE_EXISTING);
+        if (bulk) {
+            writeBulk(templateFile, outputFile.toPath(), tournament);
+        } else {
+            Metrics.Phase templateCopyPhase = Metrics.phase("template copy");
+            try {
+                Files.copy(Paths.get(templateFile), Paths.get(mdbFile), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                templateCopyPhase.close();
+            }
+            
+            // Open the copied MDB file
+            Database db = DatabaseBuilder.open(new File(mdbFile));
+            
+            try {
+                writeTournament(db, tournament);
+            } finally {
+                closeDatabase(db, mdbFile);
+            }
+        }
+        Metrics.add(Metrics.BYTES_WRITTEN, outputFile.length());
+        commit(event, format.formatName() + "-to-papi" + (bulk ? " (bulk)" : ""), jsonFile, mdbFile, tournament, outputFile.length());
+        
+        VerboseOutput.alwaysPrintln("Output MDB file: " + mdbFile);
+        VerboseOutput.alwaysPrintln(format.label() + " to MDB conversion completed successfully!");
+    }
+    
+    /**
+     * Converts JSON read from a stream to a PAPI file written to a stream.
+     * The template is loaded into memory and modified there, so no temporary file is created.
+     * @param jsonIn Stream containing the JSON document
+     * @param papiOut Stream receiving the PAPI file, left open
+     * @throws Exception if conversion fails
+     */
+    public static void convert(InputStream jsonIn, OutputStream papiOut) throws Exception {
+        convert(jsonIn, papiOut, TournamentFormat.JSON);
+    }
+    
+    /**
+     * Converts a tournament document read from a stream to a PAPI file written to a stream.
+     * @param in Stream containing the document
+     * @param papiOut Stream receiving the PAPI file, left open
+     * @param format Encoding of the document
+     * @throws Exception if conversion fails
+     */
+    public static void convert(InputStream in, OutputStream papiOut, TournamentFormat format) throws Exception {
+        convert(in, papiOut, format, null);
+    }
+    
+    /**
+     * Converts a tournament document read from a stream to a PAPI file written to a stream,
+     * completing the players from the player database.
+     * @param in Stream containing the document
+     * @param papiOut Stream receiving the PAPI file, left open
+     * @param format Encoding of the document
+     * @param directory Player database filling in missing ratings, clubs and FIDE fields, or null
+     * @throws Exception if conversion fails
+     */
+    public static void convert(InputStream in, OutputStream papiOut, TournamentFormat format,
+            PlayerDirectory directory) throws Exception {
+        VerboseOutput.println("Converting " + format.label() + " to MDB (in memory)...");
+        ConversionEvents.Conversion event = new ConversionEvents.Conversion();
+        event.begin();
+        
+        TournamentData tournament;
+        Metrics.Phase documentReadPhase = Metrics.phase("document read");
+        try {
+            tournament = format.read(in);
+        } finally {
+            documentReadPhase.close();
+        }
+        enrich(tournament, directory);
+        TournamentValidator.validate(tournament);
+        
+        String templateFile = locateTemplateFile();
+        VerboseOutput.println("Loading template file: " + templateFile);
+        
+        MemFileChannel channel;
+        Metrics.Phase templateCopyPhase = Metrics.phase("template copy");
+        try (InputStream templateIn = Files.newInputStream(Paths.get(templateFile))) {
+            channel = AccessChannels.readToMemory(templateIn);
+        } finally {
+            templateCopyPhase.close();
+        }
+        
+        try (channel) {
+            Database db = AccessChannels.open(channel, false);
+            try {
+                writeTournament(db, tournament);
+            } finally {
+                closeDatabase(db, null);
+            }
+            
+            ConversionEvents.OutputFlush flush = new ConversionEvents.OutputFlush();
+            flush.begin();
+            long size;
+            Metrics.Phase outputWritePhase = Metrics.phase("output write");
+            try {
+                size = AccessChannels.writeTo(channel, papiOut);
+            } finally {
+                outputWritePhase.close();
+            }
+            if (flush.shouldCommit()) {
+                flush.output = "stream";
+                flush.bytes = size;
+                flush.commit();
+            }
+            Metrics.add(Metrics.BYTES_WRITTEN, size);
+            VerboseOutput.println("  Wrote " + size + " bytes of PAPI data, no temporary file used");
+            commit(event, format.formatName() + "-to-papi", "stream", "stream", tournament, size);
+        }
+        
+        VerboseOutput.alwaysPrintln(format.label() + " to MDB conversion completed successfully!");
+    }
+    
+    /**
+     * Updates an existing PAPI file in place from a JSON file.
+     * Only the INFO and JOUEUR values that differ from the JSON are written;
+     * JOUEUR columns that the JSON does not model are preserved.
+     * @param jsonFile Path to the input JSON file
+     * @param mdbFile Path to the existing PAPI file to update
+     * @throws Exception if the update fails
+     */
+    public static void update(String jsonFile, String mdbFile) throws Exception {
+        update(jsonFile, mdbFile, TournamentFormat.JSON);
+    }
+    
+    /**
+     * Updates an existing PAPI file in place from a tournament document.
+     * @param jsonFile Path to the input file
+     * @param mdbFile Path to the existing PAPI file to update
+     * @param format Encoding of the input file
+     * @throws Exception if the update fails
+     */
+    public static void update(String jsonFile, String mdbFile, TournamentFormat format) throws Exception {
+        update(jsonFile, mdbFile, format, null);
+    }
+    
+    /**
+     * Updates an existing PAPI file in place from a tournament document, completing the
+     * players from the player database.
+     * @param jsonFile Path to the input file
+     * @param mdbFile Path to the existing PAPI file to update
+     * @param format Encoding of the input file
+     * @param directory Player database filling in missing ratings, clubs and FIDE fields, or null
+     * @throws Exception if the update fails
+     */
+    public static void update(String jsonFile, String mdbFile, TournamentFormat format,
+            PlayerDirectory directory) throws Exception {
+        VerboseOutput.println("Updating MDB from " + format.label() + "...");
+        ConversionEvents.Conversion event = new ConversionEvents.Conversion();
+        event.begin();
+        
+        // Generate output filename if not provided
+        if (mdbFile == null) {
+            mdbFile = outputFileFor(jsonFile, format);
+        }
+        
+        if (!Files.exists(Paths.get(mdbFile))) {
+            throw new Exception("PAPI file to update not found: " + mdbFile);
+        }
+        
+        // Read and parse the input document
+        TournamentData tournament = readDocument(Paths.get(jsonFile), format);
+        VerboseOutput.println("Reading " + format.label() + " from: " + jsonFile);
+        enrich(tournament, directory);
+        TournamentValidator.validate(tournament);
         
-        // Open the copied MDB file
         Database db = DatabaseBuilder.open(new File(mdbFile));
         
         try {
-            // Handle tournament variables
-            processVariables(db, rootNode);
+            processVariables(db, tournament.getVariables());
+            Metrics.Phase playersUpdatePhase = Metrics.phase("players update");
+            try {
+                updatePlayers(db, tournament.getPlayers());
+            } finally {
+                playersUpdatePhase.close();
+            }
+        } finally {
+            closeDatabase(db, mdbFile);
+        }
+        commit(event, format.formatName() + "-update", jsonFile, mdbFile, tournament, new File(mdbFile).length());
+        
+        VerboseOutput.alwaysPrintln("Updated MDB file: " + mdbFile);
+        VerboseOutput.alwaysPrintln(format.label() + " to MDB update completed successfully!");
+    }
+    
+    /**
+     * Fills in the player fields missing from the document from the player database.
+     */
+    private static void enrich(TournamentData tournament, PlayerDirectory directory) {
+        if (directory == null) {
+            return;
+        }
+        Metrics.Phase enrichPhase = Metrics.phase("enrich");
+        try {
+            directory.enrich(tournament.getPlayers());
+        } finally {
+            enrichPhase.close();
+        }
+    }
+    
+    /**
+     * Writes a tournament to a temporary copy of the template next to the output, then
+     * renames it over the output. Auto-sync is off, so Jackcess writes the pages when the
+     * database is closed instead of forcing them to disk after every row; the file is
+     * then synced once. The previous output stays intact until the rename, and a failed
+     * conversion only deletes the temporary file.
+     */
+    private static void writeBulk(String templateFile, Path output, TournamentData tournament) throws Exception {
+        Path directory = output.toAbsolutePath().getParent();
+        Path temp = directory.resolve("." + output.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        boolean renamed = false;
+        try {
+            Metrics.Phase templateCopyPhase = Metrics.phase("template copy");
+            try {
+                Files.copy(Paths.get(templateFile), temp, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                templateCopyPhase.close();
+            }
             
-            // Handle players data
-            processPlayers(db, rootNode);
+            Database db = new DatabaseBuilder(temp.toFile()).setAutoSync(false).open();
+            try {
+                writeTournament(db, tournament);
+            } finally {
+                closeDatabase(db, temp.toString());
+            }
             
+            Metrics.Phase syncPhase = Metrics.phase("sync");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                try {
+                    Files.move(temp, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+                }
+                renamed = true;
+                syncDirectory(directory);
+            } finally {
+                syncPhase.close();
+            }
+            VerboseOutput.println("  Wrote " + temp.getFileName() + " and renamed it to " + output.getFileName());
         } finally {
-            db.close();
+            if (!renamed) {
+                Files.deleteIfExists(temp);
+            }
         }
+    }
+    
+    /**
+     * Syncs a directory so that a rename in it is durable. Not possible on every
+     * platform (Windows cannot open directories), where the rename is left to the system.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            VerboseOutput.println("  Directory not synced: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes the tournament variables and players to a database created from the template.
+     */
+    static void writeTournament(Database db, TournamentData tournament) throws Exception {
+        // Handle tournament variables
+        processVariables(db, tournament.getVariables());
         
-        VerboseOutput.alwaysPrintln("Output MDB file: " + mdbFile);
-        VerboseOutput.alwaysPrintln("JSON to MDB conversion completed successfully!");
+        // Handle players data
+        processPlayers(db, tournament.getPlayers());
+    }
+    
+    /**
+     * Reads the input document, timed as the "document read" phase.
+     */
+    private static TournamentData readDocument(java.nio.file.Path file, TournamentFormat format) throws Exception {
+        Metrics.Phase documentReadPhase = Metrics.phase("document read");
+        try {
+            Metrics.add(Metrics.BYTES_READ, Files.size(file));
+            return format.read(file);
+        } finally {
+            documentReadPhase.close();
+        }
+    }
+    
+    /**
+     * Closes the database, which writes the pending pages: timed as the "flush" phase.
+     * @param mdbFile Path to the database file, or null for a database in memory
+     */
+    private static void closeDatabase(Database db, String mdbFile) throws Exception {
+        ConversionEvents.OutputFlush event = new ConversionEvents.OutputFlush();
+        event.begin();
+        Metrics.Phase flushPhase = Metrics.phase("flush");
+        try {
+            db.close();
+        } finally {
+            flushPhase.close();
+        }
+        if (event.shouldCommit()) {
+            event.output = mdbFile != null ? mdbFile : "memory";
+            event.bytes = mdbFile != null ? new File(mdbFile).length() : 0;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Commits the Conversion event of a finished conversion, if it is recorded.
+     */
+    private static void commit(ConversionEvents.Conversion event, String mode, String input, String output,
+            TournamentData tournament, long bytesWritten) {
+        if (event.shouldCommit()) {
+            event.mode = mode;
+            event.input = input;
+            event.output = output;
+            event.rows = tournament.getPlayers() != null ? tournament.getPlayers().size() : 0;
+            event.bytesRead = "stream".equals(input) ? 0 : new File(input).length();
+            event.bytesWritten = bytesWritten;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Derives the PAPI file name from the input document name.
+     */
+    private static String outputFileFor(String inputFile, TournamentFormat format) {
+        return inputFile.replaceAll("(?i)" + Pattern.quote(format.extension()) + "$", ".papi");
+    }
+    
+    /**
+     * Locates the PAPI template file relative to the executable location.
+     * @return The full path to the template file
+     * @throws Exception if the template cannot be found
+     */
+    static String locateTemplateFile() throws Exception {
+        // Check for template file - make path relative to executable location
+        String executableDir = getExecutableDirectory();
+        String templateFile = findTemplateFile(executableDir);
+        if (templateFile == null) {
+            throw new Exception("Template file not found. Searched in: " + executableDir + "/static/ and parent directories");
+        }
+        return templateFile;
     }
     
     /**
@@ -147,75 +520,63 @@ public class JsonToPapiConverter {
     }
     
     /**
-     * Maximum length for INFO table Value column (based on MDB schema)
-     */
-    private static final int MAX_INFO_VALUE_LENGTH = 50;
-    
-    /**
-     * Trims a string to the maximum allowed length for INFO table values.
-     * @param value The string to trim
-     * @return The trimmed string, or null if input is null
+     * Maximum length for INFO table Value column (based on MDB schema), checked by TournamentValidator
      */
-    private static String trimToMaxLength(String value) {
-        if (value == null) {
-            return null;
-        }
-        if (value.length() <= MAX_INFO_VALUE_LENGTH) {
-            return value;
-        }
-        String trimmed = value.substring(0, MAX_INFO_VALUE_LENGTH);
-        VerboseOutput.alwaysPrintln("  Warning: Trimmed value from " + value.length() + " to " + MAX_INFO_VALUE_LENGTH + " characters: '" + value + "' -> '" + trimmed + "'");
-        return trimmed;
-    }
+    static final int MAX_INFO_VALUE_LENGTH = 50;
     
     /**
      * Processes tournament variables from JSON and updates the INFO table.
+     * The values were checked against MAX_INFO_VALUE_LENGTH by TournamentValidator.
      */
-    private static void processVariables(Database db, JsonNode rootNode) throws Exception {
+    private static void processVariables(Database db, Map<String, String> variables) throws Exception {
         // Get the INFO table
         Table infoTable = db.getTable("INFO");
         
-        // Get variables from JSON
-        JsonNode variablesNode = rootNode.get("variables");
-        if (variablesNode != null && variablesNode.isObject()) {
+        if (variables != null) {
             VerboseOutput.println("Updating INFO table with variables...");
+            Metrics.Phase variablesWritePhase = Metrics.phase("variables write");
+            try {
+                int written = 0;
             
-            // Create a map of existing rows for quick lookup
-            Map<String, Row> existingRows = new HashMap<>();
-            for (Row row : infoTable) {
-                Object variableObj = row.get("Variable");
-                if (variableObj != null) {
-                    existingRows.put(variableObj.toString(), row);
+                // Create a map of existing rows for quick lookup
+                Map<String, Row> existingRows = new HashMap<>();
+                for (Row row : infoTable) {
+                    Object variableObj = row.get("Variable");
+                    if (variableObj != null) {
+                        existingRows.put(variableObj.toString(), row);
+                    }
                 }
-            }
             
-            // Update or insert data
-            Iterator<Map.Entry<String, JsonNode>> fields = variablesNode.fields();
-            while (fields.hasNext()) {
-                Map.Entry<String, JsonNode> field = fields.next();
-                String englishVariable = field.getKey();
-                String value = field.getValue().asText();
+                // Update or insert data
+                for (Map.Entry<String, String> variable : variables.entrySet()) {
+                    String englishVariable = variable.getKey();
+                    String value = variable.getValue();
                 
-                // Map English variable name to French
-                String frenchVariable = VariableMapping.englishToFrench(englishVariable);
-                if (frenchVariable != null && VariableMapping.isValidFrenchVariable(frenchVariable)) {
-                    // Trim the value to ensure it fits in the database field
-                    String trimmedValue = trimToMaxLength(value);
-                    
-                    Row existingRow = existingRows.get(frenchVariable);
-                    if (existingRow != null) {
-                        // Overwrite existing row
-                        existingRow.put("Value", trimmedValue);
-                        infoTable.updateRow(existingRow);
-                        VerboseOutput.println("  Updated: " + englishVariable + " (" + frenchVariable + ") = " + trimmedValue);
+                    // Map English variable name to French
+                    String frenchVariable = VariableMapping.englishToFrench(englishVariable);
+                    if (frenchVariable != null && VariableMapping.isValidFrenchVariable(frenchVariable)) {
+                        Row existingRow = existingRows.get(frenchVariable);
+                        if (existingRow != null && PlayerConverter.valuesEqual(existingRow.get("Value"), value)) {
+                            VerboseOutput.println("  Unchanged: " + englishVariable + " (" + frenchVariable + ")");
+                        } else if (existingRow != null) {
+                            // Overwrite existing row
+                            existingRow.put("Value", value);
+                            infoTable.updateRow(existingRow);
+                            written++;
+                            VerboseOutput.println("  Updated: " + englishVariable + " (" + frenchVariable + ") = " + value);
+                        } else {
+                            // Add new row
+                            infoTable.addRow(frenchVariable, value);
+                            written++;
+                            VerboseOutput.println("  Added: " + englishVariable + " (" + frenchVariable + ") = " + value);
+                        }
                     } else {
-                        // Add new row
-                        infoTable.addRow(frenchVariable, trimmedValue);
-                        VerboseOutput.println("  Added: " + englishVariable + " (" + frenchVariable + ") = " + trimmedValue);
+                        VerboseOutput.warningPrintln("  Warning: Skipping invalid variable: " + englishVariable);
                     }
-                } else {
-                    VerboseOutput.alwaysPrintln("  Warning: Skipping invalid variable: " + englishVariable);
                 }
+                Metrics.add(Metrics.ROWS_WRITTEN, written);
+            } finally {
+                variablesWritePhase.close();
             }
         } else {
             VerboseOutput.println("No 'variables' object found in JSON");
@@ -225,31 +586,211 @@ public class JsonToPapiConverter {
     /**
      * Processes players data from JSON and updates the JOUEUR table.
      */
-    private static void processPlayers(Database db, JsonNode rootNode) throws Exception {
-        JsonNode playersNode = rootNode.get("players");
-        if (playersNode != null && playersNode.isArray()) {
+    private static void processPlayers(Database db, List<PlayerData> players) throws Exception {
+        if (players != null) {
             VerboseOutput.println("\nProcessing players data...");
             Table playerTable = db.getTable("JOUEUR");
             
             // Clear existing players (except EXEMPT which is Ref=1)
-            Iterator<Row> existingRows = playerTable.iterator();
-            while (existingRows.hasNext()) {
-                Row row = existingRows.next();
-                Object refObj = row.get("Ref");
-                if (refObj != null && ((Number)refObj).intValue() > 1) {
-                    existingRows.remove();
+            Metrics.Phase tableClearPhase = Metrics.phase("table clear");
+            try {
+                ConversionEvents.TableScan scan = new ConversionEvents.TableScan();
+                scan.begin();
+                long scanned = 0;
+                Iterator<Row> existingRows = playerTable.iterator();
+                while (existingRows.hasNext()) {
+                    Row row = existingRows.next();
+                    scanned++;
+                    Object refObj = row.get("Ref");
+                    if (refObj != null && ((Number)refObj).intValue() > 1) {
+                        existingRows.remove();
+                    }
+                }
+                if (scan.shouldCommit()) {
+                    scan.table = "JOUEUR";
+                    scan.rows = scanned;
+                    scan.commit();
                 }
+            } finally {
+                tableClearPhase.close();
             }
             
-            // Add new players
+            // Add new players, in batches of PLAYER_BATCH_SIZE rows for the RowBatch events
             int playerRef = 2; // Start from 2, as 1 is reserved for EXEMPT
-            for (JsonNode playerNode : playersNode) {
-                PlayerConverter.addPlayerToTable(playerTable, playerNode, playerRef++);
+            Metrics.Phase playersWritePhase = Metrics.phase("players write");
+            try {
+                for (int start = 0; start < players.size(); start += PLAYER_BATCH_SIZE) {
+                    int end = Math.min(players.size(), start + PLAYER_BATCH_SIZE);
+                    ConversionEvents.RowBatch batch = new ConversionEvents.RowBatch();
+                    batch.begin();
+                    for (PlayerData player : players.subList(start, end)) {
+                        PlayerConverter.addPlayerToTable(playerTable, player, playerRef++);
+                    }
+                    if (batch.shouldCommit()) {
+                        batch.table = "JOUEUR";
+                        batch.firstRow = start;
+                        batch.rows = end - start;
+                        batch.commit();
+                    }
+                }
+            } finally {
+                playersWritePhase.close();
             }
+            Metrics.add(Metrics.ROWS_WRITTEN, playerRef - 2);
             
             VerboseOutput.println("Added " + (playerRef - 2) + " players to JOUEUR table");
         } else {
             VerboseOutput.println("No 'players' array found in JSON");
         }
     }
+    
+    /**
+     * Diffs the players from JSON against the existing JOUEUR rows and only
+     * writes the rows and columns that changed. JSON players are matched to the rows
+     * in Ref order, as the export numbers them (see {@link PlayerConverter#assignRefs}).
+     */
+    static void updatePlayers(Database db, List<PlayerData> players) throws Exception {
+        if (players == null) {
+            VerboseOutput.println("No 'players' array found in JSON");
+            return;
+        }
+        
+        VerboseOutput.println("\nDiffing players data...");
+        Table playerTable = db.getTable("JOUEUR");
+        
+        // Index the existing rows by Ref; rows below EXEMPT are not exported, so they are left alone
+        ConversionEvents.TableScan scan = new ConversionEvents.TableScan();
+        scan.begin();
+        Map<Integer, Row> existingRows = new HashMap<>();
+        Row exemptRow = null;
+        int scanned = 0;
+        for (Row row : playerTable) {
+            scanned++;
+            Object refObj = row.get("Ref");
+            if (refObj == null) {
+                continue;
+            }
+            int ref = ((Number)refObj).intValue();
+            if (ref == PairingRules.EXEMPT_REF) {
+                exemptRow = row;
+            } else if (ref > PairingRules.EXEMPT_REF) {
+                existingRows.put(ref, row);
+            }
+        }
+        if (scan.shouldCommit()) {
+            scan.table = "JOUEUR";
+            scan.rows = scanned;
+            scan.commit();
+        }
+        
+        // The i-th JSON player is the i-th existing row in Ref order
+        int[] sortedRefs = new int[existingRows.size()];
+        int r = 0;
+        for (int ref : existingRows.keySet()) {
+            sortedRefs[r++] = ref;
+        }
+        Arrays.sort(sortedRefs);
+        int[] refs = PlayerConverter.assignRefs(PlayerIndex.of(sortedRefs), players.size());
+        
+        // Desired value of the EXEMPT round columns, for rounds that must change
+        Map<Integer, Integer> exemptByes = new HashMap<>();
+        Map<Integer, Map<String, Object>> desiredRows = new HashMap<>();
+        
+        int updatedPlayers = 0;
+        int updatedColumns = 0;
+        int addedPlayers = 0;
+        for (int i = 0; i < players.size(); i++) {
+            PlayerData player = players.get(i);
+            int playerRef = refs[i];
+            List<Integer> byeRounds = new ArrayList<>();
+            Map<String, Object> rowData = PlayerConverter.createRowData(player, playerRef, byeRounds, refs);
+            for (int roundNum : byeRounds) {
+                exemptByes.put(roundNum, playerRef);
+            }
+            desiredRows.put(playerRef, rowData);
+            
+            Row existingRow = existingRows.remove(playerRef);
+            if (existingRow == null) {
+                PlayerConverter.addRowData(playerTable, rowData);
+                addedPlayers++;
+                VerboseOutput.println("  Added player: " + PlayerConverter.getPlayerName(player, playerRef) + " (Ref: " + playerRef + ")");
+            } else {
+                int changed = PlayerConverter.putChangedColumns(existingRow, rowData);
+                if (changed > 0) {
+                    playerTable.updateRow(existingRow);
+                    updatedPlayers++;
+                    updatedColumns += changed;
+                    VerboseOutput.println("  Updated player: " + PlayerConverter.getPlayerName(player, playerRef) + " (Ref: " + playerRef + ", " + changed + " columns)");
+                }
+            }
+        }
+        
+        // Rows beyond the JSON players
+        int removedPlayers = 0;
+        for (Row row : existingRows.values()) {
+            playerTable.deleteRow(row);
+            removedPlayers++;
+        }
+        
+        int exemptRounds = exemptRow != null ? updateExemptRow(playerTable, exemptRow, exemptByes, desiredRows) : 0;
+        Metrics.add(Metrics.ROWS_READ, players.size() + removedPlayers - addedPlayers);
+        Metrics.add(Metrics.ROWS_WRITTEN, updatedPlayers + addedPlayers + removedPlayers + (exemptRounds > 0 ? 1 : 0));
+        
+        VerboseOutput.alwaysPrintln("Players: " + updatedPlayers + " updated (" + updatedColumns + " columns), "
+            + addedPlayers + " added, " + removedPlayers + " removed, " + exemptRounds + " EXEMPT rounds changed");
+    }
+    
+    /**
+     * Applies the bye side effects on the EXEMPT row: rounds with an auto-detected bye
+     * point to the player, and rounds pointing to a player who no longer has a bye are reset.
+     * Other EXEMPT rounds are left as they are.
+     * @return The number of EXEMPT rounds changed
+     */
+    private static int updateExemptRow(Table playerTable, Row exemptRow, Map<Integer, Integer> exemptByes,
+            Map<Integer, Map<String, Object>> desiredRows) throws Exception {
+        int changedRounds = 0;
+        for (int roundNum = 1; roundNum <= 24; roundNum++) {
+            String roundStr = String.format("%02d", roundNum);
+            Object color;
+            Object opponent;
+            Object result;
+            
+            Integer byePlayer = exemptByes.get(roundNum);
+            if (byePlayer != null) {
+                color = "N";
+                opponent = byePlayer;
+                result = 0;
+            } else {
+                Object currentOpponent = exemptRow.get("Rd" + roundStr + "Adv");
+                if (!(currentOpponent instanceof Number) || ((Number)currentOpponent).intValue() < 2) {
+                    continue; // Not paired in this round
+                }
+                Map<String, Object> pairedRow = desiredRows.get(((Number)currentOpponent).intValue());
+                if (pairedRow != null && Integer.valueOf(1).equals(pairedRow.get("Rd" + roundStr + "Adv"))) {
+                    continue; // Still paired against EXEMPT
+                }
+                color = "R";
+                opponent = 0;
+                result = 0;
+            }
+            
+            boolean changed = false;
+            changed |= PlayerConverter.putIfDifferent(exemptRow, "Rd" + roundStr + "Cl", color);
+            changed |= PlayerConverter.putIfDifferent(exemptRow, "Rd" + roundStr + "Adv", opponent);
+            changed |= PlayerConverter.putIfDifferent(exemptRow, "Rd" + roundStr + "Res", result);
+            if (changed) {
+                changedRounds++;
+                ConversionEvents.ExemptUpdate event = new ConversionEvents.ExemptUpdate();
+                if (event.shouldCommit()) {
+                    event.round = roundNum;
+                    event.playerRef = opponent != null ? (Integer) opponent : 0;
+                    event.commit();
+                }
+            }
+        }
+        if (changedRounds > 0) {
+            playerTable.updateRow(exemptRow);
+        }
+        return changedRounds;
+    }
 }
@@ -0,0 +1,244 @@
+package org.sharlychess.papiconverter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only {@link FileChannel} over a memory-mapped file, for Jackcess.
+ *
+ * Jackcess reads every page with a positional read; on this channel a page read is
+ * a memory copy from the mapping instead of a system call, and the pages stay in the
+ * operating system's page cache, shared with the next runs. The file is mapped in
+ * segments of 1 GiB, so files of any size can be mapped; reads that span two
+ * segments are split. Writes and truncation are not supported; as on a read-only
+ * FileChannel, exclusive locks are refused, and shared locks are granted without
+ * locking the file, since the file is never written through the channel.
+ *
+ * The mapping keeps the file open until it is garbage collected, even after the
+ * channel is closed, so it is only used for files that no other program writes
+ * (such as the FFE player database), not for PAPI files that may be open in PAPI.
+ */
+public final class MappedFileChannel extends FileChannel {
+
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private long position;
+
+    private MappedFileChannel(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Maps a whole file read-only.
+     * @param file The file to map
+     * @return The channel over the mapping
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static MappedFileChannel open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return new MappedFileChannel(segments, size);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        ensureOpen();
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        if (position >= size) {
+            return -1;
+        }
+        int length = (int) Math.min(dst.remaining(), size - position);
+        int copied = 0;
+        while (copied < length) {
+            long offset = position + copied;
+            MappedByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+            int segmentOffset = (int) (offset % SEGMENT_SIZE);
+            int chunk = Math.min(length - copied, segment.capacity() - segmentOffset);
+            dst.put(segment.slice(segmentOffset, chunk));
+            copied += chunk;
+        }
+        return length;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        int read = read(dst, position);
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    @Override
+    public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int read = read(dsts[i]);
+            if (read < 0) {
+                return total > 0 ? total : -1;
+            }
+            total += read;
+            if (dsts[i].hasRemaining()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized FileChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        ensureOpen();
+        long end = Math.min(size, position + count);
+        long transferred = 0;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(64 * 1024, Math.max(0, end - position)));
+        while (position + transferred < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position - transferred));
+            read(buffer, position + transferred);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                transferred += target.write(buffer);
+            }
+        }
+        return transferred;
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        ensureOpen();
+        if (mode != MapMode.READ_ONLY) {
+            throw new NonWritableChannelException();
+        }
+        if (position < 0 || size < 0) {
+            throw new IllegalArgumentException("Negative position or size: " + position + "+" + size);
+        }
+        int segment = (int) (position / SEGMENT_SIZE);
+        int segmentOffset = (int) (position % SEGMENT_SIZE);
+        if (position + size > this.size || segment >= segments.length
+                || segmentOffset + size > segments[segment].capacity()) {
+            throw new IOException("Region " + position + "+" + size + " is outside a single mapped segment");
+        }
+        return segments[segment].slice(segmentOffset, (int) size);
+    }
+
+    @Override
+    public void force(boolean metaData) {
+        // Nothing is ever written
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public FileChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return tryLock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        ensureOpen();
+        if (!shared) {
+            throw new NonWritableChannelException();
+        }
+        return new SharedLock(this, position, size);
+    }
+
+    @Override
+    protected void implCloseChannel() {
+        // The mapping is released when the buffers are garbage collected
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Shared lock that does not lock the file: it only becomes invalid when released
+     * or when the channel is closed.
+     */
+    private static final class SharedLock extends FileLock {
+        private volatile boolean released;
+
+        SharedLock(MappedFileChannel channel, long position, long size) {
+            super(channel, position, size, true);
+        }
+
+        @Override
+        public boolean isValid() {
+            return !released && channel().isOpen();
+        }
+
+        @Override
+        public void release() throws IOException {
+            if (!channel().isOpen()) {
+                throw new ClosedChannelException();
+            }
+            released = true;
+        }
+    }
+}
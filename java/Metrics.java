@@ -0,0 +1,314 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+/**
+ * Phase timers, counters and heap high-water mark of a run.
+ *
+ * The converters time their phases with {@link #phase(String)} and add their row and
+ * byte counts with {@link #add(String, long)} once a loop is done, so nothing is
+ * recorded per row. With --metrics=&lt;file&gt; the totals are written as a JSON report
+ * when the program exits; with --progress, phases, progress and messages are streamed
+ * to standard error as NDJSON events (one JSON object per line).
+ */
+public class Metrics {
+
+    /** Rows read from PAPI or player database tables */
+    public static final String ROWS_READ = "rowsRead";
+    /** Rows written to PAPI tables or to an SQL dump */
+    public static final String ROWS_WRITTEN = "rowsWritten";
+    /** Bytes of the input files or streams */
+    public static final String BYTES_READ = "bytesRead";
+    /** Bytes of the output files or streams */
+    public static final String BYTES_WRITTEN = "bytesWritten";
+    /** Warnings printed with {@link VerboseOutput#warningPrintln(String)} */
+    public static final String WARNINGS = "warnings";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final long START = System.nanoTime();
+
+    /** Total time and number of runs by phase name, in the order phases first ran. Guarded by itself. */
+    private static final Map<String, long[]> PHASES = new LinkedHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final AtomicLong SAMPLED_HEAP_PEAK = new AtomicLong();
+
+    private static volatile File reportFile;
+    private static volatile boolean progress;
+    private static volatile String failure;
+    private static boolean finishHookInstalled;
+
+    /**
+     * A running phase, ended by {@link #close()}.
+     */
+    public static final class Phase implements AutoCloseable {
+        private final String name;
+        private final long start;
+
+        private Phase(String name) {
+            this.name = name;
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - start;
+            synchronized (PHASES) {
+                long[] total = PHASES.computeIfAbsent(name, n -> new long[2]);
+                total[0] += nanos;
+                total[1]++;
+            }
+            sampleHeap();
+            if (progress) {
+                event(generator -> {
+                    generator.writeStringField("event", "phase");
+                    generator.writeStringField("phase", name);
+                    generator.writeStringField("state", "end");
+                    generator.writeNumberField("ms", nanos / 1e6);
+                });
+            }
+        }
+    }
+
+    /**
+     * Writer of the fields of an NDJSON event.
+     */
+    private interface EventWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Writes the JSON report to a file when the program exits.
+     * @param file Path to the report
+     */
+    public static synchronized void enableReport(String file) {
+        reportFile = new File(file);
+        installFinishHook();
+    }
+
+    /**
+     * Streams NDJSON events to standard error. Messages sent to standard error are
+     * streamed as "log" events, so every line of standard error is a JSON object.
+     */
+    public static synchronized void enableProgress() {
+        progress = true;
+        installFinishHook();
+    }
+
+    /**
+     * @return true if NDJSON events are streamed to standard error
+     */
+    public static boolean isProgress() {
+        return progress;
+    }
+
+    /**
+     * Starts a phase, to be closed in a finally block.
+     * Phases with the same name are added up.
+     * @param name Name of the phase
+     * @return The running phase
+     */
+    public static Phase phase(String name) {
+        sampleHeap();
+        if (progress) {
+            event(generator -> {
+                generator.writeStringField("event", "phase");
+                generator.writeStringField("phase", name);
+                generator.writeStringField("state", "start");
+            });
+        }
+        return new Phase(name);
+    }
+
+    /**
+     * Adds to a counter.
+     * @param counter Counter name, such as {@link #ROWS_READ}
+     * @param delta Amount to add
+     */
+    public static void add(String counter, long delta) {
+        COUNTERS.computeIfAbsent(counter, c -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Reports the progress of a long phase. Only streamed with --progress.
+     * @param name What is counted, such as "players"
+     * @param done Items done so far
+     * @param total Total number of items, or a negative value if unknown
+     */
+    public static void progress(String name, long done, long total) {
+        if (progress) {
+            event(generator -> {
+                generator.writeStringField("event", "progress");
+                generator.writeStringField("name", name);
+                generator.writeNumberField("done", done);
+                if (total >= 0) {
+                    generator.writeNumberField("total", total);
+                }
+            });
+        }
+    }
+
+    /**
+     * Streams a message as a "log" event.
+     * @param level "info", "warning" or "error"
+     * @param message The message
+     */
+    static void log(String level, String message) {
+        event(generator -> {
+            generator.writeStringField("event", "log");
+            generator.writeStringField("level", level);
+            generator.writeStringField("message", message);
+        });
+    }
+
+    /**
+     * Records that the run failed, for the report and the final event.
+     * @param message The error message
+     */
+    public static void failed(String message) {
+        failure = message != null ? message : "Unknown error";
+    }
+
+    private static synchronized void installFinishHook() {
+        if (!finishHookInstalled) {
+            finishHookInstalled = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::finish, "papi-metrics"));
+        }
+    }
+
+    /**
+     * Runs when the program exits: writes the report and the final event.
+     */
+    private static void finish() {
+        VerboseOutput.flush();
+        double elapsedMs = (System.nanoTime() - START) / 1e6;
+        if (reportFile != null) {
+            try {
+                writeReport(reportFile, elapsedMs);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not write the metrics report " + reportFile + ": " + e.getMessage());
+            }
+        }
+        if (progress) {
+            event(generator -> {
+                generator.writeStringField("event", "end");
+                generator.writeBooleanField("success", failure == null);
+                generator.writeNumberField("ms", elapsedMs);
+                writeCounters(generator);
+            });
+        }
+    }
+
+    private static void writeReport(File file, double elapsedMs) throws IOException {
+        File parentDir = file.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        try (JsonGenerator generator = FACTORY.createGenerator(file, JsonEncoding.UTF8)) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+            generator.writeStartObject();
+            generator.writeBooleanField("success", failure == null);
+            if (failure != null) {
+                generator.writeStringField("error", failure);
+            }
+            generator.writeNumberField("elapsedMs", elapsedMs);
+            generator.writeFieldName("phases");
+            generator.writeStartArray();
+            for (Map.Entry<String, long[]> phase : phases()) {
+                generator.writeStartObject();
+                generator.writeStringField("name", phase.getKey());
+                generator.writeNumberField("ms", phase.getValue()[0] / 1e6);
+                generator.writeNumberField("count", phase.getValue()[1]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            writeCounters(generator);
+            long rows = count(ROWS_READ) + count(ROWS_WRITTEN);
+            generator.writeNumberField("rowsPerSecond", elapsedMs > 0 ? Math.round(rows * 1000 / elapsedMs) : 0);
+            generator.writeNumberField("heapPeakBytes", heapPeak());
+            generator.writeEndObject();
+        }
+    }
+
+    private static List<Map.Entry<String, long[]>> phases() {
+        synchronized (PHASES) {
+            List<Map.Entry<String, long[]>> phases = new ArrayList<>();
+            for (Map.Entry<String, long[]> phase : PHASES.entrySet()) {
+                phases.add(Map.entry(phase.getKey(), phase.getValue().clone()));
+            }
+            return phases;
+        }
+    }
+
+    private static void writeCounters(JsonGenerator generator) throws IOException {
+        generator.writeFieldName("counters");
+        generator.writeStartObject();
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(COUNTERS).entrySet()) {
+            generator.writeNumberField(counter.getKey(), counter.getValue().sum());
+        }
+        generator.writeEndObject();
+    }
+
+    private static long count(String counter) {
+        LongAdder adder = COUNTERS.get(counter);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    private static void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        SAMPLED_HEAP_PEAK.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+    }
+
+    /**
+     * Gets the heap high-water mark: the peak usage of the heap memory pools, or the
+     * highest usage sampled at phase boundaries where memory pools are not available.
+     */
+    private static long heapPeak() {
+        long peak = 0;
+        try {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+        } catch (RuntimeException | LinkageError e) {
+            peak = 0; // Management not available (e.g. in some native images)
+        }
+        return Math.max(peak, SAMPLED_HEAP_PEAK.get());
+    }
+
+    /**
+     * Writes one NDJSON event to standard error.
+     */
+    private static void event(EventWriter writer) {
+        StringWriter line = new StringWriter();
+        try (JsonGenerator generator = FACTORY.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeNumberField("t", Math.round((System.nanoTime() - START) / 1e6));
+            writer.write(generator);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            return; // Writing to a StringWriter does not fail
+        }
+        synchronized (System.err) {
+            System.err.println(line);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.sharlychess.papiconverter;
+
+/**
+ * Rules linking the two sides of a pairing in the JOUEUR round columns
+ * (RdNNCl, RdNNAdv, RdNNRes).
+ */
+public class PairingRules {
+
+    /**
+     * Reference of the EXEMPT player, used as opponent for byes.
+     */
+    public static final int EXEMPT_REF = 1;
+
+    /**
+     * Number of round slots in the JOUEUR table.
+     */
+    public static final int MAX_ROUNDS = 24;
+
+    /**
+     * Highest valid result code.
+     */
+    public static final int MAX_RESULT = 14;
+
+    /**
+     * Result of a player paired against EXEMPT (forfeit win / bye).
+     */
+    public static final int BYE_RESULT = 6;
+
+    /**
+     * Result stored on the EXEMPT side of a bye.
+     */
+    public static final int EXEMPT_RESULT = 0;
+
+    /**
+     * Color stored on the EXEMPT side of a bye.
+     */
+    public static final String EXEMPT_COLOR = "N";
+
+    /**
+     * Gets the column name prefix of a round, e.g. "Rd05".
+     * @param roundNum The round number (1-24)
+     * @return The column prefix
+     */
+    public static String roundPrefix(int roundNum) {
+        return String.format("Rd%02d", roundNum);
+    }
+
+    /**
+     * Checks a color code; an absent color (null or empty) is valid.
+     * @param color The color code
+     * @return true if the color is absent, B, N, R or F
+     */
+    public static boolean isValidColor(String color) {
+        return color == null || color.isEmpty() || "B".equals(color) || "N".equals(color)
+            || "R".equals(color) || "F".equals(color);
+    }
+
+    /**
+     * Checks a result code.
+     * @param result The result code
+     * @return true if the result is between 0 and {@link #MAX_RESULT}
+     */
+    public static boolean isValidResult(int result) {
+        return result >= 0 && result <= MAX_RESULT;
+    }
+
+    /**
+     * Tells whether a result entered without opponent is invalid: results that have
+     * a mirrored result need an opponent, except the bye result, paired against EXEMPT.
+     * @param result The result code
+     * @return true if the result needs an opponent
+     */
+    public static boolean needsOpponent(int result) {
+        return result != BYE_RESULT && mirrorResult(result) > 0;
+    }
+
+    /**
+     * Gets the color of the opponent from a player's color.
+     * @param color The player's color (B, N, F or R)
+     * @return The opponent's color
+     */
+    public static String mirrorColor(String color) {
+        if ("B".equals(color)) {
+            return "N";
+        } else if ("N".equals(color)) {
+            return "B";
+        }
+        return color;
+    }
+
+    /**
+     * Gets the result of the opponent from a player's result.
+     * @param result The player's result
+     * @return The opponent's result, or -1 if the result cannot involve an opponent
+     */
+    public static int mirrorResult(int result) {
+        switch (result) {
+            case 0: return 0;   // No result yet
+            case 1: return 3;   // Loss / win
+            case 2: return 2;   // Draw
+            case 3: return 1;   // Win / loss
+            case 4: return 6;   // Forfeit loss / forfeit win
+            case 5: return 5;   // Double forfeit
+            case 6: return 4;   // Forfeit win / forfeit loss
+            case 11: return 13; // Unrated loss / unrated win
+            case 12: return 12; // Unrated draw
+            case 13: return 11; // Unrated win / unrated loss
+            default: return -1; // Byes and rest games have no opponent
+        }
+    }
+}
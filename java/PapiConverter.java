@@ -1,5 +1,12 @@
 package org.sharlychess.papiconverter;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Main entry point for the PAPI Converter application.
  * Provides bidirectional conversion between JSON and PAPI database formats.
@@ -14,15 +21,122 @@ public class PapiConverter {
         
         // Parse arguments for flags
         boolean verbose = false;
+        boolean incremental = false;
+        boolean bulk = false;
+        boolean update = false;
+        boolean standings = false;
+        String fromFormat = null;
+        String toFormat = null;
+        String documentFormat = null;
+        String metricsFile = null;
+        boolean progress = false;
+        String jfrFile = null;
+        String fideListFile = null;
+        String cacheDir = null;
+        String enrichFile = null;
+        long cacheMaxBytes = ConversionCache.DEFAULT_MAX_BYTES;
         int argIndex = 0;
         
-        // Check for --verbose flag
+        // Check for --verbose, --incremental, --bulk, --update, --standings, --from, --to, --format, --metrics, --progress, --jfr, --fide-list, --cache, --cache-size and --enrich flags
         while (argIndex < args.length && args[argIndex].startsWith("--")) {
             if ("--verbose".equals(args[argIndex])) {
                 verbose = true;
                 argIndex++;
-            } else if ("--playerdb".equals(args[argIndex])) {
-                break; // Handle --playerdb in the existing logic below
+            } else if ("--incremental".equals(args[argIndex])) {
+                incremental = true;
+                argIndex++;
+            } else if ("--bulk".equals(args[argIndex])) {
+                bulk = true;
+                argIndex++;
+            } else if ("--update".equals(args[argIndex])) {
+                update = true;
+                argIndex++;
+            } else if ("--standings".equals(args[argIndex])) {
+                standings = true;
+                argIndex++;
+            } else if (args[argIndex].startsWith("--metrics=")) {
+                metricsFile = args[argIndex].substring("--metrics=".length());
+                if (metricsFile.isEmpty()) {
+                    System.err.println("Error: --metrics requires a report file (--metrics=<file>)");
+                    printUsage();
+                    System.exit(1);
+                }
+                argIndex++;
+            } else if ("--progress".equals(args[argIndex])) {
+                progress = true;
+                argIndex++;
+            } else if (args[argIndex].startsWith("--jfr=")) {
+                jfrFile = args[argIndex].substring("--jfr=".length());
+                if (jfrFile.isEmpty()) {
+                    System.err.println("Error: --jfr requires a recording file (--jfr=<file>)");
+                    printUsage();
+                    System.exit(1);
+                }
+                argIndex++;
+            } else if (args[argIndex].startsWith("--fide-list=")) {
+                fideListFile = args[argIndex].substring("--fide-list=".length());
+                if (fideListFile.isEmpty()) {
+                    System.err.println("Error: --fide-list requires a FIDE rating list file (--fide-list=<file>)");
+                    printUsage();
+                    System.exit(1);
+                }
+                argIndex++;
+            } else if (args[argIndex].startsWith("--cache=")) {
+                cacheDir = args[argIndex].substring("--cache=".length());
+                if (cacheDir.isEmpty()) {
+                    System.err.println("Error: --cache requires a cache directory (--cache=<dir>)");
+                    printUsage();
+                    System.exit(1);
+                }
+                argIndex++;
+            } else if (args[argIndex].startsWith("--enrich=")) {
+                enrichFile = args[argIndex].substring("--enrich=".length());
+                if (enrichFile.isEmpty()) {
+                    System.err.println("Error: --enrich requires a player database (--enrich=<Data.mdb|file" + PlayerDirectory.EXTENSION + ">)");
+                    printUsage();
+                    System.exit(1);
+                }
+                argIndex++;
+            } else if (args[argIndex].startsWith("--cache-size=")) {
+                try {
+                    cacheMaxBytes = Long.parseLong(args[argIndex].substring("--cache-size=".length())) * 1024 * 1024;
+                } catch (NumberFormatException e) {
+                    cacheMaxBytes = 0;
+                }
+                if (cacheMaxBytes <= 0) {
+                    System.err.println("Error: --cache-size requires a size in megabytes (--cache-size=<MB>)");
+                    printUsage();
+                    System.exit(1);
+                }
+                argIndex++;
+            } else if ("--from".equals(args[argIndex]) || "--to".equals(args[argIndex])) {
+                String format = argIndex + 1 < args.length ? normalizeFormat(args[argIndex + 1]) : null;
+                if (format == null) {
+                    System.err.println("Error: " + args[argIndex] + " requires a format (json, bin or papi)");
+                    printUsage();
+                    System.exit(1);
+                }
+                if ("--from".equals(args[argIndex])) {
+                    fromFormat = format;
+                } else {
+                    toFormat = format;
+                }
+                argIndex += 2;
+            } else if ("--format".equals(args[argIndex])) {
+                String format = argIndex + 1 < args.length ? normalizeFormat(args[argIndex + 1]) : null;
+                if (format == null || "papi".equals(format)) {
+                    System.err.println("Error: --format requires a tournament document format (json or bin)");
+                    printUsage();
+                    System.exit(1);
+                }
+                documentFormat = format;
+                argIndex += 2;
+            } else if ("--playerdb".equals(args[argIndex]) || "--watch".equals(args[argIndex])
+                    || "--results".equals(args[argIndex]) || "--check".equals(args[argIndex])
+                    || "--archive".equals(args[argIndex]) || "--diff".equals(args[argIndex])
+                    || "--follow".equals(args[argIndex]) || "--history".equals(args[argIndex])
+                    || "--history-query".equals(args[argIndex])) {
+                break; // Handle --playerdb, --watch, --results, --check, --archive, --diff, --follow, --history and --history-query in the existing logic below
             } else {
                 System.err.println("Unknown flag: " + args[argIndex]);
                 printUsage();
@@ -30,8 +144,35 @@ public class PapiConverter {
             }
         }
         
-        // Set verbose mode
+        // Set verbose mode and instrumentation
         VerboseOutput.setVerbose(verbose);
+        if (metricsFile != null) {
+            Metrics.enableReport(metricsFile);
+        }
+        if (progress) {
+            Metrics.enableProgress();
+        }
+        if (jfrFile != null) {
+            try {
+                FlightRecording.start(jfrFile);
+            } catch (Exception e) {
+                System.err.println("Error: Could not start the Flight Recorder recording: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        
+        ConversionCache cache = cacheDir != null ? new ConversionCache(Paths.get(cacheDir), cacheMaxBytes) : null;
+        
+        if (fideListFile != null && (argIndex >= args.length || !"--playerdb".equals(args[argIndex]))) {
+            System.err.println("Error: --fide-list only applies to --playerdb");
+            printUsage();
+            System.exit(1);
+        }
+        if (cacheDir != null && argIndex < args.length && args[argIndex].startsWith("--") && !"--playerdb".equals(args[argIndex])) {
+            System.err.println("Error: --cache only applies to PAPI to document and --playerdb conversions between files");
+            printUsage();
+            System.exit(1);
+        }
         
         // Check for --playerdb option (adjust for consumed flags)
         if (argIndex < args.length && "--playerdb".equals(args[argIndex])) {
@@ -42,13 +183,214 @@ public class PapiConverter {
             }
             String inputFile = args[argIndex + 1];
             String outputFile = (argIndex + 2 < args.length) ? args[argIndex + 2] : null;
+            if ("-".equals(outputFile) || ("-".equals(inputFile) && outputFile == null)) {
+                // Keep standard output for the SQL dump
+                VerboseOutput.setMessageStream(System.err);
+            }
+            if (cache != null && ("-".equals(inputFile) || "-".equals(outputFile))) {
+                System.err.println("Error: --cache only applies to PAPI to document and --playerdb conversions between files");
+                printUsage();
+                System.exit(1);
+            }
+            try {
+                if (cache != null) {
+                    String sqlFile = outputFile != null ? outputFile : PlayerDbConverter.defaultOutputFile(inputFile);
+                    String fideList = fideListFile;
+                    List<Path> inputs = new ArrayList<>();
+                    inputs.add(Paths.get(inputFile));
+                    if (fideList != null) {
+                        inputs.add(Paths.get(fideList));
+                    }
+                    cache.convert(inputs, "playerdb" + (fideList != null ? " fide-list" : ""), Paths.get(sqlFile),
+                        () -> PlayerDbConverter.convert(inputFile, sqlFile, fideList));
+                } else {
+                    PlayerDbConverter.convert(inputFile, outputFile, fideListFile);
+                }
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --watch option
+        if (argIndex < args.length && "--watch".equals(args[argIndex])) {
+            if (argIndex + 1 >= args.length) {
+                System.err.println("Error: --watch requires a directory");
+                printUsage();
+                System.exit(1);
+            }
+            if (incremental || bulk || update || fromFormat != null || toFormat != null || enrichFile != null) {
+                System.err.println("Error: --watch only supports --format and --standings among the conversion options");
+                printUsage();
+                System.exit(1);
+            }
+            TournamentFormat watchFormat = documentFormat != null ? TournamentFormat.forName(documentFormat) : TournamentFormat.JSON;
+            if (standings && watchFormat != TournamentFormat.JSON) {
+                System.err.println("Error: --standings only applies to JSON output");
+                printUsage();
+                System.exit(1);
+            }
+            String watchDir = args[argIndex + 1];
+            String outputDir = (argIndex + 2 < args.length) ? args[argIndex + 2] : null;
+            try {
+                FolderWatcher.watch(watchDir, outputDir, watchFormat, standings);
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --results option
+        if (argIndex < args.length && "--results".equals(args[argIndex])) {
+            if (argIndex + 2 >= args.length) {
+                System.err.println("Error: --results requires a results file and a PAPI file");
+                printUsage();
+                System.exit(1);
+            }
+            try {
+                RoundResultsIngester.ingest(args[argIndex + 1], args[argIndex + 2]);
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --archive option
+        if (argIndex < args.length && "--archive".equals(args[argIndex])) {
+            if (argIndex + 1 >= args.length) {
+                System.err.println("Error: --archive requires a directory of PAPI files");
+                printUsage();
+                System.exit(1);
+            }
+            String outputFile = (argIndex + 2 < args.length) ? args[argIndex + 2] : null;
+            try {
+                TournamentArchive.archive(args[argIndex + 1], outputFile);
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --check option
+        if (argIndex < args.length && "--check".equals(args[argIndex])) {
+            if (argIndex + 1 >= args.length) {
+                System.err.println("Error: --check requires a PAPI file");
+                printUsage();
+                System.exit(1);
+            }
+            int problems = 0;
+            try {
+                problems = ConsistencyChecker.run(args[argIndex + 1]);
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            if (problems > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --diff option
+        if (argIndex < args.length && "--diff".equals(args[argIndex])) {
+            if (argIndex + 2 >= args.length) {
+                System.err.println("Error: --diff requires two PAPI files");
+                printUsage();
+                System.exit(1);
+            }
+            String outputFile = (argIndex + 3 < args.length) ? args[argIndex + 3] : null;
+            if (outputFile == null || "-".equals(outputFile)) {
+                // Keep standard output for the change set
+                VerboseOutput.setMessageStream(System.err);
+            }
+            try {
+                PapiDiff.run(args[argIndex + 1], args[argIndex + 2], outputFile);
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --follow option
+        if (argIndex < args.length && "--follow".equals(args[argIndex])) {
+            if (argIndex + 1 >= args.length) {
+                System.err.println("Error: --follow requires a PAPI file");
+                printUsage();
+                System.exit(1);
+            }
+            int port = 0;
+            if (argIndex + 2 < args.length) {
+                try {
+                    port = Integer.parseInt(args[argIndex + 2]);
+                } catch (NumberFormatException e) {
+                    port = -1;
+                }
+                if (port < 1 || port > 65535) {
+                    System.err.println("Error: --follow port must be a number between 1 and 65535");
+                    printUsage();
+                    System.exit(1);
+                }
+            } else {
+                // Keep standard output for the events
+                VerboseOutput.setMessageStream(System.err);
+            }
+            try {
+                TournamentFollower.follow(args[argIndex + 1], port);
+            } catch (Exception e) {
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --history option
+        if (argIndex < args.length && "--history".equals(args[argIndex])) {
+            if (argIndex + 2 >= args.length) {
+                System.err.println("Error: --history requires a player database and a history file");
+                printUsage();
+                System.exit(1);
+            }
+            String release = (argIndex + 3 < args.length) ? args[argIndex + 3] : null;
             try {
-                PlayerDbConverter.convert(inputFile, outputFile);
+                RatingHistory.append(Paths.get(args[argIndex + 2]), args[argIndex + 1], release);
             } catch (Exception e) {
-                System.err.println("Error: " + e.getMessage());
-                if (VerboseOutput.isVerbose()) {
-                    e.printStackTrace();
+                reportError(e);
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Check for --history-query option
+        if (argIndex < args.length && "--history-query".equals(args[argIndex])) {
+            int ffeId = -1;
+            if (argIndex + 2 < args.length) {
+                try {
+                    ffeId = Integer.parseInt(args[argIndex + 2]);
+                } catch (NumberFormatException e) {
+                    ffeId = -1;
                 }
+            }
+            if (ffeId <= 0) {
+                System.err.println("Error: --history-query requires a history file and an FFE ID");
+                printUsage();
+                System.exit(1);
+            }
+            // Keep standard output for the history
+            VerboseOutput.setMessageStream(System.err);
+            try {
+                Path historyFile = Paths.get(args[argIndex + 1]);
+                if (!Files.exists(historyFile)) {
+                    throw new Exception("Rating history not found: " + historyFile);
+                }
+                RatingHistory.open(historyFile).writeHistory(ffeId, System.out);
+                System.out.flush();
+            } catch (Exception e) {
+                reportError(e);
                 System.exit(1);
             }
             return;
@@ -64,38 +406,218 @@ public class PapiConverter {
         String inputFile = args[argIndex];
         String outputFile = (argIndex + 1 < args.length) ? args[argIndex + 1] : null;
         
+        // "-" reads from standard input / writes to standard output
+        boolean fromStdin = "-".equals(inputFile);
+        if (fromStdin && outputFile == null) {
+            outputFile = "-";
+        }
+        boolean toStdout = "-".equals(outputFile);
+        if (toStdout) {
+            // Keep standard output for the converted data
+            VerboseOutput.setMessageStream(System.err);
+        }
+        
+        // Determine the input format from --from, the file extension, or --to;
+        // --format takes precedence over the extension of the tournament document
+        String inputFormat = fromFormat;
+        if (inputFormat == null && !fromStdin) {
+            String lowerInput = inputFile.toLowerCase();
+            TournamentFormat inputDocument = TournamentFormat.forFile(inputFile);
+            if (inputDocument != null) {
+                inputFormat = documentFormat != null ? documentFormat : inputDocument.formatName();
+            } else if (lowerInput.endsWith(".mdb") || lowerInput.endsWith(".papi")) {
+                inputFormat = "papi";
+            }
+        }
+        if (inputFormat == null && toFormat != null) {
+            inputFormat = "papi".equals(toFormat) ? (documentFormat != null ? documentFormat : "json") : "papi";
+        }
+        if (inputFormat == null) {
+            if (fromStdin) {
+                System.err.println("Error: --from or --to is required when reading from standard input");
+            } else {
+                System.err.println("Error: Input file must be either .json, " + TournamentSnapshot.EXTENSION + ", .mdb, or .papi");
+            }
+            printUsage();
+            System.exit(1);
+        }
+        boolean papiInput = "papi".equals(inputFormat);
+        
+        // Determine the output format from --to, --format, or the output file extension
+        String outputFormat = toFormat;
+        if (outputFormat == null && !papiInput) {
+            outputFormat = "papi";
+        } else if (outputFormat == null) {
+            TournamentFormat outputDocument = outputFile != null && !toStdout ? TournamentFormat.forFile(outputFile) : null;
+            outputFormat = documentFormat != null ? documentFormat
+                : outputDocument != null ? outputDocument.formatName() : "json";
+        }
+        if (inputFormat.equals(outputFormat)) {
+            System.err.println("Error: Input and output formats must be different");
+            printUsage();
+            System.exit(1);
+        }
+        if (!papiInput && !"papi".equals(outputFormat)) {
+            System.err.println("Error: One of the input and output formats must be papi");
+            printUsage();
+            System.exit(1);
+        }
+        TournamentFormat document = TournamentFormat.forName(papiInput ? outputFormat : inputFormat);
+        if (documentFormat != null && !documentFormat.equals(document.formatName())) {
+            System.err.println("Error: --format " + documentFormat + " conflicts with --from/--to");
+            printUsage();
+            System.exit(1);
+        }
+        if (standings && !papiInput) {
+            System.err.println("Error: --standings only applies to PAPI to JSON conversions");
+            printUsage();
+            System.exit(1);
+        }
+        if ((fromStdin || toStdout) && (update || incremental)) {
+            System.err.println("Error: --update and --incremental require file paths");
+            printUsage();
+            System.exit(1);
+        }
+        if (bulk && (papiInput || update || fromStdin || toStdout)) {
+            System.err.println("Error: --bulk only applies to JSON to PAPI conversions between files, without --update");
+            printUsage();
+            System.exit(1);
+        }
+        if (cacheDir != null && (!papiInput || fromStdin || toStdout)) {
+            System.err.println("Error: --cache only applies to PAPI to document and --playerdb conversions between files");
+            printUsage();
+            System.exit(1);
+        }
+        if (enrichFile != null && papiInput) {
+            System.err.println("Error: --enrich only applies to JSON to PAPI conversions");
+            printUsage();
+            System.exit(1);
+        }
+        
         try {
-            if (inputFile.toLowerCase().endsWith(".json")) {
-                JsonToPapiConverter.convert(inputFile, outputFile);
-            } else if (inputFile.toLowerCase().endsWith(".mdb") || inputFile.toLowerCase().endsWith(".papi")) {
-                PapiToJsonConverter.convert(inputFile, outputFile);
+            PlayerDirectory directory = null;
+            if (enrichFile != null) {
+                directory = PlayerDirectory.load(Paths.get(enrichFile));
+            }
+            if (fromStdin || toStdout) {
+                convertStreams(papiInput, document, standings, directory, inputFile, outputFile);
+            } else if (!papiInput && update) {
+                JsonToPapiConverter.update(inputFile, outputFile, document, directory);
+            } else if (!papiInput) {
+                JsonToPapiConverter.convert(inputFile, outputFile, document, bulk, directory);
+            } else if (cache != null && Files.isRegularFile(Paths.get(inputFile))) {
+                String documentFile = outputFile != null ? outputFile : PapiToJsonConverter.defaultOutputFile(inputFile, document);
+                boolean incrementalExport = incremental;
+                boolean standingsExport = standings;
+                cache.convert(Collections.singletonList(Paths.get(inputFile)),
+                    "papi-to-" + document.formatName() + (standings ? " standings" : ""), Paths.get(documentFile),
+                    () -> PapiToJsonConverter.convert(inputFile, documentFile, incrementalExport, document, standingsExport));
             } else {
-                System.err.println("Error: Input file must be either .json, .mdb, or .papi");
-                printUsage();
-                System.exit(1);
+                PapiToJsonConverter.convert(inputFile, outputFile, incremental, document, standings);
             }
         } catch (Exception e) {
-            System.err.println("Error: " + e.getMessage());
-            if (VerboseOutput.isVerbose()) {
-                e.printStackTrace();
-            }
+            reportError(e);
             System.exit(1);
         }
     }
     
+    /**
+     * Prints the error of a failed run, with its stack trace in verbose mode, and records it in the metrics.
+     */
+    private static void reportError(Exception e) {
+        VerboseOutput.errorPrintln("Error: " + e.getMessage());
+        Metrics.failed(e.getMessage());
+        if (VerboseOutput.isVerbose()) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Runs a conversion where the input and/or the output is a standard stream ("-").
+     */
+    private static void convertStreams(boolean papiInput, TournamentFormat document, boolean standings,
+            PlayerDirectory directory, String inputFile, String outputFile) throws Exception {
+        java.io.InputStream in = "-".equals(inputFile) ? System.in : new java.io.FileInputStream(inputFile);
+        java.io.OutputStream out = null;
+        try {
+            out = "-".equals(outputFile) ? System.out : new java.io.FileOutputStream(outputFile);
+            if (!papiInput) {
+                JsonToPapiConverter.convert(in, out, document, directory);
+            } else {
+                PapiToJsonConverter.convert(in, out, document, standings);
+            }
+        } finally {
+            if (in != System.in) {
+                in.close();
+            }
+            if (out != null && out != System.out) {
+                out.close();
+            }
+        }
+    }
+    
+    /**
+     * Normalizes a --from/--to/--format format name.
+     * @return "json", "bin" or "papi", or null if the format is unknown
+     */
+    private static String normalizeFormat(String format) {
+        switch (format.toLowerCase()) {
+            case "json": return "json";
+            case "bin":
+            case "snapshot": return "bin";
+            case "papi":
+            case "mdb": return "papi";
+            default: return null;
+        }
+    }
+    
     private static void printUsage() {
-        System.err.println("Usage: java PapiConverter [--verbose] <input-file> [output-file]");
-        System.err.println("       java PapiConverter [--verbose] --playerdb <input-mdb-file> [output-sql-file]");
+        System.err.println("Usage: java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] [--cache=<dir>] [--enrich=<file>] [--incremental] [--bulk] [--update] [--standings] [--from <format>] [--to <format>] [--format <json|bin>] <input-file> [output-file]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] [--cache=<dir>] [--fide-list=<file>] --playerdb <input-mdb-file> [output-sql-file]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] [--format <json|bin>] [--standings] --watch <papi-dir> [output-dir]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --results <results-json-file> <papi-file>");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --check <papi-file>");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --archive <papi-dir> [output-sql-file]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --diff <from-papi-file> <to-papi-file> [output-json-file]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --follow <papi-file> [port]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --history <input-mdb-file> <history-file> [release]");
+        System.err.println("       java PapiConverter [--verbose] [--metrics=<file>] [--progress] [--jfr=<file>] --history-query <history-file> <ffe-id>");
         System.err.println("");
         System.err.println("Options:");
         System.err.println("  --verbose         Show detailed progress information");
+        System.err.println("  --incremental     PAPI to JSON: only re-convert players changed since the last run");
+        System.err.println("  --bulk            JSON to PAPI: write a temporary file without per-row syncs, synced once and renamed over the output");
+        System.err.println("  --update          JSON to PAPI: update the existing output file in place instead of recreating it");
+        System.err.println("  --standings       PAPI to JSON: add the standings with the tiebreaks of the tournament");
+        System.err.println("  --from, --to      Input/output format (json, bin or papi), required when reading from standard input");
+        System.err.println("  --format          Encoding of the tournament document: json (default) or bin (binary snapshot, " + TournamentSnapshot.EXTENSION + ")");
+        System.err.println("  --metrics=<file>  Write a JSON report of phase timings, row/byte counters and peak heap usage");
+        System.err.println("  --progress        Stream progress as NDJSON events on standard error (one JSON object per line)");
+        System.err.println("  --jfr=<file>      Record Java Flight Recorder events of the conversion to a .jfr file");
+        System.err.println("  --cache=<dir>     PAPI to document and --playerdb, between files: reuse the output of identical inputs from a cache directory");
+        System.err.println("  --cache-size=<MB> Size limit of the cache directory, least recently used outputs evicted first (default " + ConversionCache.DEFAULT_MAX_BYTES / (1024 * 1024) + ")");
+        System.err.println("  --enrich=<file>   JSON to PAPI: fill in missing ratings, clubs and FIDE fields from Data.mdb (or its " + PlayerDirectory.EXTENSION + " index)");
+        System.err.println("  --fide-list=<file> --playerdb: merge the ratings and titles of a FIDE rating list (TXT, XML or ZIP)");
         System.err.println("");
         System.err.println("Conversions:");
         System.err.println("  JSON to PAPI:     PapiConverter input.json [output.papi]");
+        System.err.println("  JSON + PlayerDB:  PapiConverter --enrich=Data.mdb input.json [output.papi]");
         System.err.println("  PAPI to JSON:     PapiConverter input.papi [output.json]");
         System.err.println("  MDB to JSON:      PapiConverter input.mdb [output.json]");
+        System.err.println("  PAPI to snapshot: PapiConverter --format bin input.papi [output" + TournamentSnapshot.EXTENSION + "]");
+        System.err.println("  Snapshot to PAPI: PapiConverter input" + TournamentSnapshot.EXTENSION + " [output.papi]");
         System.err.println("  PlayerDB Convert: PapiConverter --playerdb Data.mdb [players.sql]");
+        System.err.println("  PlayerDB + FIDE:  PapiConverter --fide-list=players_list_foa.txt --playerdb Data.mdb [players.sql]");
+        System.err.println("  Watch folder:     PapiConverter --watch papi-dir [json-dir]");
+        System.err.println("  Round results:    PapiConverter --results round.json tournament.papi");
+        System.err.println("  Check pairings:   PapiConverter --check tournament.papi (exit status 1 if problems are found)");
+        System.err.println("  Archive folder:   PapiConverter --archive papi-dir [archive.sql]");
+        System.err.println("  Compare files:    PapiConverter --diff before.papi after.papi [changes.json]");
+        System.err.println("  Follow changes:   PapiConverter --follow tournament.papi [port] (NDJSON events, on 127.0.0.1:port if given)");
+        System.err.println("  Rating history:   PapiConverter --history Data.mdb ratings.hist [release] (adds the changes since the last release)");
+        System.err.println("  Player history:   PapiConverter --history-query ratings.hist 123456 (JSON, one entry per change)");
         System.err.println("");
         System.err.println("If output file is not specified, it will be generated automatically.");
+        System.err.println("Use - as input or output file to read from standard input or write to standard output.");
     }
 }
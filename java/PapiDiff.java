@@ -0,0 +1,316 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Compares two PAPI files and writes the change set from the first to the second.
+ *
+ * Both JOUEUR tables are read in one scan each and sorted by Ref, then merged in Ref
+ * order. Rows with the same Ref are compared by {@link RowFingerprint} first, so only
+ * the rows whose fingerprint differs are compared column by column. INFO variables are
+ * compared by name. Nothing is converted to the tournament document model.
+ *
+ * The change set is a JSON array with one object per change, in the order INFO
+ * variables, then players by Ref:
+ * <pre>
+ * [
+ *   { "op" : "replace", "table" : "INFO", "variable" : "Nom", "from" : "Open A", "to" : "Open B" },
+ *   { "op" : "replace", "table" : "JOUEUR", "ref" : 12, "player" : "DUPONT Jean", "column" : "Rd03Res", "from" : 0, "to" : 1 },
+ *   { "op" : "add", "table" : "JOUEUR", "ref" : 57, "player" : "MARTIN Paul", "row" : { ... } },
+ *   { "op" : "remove", "table" : "JOUEUR", "ref" : 33, "player" : "DURAND Marie" }
+ * ]
+ * </pre>
+ */
+public class PapiDiff {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    /**
+     * INFO variables and JOUEUR rows of one file, rows sorted by Ref.
+     */
+    static final class Side {
+        final Map<String, Object> variables = new LinkedHashMap<>();
+        int count;
+        int[] refs;
+        long[] fingerprints;
+        Row[] rows;
+    }
+
+    /**
+     * Compares two PAPI files and writes the change set.
+     * @param fromFile Path to the earlier PAPI file
+     * @param toFile Path to the later PAPI file
+     * @param outputFile Path to the change set, or null or "-" for standard output
+     * @return The number of changes
+     * @throws Exception if a file cannot be read or the change set cannot be written
+     */
+    public static int run(String fromFile, String toFile, String outputFile) throws Exception {
+        for (String file : new String[] { fromFile, toFile }) {
+            if (!Files.exists(Paths.get(file))) {
+                throw new Exception("PAPI file not found: " + file);
+            }
+        }
+        VerboseOutput.println("Comparing " + fromFile + " with " + toFile + "...");
+
+        long start = System.nanoTime();
+        Side from = read(fromFile);
+        Side to = read(toFile);
+        long loaded = System.nanoTime();
+
+        int changes;
+        if (outputFile == null || "-".equals(outputFile)) {
+            changes = write(from, to, System.out);
+        } else {
+            File output = new File(outputFile);
+            File parentDir = output.getAbsoluteFile().getParentFile();
+            if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+                throw new Exception("Failed to create directory: " + parentDir.getAbsolutePath());
+            }
+            try (OutputStream out = Files.newOutputStream(output.toPath())) {
+                changes = write(from, to, out);
+            }
+            Metrics.add(Metrics.BYTES_WRITTEN, output.length());
+        }
+        long compared = System.nanoTime();
+
+        VerboseOutput.println(String.format("  Loaded %d and %d players in %.1f ms, compared in %.1f ms",
+            from.count, to.count, (loaded - start) / 1e6, (compared - loaded) / 1e6));
+        VerboseOutput.alwaysPrintln(changes == 0 ? "No differences found" : changes + " change(s) found");
+        return changes;
+    }
+
+    /**
+     * Reads a consistent snapshot of the INFO and JOUEUR tables of a file.
+     */
+    private static Side read(String papiFile) throws Exception {
+        Metrics.add(Metrics.BYTES_READ, Files.size(Paths.get(papiFile)));
+        return SnapshotReader.read(Paths.get(papiFile), PapiDiff::load);
+    }
+
+    /**
+     * Loads the INFO variables and the fingerprinted JOUEUR rows, sorted by Ref.
+     */
+    static Side load(Database db) throws Exception {
+        Side side = new Side();
+        Table infoTable = db.getTable("INFO");
+        Table joueurTable = db.getTable("JOUEUR");
+        if (infoTable == null || joueurTable == null) {
+            throw new Exception("INFO or JOUEUR table not found in database.");
+        }
+
+        int scanned = 0;
+        Metrics.Phase tableScanPhase = Metrics.phase("table scan");
+        try {
+            for (Row row : infoTable) {
+                scanned++;
+                Object variableObj = row.get("Variable");
+                if (variableObj != null) {
+                    side.variables.put(variableObj.toString(), row.get("Value"));
+                }
+            }
+
+            int capacity = Math.max(16, joueurTable.getRowCount());
+            int[] refs = new int[capacity];
+            Row[] rows = new Row[capacity];
+            for (Row row : joueurTable) {
+                scanned++;
+                Object refObj = row.get("Ref");
+                if (refObj == null) {
+                    continue;
+                }
+                if (side.count == refs.length) {
+                    refs = Arrays.copyOf(refs, refs.length * 2);
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                }
+                refs[side.count] = ((Number) refObj).intValue();
+                rows[side.count] = row;
+                side.count++;
+            }
+
+            // Sort by Ref; PAPI usually stores the rows in Ref order already
+            Integer[] order = new Integer[side.count];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            int[] scanRefs = refs;
+            Arrays.sort(order, (a, b) -> Integer.compare(scanRefs[a], scanRefs[b]));
+            side.refs = new int[side.count];
+            side.rows = new Row[side.count];
+            side.fingerprints = new long[side.count];
+            for (int i = 0; i < order.length; i++) {
+                side.refs[i] = refs[order[i]];
+                side.rows[i] = rows[order[i]];
+                side.fingerprints[i] = RowFingerprint.of(side.rows[i]);
+            }
+        } finally {
+            tableScanPhase.close();
+        }
+        Metrics.add(Metrics.ROWS_READ, scanned);
+        return side;
+    }
+
+    /**
+     * Writes the change set from one side to the other.
+     * @return The number of changes
+     */
+    private static int write(Side from, Side to, OutputStream out) throws IOException {
+        int changes = 0;
+        Metrics.Phase diffPhase = Metrics.phase("diff");
+        try (JsonGenerator generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+            generator.writeStartArray();
+            changes += diffVariables(from.variables, to.variables, generator);
+            changes += diffPlayers(from, to, generator);
+            generator.writeEndArray();
+            generator.writeRaw('\n');
+        } finally {
+            diffPhase.close();
+        }
+        return changes;
+    }
+
+    private static int diffVariables(Map<String, Object> from, Map<String, Object> to, JsonGenerator generator)
+            throws IOException {
+        int changes = 0;
+        for (Map.Entry<String, Object> variable : from.entrySet()) {
+            String name = variable.getKey();
+            if (!to.containsKey(name)) {
+                startChange(generator, "remove", "INFO");
+                generator.writeStringField("variable", name);
+                generator.writeEndObject();
+                changes++;
+            } else if (!PlayerConverter.valuesEqual(variable.getValue(), to.get(name))) {
+                startChange(generator, "replace", "INFO");
+                generator.writeStringField("variable", name);
+                writeValueField(generator, "from", variable.getValue());
+                writeValueField(generator, "to", to.get(name));
+                generator.writeEndObject();
+                changes++;
+            }
+        }
+        for (Map.Entry<String, Object> variable : to.entrySet()) {
+            if (!from.containsKey(variable.getKey())) {
+                startChange(generator, "add", "INFO");
+                generator.writeStringField("variable", variable.getKey());
+                writeValueField(generator, "value", variable.getValue());
+                generator.writeEndObject();
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Merges the two sides in Ref order.
+     */
+    private static int diffPlayers(Side from, Side to, JsonGenerator generator) throws IOException {
+        int changes = 0;
+        int compared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < from.count || j < to.count) {
+            int fromRef = i < from.count ? from.refs[i] : Integer.MAX_VALUE;
+            int toRef = j < to.count ? to.refs[j] : Integer.MAX_VALUE;
+            if (fromRef < toRef) {
+                startChange(generator, "remove", "JOUEUR");
+                writePlayer(generator, fromRef, from.rows[i]);
+                generator.writeEndObject();
+                changes++;
+                i++;
+            } else if (toRef < fromRef) {
+                startChange(generator, "add", "JOUEUR");
+                writePlayer(generator, toRef, to.rows[j]);
+                generator.writeFieldName("row");
+                generator.writeStartObject();
+                for (Map.Entry<String, Object> column : to.rows[j].entrySet()) {
+                    writeValueField(generator, column.getKey(), column.getValue());
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+                changes++;
+                j++;
+            } else {
+                if (from.fingerprints[i] != to.fingerprints[j]) {
+                    changes += diffRow(fromRef, from.rows[i], to.rows[j], generator);
+                    compared++;
+                }
+                i++;
+                j++;
+            }
+        }
+        VerboseOutput.println("  Compared the columns of " + compared + " rows with a different fingerprint");
+        return changes;
+    }
+
+    /**
+     * Compares the columns of two rows with the same Ref.
+     */
+    private static int diffRow(int ref, Row from, Row to, JsonGenerator generator) throws IOException {
+        int changes = 0;
+        for (Map.Entry<String, Object> column : to.entrySet()) {
+            Object before = from.get(column.getKey());
+            if (!PlayerConverter.valuesEqual(before, column.getValue())) {
+                startChange(generator, "replace", "JOUEUR");
+                writePlayer(generator, ref, to);
+                generator.writeStringField("column", column.getKey());
+                writeValueField(generator, "from", before);
+                writeValueField(generator, "to", column.getValue());
+                generator.writeEndObject();
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private static void startChange(JsonGenerator generator, String op, String table) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("op", op);
+        generator.writeStringField("table", table);
+    }
+
+    private static void writePlayer(JsonGenerator generator, int ref, Row row) throws IOException {
+        generator.writeNumberField("ref", ref);
+        generator.writeStringField("player", ConsistencyChecker.playerName(row));
+    }
+
+    /**
+     * Writes a column value: numbers and booleans as JSON values, dates in ISO format.
+     */
+    private static void writeValueField(JsonGenerator generator, String name, Object value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            generator.writeString(LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault()).toString());
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
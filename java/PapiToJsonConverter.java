@@ -1,18 +1,21 @@
 package org.sharlychess.papiconverter;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.stream.Collectors;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import com.healthmarketscience.jackcess.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthmarketscience.jackcess.util.MemFileChannel;
 
 /**
- * Handles conversion from PAPI database format to JSON format.
+ * Handles conversion from PAPI database format to JSON format,
+ * or to another {@link TournamentFormat}.
  */
 public class PapiToJsonConverter {
     
@@ -23,11 +26,57 @@ public class PapiToJsonConverter {
      * @throws Exception if conversion fails
      */
     public static void convert(String mdbFile, String jsonFile) throws Exception {
-        System.out.println("Converting MDB to JSON...");
+        convert(mdbFile, jsonFile, false);
+    }
+    
+    /**
+     * Converts a PAPI (.mdb) file to JSON format.
+     * @param mdbFile Path to the input PAPI file
+     * @param jsonFile Path to the output JSON file
+     * @param incremental true to only re-convert the players whose row changed since the previous run
+     * @throws Exception if conversion fails
+     */
+    public static void convert(String mdbFile, String jsonFile, boolean incremental) throws Exception {
+        convert(mdbFile, jsonFile, incremental, TournamentFormat.JSON);
+    }
+    
+    /**
+     * Converts a PAPI (.mdb) file to a tournament document.
+     * @param mdbFile Path to the input PAPI file
+     * @param jsonFile Path to the output file
+     * @param incremental true to only re-convert the players whose row changed since the previous run (JSON only)
+     * @param format Encoding of the output file
+     * @throws Exception if conversion fails
+     */
+    public static void convert(String mdbFile, String jsonFile, boolean incremental, TournamentFormat format) throws Exception {
+        convert(mdbFile, jsonFile, incremental, format, false);
+    }
+    
+    /**
+     * Converts a PAPI (.mdb) file to a tournament document.
+     * @param mdbFile Path to the input PAPI file
+     * @param jsonFile Path to the output file
+     * @param incremental true to only re-convert the players whose row changed since the previous run (JSON only)
+     * @param format Encoding of the output file
+     * @param standings true to add the standings computed from the results (JSON only)
+     * @throws Exception if conversion fails
+     */
+    public static void convert(String mdbFile, String jsonFile, boolean incremental, TournamentFormat format,
+            boolean standings) throws Exception {
+        if (incremental && format != TournamentFormat.JSON) {
+            throw new Exception("--incremental only applies to JSON output");
+        }
+        if (standings && format != TournamentFormat.JSON) {
+            throw new Exception("--standings only applies to JSON output");
+        }
+        
+        VerboseOutput.alwaysPrintln("Converting MDB to " + format.label() + "...");
+        ConversionEvents.Conversion event = new ConversionEvents.Conversion();
+        event.begin();
         
         // Generate output filename if not provided
         if (jsonFile == null) {
-            jsonFile = mdbFile.replaceAll("\\.mdb$|\\.papi$", ".json");
+            jsonFile = defaultOutputFile(mdbFile, format);
         }
         
         // Check if MDB file exists
@@ -35,90 +84,342 @@ public class PapiToJsonConverter {
             throw new Exception("MDB file not found: " + mdbFile);
         }
         
-        System.out.println("Reading MDB from: " + mdbFile);
+        VerboseOutput.alwaysPrintln("Reading MDB from: " + mdbFile);
+        Metrics.add(Metrics.BYTES_READ, Files.size(Paths.get(mdbFile)));
         
-        // Open the MDB database
-        Database db = DatabaseBuilder.open(new File(mdbFile));
-        
-        Map<String, Object> jsonData = new LinkedHashMap<>();
+        File outputFile = new File(jsonFile);
+        ConversionEvents.OutputFlush flush = new ConversionEvents.OutputFlush();
+        int rows;
         
-        try {
-            // Read tournament variables
-            Map<String, String> variables = processVariables(db);
-            jsonData.put("variables", variables);
+        // Read a consistent snapshot, without locking the file PAPI may be writing
+        if (incremental) {
+            IncrementalExportCache cache = IncrementalExportCache.load(IncrementalExportCache.cacheFileFor(jsonFile));
+            List<String> playerFragments = new ArrayList<>();
+            Standings[] standingsHolder = new Standings[1];
+            Map<String, String> variables = SnapshotReader.read(Paths.get(mdbFile), db -> {
+                Map<String, String> snapshotVariables = processVariables(db);
+                List<Row> playerRows = readSortedPlayerRows(db);
+                PlayerIndex playerIndex = createPlayerIndex(playerRows);
+                playerFragments.clear();
+                Metrics.Phase rowMappingPhase = Metrics.phase("row mapping");
+                try {
+                    playerFragments.addAll(processPlayersIncremental(playerRows, playerIndex, cache));
+                } finally {
+                    rowMappingPhase.close();
+                }
+                standingsHolder[0] = standings ? computeStandings(playerRows, playerIndex, snapshotVariables) : null;
+                return snapshotVariables;
+            });
             
-            // Read players data
-            List<Map<String, Object>> players = processPlayers(db);
-            jsonData.put("players", players);
+            createParentDirectory(outputFile);
+            flush.begin();
+            Metrics.Phase documentWritePhase = Metrics.phase("document write");
+            try {
+                TournamentJson.writeWithPlayerFragments(variables, playerFragments, standingsHolder[0], outputFile);
+                cache.save();
+            } finally {
+                documentWritePhase.close();
+            }
+            rows = playerFragments.size();
+        } else {
+            TournamentData tournament = SnapshotReader.read(Paths.get(mdbFile), db -> readTournament(db, standings));
             
+            createParentDirectory(outputFile);
+            flush.begin();
+            Metrics.Phase documentWritePhase = Metrics.phase("document write");
+            try {
+                format.write(tournament, outputFile);
+            } finally {
+                documentWritePhase.close();
+            }
+            rows = tournament.getPlayers().size();
+        }
+        Metrics.add(Metrics.BYTES_WRITTEN, outputFile.length());
+        if (flush.shouldCommit()) {
+            flush.output = jsonFile;
+            flush.bytes = outputFile.length();
+            flush.commit();
+        }
+        if (event.shouldCommit()) {
+            event.mode = "papi-to-" + format.formatName() + (incremental ? " (incremental)" : "");
+            event.input = mdbFile;
+            event.output = jsonFile;
+            event.rows = rows;
+            event.bytesRead = new File(mdbFile).length();
+            event.bytesWritten = outputFile.length();
+            event.commit();
+        }
+        
+        VerboseOutput.alwaysPrintln("Output " + format.label() + " file: " + jsonFile);
+        VerboseOutput.alwaysPrintln(format.label() + " conversion completed successfully!");
+    }
+    
+    /**
+     * Converts a PAPI file read from a stream to JSON written to a stream.
+     * The Access file is held in memory, so no temporary file is created.
+     * @param papiIn Stream containing the PAPI file
+     * @param jsonOut Stream receiving the JSON document, left open
+     * @throws Exception if conversion fails
+     */
+    public static void convert(InputStream papiIn, OutputStream jsonOut) throws Exception {
+        convert(papiIn, jsonOut, TournamentFormat.JSON);
+    }
+    
+    /**
+     * Converts a PAPI file read from a stream to a tournament document written to a stream.
+     * @param papiIn Stream containing the PAPI file
+     * @param out Stream receiving the document, left open
+     * @param format Encoding of the document
+     * @throws Exception if conversion fails
+     */
+    public static void convert(InputStream papiIn, OutputStream out, TournamentFormat format) throws Exception {
+        convert(papiIn, out, format, false);
+    }
+    
+    /**
+     * Converts a PAPI file read from a stream to a tournament document written to a stream.
+     * @param papiIn Stream containing the PAPI file
+     * @param out Stream receiving the document, left open
+     * @param format Encoding of the document
+     * @param standings true to add the standings computed from the results (JSON only)
+     * @throws Exception if conversion fails
+     */
+    public static void convert(InputStream papiIn, OutputStream out, TournamentFormat format, boolean standings) throws Exception {
+        if (standings && format != TournamentFormat.JSON) {
+            throw new Exception("--standings only applies to JSON output");
+        }
+        VerboseOutput.alwaysPrintln("Converting MDB to " + format.label() + " (in memory)...");
+        ConversionEvents.Conversion event = new ConversionEvents.Conversion();
+        event.begin();
+        
+        TournamentData tournament;
+        long inputSize;
+        try (MemFileChannel channel = readInput(papiIn)) {
+            inputSize = channel.size();
+            Metrics.add(Metrics.BYTES_READ, inputSize);
+            Database db = AccessChannels.open(channel, true);
+            try {
+                tournament = readTournament(db, standings);
+            } finally {
+                db.close();
+            }
+        }
+        
+        Metrics.Phase documentWritePhase = Metrics.phase("document write");
+        try {
+            format.write(tournament, out);
         } finally {
-            db.close();
+            documentWritePhase.close();
+        }
+        if (event.shouldCommit()) {
+            event.mode = "papi-to-" + format.formatName();
+            event.input = "stream";
+            event.output = "stream";
+            event.rows = tournament.getPlayers().size();
+            event.bytesRead = inputSize;
+            event.commit();
         }
         
-        // Convert to JSON and write to file
-        ObjectMapper mapper = new ObjectMapper();
-
-        // Create parent directories if they don't exist
-        File outputFile = new File(jsonFile);
+        VerboseOutput.println("  Read " + inputSize + " bytes of PAPI data, no temporary file used");
+        VerboseOutput.alwaysPrintln(format.label() + " conversion completed successfully!");
+    }
+    
+    /**
+     * Reads the tournament variables and players of an open database.
+     * @param standings true to add the standings computed from the results
+     */
+    static TournamentData readTournament(Database db, boolean standings) throws Exception {
+        Map<String, String> variables = processVariables(db);
+        List<Row> playerRows = readSortedPlayerRows(db);
+        PlayerIndex playerIndex = createPlayerIndex(playerRows);
+        List<PlayerData> players;
+        Metrics.Phase rowMappingPhase = Metrics.phase("row mapping");
+        try {
+            players = processPlayers(playerRows, playerIndex);
+        } finally {
+            rowMappingPhase.close();
+        }
+        return new TournamentData(variables, players,
+            standings ? computeStandings(playerRows, playerIndex, variables) : null);
+    }
+    
+    /**
+     * Computes the standings with the tiebreaks named in the tournament variables.
+     */
+    private static Standings computeStandings(List<Row> playerRows, PlayerIndex playerIndex, Map<String, String> variables) {
+        List<Tiebreak> tiebreaks = StandingsEngine.tiebreaksOf(variables);
+        TournamentColumns columns;
+        Standings standings;
+        Metrics.Phase standingsPhase = Metrics.phase("standings");
+        try {
+            columns = TournamentColumns.fromRows(playerRows, playerIndex);
+            standings = StandingsEngine.compute(columns, tiebreaks);
+        } finally {
+            standingsPhase.close();
+        }
+        VerboseOutput.println("  Computed standings over " + columns.roundCount() + " rounds ("
+            + (tiebreaks.isEmpty() ? "no tiebreak" : tiebreaks.stream().map(Tiebreak::label).collect(Collectors.joining(", "))) + ")");
+        return standings;
+    }
+    
+    /**
+     * Reads a PAPI file from a stream into memory, timed as the "input read" phase.
+     */
+    private static MemFileChannel readInput(InputStream papiIn) throws Exception {
+        Metrics.Phase inputReadPhase = Metrics.phase("input read");
+        try {
+            return AccessChannels.readToMemory(papiIn);
+        } finally {
+            inputReadPhase.close();
+        }
+    }
+    
+    /**
+     * Creates the parent directory of the output file if it doesn't exist.
+     */
+    private static void createParentDirectory(File outputFile) throws Exception {
         File parentDir = outputFile.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
             if (!parentDir.mkdirs()) {
                 throw new Exception("Failed to create directory: " + parentDir.getAbsolutePath());
             }
-            System.out.println("Created directory: " + parentDir.getAbsolutePath());
+            VerboseOutput.alwaysPrintln("Created directory: " + parentDir.getAbsolutePath());
         }
-
-        mapper.writerWithDefaultPrettyPrinter().writeValue(outputFile, jsonData);
-        
-        System.out.println("Output JSON file: " + jsonFile);
-        System.out.println("JSON conversion completed successfully!");
+    }
+    
+    /**
+     * Gets the output file used when none is given: the PAPI file with the extension of the format.
+     * @param mdbFile Path to the input PAPI file
+     * @param format Encoding of the output file
+     * @return Path to the output file
+     */
+    static String defaultOutputFile(String mdbFile, TournamentFormat format) {
+        return mdbFile.replaceAll("\\.mdb$|\\.papi$", format.extension());
     }
     
     /**
      * Processes tournament variables from the INFO table.
      */
     private static Map<String, String> processVariables(Database db) throws Exception {
-        System.out.println("Reading tournament variables...");
+        VerboseOutput.alwaysPrintln("Reading tournament variables...");
         Table infoTable = db.getTable("INFO");
         Map<String, String> variables = new LinkedHashMap<>();
-        
-        for (Row row : infoTable) {
-            Object variableObj = row.get("Variable");
-            Object valueObj = row.get("Value");
+        int rows = 0;
+        ConversionEvents.TableScan scan = new ConversionEvents.TableScan();
+        scan.begin();
+        Metrics.Phase variablesReadPhase = Metrics.phase("variables read");
+        try {
+            for (Row row : infoTable) {
+                rows++;
+                Object variableObj = row.get("Variable");
+                Object valueObj = row.get("Value");
             
-            if (variableObj != null && valueObj != null) {
-                String frenchVarName = variableObj.toString();
-                if (VariableMapping.isValidFrenchVariable(frenchVarName)) {
-                    // Map French variable name to English
-                    String englishVarName = VariableMapping.frenchToEnglish(frenchVarName);
-                    if (englishVarName != null) {
-                        variables.put(englishVarName, valueObj.toString());
-                    } else {
-                        // Fallback to French name if no mapping exists
-                        variables.put(frenchVarName, valueObj.toString());
+                if (variableObj != null && valueObj != null) {
+                    String frenchVarName = variableObj.toString();
+                    if (VariableMapping.isValidFrenchVariable(frenchVarName)) {
+                        // Map French variable name to English
+                        String englishVarName = VariableMapping.frenchToEnglish(frenchVarName);
+                        if (englishVarName != null) {
+                            variables.put(englishVarName, valueObj.toString());
+                        } else {
+                            // Fallback to French name if no mapping exists
+                            variables.put(frenchVarName, valueObj.toString());
+                        }
                     }
                 }
             }
+        } finally {
+            variablesReadPhase.close();
         }
-        
-        System.out.println("  Found " + variables.size() + " tournament variables");
+        Metrics.add(Metrics.ROWS_READ, rows);
+        if (scan.shouldCommit()) {
+            scan.table = "INFO";
+            scan.rows = rows;
+            scan.commit();
+        }
+        VerboseOutput.alwaysPrintln("  Found " + variables.size() + " tournament variables");
         return variables;
     }
     
     /**
      * Processes players data from the JOUEUR table.
      */
-    private static List<Map<String, Object>> processPlayers(Database db) throws Exception {
-        System.out.println("Reading players data...");
+    private static List<PlayerData> processPlayers(List<Row> playerRows, PlayerIndex playerIndex) throws Exception {
+        VerboseOutput.alwaysPrintln("Reading players data...");
+        
+        // Convert sorted rows to JSON with proper opponent mapping
+        List<PlayerData> players = new ArrayList<>(playerRows.size());
+        for (Row row : playerRows) {
+            players.add(PlayerConverter.convertRowToPlayer(row, playerIndex));
+        }
+        
+        VerboseOutput.alwaysPrintln("  Found " + players.size() + " players");
+        return players;
+    }
+    
+    /**
+     * Processes players data from the JOUEUR table, re-using the cached JSON
+     * fragments of players whose row did not change since the previous run.
+     * @return The pretty-printed JSON fragment of each player, indented for the players array
+     */
+    private static List<String> processPlayersIncremental(List<Row> playerRows, PlayerIndex playerIndex,
+            IncrementalExportCache cache) throws Exception {
+        VerboseOutput.alwaysPrintln("Reading players data (incremental)...");
+        
+        int[] refs = new int[playerIndex.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = playerIndex.ref(i);
+        }
+        cache.beginRun(refs);
+        
+        List<String> fragments = new ArrayList<>(playerRows.size());
+        int converted = 0;
+        for (int i = 0; i < refs.length; i++) {
+            Row row = playerRows.get(i);
+            long fingerprint = RowFingerprint.of(row);
+            String fragment = cache.get(refs[i], fingerprint);
+            if (fragment == null) {
+                PlayerData player = PlayerConverter.convertRowToPlayer(row, playerIndex);
+                fragment = TournamentJson.writePlayerFragment(player);
+                cache.put(refs[i], fingerprint, fragment);
+                converted++;
+            }
+            fragments.add(fragment);
+        }
+        
+        VerboseOutput.alwaysPrintln("  Found " + fragments.size() + " players (" + converted + " re-converted, "
+            + (fragments.size() - converted) + " from cache)");
+        return fragments;
+    }
+    
+    /**
+     * Collects all player rows (except EXEMPT) sorted by their Ref field.
+     */
+    private static List<Row> readSortedPlayerRows(Database db) throws Exception {
         Table joueurTable = db.getTable("JOUEUR");
         
         // Step 1: Collect all player rows and sort them by Ref field
         List<Row> playerRows = new ArrayList<>();
-        for (Row row : joueurTable) {
-            Object refObj = row.get("Ref");
-            if (refObj != null && ((Number)refObj).intValue() > 1) { // Skip EXEMPT player (Ref=1)
-                playerRows.add(row);
+        int scanned = 0;
+        ConversionEvents.TableScan scan = new ConversionEvents.TableScan();
+        scan.begin();
+        Metrics.Phase tableScanPhase = Metrics.phase("table scan");
+        try {
+            for (Row row : joueurTable) {
+                scanned++;
+                Object refObj = row.get("Ref");
+                if (refObj != null && ((Number)refObj).intValue() > 1) { // Skip EXEMPT player (Ref=1)
+                    playerRows.add(row);
+                }
             }
+        } finally {
+            tableScanPhase.close();
+        }
+        Metrics.add(Metrics.ROWS_READ, scanned);
+        if (scan.shouldCommit()) {
+            scan.table = "JOUEUR";
+            scan.rows = scanned;
+            scan.commit();
         }
         
         // Sort players by their Ref field to ensure consistent ordering
@@ -127,27 +428,17 @@ public class PapiToJsonConverter {
             int ref2 = ((Number)row2.get("Ref")).intValue();
             return Integer.compare(ref1, ref2);
         });
-        
-        // Step 2: Create mapping from PAPI Ref to JSON index (0-based)
-        Map<Integer, Integer> papiRefToJsonIndex = new HashMap<>();
-        for (int i = 0; i < playerRows.size(); i++) {
-            Object refObj = playerRows.get(i).get("Ref");
-            if (refObj != null) {
-                int papiRef = ((Number)refObj).intValue();
-                papiRefToJsonIndex.put(papiRef, i);
-            }
-        }
-        
-        // Step 3: Convert sorted rows to JSON with proper opponent mapping
-        List<Map<String, Object>> players = new ArrayList<>();
-        for (Row row : playerRows) {
-            Map<String, Object> player = PlayerConverter.convertRowToJsonWithMapping(row, papiRefToJsonIndex);
-            if (player != null) {
-                players.add(player);
-            }
+        return playerRows;
+    }
+    
+    /**
+     * Creates the index from PAPI Ref to JSON index (0-based) for sorted player rows.
+     */
+    private static PlayerIndex createPlayerIndex(List<Row> playerRows) {
+        int[] refs = new int[playerRows.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = ((Number)playerRows.get(i).get("Ref")).intValue();
         }
-        
-        System.out.println("  Found " + players.size() + " players");
-        return players;
+        return PlayerIndex.of(refs);
     }
 }
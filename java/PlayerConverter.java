@@ -4,8 +4,8 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.time.format.DateTimeFormatter;
 import com.healthmarketscience.jackcess.*;
-import com.fasterxml.jackson.databind.JsonNode;
 
 /**
  * Handles conversion of player data between JSON and PAPI database format.
@@ -28,14 +28,88 @@ public class PlayerConverter {
         return papiRef - 2;
     }
 
+    /**
+     * JOUEUR columns written from the JSON player data (Ref and ClubRef excluded).
+     * Other columns of an existing row are left untouched when updating it.
+     */
+    public static final List<String> MODELED_COLUMNS = createModeledColumns();
+
+    private static final DateTimeFormatter BIRTH_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static List<String> createModeledColumns() {
+        List<String> columns = new ArrayList<>();
+        for (PlayerField field : PlayerField.all()) {
+            columns.add(field.column());
+        }
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            String prefix = PairingRules.roundPrefix(roundNum);
+            columns.add(prefix + "Cl");
+            columns.add(prefix + "Adv");
+            columns.add(prefix + "Res");
+        }
+        return List.copyOf(columns);
+    }
+
     /**
      * Adds a player from JSON to the JOUEUR table.
      * @param playerTable The JOUEUR table
-     * @param playerNode The JSON node containing player data
+     * @param player The player read from JSON
      * @param playerRef The player reference ID
      * @throws Exception if conversion fails
      */
-    public static void addPlayerToTable(Table playerTable, JsonNode playerNode, int playerRef) throws Exception {
+    public static void addPlayerToTable(Table playerTable, PlayerData player, int playerRef) throws Exception {
+        List<Integer> byeRounds = new ArrayList<>();
+        Map<String, Object> rowData = createRowData(player, playerRef, byeRounds);
+
+        // Auto-detected byes are mirrored on the EXEMPT player
+        for (int roundNum : byeRounds) {
+            setExemptRound(playerTable, roundNum, playerRef);
+        }
+
+        addRowData(playerTable, rowData);
+
+        if (VerboseOutput.isVerbose()) {
+            VerboseOutput.println("  Added player: " + getPlayerName(player, playerRef) + " (Ref: " + playerRef + ")");
+        }
+    }
+
+    /**
+     * Adds row data to a table using the table's column order.
+     * @param table The table
+     * @param rowData The values by column name
+     * @throws Exception if the row cannot be added
+     */
+    public static void addRowData(Table table, Map<String, Object> rowData) throws Exception {
+        Object[] rowValues = new Object[table.getColumnCount()];
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            Column column = table.getColumns().get(i);
+            rowValues[i] = rowData.get(column.getName());
+        }
+        table.addRow(rowValues);
+    }
+
+    /**
+     * Creates the JOUEUR row values of a player from JSON, without touching any table.
+     * The player must have been checked by TournamentValidator: text is not trimmed.
+     * @param player The player read from JSON
+     * @param playerRef The player reference ID
+     * @param byeRounds Receives the rounds in which a bye against EXEMPT was auto-detected
+     * @return The row values by column name
+     */
+    public static Map<String, Object> createRowData(PlayerData player, int playerRef, List<Integer> byeRounds) {
+        return createRowData(player, playerRef, byeRounds, null);
+    }
+
+    /**
+     * Creates the JOUEUR row values of a player from JSON, with opponents mapped to given Refs.
+     * @param player The player read from JSON
+     * @param playerRef The player reference ID
+     * @param byeRounds Receives the rounds in which a bye against EXEMPT was auto-detected
+     * @param refs PAPI Ref of each JSON player (see {@link #assignRefs}), or null for the Refs
+     *             of a new file ({@link #jsonRefToPapiRef})
+     * @return The row values by column name
+     */
+    public static Map<String, Object> createRowData(PlayerData player, int playerRef, List<Integer> byeRounds, int[] refs) {
         // Create new row for player
         Map<String, Object> rowData = new HashMap<>();
 
@@ -49,169 +123,117 @@ public class PlayerConverter {
         rowData.put("InscriptionDu", 0); // Default InscriptionDu
         rowData.put("AffType", "N");
 
-        // Player basic information
-        setFieldIfExists(rowData, playerNode, "RefFFE", "refFFE");
-        setFieldIfExists(rowData, playerNode, "Nr", "nr");
-        setFieldIfExists(rowData, playerNode, "NrFFE", "nrFFE", 6);
-        setFieldIfExists(rowData, playerNode, "Nom", "lastName", 20);
-        setFieldIfExists(rowData, playerNode, "Prenom", "firstName", 20);
-        setFieldIfExists(rowData, playerNode, "Sexe", "gender", 1);
-
-        // Dates (birth date)
-        if (playerNode.has("birthDate")) {
-            String birthDate = playerNode.get("birthDate").asText();
-            if (!birthDate.isEmpty()) {
-                try {
-                    java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                    java.time.LocalDate localDate = java.time.LocalDate.parse(birthDate, formatter);
-                    java.util.Date date = java.util.Date.from(localDate.atStartOfDay(java.time.ZoneId.systemDefault()).toInstant());
-                    rowData.put("NeLe", date);
-                } catch (Exception e) {
-                    VerboseOutput.alwaysPrintln("  Warning: Invalid birth date format for player " + playerRef + ": " + birthDate + " (expected DD/MM/YYYY)");
-                }
+        for (PlayerField field : PlayerField.all()) {
+            Object value = player.get(field);
+            if (value == null) {
+                continue;
+            }
+            switch (field.kind()) {
+                case DATE:
+                    setDate(rowData, field, value.toString(), playerRef);
+                    break;
+                case BOOLEAN:
+                    rowData.put(field.column(), toBoolean(value));
+                    break;
+                default:
+                    setValue(rowData, field, value);
+                    break;
             }
         }
 
-        setFieldIfExists(rowData, playerNode, "Cat", "category", 4);
-        setFieldIfExists(rowData, playerNode, "Elo", "elo");
-        setFieldIfExists(rowData, playerNode, "Rapide", "rapidElo");
-        setFieldIfExists(rowData, playerNode, "Blitz", "blitzElo");
-        setFieldIfExists(rowData, playerNode, "Federation", "federation", 3);
-        setFieldIfExists(rowData, playerNode, "Club", "club", 80);
-        setFieldIfExists(rowData, playerNode, "Ligue", "league", 3);
-        setFieldIfExists(rowData, playerNode, "Fide", "fideElo", 1);
-        setFieldIfExists(rowData, playerNode, "RapideFide", "fideRapidElo", 1);
-        setFieldIfExists(rowData, playerNode, "BlitzFide", "fideBlitzElo", 1);
-        setFieldIfExists(rowData, playerNode, "FideCode", "fideCode", 10);
-        setFieldIfExists(rowData, playerNode, "FideTitre", "fideTitle", 2);
-        setFieldIfExists(rowData, playerNode, "AffType", "licenceType", 1);
-        setFieldIfExists(rowData, playerNode, "InscriptionRegle", "paid");
-        setFieldIfExists(rowData, playerNode, "InscriptionDu", "owed");
-        setFieldIfExists(rowData, playerNode, "Fixe", "fixedBoard");
-
-        // Boolean fields
-        if (playerNode.has("checkedIn")) {
-            rowData.put("Pointe", playerNode.get("checkedIn").asBoolean());
-        }
-
-        // Contact information
-        setFieldIfExists(rowData, playerNode, "Adresse", "address", 96);
-        setFieldIfExists(rowData, playerNode, "CP", "postalCode", 36);
-        setFieldIfExists(rowData, playerNode, "Tel", "phone", 10);
-        setFieldIfExists(rowData, playerNode, "EMail", "email", 50);
-        setFieldIfExists(rowData, playerNode, "Commentaire", "comment", 255);
-
         // Initialize all rounds with defaults first
-        for (int roundNum = 1; roundNum <= 24; roundNum++) {
-            String roundStr = String.format("%02d", roundNum);
-            rowData.put("Rd" + roundStr + "Cl", "R"); // Default color: R
-            rowData.put("Rd" + roundStr + "Res", 0);   // Default result: 0
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            String prefix = PairingRules.roundPrefix(roundNum);
+            rowData.put(prefix + "Cl", "R"); // Default color: R
+            rowData.put(prefix + "Adv", 0);   // Default opponent: 0, as PAPI stores unpaired rounds
+            rowData.put(prefix + "Res", 0);   // Default result: 0
         }
 
         // Round results (up to 24 rounds)
-        JsonNode roundsNode = playerNode.get("rounds");
-        if (roundsNode != null) {
-            var fields = roundsNode.fields();
-            while (fields.hasNext()) {
-                var entry = fields.next();
-                String roundNumStr = entry.getKey();
-                JsonNode roundNode = entry.getValue();
-
-                try {
-                    int roundNum = Integer.parseInt(roundNumStr);
-                    if (roundNum >= 1 && roundNum <= 24) {
-                        processRoundData(rowData, roundNode, roundNum, playerRef, playerTable);
-                    }
-                } catch (NumberFormatException e) {
-                    VerboseOutput.alwaysPrintln("  Warning: Invalid round number '" + roundNumStr + "' for player " + playerRef);
-                }
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            RoundData round = player.getRound(roundNum);
+            if (round != null) {
+                processRoundData(rowData, round, roundNum, playerRef, byeRounds, refs);
             }
         }
 
-        // Add the row to the table using the correct column order
-        Object[] rowValues = new Object[playerTable.getColumnCount()];
-        for (int i = 0; i < playerTable.getColumnCount(); i++) {
-            Column column = playerTable.getColumns().get(i);
-            rowValues[i] = rowData.get(column.getName());
+        return rowData;
+    }
+
+    /**
+     * Gets the PAPI Ref of each JSON player when updating an existing file. The export numbers
+     * players by position in Ref order, so the i-th player keeps the i-th existing Ref, even
+     * when the Refs have gaps, and the players beyond the existing rows get the Refs following
+     * the last one.
+     * @param existing The existing players (EXEMPT excluded), indexed as the export does
+     * @param playerCount Number of JSON players
+     * @return The Ref of each JSON player
+     */
+    public static int[] assignRefs(PlayerIndex existing, int playerCount) {
+        int[] refs = new int[playerCount];
+        int existingCount = Math.min(existing.size(), playerCount);
+        for (int i = 0; i < existingCount; i++) {
+            refs[i] = existing.ref(i);
         }
-        playerTable.addRow(rowValues);
+        int nextRef = existing.size() > 0 ? existing.ref(existing.size() - 1) + 1 : jsonRefToPapiRef(0);
+        for (int i = existingCount; i < playerCount; i++) {
+            refs[i] = nextRef++;
+        }
+        return refs;
+    }
 
-        String playerName = playerNode.has("firstName") ?
-            playerNode.get("firstName").asText() + " " + (playerNode.has("lastName") ? playerNode.get("lastName").asText() : "") :
-            (playerNode.has("lastName") ? playerNode.get("lastName").asText() : "Player " + playerRef);
-        VerboseOutput.println("  Added player: " + playerName.trim() + " (Ref: " + playerRef + ")");
+    /**
+     * Gets a display name for a player from JSON.
+     */
+    static String getPlayerName(PlayerData player, int playerRef) {
+        String firstName = player.getText(PlayerField.FIRST_NAME);
+        String lastName = player.getText(PlayerField.LAST_NAME);
+        String playerName = firstName != null ?
+            firstName + " " + (lastName != null ? lastName : "") :
+            (lastName != null ? lastName : "Player " + playerRef);
+        return playerName.trim();
     }
 
     /**
-     * Converts a database row to JSON player format with reference mapping.
+     * Converts a database row to a JSON player with reference mapping.
      * @param row The database row
-     * @param papiRefToJsonIndexMap Mapping from PAPI references to JSON array indices
-     * @return A map representing the player in JSON format
+     * @param playerIndex Mapping from PAPI references to JSON array indices
+     * @return The player
      * @throws Exception if conversion fails
      */
-    public static Map<String, Object> convertRowToJsonWithMapping(Row row, Map<Integer, Integer> papiRefToJsonIndexMap) throws Exception {
-        Map<String, Object> player = new HashMap<>();
-
-        // Basic player information
-        addFieldIfNotNull(player, "refFFE", row.get("RefFFE"));
-        addFieldIfNotNull(player, "nr", row.get("Nr"));
-        addFieldIfNotNull(player, "nrFFE", row.get("NrFFE"));
-        addFieldIfNotNull(player, "lastName", row.get("Nom"));
-        addFieldIfNotNull(player, "firstName", row.get("Prenom"));
-        addFieldIfNotNull(player, "gender", row.get("Sexe"));
-
-        // Birth date - convert from Date or LocalDateTime to DD/MM/YYYY format
-        Object birthDateObj = row.get("NeLe");
-        if (birthDateObj instanceof java.util.Date) {
-            java.util.Date date = (java.util.Date) birthDateObj;
-            java.time.LocalDate localDate = date.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
-            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            player.put("birthDate", localDate.format(formatter));
-        } else if (birthDateObj instanceof java.time.LocalDateTime) {
-            java.time.LocalDateTime localDateTime = (java.time.LocalDateTime) birthDateObj;
-            java.time.LocalDate localDate = localDateTime.toLocalDate();
-            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            player.put("birthDate", localDate.format(formatter));
-        }
-
-        addFieldIfNotNull(player, "category", row.get("Cat"));
-        addFieldIfNotNull(player, "elo", row.get("Elo"));
-        addFieldIfNotNull(player, "rapidElo", row.get("Rapide"));
-        addFieldIfNotNull(player, "blitzElo", row.get("Blitz"));
-        addFieldIfNotNull(player, "federation", row.get("Federation"));
-        addFieldIfNotNull(player, "club", row.get("Club"));
-        addFieldIfNotNull(player, "league", row.get("Ligue"));
-        addFieldIfNotNull(player, "fideElo", row.get("Fide"));
-        addFieldIfNotNull(player, "fideRapidElo", row.get("RapideFide"));
-        addFieldIfNotNull(player, "fideBlitzElo", row.get("BlitzFide"));
-        addFieldIfNotNull(player, "fideCode", row.get("FideCode"));
-        addFieldIfNotNull(player, "fideTitle", row.get("FideTitre"));
-        addFieldIfNotNull(player, "licenceType", row.get("AffType"));
-        addFieldIfNotNull(player, "paid", row.get("InscriptionRegle"));
-        addFieldIfNotNull(player, "owed", row.get("InscriptionDu"));
-        addFieldIfNotNull(player, "fixedBoard", row.get("Fixe"));
-
-        // Boolean fields
-        Object pointeObj = row.get("Pointe");
-        if (pointeObj instanceof Boolean) {
-            player.put("checkedIn", pointeObj);
+    public static PlayerData convertRowToPlayer(Row row, PlayerIndex playerIndex) throws Exception {
+        PlayerData player = new PlayerData();
+
+        for (PlayerField field : PlayerField.all()) {
+            Object value = row.get(field.column());
+            switch (field.kind()) {
+                case DATE:
+                    // Birth date - convert from Date or LocalDateTime to DD/MM/YYYY format
+                    java.time.LocalDate localDate = toLocalDate(value);
+                    if (localDate != null) {
+                        player.set(field, localDate.format(BIRTH_DATE_FORMAT));
+                    }
+                    break;
+                case BOOLEAN:
+                    if (value instanceof Boolean) {
+                        player.set(field, value);
+                    }
+                    break;
+                default:
+                    if (value != null && !value.toString().trim().isEmpty()) {
+                        player.set(field, value);
+                    }
+                    break;
+            }
         }
 
-        // Contact information
-        addFieldIfNotNull(player, "address", row.get("Adresse"));
-        addFieldIfNotNull(player, "postalCode", row.get("CP"));
-        addFieldIfNotNull(player, "phone", row.get("Tel"));
-        addFieldIfNotNull(player, "email", row.get("EMail"));
-        addFieldIfNotNull(player, "comment", row.get("Commentaire"));
+        // Round results - keyed by round number
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            String prefix = PairingRules.roundPrefix(roundNum);
 
-        // Round results - using dictionary with round number as key
-        Map<String, Map<String, Object>> rounds = new HashMap<>();
-        for (int roundNum = 1; roundNum <= 24; roundNum++) {
-            String roundStr = String.format("%02d", roundNum);
-
-            Object colorObj = row.get("Rd" + roundStr + "Cl");
-            Object opponentObj = row.get("Rd" + roundStr + "Adv");
-            Object resultObj = row.get("Rd" + roundStr + "Res");
+            Object colorObj = row.get(prefix + "Cl");
+            Object opponentObj = row.get(prefix + "Adv");
+            Object resultObj = row.get(prefix + "Res");
 
             // Only include rounds that have non-default values
             boolean hasColor = colorObj != null && !"R".equals(colorObj.toString());
@@ -219,159 +241,222 @@ public class PlayerConverter {
             boolean hasResult = resultObj != null && ((Number)resultObj).intValue() > 0;
 
             if (hasColor || hasOpponent || hasResult) {
+                String color = hasColor ? colorObj.toString() : null;
 
-                Map<String, Object> round = new HashMap<>();
-
-                if (colorObj != null && !"R".equals(colorObj.toString())) {
-                    round.put("color", colorObj.toString());
-                }
-
+                Integer opponent = null;
                 if (opponentObj != null && !Integer.valueOf(0).equals(opponentObj)) {
                     int papiOpponent = ((Number)opponentObj).intValue();
                     if (papiOpponent > 1) {  // Exclude EXEMPT player (ref 1) from JSON output
                         // Use mapping from PAPI reference to JSON index
-                        if (papiRefToJsonIndexMap.containsKey(papiOpponent)) {
-                            int jsonOpponent = papiRefToJsonIndexMap.get(papiOpponent);
-                            round.put("opponent", jsonOpponent);
-                        }
-                        else {
+                        int opponentIndex = playerIndex.indexOf(papiOpponent);
+                        if (opponentIndex < 0) {
                             throw new Exception("Opponent reference " + papiOpponent + " not found in mapping");
                         }
+                        opponent = opponentIndex;
                     }
                 }
 
+                Integer result = null;
                 if (resultObj != null && !Integer.valueOf(0).equals(resultObj)) {
-                    round.put("result", resultObj);
+                    result = ((Number)resultObj).intValue();
                 }
 
-                // Add round to dictionary with round number as key
-                rounds.put(String.valueOf(roundNum), round);
+                player.setRound(roundNum, new RoundData(color, opponent, result));
             }
         }
 
-        if (!rounds.isEmpty()) {
-            player.put("rounds", rounds);
-        }
-
         return player;
     }
 
     /**
-     * Helper method to process round data for both array and dictionary formats.
+     * Helper method to process the data of one round.
      */
-    private static void processRoundData(Map<String, Object> rowData, JsonNode roundNode, int roundNum, int playerRef, Table playerTable) throws Exception {
-        String roundStr = String.format("%02d", roundNum);
+    private static void processRoundData(Map<String, Object> rowData, RoundData round, int roundNum, int playerRef,
+            List<Integer> byeRounds, int[] refs) {
+        String prefix = PairingRules.roundPrefix(roundNum);
 
         // Color (Cl) - B/N/R/F
-        if (roundNode.has("color")) {
-            rowData.put("Rd" + roundStr + "Cl", roundNode.get("color").asText());
+        if (round.color != null) {
+            rowData.put(prefix + "Cl", round.color);
         }
 
         // Get result first to check for bye
         int result = 0;
-        if (roundNode.has("result")) {
-            result = roundNode.get("result").asInt();
-            rowData.put("Rd" + roundStr + "Res", result);
+        if (round.result != null) {
+            result = round.result;
+            rowData.put(prefix + "Res", result);
         }
 
         // Opponent (Adv) - opponent player reference
-        if (roundNode.has("opponent")) {
-            int jsonOpponent = roundNode.get("opponent").asInt();
+        if (round.opponent != null) {
+            int jsonOpponent = round.opponent;
             if (jsonOpponent >= 0) {
                 // Convert JSON opponent reference to PAPI reference
-                int papiOpponent = jsonRefToPapiRef(jsonOpponent);
-                rowData.put("Rd" + roundStr + "Adv", papiOpponent);
+                int papiOpponent = refs != null ? refs[jsonOpponent] : jsonRefToPapiRef(jsonOpponent);
+                rowData.put(prefix + "Adv", papiOpponent);
             }
-        } else if (result == 6) {
+        } else if (result == PairingRules.BYE_RESULT) {
             // Auto-detect bye: result 6 without opponent means bye against EXEMPT (player 1)
-            rowData.put("Rd" + roundStr + "Adv", 1);
-            VerboseOutput.println("    Auto-detected bye for player " + papiRefToJsonRef(playerRef) + " in round " + roundNum + " (vs EXEMPT)");
-
-            // Find the EXEMPT player (Ref=1)
-            Row exemptRow = null;
-            for (Row row : playerTable) {
-                Object refObj = row.get("Ref");
-                if (refObj != null && ((Number)refObj).intValue() == 1) {
-                    exemptRow = row;
-                    break;
-                }
+            rowData.put(prefix + "Adv", PairingRules.EXEMPT_REF);
+            VerboseOutput.println("    Auto-detected bye for player Ref " + playerRef + " in round " + roundNum + " (vs EXEMPT)");
+            byeRounds.add(roundNum);
+        }
+    }
+
+    /**
+     * Records on the EXEMPT player (Ref=1) that it was paired against a player in a round.
+     */
+    private static void setExemptRound(Table playerTable, int roundNum, int playerRef) throws Exception {
+        String roundStr = String.format("%02d", roundNum);
+
+        // Find the EXEMPT player (Ref=1)
+        Row exemptRow = null;
+        for (Row row : playerTable) {
+            Object refObj = row.get("Ref");
+            if (refObj != null && ((Number)refObj).intValue() == 1) {
+                exemptRow = row;
+                break;
             }
+        }
+
+        if (exemptRow != null) {
+            ConversionEvents.ExemptUpdate event = new ConversionEvents.ExemptUpdate();
+            event.begin();
 
-            if (exemptRow != null) {
-                // Now set the new values
-                exemptRow.put("Rd" + roundStr + "Cl", "N");
-                exemptRow.put("Rd" + roundStr + "Adv", playerRef);
-                exemptRow.put("Rd" + roundStr + "Res", 0);
+            // Now set the new values
+            exemptRow.put("Rd" + roundStr + "Cl", "N");
+            exemptRow.put("Rd" + roundStr + "Adv", playerRef);
+            exemptRow.put("Rd" + roundStr + "Res", 0);
 
-                // Update the EXEMPT row in the table
-                playerTable.updateRow(exemptRow);
+            // Update the EXEMPT row in the table
+            playerTable.updateRow(exemptRow);
+
+            if (event.shouldCommit()) {
+                event.round = roundNum;
+                event.playerRef = playerRef;
+                event.commit();
             }
         }
     }
 
     /**
-     * Helper method to set a field if it exists in the JSON node.
+     * Compares a value read from the database with a value about to be written.
+     * Numbers are compared by value, dates by day, and null is considered equal
+     * to an empty string, false or 0, which PAPI stores for unset text, flags and
+     * numbers (such as the opponent of an unpaired round).
+     * @param current The value currently in the database
+     * @param desired The value to write
+     * @return true if writing the value would not change the row
      */
-    private static void setFieldIfExists(Map<String, Object> rowData, JsonNode playerNode, String dbField, String jsonField) {
-        if (playerNode.has(jsonField)) {
-            JsonNode fieldNode = playerNode.get(jsonField);
-            if (!fieldNode.isNull()) {
-                if (fieldNode.isNumber()) {
-                    if (fieldNode.isInt()) {
-                        rowData.put(dbField, fieldNode.asInt());
-                    } else {
-                        rowData.put(dbField, fieldNode.asDouble());
-                    }
-                } else {
-                    String value = fieldNode.asText();
-                    if (!value.isEmpty()) {
-                        rowData.put(dbField, value);
-                    }
-                }
+    public static boolean valuesEqual(Object current, Object desired) {
+        if (current == null || desired == null) {
+            return isEmptyValue(current) && isEmptyValue(desired);
+        }
+        if (current instanceof Number && desired instanceof Number) {
+            try {
+                return new java.math.BigDecimal(current.toString()).compareTo(new java.math.BigDecimal(desired.toString())) == 0;
+            } catch (NumberFormatException e) {
+                return current.equals(desired);
             }
         }
+        java.time.LocalDate currentDate = toLocalDate(current);
+        java.time.LocalDate desiredDate = toLocalDate(desired);
+        if (currentDate != null || desiredDate != null) {
+            return currentDate != null && currentDate.equals(desiredDate);
+        }
+        if (current instanceof Boolean || desired instanceof Boolean) {
+            return current.equals(desired);
+        }
+        return current.toString().equals(desired.toString());
     }
 
     /**
-     * Helper method to set a field if it exists in the JSON node, with maximum length constraint.
-     * @param rowData The row data map to add the field to
-     * @param playerNode The JSON node containing the field
-     * @param dbField The database field name
-     * @param jsonField The JSON field name
-     * @param maxLength Maximum length for string values (truncates if longer)
+     * Copies the modeled columns whose value differs from the desired row data into an existing row.
+     * @param row The existing row, modified
+     * @param rowData The desired values by column name, as made by {@link #createRowData}
+     * @return The number of columns changed
      */
-    private static void setFieldIfExists(Map<String, Object> rowData, JsonNode playerNode, String dbField, String jsonField, int maxLength) {
-        if (playerNode.has(jsonField)) {
-            JsonNode fieldNode = playerNode.get(jsonField);
-            if (!fieldNode.isNull()) {
-                if (fieldNode.isNumber()) {
-                    if (fieldNode.isInt()) {
-                        rowData.put(dbField, fieldNode.asInt());
-                    } else {
-                        rowData.put(dbField, fieldNode.asDouble());
-                    }
-                } else {
-                    String value = fieldNode.asText();
-                    if (!value.isEmpty()) {
-                        // Apply length constraint
-                        if (value.length() > maxLength) {
-                            String originalValue = value;
-                            value = value.substring(0, maxLength);
-                            VerboseOutput.alwaysPrintln("  Warning: Trimmed " + dbField + " from " + originalValue.length() + " to " + maxLength + " characters: '" + originalValue + "' -> '" + value + "'");
-                        }
-                        rowData.put(dbField, value);
-                    }
-                }
+    public static int putChangedColumns(Map<String, Object> row, Map<String, Object> rowData) {
+        int changed = 0;
+        for (String column : MODELED_COLUMNS) {
+            Object desired = rowData.get(column);
+            if (!valuesEqual(row.get(column), desired)) {
+                row.put(column, desired);
+                changed++;
             }
         }
+        return changed;
+    }
+
+    /**
+     * Sets a column of a row unless it already holds an equal value.
+     * @param row The row to modify
+     * @param column The column name
+     * @param value The value to write
+     * @return true if the row was modified
+     */
+    public static boolean putIfDifferent(Row row, String column, Object value) {
+        if (valuesEqual(row.get(column), value)) {
+            return false;
+        }
+        row.put(column, value);
+        return true;
+    }
+
+    private static boolean isEmptyValue(Object value) {
+        return value == null || Boolean.FALSE.equals(value) || (value instanceof String && ((String) value).isEmpty())
+            || (value instanceof Number && ((Number) value).doubleValue() == 0);
+    }
+
+    private static java.time.LocalDate toLocalDate(Object value) {
+        if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+        } else if (value instanceof java.time.LocalDateTime) {
+            return ((java.time.LocalDateTime) value).toLocalDate();
+        }
+        return null;
+    }
+
+    /**
+     * Sets a number or text field. Text lengths were checked against the column lengths
+     * by TournamentValidator, which runs before every JSON to PAPI write.
+     */
+    private static void setValue(Map<String, Object> rowData, PlayerField field, Object value) {
+        if (value instanceof Number) {
+            rowData.put(field.column(), value);
+            return;
+        }
+        String text = value.toString();
+        if (text.isEmpty()) {
+            return;
+        }
+        rowData.put(field.column(), text);
+    }
+
+    /**
+     * Sets a date field from DD/MM/YYYY text.
+     */
+    private static void setDate(Map<String, Object> rowData, PlayerField field, String text, int playerRef) {
+        if (text.isEmpty()) {
+            return;
+        }
+        try {
+            java.time.LocalDate localDate = java.time.LocalDate.parse(text, BIRTH_DATE_FORMAT);
+            rowData.put(field.column(), java.util.Date.from(localDate.atStartOfDay(java.time.ZoneId.systemDefault()).toInstant()));
+        } catch (Exception e) {
+            VerboseOutput.warningPrintln("  Warning: Invalid birth date format for player " + playerRef + ": " + text + " (expected DD/MM/YYYY)");
+        }
     }
 
     /**
-     * Helper method to add a field if it's not null.
+     * Reads a JSON value as a boolean: non-zero numbers and the text "true" are true.
      */
-    private static void addFieldIfNotNull(Map<String, Object> map, String key, Object value) {
-        if (value != null && !value.toString().trim().isEmpty()) {
-            map.put(key, value);
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
         }
+        return "true".equals(value.toString().trim());
     }
 }
@@ -0,0 +1,92 @@
+package org.sharlychess.papiconverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A player of the tournament JSON schema.
+ *
+ * Field values are kept as read: Integer, Double, String or Boolean from JSON,
+ * or the column value from the JOUEUR table. Birth dates are DD/MM/YYYY strings.
+ */
+public final class PlayerData {
+    private final Object[] values = new Object[PlayerField.all().length];
+    private final RoundData[] rounds = new RoundData[PairingRules.MAX_ROUNDS + 1];
+    private int roundCount;
+    private List<String> invalidRounds;
+
+    /**
+     * Gets the value of a field.
+     * @param field The field
+     * @return The value, or null if absent
+     */
+    public Object get(PlayerField field) {
+        return values[field.ordinal()];
+    }
+
+    /**
+     * Sets the value of a field.
+     * @param field The field
+     * @param value The value, or null to remove it
+     */
+    public void set(PlayerField field, Object value) {
+        values[field.ordinal()] = value;
+    }
+
+    /**
+     * Gets the text of a field, as written in the JSON.
+     * @param field The field
+     * @return The text, or null if absent
+     */
+    public String getText(PlayerField field) {
+        Object value = values[field.ordinal()];
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Gets the data of a round.
+     * @param roundNum The round number (1-24)
+     * @return The round data, or null if the player has no data for that round
+     */
+    public RoundData getRound(int roundNum) {
+        return rounds[roundNum];
+    }
+
+    /**
+     * Sets the data of a round.
+     * @param roundNum The round number (1-24)
+     * @param round The round data, or null to remove it
+     */
+    public void setRound(int roundNum, RoundData round) {
+        if (rounds[roundNum] != null) {
+            roundCount--;
+        }
+        rounds[roundNum] = round;
+        if (round != null) {
+            roundCount++;
+        }
+    }
+
+    /** @return true if the player has data for at least one round */
+    public boolean hasRounds() {
+        return roundCount > 0;
+    }
+
+    /**
+     * Records a round of the document whose number is not a round number (1-24);
+     * its data is not kept, and TournamentValidator reports it.
+     * @param key The round key, or the position of the round in the legacy array format
+     */
+    public void addInvalidRound(String key) {
+        if (invalidRounds == null) {
+            invalidRounds = new ArrayList<>();
+        }
+        invalidRounds.add(key);
+    }
+
+    /** @return The invalid round keys, in document order */
+    public List<String> getInvalidRounds() {
+        return invalidRounds != null ? invalidRounds : Collections.emptyList();
+    }
+}
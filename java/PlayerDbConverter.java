@@ -9,7 +9,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import com.healthmarketscience.jackcess.*;
 
@@ -34,6 +36,60 @@ public class PlayerDbConverter {
         }
     }
     
+    /**
+     * Players by FIDE ID, for the FIDE list join. The map gives the last player of each
+     * FIDE ID and every player links to the previous one with the same ID, so players
+     * sharing a FIDE ID in Data.mdb all get the ratings of the list.
+     */
+    static final class FideIdIndex {
+        private final IntIntMap lastByFideId;
+        private int[] previous;
+        private int size;
+        
+        FideIdIndex(int expectedPlayers) {
+            lastByFideId = new IntIntMap(expectedPlayers);
+            previous = new int[expectedPlayers + 1];
+        }
+        
+        /**
+         * Adds a player; FIDE IDs below 1 cannot be in the list and are ignored.
+         * @param fideId The FIDE ID of the player
+         * @param id The id of the player row, greater than 0
+         */
+        void add(int fideId, int id) {
+            if (fideId <= 0) {
+                return;
+            }
+            if (id >= previous.length) {
+                previous = java.util.Arrays.copyOf(previous, Math.max(id + 1, previous.length * 2));
+            }
+            previous[id] = lastByFideId.get(fideId, 0);
+            lastByFideId.put(fideId, id);
+            size++;
+        }
+        
+        /** @return Number of players added */
+        int size() {
+            return size;
+        }
+        
+        /**
+         * Gets the last player added with a FIDE ID.
+         * @return The id of the player, or 0 if there is none
+         */
+        int first(int fideId) {
+            return lastByFideId.get(fideId, 0);
+        }
+        
+        /**
+         * Gets the player added before a player with the same FIDE ID.
+         * @return The id of the player, or 0 if there is none
+         */
+        int next(int id) {
+            return previous[id];
+        }
+    }
+    
     private static final String H2_SCHEMA = """
         CREATE TABLE player (
             id INTEGER NOT NULL AUTO_INCREMENT,
@@ -86,37 +142,83 @@ public class PlayerDbConverter {
         """;
     
     public static void convert(String inputFile, String outputFile) throws Exception {
+        convert(inputFile, outputFile, null);
+    }
+    
+    /**
+     * Converts the player database, merging the ratings and titles of a FIDE rating list.
+     * The FIDE list is streamed after the players are written and joined on the FIDE ID
+     * with an index of the players built while writing them; its ratings replace the FFE
+     * ratings (rating type FIDE), and its titles replace the FFE titles.
+     * @param inputFile Path to Data.mdb, or "-" for standard input
+     * @param outputFile Path to the SQL dump, "-" for standard output, or null for the default
+     * @param fideListFile Path to the FIDE rating list (TXT, XML or ZIP), or null for none
+     * @throws Exception if the conversion fails
+     */
+    public static void convert(String inputFile, String outputFile, String fideListFile) throws Exception {
+        if (fideListFile != null && !Files.exists(Paths.get(fideListFile))) {
+            throw new Exception("FIDE rating list not found: " + fideListFile);
+        }
+        boolean fromStdin = "-".equals(inputFile);
         if (outputFile == null) {
-            outputFile = inputFile.replaceFirst("\\.[^.]+$", ".sql");
+            outputFile = fromStdin ? "-" : defaultOutputFile(inputFile);
         }
+        boolean toStdout = "-".equals(outputFile);
+        ConversionEvents.Conversion event = new ConversionEvents.Conversion();
+        event.begin();
         
-        System.out.println("Converting Access player database to SQLite...");
-        System.out.println("Input: " + inputFile);
-        System.out.println("Output: " + outputFile);
+        VerboseOutput.alwaysPrintln("Converting Access player database to SQLite...");
+        VerboseOutput.alwaysPrintln("Input: " + (fromStdin ? "standard input" : inputFile));
+        VerboseOutput.alwaysPrintln("Output: " + (toStdout ? "standard output" : outputFile));
         
         // Load H2 JDBC driver for SQLite compatibility
         Class.forName("org.h2.Driver");
         
         // Create parent directories if they don't exist and delete existing output file
-        File outFile = new File(outputFile);
-        File parentDir = outFile.getParentFile();
-        if (parentDir != null && !parentDir.exists()) {
-            if (!parentDir.mkdirs()) {
-                throw new Exception("Failed to create directory: " + parentDir.getAbsolutePath());
+        if (!toStdout) {
+            File outFile = new File(outputFile);
+            File parentDir = outFile.getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                if (!parentDir.mkdirs()) {
+                    throw new Exception("Failed to create directory: " + parentDir.getAbsolutePath());
+                }
+                VerboseOutput.alwaysPrintln("Created directory: " + parentDir.getAbsolutePath());
+            }
+            
+            if (outFile.exists()) {
+                outFile.delete();
             }
-            System.out.println("Created directory: " + parentDir.getAbsolutePath());
         }
         
-        if (outFile.exists()) {
-            outFile.delete();
+        // Open Access database: from memory when piped, otherwise memory-mapped read-only
+        FileChannel inputChannel = null;
+        Database accessDb;
+        long bytesRead;
+        if (fromStdin) {
+            inputChannel = AccessChannels.readToMemory(System.in);
+            VerboseOutput.println("Read " + inputChannel.size() + " bytes from standard input");
+            accessDb = AccessChannels.open(inputChannel, true);
+            bytesRead = inputChannel.size();
+        } else {
+            File input = new File(inputFile);
+            try {
+                inputChannel = MappedFileChannel.open(input.toPath());
+                accessDb = AccessChannels.open(input, inputChannel, true);
+            } catch (IOException e) {
+                VerboseOutput.println("Could not map " + inputFile + " (" + e.getMessage() + "), reading it through a file channel");
+                if (inputChannel != null) {
+                    inputChannel.close();
+                    inputChannel = null;
+                }
+                accessDb = DatabaseBuilder.open(input);
+            }
+            bytesRead = input.length();
         }
+        Metrics.add(Metrics.BYTES_READ, bytesRead);
         
-        // Open Access database
-        Database accessDb = DatabaseBuilder.open(new File(inputFile));
-        
-        // Create temporary H2 database for processing
-        String tempDbName = outputFile.replaceFirst("\\.sqlite$", "") + "_temp";
-        String h2Url = "jdbc:h2:" + tempDbName;
+        // Create temporary H2 database for processing (in memory when writing to standard output)
+        String tempDbName = toStdout ? null : outputFile.replaceFirst("\\.sqlite$", "") + "_temp";
+        String h2Url = toStdout ? "jdbc:h2:mem:playerdb" : "jdbc:h2:" + tempDbName;
         Connection h2Conn = DriverManager.getConnection(h2Url);
         
         // Note: Using H2 database temporarily, will export to SQLite format
@@ -141,19 +243,22 @@ public class PlayerDbConverter {
             }
             
             // Print column names for debugging
-            System.out.println("\nColumns in JOUEUR table:");
+            VerboseOutput.alwaysPrintln("\nColumns in JOUEUR table:");
             for (Column col : playerTable.getColumns()) {
-                System.out.println("  " + col.getName() + " (" + col.getType() + ")");
+                VerboseOutput.alwaysPrintln("  " + col.getName() + " (" + col.getType() + ")");
             }
             
-            System.out.println("\nColumns in CLUB table:");
+            VerboseOutput.alwaysPrintln("\nColumns in CLUB table:");
             for (Column col : clubTable.getColumns()) {
-                System.out.println("  " + col.getName() + " (" + col.getType() + ")");
+                VerboseOutput.alwaysPrintln("  " + col.getName() + " (" + col.getType() + ")");
             }
             
             // Build club lookup map with all club data
-            System.out.println("\nBuilding club lookup map...");
+            VerboseOutput.alwaysPrintln("\nBuilding club lookup map...");
             Map<Long, ClubInfo> clubMap = new HashMap<>();
+            Metrics.Phase clubPhase = Metrics.phase("club lookup");
+            ConversionEvents.TableScan clubScan = new ConversionEvents.TableScan();
+            clubScan.begin();
             for (Row clubRow : clubTable) {
                 Object refObj = clubRow.get("Ref");
                 Object nomObj = clubRow.get("Nom");
@@ -167,7 +272,14 @@ public class PlayerDbConverter {
                     clubMap.put(clubRef, new ClubInfo(clubName, clubLigue, clubCommune));
                 }
             }
-            System.out.println("Loaded " + clubMap.size() + " clubs.");
+            clubPhase.close();
+            Metrics.add(Metrics.ROWS_READ, clubTable.getRowCount());
+            if (clubScan.shouldCommit()) {
+                clubScan.table = "CLUB";
+                clubScan.rows = clubTable.getRowCount();
+                clubScan.commit();
+            }
+            VerboseOutput.alwaysPrintln("Loaded " + clubMap.size() + " clubs.");
             
             // Prepare SQLite insert statement
             String insertSql = """
@@ -175,17 +287,22 @@ public class PlayerDbConverter {
                     ffe_id, last_name, first_name, gender, ffe_licence_number, ffe_licence,
                     federation, league, city, club, fide_id, fide_title,
                     standard_rating, rapid_rating, blitz_rating,
-                    standard_rating_type, rapid_rating_type, blitz_rating_type, date_of_birth
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    standard_rating_type, rapid_rating_type, blitz_rating_type, date_of_birth, id
+                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
                 """;
             
             PreparedStatement insertStmt = h2Conn.prepareStatement(insertSql);
             
             int playerCount = 0;
             int batchSize = 1000; // Process in batches of 1000
-            System.out.println("\nConverting players with batch processing (batch size: " + batchSize + ")...");
+            VerboseOutput.alwaysPrintln("\nConverting players with batch processing (batch size: " + batchSize + ")...");
             
             // Process each player row with batch processing
+            int totalPlayers = playerTable.getRowCount();
+            FideIdIndex idsByFideId = fideListFile != null ? new FideIdIndex(totalPlayers / 4) : null;
+            Metrics.Phase playerPhase = Metrics.phase("players write");
+            ConversionEvents.RowBatch batch = new ConversionEvents.RowBatch();
+            batch.begin();
             for (Row row : playerTable) {
                 try {
                     // Get club information from ClubRef
@@ -211,7 +328,8 @@ public class PlayerDbConverter {
                     insertStmt.setString(8, clubLigue); // league (from club lookup)
                     insertStmt.setString(9, clubCommune); // city (commune from club lookup)
                     insertStmt.setString(10, clubName); // club (from club lookup)
-                    insertStmt.setObject(11, getFideIdFromCode(row.get("FideCode"))); // fide_id
+                    Integer fideId = getFideIdFromCode(row.get("FideCode"));
+                    insertStmt.setObject(11, fideId); // fide_id
                     insertStmt.setInt(12, getFideTitleAsInt(row.get("FideTitre"))); // fide_title
                     insertStmt.setInt(13, getIntValue(row, "Elo")); // standard_rating
                     insertStmt.setInt(14, getIntValue(row, "Rapide")); // rapid_rating
@@ -223,16 +341,25 @@ public class PlayerDbConverter {
                     // Handle birth date
                     String birthDate = getDateAsString(row, "NeLe");
                     insertStmt.setObject(19, birthDate); // date_of_birth
+                    insertStmt.setInt(20, playerCount + 1); // id, known for the FIDE list join
                     
                     // Add to batch instead of executing immediately
                     insertStmt.addBatch();
                     playerCount++;
+                    if (idsByFideId != null && fideId != null) {
+                        idsByFideId.add(fideId, playerCount);
+                    }
                     
                     // Execute batch when it reaches the batch size
                     if (playerCount % batchSize == 0) {
                         insertStmt.executeBatch();
                         h2Conn.commit(); // Commit the batch
-                        System.out.println("  Converted " + playerCount + " players...");
+                        commitBatch(batch, playerCount, batchSize);
+                        batch = new ConversionEvents.RowBatch();
+                        batch.begin();
+                        VerboseOutput.alwaysPrintln("  Converted " + playerCount + " players...");
+                        VerboseOutput.flush();
+                        Metrics.progress("players", playerCount, totalPlayers);
                     }
                     
                 } catch (Exception e) {
@@ -246,28 +373,147 @@ public class PlayerDbConverter {
             if (playerCount % batchSize != 0) {
                 insertStmt.executeBatch();
                 h2Conn.commit();
+                commitBatch(batch, playerCount, playerCount % batchSize);
             }
+            playerPhase.close();
+            Metrics.add(Metrics.ROWS_READ, totalPlayers);
             
-            System.out.println("\nH2 conversion completed successfully!");
-            System.out.println("Total players converted: " + playerCount);
+            VerboseOutput.alwaysPrintln("\nH2 conversion completed successfully!");
+            VerboseOutput.alwaysPrintln("Total players converted: " + playerCount);
+            
+            if (fideListFile != null) {
+                mergeFideList(h2Conn, idsByFideId, fideListFile);
+            }
             
             // Export H2 data to SQL format
-            System.out.println("\nExporting to SQL format...");
-            exportToSQL(h2Conn, outputFile);
+            VerboseOutput.alwaysPrintln("\nExporting to SQL format...");
+            ConversionEvents.OutputFlush flush = new ConversionEvents.OutputFlush();
+            flush.begin();
+            Metrics.Phase sqlExportPhase = Metrics.phase("sql export");
+            try {
+                exportToSQL(h2Conn, outputFile);
+            } finally {
+                sqlExportPhase.close();
+            }
+            long bytesWritten = toStdout ? 0 : new File(outputFile).length();
+            Metrics.add(Metrics.BYTES_WRITTEN, bytesWritten);
+            if (flush.shouldCommit()) {
+                flush.output = outputFile;
+                flush.bytes = bytesWritten;
+                flush.commit();
+            }
+            if (event.shouldCommit()) {
+                event.mode = "playerdb";
+                event.input = inputFile;
+                event.output = outputFile;
+                event.rows = playerCount;
+                event.bytesRead = bytesRead;
+                event.bytesWritten = bytesWritten;
+                event.commit();
+            }
             
         } finally {
             accessDb.close();
             h2Conn.close();
+            if (inputChannel != null) {
+                inputChannel.close();
+            }
             
             // Clean up temporary H2 files
-            cleanupTempFiles(tempDbName);
+            if (tempDbName != null) {
+                cleanupTempFiles(tempDbName);
+            }
+        }
+    }
+    
+    /**
+     * Gets the SQL dump written when no output file is given: the input file with the .sql extension.
+     * @param inputFile Path to Data.mdb
+     * @return Path to the SQL dump
+     */
+    static String defaultOutputFile(String inputFile) {
+        return inputFile.replaceFirst("\\.[^.]+$", ".sql");
+    }
+    
+    /**
+     * Streams a FIDE rating list and updates the players whose FIDE ID it lists.
+     * Only the players found in the index are updated, in batches like the inserts.
+     */
+    private static void mergeFideList(Connection h2Conn, FideIdIndex idsByFideId, String fideListFile) throws Exception {
+        VerboseOutput.alwaysPrintln("\nMerging FIDE rating list " + fideListFile + " (" + idsByFideId.size() + " players with a FIDE ID)...");
+        String updateSql = """
+            UPDATE player SET
+                fide_title = COALESCE(?, fide_title),
+                standard_rating = COALESCE(?, standard_rating),
+                standard_rating_type = COALESCE(?, standard_rating_type),
+                rapid_rating = COALESCE(?, rapid_rating),
+                rapid_rating_type = COALESCE(?, rapid_rating_type),
+                blitz_rating = COALESCE(?, blitz_rating),
+                blitz_rating_type = COALESCE(?, blitz_rating_type)
+            WHERE id = ?
+            """;
+        
+        int batchSize = 1000;
+        int[] counts = new int[2]; // matched, updated
+        int listed;
+        ConversionEvents.TableScan scan = new ConversionEvents.TableScan();
+        scan.begin();
+        Metrics.Phase fideMergePhase = Metrics.phase("fide merge");
+        try (PreparedStatement updateStmt = h2Conn.prepareStatement(updateSql)) {
+            listed = FideRatingList.read(Paths.get(fideListFile), (fideId, title, standard, rapid, blitz) -> {
+                for (int id = idsByFideId.first(fideId); id != 0; id = idsByFideId.next(id)) {
+                    counts[0]++;
+                    if (title == 0 && standard == 0 && rapid == 0 && blitz == 0) {
+                        continue;
+                    }
+                    setIfPresent(updateStmt, 1, title, title);
+                    setIfPresent(updateStmt, 2, standard, standard);
+                    setIfPresent(updateStmt, 3, standard, 3); // FIDE rating
+                    setIfPresent(updateStmt, 4, rapid, rapid);
+                    setIfPresent(updateStmt, 5, rapid, 3);
+                    setIfPresent(updateStmt, 6, blitz, blitz);
+                    setIfPresent(updateStmt, 7, blitz, 3);
+                    updateStmt.setInt(8, id);
+                    updateStmt.addBatch();
+                    counts[1]++;
+                    if (counts[1] % batchSize == 0) {
+                        updateStmt.executeBatch();
+                        h2Conn.commit();
+                    }
+                }
+            });
+            if (counts[1] % batchSize != 0) {
+                updateStmt.executeBatch();
+                h2Conn.commit();
+            }
+        } finally {
+            fideMergePhase.close();
+        }
+        Metrics.add(Metrics.BYTES_READ, Files.size(Paths.get(fideListFile)));
+        Metrics.add(Metrics.ROWS_READ, listed);
+        if (scan.shouldCommit()) {
+            scan.table = "FIDE list";
+            scan.rows = listed;
+            scan.commit();
+        }
+        VerboseOutput.alwaysPrintln("FIDE players listed: " + listed + ", matched: " + counts[0] + ", updated: " + counts[1]);
+    }
+    
+    /**
+     * Sets a parameter of the FIDE update, or NULL to keep the column when the list has no value.
+     */
+    private static void setIfPresent(PreparedStatement stmt, int index, int listValue, int value) throws SQLException {
+        if (listValue > 0) {
+            stmt.setInt(index, value);
+        } else {
+            stmt.setNull(index, Types.INTEGER);
         }
     }
     
     /**
      * Gets string value from row for a specific column.
      */
-    private static String getStringValue(Row row, String columnName) {
+    static String getStringValue(Row row, String columnName) {
         try {
             Object value = row.get(columnName);
             if (value != null && !value.toString().trim().isEmpty()) {
@@ -282,7 +528,7 @@ public class PlayerDbConverter {
     /**
      * Gets integer value from row for a specific column.
      */
-    private static int getIntValue(Row row, String columnName) {
+    static int getIntValue(Row row, String columnName) {
         try {
             Object value = row.get(columnName);
             if (value != null) {
@@ -336,7 +582,7 @@ public class PlayerDbConverter {
     /**
      * Extracts FIDE ID from FideCode, handling quotes and spaces.
      */
-    private static Integer getFideIdFromCode(Object fideCodeObj) {
+    static Integer getFideIdFromCode(Object fideCodeObj) {
         if (fideCodeObj == null) return null;
         String fideCode = fideCodeObj.toString().trim();
         if (fideCode.isEmpty() || "0".equals(fideCode)) return null;
@@ -375,7 +621,7 @@ public class PlayerDbConverter {
     /**
      * Converts rating type
      */
-    private static int getRatingType(Object ratingTypeObj) {
+    static int getRatingType(Object ratingTypeObj) {
         if (ratingTypeObj == null) return 1; // Empty = 1
         String type = ratingTypeObj.toString().trim().toUpperCase();
         
@@ -412,101 +658,128 @@ public class PlayerDbConverter {
         return null;
     }
     
+    /**
+     * Commits the Flight Recorder event of an H2 batch of player rows.
+     */
+    private static void commitBatch(ConversionEvents.RowBatch batch, int playerCount, int rows) {
+        if (batch.shouldCommit()) {
+            batch.table = "player";
+            batch.firstRow = playerCount - rows;
+            batch.rows = rows;
+            batch.commit();
+        }
+    }
+    
     /**
      * Exports H2 database data to a SQL file.
      * Creates a minimal SQLite-compatible output without external dependencies.
      */
     private static void exportToSQL(Connection h2Conn, String outputFile) throws Exception {
-        System.out.println("Exporting H2 data to SQL format...");
+        VerboseOutput.alwaysPrintln("Exporting H2 data to SQL format...");
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(outputFile))) {
-            // Write SQLite-compatible header
-            writer.println("-- SQLite-compatible database dump");
-            writer.println("-- Generated by PAPI Converter (Pure Java)");
-            writer.println();
-            writer.println("PRAGMA foreign_keys=OFF;");
-            writer.println("BEGIN TRANSACTION;");
-            writer.println();
-
-            // Write SQLite schema
-            writer.println(SQLITE_SCHEMA);
-            writer.println();
-
-            // Export data in batches to avoid memory issues
-            Statement stmt = h2Conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM player");
-            rs.next();
-            int totalRecords = rs.getInt(1);
-            rs.close();
+        if ("-".equals(outputFile)) {
+            PrintWriter writer = new PrintWriter(System.out);
+            writeSQL(h2Conn, writer);
+            writer.flush();
+        } else {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(outputFile))) {
+                writeSQL(h2Conn, writer);
+            }
+        }
 
-            System.out.println("Exporting " + totalRecords + " records...");
+        VerboseOutput.alwaysPrintln("SQL dump completed: " + outputFile);
+        VerboseOutput.alwaysPrintln("Exported records successfully.");
+    }
+    
+    /**
+     * Writes the SQLite-compatible dump of the H2 player table.
+     */
+    private static void writeSQL(Connection h2Conn, PrintWriter writer) throws Exception {
+        // Write SQLite-compatible header
+        writer.println("-- SQLite-compatible database dump");
+        writer.println("-- Generated by PAPI Converter (Pure Java)");
+        writer.println();
+        writer.println("PRAGMA foreign_keys=OFF;");
+        writer.println("BEGIN TRANSACTION;");
+        writer.println();
 
-            // Process in smaller batches
-            int batchSize = 10000;
-            int offset = 0;
-            int exportedCount = 0;
+        // Write SQLite schema
+        writer.println(SQLITE_SCHEMA);
+        writer.println();
 
-            while (offset < totalRecords) {
-                String query = "SELECT * FROM player ORDER BY id LIMIT " + batchSize + " OFFSET " + offset;
-                ResultSet batchRs = stmt.executeQuery(query);
+        // Export data in batches to avoid memory issues
+        Statement stmt = h2Conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM player");
+        rs.next();
+        int totalRecords = rs.getInt(1);
+        rs.close();
 
-                while (batchRs.next()) {
-                    writer.print("INSERT INTO player VALUES (");
-                    writer.print(batchRs.getInt("id") + ",");
-                    writer.print(batchRs.getInt("ffe_id") + ",");
-                    writer.print("'" + escapeSQL(batchRs.getString("last_name")) + "',");
-                    writer.print("'" + escapeSQL(batchRs.getString("first_name")) + "',");
-                    writer.print(batchRs.getInt("gender") + ",");
-                    writer.print("'" + escapeSQL(batchRs.getString("ffe_licence_number")) + "',");
-                    writer.print(batchRs.getInt("ffe_licence") + ",");
-                    writer.print("'" + escapeSQL(batchRs.getString("federation")) + "',");
-                    writer.print("'" + escapeSQL(batchRs.getString("league")) + "',");
-                    writer.print("'" + escapeSQL(batchRs.getString("city")) + "',");
-                    writer.print("'" + escapeSQL(batchRs.getString("club")) + "',");
+        VerboseOutput.alwaysPrintln("Exporting " + totalRecords + " records...");
 
-                    Object fideId = batchRs.getObject("fide_id");
-                    if (fideId != null) {
-                        writer.print(fideId + ",");
-                    } else {
-                        writer.print("NULL,");
-                    }
+        // Process in smaller batches
+        int batchSize = 10000;
+        int offset = 0;
+        int exportedCount = 0;
 
-                    writer.print(batchRs.getInt("fide_title") + ",");
-                    writer.print(batchRs.getInt("standard_rating") + ",");
-                    writer.print(batchRs.getInt("rapid_rating") + ",");
-                    writer.print(batchRs.getInt("blitz_rating") + ",");
-                    writer.print(batchRs.getInt("standard_rating_type") + ",");
-                    writer.print(batchRs.getInt("rapid_rating_type") + ",");
-                    writer.print(batchRs.getInt("blitz_rating_type") + ",");
+        while (offset < totalRecords) {
+            String query = "SELECT * FROM player ORDER BY id LIMIT " + batchSize + " OFFSET " + offset;
+            ResultSet batchRs = stmt.executeQuery(query);
 
-                    String dateOfBirth = batchRs.getString("date_of_birth");
-                    if (dateOfBirth != null) {
-                        writer.print("'" + escapeSQL(dateOfBirth) + "'");
-                    } else {
-                        writer.print("NULL");
-                    }
+            while (batchRs.next()) {
+                writer.print("INSERT INTO player VALUES (");
+                writer.print(batchRs.getInt("id") + ",");
+                writer.print(batchRs.getInt("ffe_id") + ",");
+                writer.print("'" + escapeSQL(batchRs.getString("last_name")) + "',");
+                writer.print("'" + escapeSQL(batchRs.getString("first_name")) + "',");
+                writer.print(batchRs.getInt("gender") + ",");
+                writer.print("'" + escapeSQL(batchRs.getString("ffe_licence_number")) + "',");
+                writer.print(batchRs.getInt("ffe_licence") + ",");
+                writer.print("'" + escapeSQL(batchRs.getString("federation")) + "',");
+                writer.print("'" + escapeSQL(batchRs.getString("league")) + "',");
+                writer.print("'" + escapeSQL(batchRs.getString("city")) + "',");
+                writer.print("'" + escapeSQL(batchRs.getString("club")) + "',");
 
-                    writer.println(");");
-                    exportedCount++;
+                Object fideId = batchRs.getObject("fide_id");
+                if (fideId != null) {
+                    writer.print(fideId + ",");
+                } else {
+                    writer.print("NULL,");
                 }
 
-                batchRs.close();
-                offset += batchSize;
+                writer.print(batchRs.getInt("fide_title") + ",");
+                writer.print(batchRs.getInt("standard_rating") + ",");
+                writer.print(batchRs.getInt("rapid_rating") + ",");
+                writer.print(batchRs.getInt("blitz_rating") + ",");
+                writer.print(batchRs.getInt("standard_rating_type") + ",");
+                writer.print(batchRs.getInt("rapid_rating_type") + ",");
+                writer.print(batchRs.getInt("blitz_rating_type") + ",");
 
-                // Progress update
-                if (exportedCount > 0 && exportedCount % 50000 == 0) {
-                    System.out.println("  Exported " + exportedCount + " records...");
+                String dateOfBirth = batchRs.getString("date_of_birth");
+                if (dateOfBirth != null) {
+                    writer.print("'" + escapeSQL(dateOfBirth) + "'");
+                } else {
+                    writer.print("NULL");
                 }
+
+                writer.println(");");
+                exportedCount++;
             }
 
-            writer.println();
-            writer.println("COMMIT;");
+            batchRs.close();
+            offset += batchSize;
 
-            stmt.close();
+            // Progress update
+            if (exportedCount > 0 && exportedCount % 50000 == 0) {
+                VerboseOutput.alwaysPrintln("  Exported " + exportedCount + " records...");
+                Metrics.progress("records", exportedCount, totalRecords);
+            }
         }
+        Metrics.add(Metrics.ROWS_WRITTEN, exportedCount);
+
+        writer.println();
+        writer.println("COMMIT;");
 
-        System.out.println("SQL dump completed: " + outputFile);
-        System.out.println("Exported records successfully.");
+        stmt.close();
     }
     
     
@@ -532,7 +805,7 @@ public class PlayerDbConverter {
                 }
             }
         } catch (Exception e) {
-            System.err.println("Warning: Could not clean up temporary files: " + e.getMessage());
+            VerboseOutput.errorPrintln("Warning: Could not clean up temporary files: " + e.getMessage());
         }
     }
 }
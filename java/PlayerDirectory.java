@@ -0,0 +1,446 @@
+package org.sharlychess.papiconverter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Index of the FFE player database, used to fill in the rating, club and FIDE fields
+ * missing from the players of a tournament document.
+ *
+ * Players are found by licence number (nrFFE), or by FFE Ref (refFFE) when the licence
+ * number is absent. Licence numbers of the usual form (a letter and five digits) are
+ * packed in an int key and looked up in an {@link IntIntMap}, Refs too; the values are
+ * kept in columns, with club names stored once. The index is immutable once loaded,
+ * so one instance can serve any number of conversions, from any number of threads.
+ *
+ * Scanning Data.mdb takes a few seconds, so the index is saved as a snapshot next to
+ * it (Data.mdb.pdir) and read from there while Data.mdb keeps the same size and date.
+ * A snapshot can also be given directly.
+ */
+public final class PlayerDirectory {
+
+    /** File extension of player directory snapshots */
+    public static final String EXTENSION = ".pdir";
+
+    private static final int MAGIC = 0x50444952; // "PDIR"
+    private static final int VERSION = 1;
+
+    private int count;
+    private final IntIntMap rowsByLicence;
+    private final Map<String, Integer> rowsByOtherLicence = new HashMap<>();
+    private final IntIntMap rowsByRef;
+    private String[] licences;
+    private int[] refs;
+    private int[] elo;
+    private int[] rapidElo;
+    private int[] blitzElo;
+    private String[] ratingTypes;
+    private int[] clubs;
+    private String[] fideCodes;
+    private String[] fideTitles;
+    private String[] clubNames;
+    private String[] clubLeagues;
+
+    private PlayerDirectory(int capacity) {
+        rowsByLicence = new IntIntMap(capacity);
+        rowsByRef = new IntIntMap(capacity);
+        licences = new String[capacity];
+        refs = new int[capacity];
+        elo = new int[capacity];
+        rapidElo = new int[capacity];
+        blitzElo = new int[capacity];
+        ratingTypes = new String[capacity];
+        clubs = new int[capacity];
+        fideCodes = new String[capacity];
+        fideTitles = new String[capacity];
+    }
+
+    /**
+     * Loads the index of a player database.
+     * @param file Data.mdb, or a snapshot (.pdir)
+     * @return The index
+     * @throws Exception if the file cannot be read
+     */
+    public static PlayerDirectory load(Path file) throws Exception {
+        if (!Files.exists(file)) {
+            throw new Exception("Player database not found: " + file);
+        }
+        long start = System.nanoTime();
+        PlayerDirectory directory;
+        Metrics.Phase playerIndexPhase = Metrics.phase("player index");
+        try {
+            directory = read(file);
+        } finally {
+            playerIndexPhase.close();
+        }
+        VerboseOutput.println(String.format("Loaded %d players from %s in %.1f ms",
+            directory.count, file, (System.nanoTime() - start) / 1e6));
+        return directory;
+    }
+
+    /**
+     * Reads a snapshot, or the up-to-date snapshot of Data.mdb, otherwise scans Data.mdb.
+     */
+    private static PlayerDirectory read(Path file) throws Exception {
+        PlayerDirectory directory;
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(EXTENSION)) {
+            directory = readSnapshot(file, -1, -1);
+        } else {
+            Path snapshot = Paths.get(file + EXTENSION);
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            directory = Files.exists(snapshot) ? readSnapshot(snapshot, size, modified) : null;
+            if (directory == null) {
+                directory = scan(file.toFile());
+                try {
+                    directory.save(snapshot, size, modified);
+                    VerboseOutput.println("  Saved the player index to " + snapshot);
+                } catch (IOException e) {
+                    VerboseOutput.println("  Could not save the player index to " + snapshot + ": " + e.getMessage());
+                }
+            }
+        }
+        return directory;
+    }
+
+    /** @return Number of players */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Fills in the missing elo, rapidElo, blitzElo (and their rating types), club,
+     * league, fideCode and fideTitle fields of players found in the index. Fields
+     * present in the document are kept.
+     * @param players The players to complete, modified
+     * @return The number of players that were completed
+     */
+    public int enrich(List<PlayerData> players) {
+        int found = 0;
+        int completed = 0;
+        int fields = 0;
+        for (PlayerData player : players) {
+            int row = find(player);
+            if (row < 0) {
+                continue;
+            }
+            found++;
+            int filled = 0;
+            filled += fillRating(player, PlayerField.ELO, PlayerField.FIDE_ELO, elo[row], ratingTypes[row].charAt(0));
+            filled += fillRating(player, PlayerField.RAPID_ELO, PlayerField.FIDE_RAPID_ELO, rapidElo[row], ratingTypes[row].charAt(1));
+            filled += fillRating(player, PlayerField.BLITZ_ELO, PlayerField.FIDE_BLITZ_ELO, blitzElo[row], ratingTypes[row].charAt(2));
+            if (clubs[row] >= 0) {
+                filled += fill(player, PlayerField.CLUB, clubNames[clubs[row]]);
+                filled += fill(player, PlayerField.LEAGUE, clubLeagues[clubs[row]]);
+            }
+            filled += fill(player, PlayerField.FIDE_CODE, fideCodes[row]);
+            filled += fill(player, PlayerField.FIDE_TITLE, fideTitles[row]);
+            if (filled > 0) {
+                completed++;
+                fields += filled;
+            }
+        }
+        VerboseOutput.println("  Player database: " + found + " of " + players.size() + " players found, "
+            + fields + " fields filled in for " + completed + " players");
+        return completed;
+    }
+
+    /**
+     * Finds the row of a player by licence number, then by FFE Ref.
+     * @return The row, or -1 if the player is not in the index
+     */
+    private int find(PlayerData player) {
+        String licence = player.getText(PlayerField.NR_FFE);
+        if (licence != null && !licence.isBlank()) {
+            String normalized = licence.trim().toUpperCase(Locale.ROOT);
+            int key = licenceKey(normalized);
+            int row = key > 0 ? rowsByLicence.get(key, -1) : rowsByOtherLicence.getOrDefault(normalized, -1);
+            if (row >= 0) {
+                return row;
+            }
+        }
+        Object ref = player.get(PlayerField.REF_FFE);
+        if (ref instanceof Number) {
+            return rowsByRef.get(((Number) ref).intValue(), -1);
+        }
+        if (ref != null) {
+            try {
+                return rowsByRef.get(Integer.parseInt(ref.toString().trim()), -1);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isMissing(Object value) {
+        return value == null || (value instanceof String && ((String) value).isBlank());
+    }
+
+    private static int fill(PlayerData player, PlayerField field, String value) {
+        if (value.isEmpty() || !isMissing(player.get(field))) {
+            return 0;
+        }
+        player.set(field, value);
+        return 1;
+    }
+
+    /**
+     * Fills in a rating and, if it is missing too, its rating type (F, N or E).
+     */
+    private static int fillRating(PlayerData player, PlayerField field, PlayerField typeField, int rating, char type) {
+        if (rating <= 0 || !isMissing(player.get(field))) {
+            return 0;
+        }
+        player.set(field, rating);
+        if (type != ' ' && isMissing(player.get(typeField))) {
+            player.set(typeField, String.valueOf(type));
+        }
+        return 1;
+    }
+
+    /**
+     * Packs a licence number of the form letter and five digits in a positive int.
+     * @return The key, or 0 for other forms
+     */
+    private static int licenceKey(String licence) {
+        if (licence.length() != 6 || licence.charAt(0) < 'A' || licence.charAt(0) > 'Z') {
+            return 0;
+        }
+        int number = 0;
+        for (int i = 1; i < 6; i++) {
+            char c = licence.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return (licence.charAt(0) - 'A' + 1) * 100000 + number;
+    }
+
+    /**
+     * Adds a player and indexes it.
+     */
+    private void add(String licence, int ref, int standard, int rapid, int blitz, String types, int club,
+            String fideCode, String fideTitle) {
+        if (count == refs.length) {
+            int capacity = count * 2;
+            licences = Arrays.copyOf(licences, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+            elo = Arrays.copyOf(elo, capacity);
+            rapidElo = Arrays.copyOf(rapidElo, capacity);
+            blitzElo = Arrays.copyOf(blitzElo, capacity);
+            ratingTypes = Arrays.copyOf(ratingTypes, capacity);
+            clubs = Arrays.copyOf(clubs, capacity);
+            fideCodes = Arrays.copyOf(fideCodes, capacity);
+            fideTitles = Arrays.copyOf(fideTitles, capacity);
+        }
+        int row = count++;
+        licences[row] = licence;
+        refs[row] = ref;
+        elo[row] = standard;
+        rapidElo[row] = rapid;
+        blitzElo[row] = blitz;
+        ratingTypes[row] = types;
+        clubs[row] = club;
+        fideCodes[row] = fideCode;
+        fideTitles[row] = fideTitle;
+        if (!licence.isEmpty()) {
+            int key = licenceKey(licence);
+            if (key > 0) {
+                rowsByLicence.put(key, row);
+            } else {
+                rowsByOtherLicence.put(licence, row);
+            }
+        }
+        if (ref > 0) {
+            rowsByRef.put(ref, row);
+        }
+    }
+
+    /**
+     * Builds the index from the CLUB and JOUEUR tables of Data.mdb, in one scan each.
+     */
+    private static PlayerDirectory scan(File input) throws Exception {
+        FileChannel channel = null;
+        Database db;
+        try {
+            channel = MappedFileChannel.open(input.toPath());
+            db = AccessChannels.open(input, channel, true);
+        } catch (IOException e) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            db = DatabaseBuilder.open(input);
+        }
+        Metrics.add(Metrics.BYTES_READ, input.length());
+        try {
+            Table playerTable = db.getTable("JOUEUR");
+            Table clubTable = db.getTable("CLUB");
+            if (playerTable == null || clubTable == null) {
+                throw new Exception("JOUEUR or CLUB table not found in database.");
+            }
+
+            Map<Long, Integer> clubIndexes = new HashMap<>();
+            String[] names = new String[Math.max(16, clubTable.getRowCount())];
+            String[] leagues = new String[names.length];
+            for (Row clubRow : clubTable) {
+                Object refObj = clubRow.get("Ref");
+                Object nomObj = clubRow.get("Nom");
+                if (refObj != null && nomObj != null) {
+                    int index = clubIndexes.size();
+                    if (index == names.length) {
+                        names = Arrays.copyOf(names, index * 2);
+                        leagues = Arrays.copyOf(leagues, index * 2);
+                    }
+                    names[index] = nomObj.toString().trim();
+                    leagues[index] = PlayerDbConverter.getStringValue(clubRow, "Ligue");
+                    clubIndexes.put(((Number) refObj).longValue(), index);
+                }
+            }
+
+            PlayerDirectory directory = new PlayerDirectory(Math.max(16, playerTable.getRowCount()));
+            directory.clubNames = Arrays.copyOf(names, clubIndexes.size());
+            directory.clubLeagues = Arrays.copyOf(leagues, clubIndexes.size());
+            for (Row row : playerTable) {
+                Object clubRefObj = row.get("ClubRef");
+                Integer club = clubRefObj != null ? clubIndexes.get(((Number) clubRefObj).longValue()) : null;
+                Integer fideId = PlayerDbConverter.getFideIdFromCode(row.get("FideCode"));
+                String types = "" + ratingType(row.get("Fide")) + ratingType(row.get("RapideFide"))
+                    + ratingType(row.get("BlitzFide"));
+                directory.add(PlayerDbConverter.getStringValue(row, "NrFFE").toUpperCase(Locale.ROOT),
+                    PlayerDbConverter.getIntValue(row, "Ref"),
+                    PlayerDbConverter.getIntValue(row, "Elo"),
+                    PlayerDbConverter.getIntValue(row, "Rapide"),
+                    PlayerDbConverter.getIntValue(row, "Blitz"),
+                    types, club != null ? club : -1,
+                    fideId != null ? fideId.toString() : "",
+                    PlayerDbConverter.getStringValue(row, "FideTitre"));
+            }
+            Metrics.add(Metrics.ROWS_READ, clubTable.getRowCount() + playerTable.getRowCount());
+            return directory;
+        } finally {
+            db.close();
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the rating type letter of a Data.mdb rating type column, space if unknown.
+     */
+    private static char ratingType(Object value) {
+        String type = value != null ? value.toString().trim().toUpperCase(Locale.ROOT) : "";
+        return type.length() == 1 && "FNE".contains(type) ? type.charAt(0) : ' ';
+    }
+
+    /**
+     * Saves the index as a snapshot, written to a temporary file renamed into place.
+     * @param file The snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void save(Path file) throws IOException {
+        save(file, -1, -1);
+    }
+
+    private void save(Path file, long sourceSize, long sourceModified) throws IOException {
+        Path temp = Paths.get(file + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(clubNames.length);
+            for (int i = 0; i < clubNames.length; i++) {
+                out.writeUTF(clubNames[i]);
+                out.writeUTF(clubLeagues[i]);
+            }
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeUTF(licences[i]);
+                out.writeInt(refs[i]);
+                out.writeShort(elo[i]);
+                out.writeShort(rapidElo[i]);
+                out.writeShort(blitzElo[i]);
+                out.writeBytes(ratingTypes[i]);
+                out.writeInt(clubs[i]);
+                out.writeUTF(fideCodes[i]);
+                out.writeUTF(fideTitles[i]);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a snapshot.
+     * @param sourceSize Expected size of the source Data.mdb, or -1 to accept any
+     * @param sourceModified Expected date of the source Data.mdb, or -1 to accept any
+     * @return The index, or null if the snapshot is stale or unreadable and a source is given
+     */
+    private static PlayerDirectory readSnapshot(Path file, long sourceSize, long sourceModified) throws Exception {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                if (sourceSize < 0) {
+                    throw new Exception("Not a player directory snapshot: " + file);
+                }
+                return null;
+            }
+            long size = in.readLong();
+            long modified = in.readLong();
+            if (sourceSize >= 0 && (size != sourceSize || modified != sourceModified)) {
+                VerboseOutput.println("  Player index " + file + " is out of date, rebuilding it");
+                return null;
+            }
+            String[] names = new String[in.readInt()];
+            String[] leagues = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+                leagues[i] = in.readUTF();
+            }
+            int players = in.readInt();
+            PlayerDirectory directory = new PlayerDirectory(Math.max(16, players));
+            directory.clubNames = names;
+            directory.clubLeagues = leagues;
+            byte[] types = new byte[3];
+            for (int i = 0; i < players; i++) {
+                String licence = in.readUTF();
+                int ref = in.readInt();
+                int standard = in.readShort();
+                int rapid = in.readShort();
+                int blitz = in.readShort();
+                in.readFully(types);
+                directory.add(licence, ref, standard, rapid, blitz, new String(types, StandardCharsets.US_ASCII),
+                    in.readInt(), in.readUTF(), in.readUTF());
+            }
+            Metrics.add(Metrics.BYTES_READ, Files.size(file));
+            return directory;
+        } catch (IOException e) {
+            if (sourceSize < 0) {
+                throw new Exception("Could not read player directory snapshot " + file + ": " + e.getMessage());
+            }
+            VerboseOutput.println("  Could not read player index " + file + ", rebuilding it: " + e.getMessage());
+            return null;
+        }
+    }
+}
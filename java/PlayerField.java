@@ -0,0 +1,124 @@
+package org.sharlychess.papiconverter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Player fields of the tournament JSON schema and the JOUEUR columns they map to.
+ * The declaration order is the order in which fields are written to JSON.
+ */
+public enum PlayerField {
+    REF_FFE("refFFE", "RefFFE"),
+    NR("nr", "Nr"),
+    NR_FFE("nrFFE", "NrFFE", 6),
+    LAST_NAME("lastName", "Nom", 20),
+    FIRST_NAME("firstName", "Prenom", 20),
+    GENDER("gender", "Sexe", 1),
+    BIRTH_DATE("birthDate", "NeLe", Kind.DATE),
+    CATEGORY("category", "Cat", 4),
+    ELO("elo", "Elo"),
+    RAPID_ELO("rapidElo", "Rapide"),
+    BLITZ_ELO("blitzElo", "Blitz"),
+    FEDERATION("federation", "Federation", 3),
+    CLUB("club", "Club", 80),
+    LEAGUE("league", "Ligue", 3),
+    FIDE_ELO("fideElo", "Fide", 1),
+    FIDE_RAPID_ELO("fideRapidElo", "RapideFide", 1),
+    FIDE_BLITZ_ELO("fideBlitzElo", "BlitzFide", 1),
+    FIDE_CODE("fideCode", "FideCode", 10),
+    FIDE_TITLE("fideTitle", "FideTitre", 2),
+    LICENCE_TYPE("licenceType", "AffType", 1),
+    PAID("paid", "InscriptionRegle"),
+    OWED("owed", "InscriptionDu"),
+    FIXED_BOARD("fixedBoard", "Fixe"),
+    CHECKED_IN("checkedIn", "Pointe", Kind.BOOLEAN),
+    ADDRESS("address", "Adresse", 96),
+    POSTAL_CODE("postalCode", "CP", 36),
+    PHONE("phone", "Tel", 10),
+    EMAIL("email", "EMail", 50),
+    COMMENT("comment", "Commentaire", 255);
+
+    /**
+     * How a field is stored in the JOUEUR table.
+     */
+    public enum Kind {
+        /** Number or text, written as found in the JSON */
+        VALUE,
+        /** Date, DD/MM/YYYY in the JSON */
+        DATE,
+        /** Boolean */
+        BOOLEAN
+    }
+
+    private static final PlayerField[] FIELDS = values();
+    private static final Map<String, PlayerField> BY_JSON_NAME = createJsonNameIndex();
+
+    private final String jsonName;
+    private final String column;
+    private final int maxLength;
+    private final Kind kind;
+
+    PlayerField(String jsonName, String column) {
+        this(jsonName, column, 0, Kind.VALUE);
+    }
+
+    PlayerField(String jsonName, String column, int maxLength) {
+        this(jsonName, column, maxLength, Kind.VALUE);
+    }
+
+    PlayerField(String jsonName, String column, Kind kind) {
+        this(jsonName, column, 0, kind);
+    }
+
+    PlayerField(String jsonName, String column, int maxLength, Kind kind) {
+        this.jsonName = jsonName;
+        this.column = column;
+        this.maxLength = maxLength;
+        this.kind = kind;
+    }
+
+    private static Map<String, PlayerField> createJsonNameIndex() {
+        Map<String, PlayerField> index = new HashMap<>();
+        for (PlayerField field : FIELDS) {
+            index.put(field.jsonName, field);
+        }
+        return index;
+    }
+
+    /**
+     * Gets all fields in declaration order, without copying.
+     * @return The shared array of fields, not to be modified
+     */
+    static PlayerField[] all() {
+        return FIELDS;
+    }
+
+    /**
+     * Gets the field with a given JSON name.
+     * @param jsonName The JSON property name
+     * @return The field, or null if the name is not part of the schema
+     */
+    public static PlayerField forJsonName(String jsonName) {
+        return BY_JSON_NAME.get(jsonName);
+    }
+
+    /** @return The JSON property name */
+    public String jsonName() {
+        return jsonName;
+    }
+
+    /** @return The JOUEUR column name */
+    public String column() {
+        return column;
+    }
+
+    /** @return The maximum length of text values, or 0 if not limited */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /** @return How the field is stored */
+    public Kind kind() {
+        return kind;
+    }
+}
@@ -0,0 +1,66 @@
+package org.sharlychess.papiconverter;
+
+import java.util.Arrays;
+
+/**
+ * Dense index of the players of the JOUEUR table: each PAPI Ref (EXEMPT excluded)
+ * gets its JSON index (0-based), in Ref order.
+ *
+ * PAPI numbers players sequentially, so Refs are looked up in a table indexed by Ref;
+ * sparse or negative Refs (a corrupt file) fall back to a binary search of the sorted Refs.
+ */
+public final class PlayerIndex {
+    private final int[] refs;
+    private final int[] indexByRef;
+
+    private PlayerIndex(int[] refs) {
+        this.refs = refs;
+        int minRef = refs.length > 0 ? refs[0] : 0;
+        int maxRef = refs.length > 0 ? refs[refs.length - 1] : 0;
+        if (minRef >= 0 && maxRef <= 8 * refs.length + 64) {
+            indexByRef = new int[maxRef + 1];
+            Arrays.fill(indexByRef, -1);
+            for (int i = 0; i < refs.length; i++) {
+                indexByRef[refs[i]] = i;
+            }
+        } else {
+            indexByRef = null;
+        }
+    }
+
+    /**
+     * Creates the index of players sorted by Ref.
+     * @param sortedRefs Ref of each player, in ascending order
+     * @return The index
+     */
+    public static PlayerIndex of(int[] sortedRefs) {
+        return new PlayerIndex(sortedRefs.clone());
+    }
+
+    /** @return Number of players */
+    public int size() {
+        return refs.length;
+    }
+
+    /**
+     * Gets the PAPI Ref of a player.
+     * @param index JSON index of the player
+     * @return The Ref
+     */
+    public int ref(int index) {
+        return refs[index];
+    }
+
+    /**
+     * Gets the JSON index of a player.
+     * @param ref PAPI Ref of the player
+     * @return The JSON index, or -1 if no player has that Ref
+     */
+    public int indexOf(int ref) {
+        if (indexByRef != null) {
+            return ref >= 0 && ref < indexByRef.length ? indexByRef[ref] : -1;
+        }
+        int index = Arrays.binarySearch(refs, ref);
+        return index >= 0 ? index : -1;
+    }
+}
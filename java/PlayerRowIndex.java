@@ -0,0 +1,106 @@
+package org.sharlychess.papiconverter;
+
+import java.io.IOException;
+import java.util.List;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Looks up JOUEUR rows by their Ref column.
+ *
+ * When the table has a primary key on Ref, lookups go through the index and
+ * only touch the pages of the requested rows. Otherwise the table is read once
+ * and the rows are kept in an array indexed by Ref.
+ */
+public class PlayerRowIndex {
+
+    private final IndexCursor cursor;
+    private final Row[] rowsByRef;
+
+    private PlayerRowIndex(IndexCursor cursor, Row[] rowsByRef) {
+        this.cursor = cursor;
+        this.rowsByRef = rowsByRef;
+    }
+
+    /**
+     * Creates an index over the JOUEUR table.
+     * @param playerTable The JOUEUR table
+     * @return The index
+     * @throws IOException if the table cannot be read
+     */
+    public static PlayerRowIndex create(Table playerTable) throws IOException {
+        Index primaryKey = findRefPrimaryKey(playerTable);
+        if (primaryKey != null) {
+            VerboseOutput.println("  Using primary key index '" + primaryKey.getName() + "' on Ref");
+            return new PlayerRowIndex(CursorBuilder.createCursor(primaryKey), null);
+        }
+
+        VerboseOutput.println("  No index on Ref, indexing JOUEUR rows in memory");
+        Row[] rowsByRef = new Row[16];
+        for (Row row : playerTable) {
+            Object refObj = row.get("Ref");
+            if (refObj == null) {
+                continue;
+            }
+            int ref = ((Number)refObj).intValue();
+            if (ref < 0) {
+                continue;
+            }
+            if (ref >= rowsByRef.length) {
+                rowsByRef = java.util.Arrays.copyOf(rowsByRef, Math.max(ref + 1, rowsByRef.length * 2));
+            }
+            rowsByRef[ref] = row;
+        }
+        return new PlayerRowIndex(null, rowsByRef);
+    }
+
+    /**
+     * Indexes the players of the JOUEUR table as the export numbers them: by position in
+     * Ref order, EXEMPT and the rows below it excluded. Reads the Ref column of every row.
+     * @param playerTable The JOUEUR table
+     * @return The index from JSON index to Ref
+     * @throws IOException if the table cannot be read
+     */
+    public static PlayerIndex players(Table playerTable) throws IOException {
+        int[] refs = new int[16];
+        int count = 0;
+        for (Row row : playerTable) {
+            Object refObj = row.get("Ref");
+            if (refObj == null || ((Number)refObj).intValue() <= PairingRules.EXEMPT_REF) {
+                continue;
+            }
+            if (count == refs.length) {
+                refs = java.util.Arrays.copyOf(refs, count * 2);
+            }
+            refs[count++] = ((Number)refObj).intValue();
+        }
+        refs = java.util.Arrays.copyOf(refs, count);
+        java.util.Arrays.sort(refs);
+        return PlayerIndex.of(refs);
+    }
+
+    /**
+     * Gets the row of a player.
+     * @param ref The player reference
+     * @return The row, or null if there is no player with this reference
+     * @throws IOException if the table cannot be read
+     */
+    public Row get(int ref) throws IOException {
+        if (cursor != null) {
+            return cursor.findFirstRowByEntry(ref) ? cursor.getCurrentRow() : null;
+        }
+        return ref >= 0 && ref < rowsByRef.length ? rowsByRef[ref] : null;
+    }
+
+    private static Index findRefPrimaryKey(Table playerTable) {
+        try {
+            Index primaryKey = playerTable.getPrimaryKeyIndex();
+            List<? extends Index.Column> columns = primaryKey.getColumns();
+            if (columns.size() == 1 && "Ref".equals(columns.get(0).getName())) {
+                return primaryKey;
+            }
+        } catch (IllegalArgumentException e) {
+            // Table has no primary key
+        }
+        return null;
+    }
+}
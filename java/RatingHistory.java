@@ -0,0 +1,750 @@
+package org.sharlychess.papiconverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Rating history of the FFE players, built from successive Data.mdb releases.
+ *
+ * The store is a single append-only file: a header, then one block per release.
+ * A block only holds the players that changed since the previous release (ratings,
+ * rating types or club), were added or were removed, so its size is proportional to
+ * the number of changes. Within a block, the values are stored column by column:
+ * <pre>
+ * block   := "RBLK" length:int32 payload crc32:int32
+ * payload := release:string count:varint
+ *            ffe_id deltas:varint[count]          (ascending FFE IDs)
+ *            change masks:byte[count]
+ *            standard, rapid, blitz deltas:zigzag varint[players with the bit, per column]
+ *            rating types:byte[players with the bit]   (standard | rapid &lt;&lt; 2 | blitz &lt;&lt; 4)
+ *            club names:varint count, string[count]
+ *            clubs:varint[players with the bit]   (index in the club names)
+ * </pre>
+ * Ratings are deltas from the previous value of the player. A block interrupted by a
+ * crash fails its length or CRC check; it is ignored when the store is read and
+ * overwritten by the next append.
+ *
+ * Opening the store replays every block once into per-player chains of history
+ * records, so {@link #history(int)} only walks the records of one player.
+ */
+public final class RatingHistory {
+
+    private static final int MAGIC = 0x50524853; // "PRHS"
+    private static final int VERSION = 1;
+    private static final int BLOCK_MAGIC = 0x52424C4B; // "RBLK"
+    private static final int HEADER_SIZE = 8;
+
+    private static final int CHANGED_STANDARD = 1;
+    private static final int CHANGED_RAPID = 2;
+    private static final int CHANGED_BLITZ = 4;
+    private static final int CHANGED_TYPES = 8;
+    private static final int CHANGED_CLUB = 16;
+    private static final int ADDED = 32;
+    private static final int REMOVED = 64;
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    /**
+     * State of a player after a release in which it changed.
+     */
+    public static final class Entry {
+        private final String release;
+        private final boolean removed;
+        private final int standard;
+        private final int rapid;
+        private final int blitz;
+        private final int types;
+        private final String club;
+
+        private Entry(String release, boolean removed, int standard, int rapid, int blitz, int types, String club) {
+            this.release = release;
+            this.removed = removed;
+            this.standard = standard;
+            this.rapid = rapid;
+            this.blitz = blitz;
+            this.types = types;
+            this.club = club;
+        }
+
+        /** @return The release label */
+        public String getRelease() {
+            return release;
+        }
+
+        /** @return true if the player is no longer in this release */
+        public boolean isRemoved() {
+            return removed;
+        }
+
+        /** @return The standard rating */
+        public int getStandardRating() {
+            return standard;
+        }
+
+        /** @return The rapid rating */
+        public int getRapidRating() {
+            return rapid;
+        }
+
+        /** @return The blitz rating */
+        public int getBlitzRating() {
+            return blitz;
+        }
+
+        /** @return The standard rating type (1 estimated, 2 national, 3 FIDE) */
+        public int getStandardRatingType() {
+            return types & 3;
+        }
+
+        /** @return The rapid rating type */
+        public int getRapidRatingType() {
+            return (types >> 2) & 3;
+        }
+
+        /** @return The blitz rating type */
+        public int getBlitzRatingType() {
+            return (types >> 4) & 3;
+        }
+
+        /** @return The club name, empty if none */
+        public String getClub() {
+            return club;
+        }
+    }
+
+    /**
+     * Players of a Data.mdb release, sorted by FFE ID.
+     */
+    private static final class Release {
+        int count;
+        int[] ffeIds;
+        int[] standard;
+        int[] rapid;
+        int[] blitz;
+        int[] types;
+        String[] clubs;
+    }
+
+    private final List<String> releases = new ArrayList<>();
+    private long validLength;
+
+    // Latest state of each player, by slot
+    private final IntIntMap slots = new IntIntMap(1 << 16);
+    private int slotCount;
+    private int[] slotFfeIds = new int[1024];
+    private int[] slotStandard = new int[1024];
+    private int[] slotRapid = new int[1024];
+    private int[] slotBlitz = new int[1024];
+    private int[] slotTypes = new int[1024];
+    private String[] slotClubs = new String[1024];
+    private boolean[] slotPresent = new boolean[1024];
+    private int[] slotFirstRecord = new int[1024];
+    private int[] slotLastRecord = new int[1024];
+
+    // History records, chained per player
+    private int recordCount;
+    private int[] recordRelease = new int[4096];
+    private int[] recordFlags = new int[4096];
+    private int[] recordStandard = new int[4096];
+    private int[] recordRapid = new int[4096];
+    private int[] recordBlitz = new int[4096];
+    private int[] recordTypes = new int[4096];
+    private String[] recordClubs = new String[4096];
+    private int[] recordNext = new int[4096];
+
+    private RatingHistory() {
+    }
+
+    /**
+     * Reads a history store.
+     * @param file The store file
+     * @return The history, empty if the file doesn't exist
+     * @throws Exception if the file is not a rating history store
+     */
+    public static RatingHistory open(Path file) throws Exception {
+        RatingHistory history = new RatingHistory();
+        if (!Files.exists(file)) {
+            return history;
+        }
+        byte[] data = Files.readAllBytes(file);
+        Metrics.add(Metrics.BYTES_READ, data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new Exception("Not a rating history file: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new Exception("Unsupported rating history version " + version + ": " + file);
+        }
+        history.validLength = HEADER_SIZE;
+        Metrics.Phase historyLoadPhase = Metrics.phase("history load");
+        try {
+            while (buffer.remaining() >= 8 && buffer.getInt() == BLOCK_MAGIC) {
+                int length = buffer.getInt();
+                if (length < 0 || buffer.remaining() < length + 4) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(data, buffer.position(), length);
+                if (buffer.getInt(buffer.position() + length) != (int) crc.getValue()) {
+                    break;
+                }
+                history.decodeBlock(ByteBuffer.wrap(data, buffer.position(), length).slice());
+                buffer.position(buffer.position() + length + 4);
+                history.validLength = buffer.position();
+            }
+        } finally {
+            historyLoadPhase.close();
+        }
+        if (history.validLength < data.length) {
+            VerboseOutput.warningPrintln("Warning: Ignoring an incomplete release at the end of " + file
+                + " (" + (data.length - history.validLength) + " bytes)");
+        }
+        return history;
+    }
+
+    /** @return The release labels, oldest first */
+    public List<String> getReleases() {
+        return Collections.unmodifiableList(releases);
+    }
+
+    /** @return The number of players ever seen */
+    public int getPlayerCount() {
+        return slotCount;
+    }
+
+    /**
+     * Gets the history of a player: one entry per release where the player was added,
+     * changed or removed, oldest first.
+     * @param ffeId The FFE ID (Ref in Data.mdb)
+     * @return The entries, empty if the player is unknown
+     */
+    public List<Entry> history(int ffeId) {
+        int slot = slots.get(ffeId, -1);
+        if (slot < 0) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (int record = slotFirstRecord[slot]; record >= 0; record = recordNext[record]) {
+            entries.add(new Entry(releases.get(recordRelease[record]), (recordFlags[record] & REMOVED) != 0,
+                recordStandard[record], recordRapid[record], recordBlitz[record], recordTypes[record], recordClubs[record]));
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the history of a player as a JSON array, one object per entry.
+     * @param ffeId The FFE ID
+     * @param out Stream receiving the JSON, left open
+     * @return The number of entries
+     * @throws IOException if the stream cannot be written
+     */
+    public int writeHistory(int ffeId, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        List<Entry> entries = history(ffeId);
+        long found = System.nanoTime();
+        try (JsonGenerator generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+            generator.writeStartArray();
+            for (Entry entry : entries) {
+                generator.writeStartObject();
+                generator.writeStringField("release", entry.getRelease());
+                if (entry.isRemoved()) {
+                    generator.writeBooleanField("removed", true);
+                }
+                generator.writeNumberField("standardRating", entry.getStandardRating());
+                generator.writeNumberField("standardRatingType", entry.getStandardRatingType());
+                generator.writeNumberField("rapidRating", entry.getRapidRating());
+                generator.writeNumberField("rapidRatingType", entry.getRapidRatingType());
+                generator.writeNumberField("blitzRating", entry.getBlitzRating());
+                generator.writeNumberField("blitzRatingType", entry.getBlitzRatingType());
+                generator.writeStringField("club", entry.getClub());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeRaw('\n');
+        }
+        VerboseOutput.println(String.format("Found %d entries for FFE ID %d in %.1f us (%d releases, %d players)",
+            entries.size(), ffeId, (found - start) / 1e3, releases.size(), slotCount));
+        return entries.size();
+    }
+
+    /**
+     * Appends a Data.mdb release to a history store, created if needed.
+     * @param historyFile The store file
+     * @param dataMdb Path to the FFE Data.mdb
+     * @param release Label of the release, or null for the date of the Data.mdb file
+     * @return The number of players stored for this release
+     * @throws Exception if a file cannot be read or written, or the release is already stored
+     */
+    public static int append(Path historyFile, String dataMdb, String release) throws Exception {
+        File input = new File(dataMdb);
+        if (!input.exists()) {
+            throw new Exception("Player database not found: " + dataMdb);
+        }
+        if (release == null) {
+            release = LocalDate.ofInstant(Files.getLastModifiedTime(input.toPath()).toInstant(), ZoneId.systemDefault()).toString();
+        }
+        RatingHistory history = open(historyFile);
+        if (history.releases.contains(release)) {
+            throw new Exception("Release " + release + " is already in " + historyFile);
+        }
+        VerboseOutput.alwaysPrintln("Adding release " + release + " of " + dataMdb + " to " + historyFile
+            + " (" + history.releases.size() + " releases, " + history.slotCount + " players)");
+
+        Release players = readRelease(input);
+        byte[] payload;
+        int changes;
+        Metrics.Phase historyEncodePhase = Metrics.phase("history encode");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            changes = history.encodeBlock(release, players, out);
+            payload = out.toByteArray();
+        } finally {
+            historyEncodePhase.close();
+        }
+
+        Metrics.Phase historyAppendPhase = Metrics.phase("history append");
+        try (FileChannel channel = FileChannel.open(historyFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Overwrites an incomplete block left by an interrupted append
+            channel.truncate(history.validLength);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 + payload.length + 4);
+            if (history.validLength == 0) {
+                buffer.putInt(MAGIC).putInt(VERSION);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.putInt(BLOCK_MAGIC).putInt(payload.length).put(payload).putInt((int) crc.getValue());
+            buffer.flip();
+            long position = history.validLength;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(true);
+            Metrics.add(Metrics.BYTES_WRITTEN, position - history.validLength);
+        } finally {
+            historyAppendPhase.close();
+        }
+        VerboseOutput.alwaysPrintln("Stored " + changes + " changed players of " + players.count + " in "
+            + (payload.length + 12) + " bytes");
+        return changes;
+    }
+
+    /**
+     * Reads the players of Data.mdb in one scan of JOUEUR, sorted by FFE ID.
+     */
+    private static Release readRelease(File input) throws Exception {
+        FileChannel channel = null;
+        Database db;
+        try {
+            channel = MappedFileChannel.open(input.toPath());
+            db = AccessChannels.open(input, channel, true);
+        } catch (IOException e) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            db = DatabaseBuilder.open(input);
+        }
+        Metrics.add(Metrics.BYTES_READ, input.length());
+        Metrics.Phase tableScanPhase = Metrics.phase("table scan");
+        try {
+            Table playerTable = db.getTable("JOUEUR");
+            Table clubTable = db.getTable("CLUB");
+            if (playerTable == null || clubTable == null) {
+                throw new Exception("JOUEUR or CLUB table not found in database.");
+            }
+            Map<Long, String> clubNames = new HashMap<>();
+            for (Row clubRow : clubTable) {
+                Object refObj = clubRow.get("Ref");
+                Object nomObj = clubRow.get("Nom");
+                if (refObj != null && nomObj != null) {
+                    clubNames.put(((Number) refObj).longValue(), nomObj.toString().trim());
+                }
+            }
+
+            int capacity = Math.max(16, playerTable.getRowCount());
+            Release scanned = new Release();
+            scanned.ffeIds = new int[capacity];
+            scanned.standard = new int[capacity];
+            scanned.rapid = new int[capacity];
+            scanned.blitz = new int[capacity];
+            scanned.types = new int[capacity];
+            scanned.clubs = new String[capacity];
+            for (Row row : playerTable) {
+                int ffeId = PlayerDbConverter.getIntValue(row, "Ref");
+                if (ffeId <= 0) {
+                    continue;
+                }
+                if (scanned.count == scanned.ffeIds.length) {
+                    grow(scanned, scanned.count * 2);
+                }
+                int i = scanned.count++;
+                Object clubRefObj = row.get("ClubRef");
+                String club = clubRefObj != null ? clubNames.get(((Number) clubRefObj).longValue()) : null;
+                scanned.ffeIds[i] = ffeId;
+                scanned.standard[i] = PlayerDbConverter.getIntValue(row, "Elo");
+                scanned.rapid[i] = PlayerDbConverter.getIntValue(row, "Rapide");
+                scanned.blitz[i] = PlayerDbConverter.getIntValue(row, "Blitz");
+                scanned.types[i] = PlayerDbConverter.getRatingType(row.get("Fide"))
+                    | PlayerDbConverter.getRatingType(row.get("RapideFide")) << 2
+                    | PlayerDbConverter.getRatingType(row.get("BlitzFide")) << 4;
+                scanned.clubs[i] = club != null ? club : "";
+            }
+            Metrics.add(Metrics.ROWS_READ, scanned.count);
+
+            // Sort by FFE ID, through (ID, row) pairs packed in longs
+            long[] order = new long[scanned.count];
+            for (int i = 0; i < scanned.count; i++) {
+                order[i] = (long) scanned.ffeIds[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            Release sorted = new Release();
+            grow(sorted, scanned.count);
+            for (long packed : order) {
+                int i = (int) packed;
+                if (sorted.count > 0 && sorted.ffeIds[sorted.count - 1] == scanned.ffeIds[i]) {
+                    continue; // Duplicate Ref: the first row wins
+                }
+                int j = sorted.count++;
+                sorted.ffeIds[j] = scanned.ffeIds[i];
+                sorted.standard[j] = scanned.standard[i];
+                sorted.rapid[j] = scanned.rapid[i];
+                sorted.blitz[j] = scanned.blitz[i];
+                sorted.types[j] = scanned.types[i];
+                sorted.clubs[j] = scanned.clubs[i];
+            }
+            return sorted;
+        } finally {
+            tableScanPhase.close();
+            db.close();
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    private static void grow(Release release, int capacity) {
+        release.ffeIds = release.ffeIds == null ? new int[capacity] : Arrays.copyOf(release.ffeIds, capacity);
+        release.standard = release.standard == null ? new int[capacity] : Arrays.copyOf(release.standard, capacity);
+        release.rapid = release.rapid == null ? new int[capacity] : Arrays.copyOf(release.rapid, capacity);
+        release.blitz = release.blitz == null ? new int[capacity] : Arrays.copyOf(release.blitz, capacity);
+        release.types = release.types == null ? new int[capacity] : Arrays.copyOf(release.types, capacity);
+        release.clubs = release.clubs == null ? new String[capacity] : Arrays.copyOf(release.clubs, capacity);
+    }
+
+    /**
+     * Encodes the changes from the latest state to a release, and applies them.
+     * @return The number of players in the block
+     */
+    private int encodeBlock(String release, Release players, ByteArrayOutputStream out) {
+        // Changed players of the release, then players missing from it, merged by FFE ID
+        int[] ffeIds = new int[players.count + slotCount];
+        int[] masks = new int[ffeIds.length];
+        int[] sources = new int[ffeIds.length];
+        boolean[] seen = new boolean[slotCount];
+        int count = 0;
+        for (int i = 0; i < players.count; i++) {
+            int slot = slots.get(players.ffeIds[i], -1);
+            int mask;
+            if (slot < 0 || !slotPresent[slot]) {
+                mask = ADDED | changes(slot, players, i);
+            } else {
+                mask = changes(slot, players, i);
+            }
+            if (slot >= 0) {
+                seen[slot] = true;
+            }
+            if (mask != 0) {
+                ffeIds[count] = players.ffeIds[i];
+                masks[count] = mask;
+                sources[count] = i;
+                count++;
+            }
+        }
+        int added = count;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotPresent[slot] && !seen[slot]) {
+                ffeIds[count] = slotFfeIds[slot];
+                masks[count] = REMOVED;
+                sources[count] = -1;
+                count++;
+            }
+        }
+        if (count > added) {
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (long) ffeIds[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            int[] sortedIds = new int[count];
+            int[] sortedMasks = new int[count];
+            int[] sortedSources = new int[count];
+            for (int k = 0; k < count; k++) {
+                int i = (int) order[k];
+                sortedIds[k] = ffeIds[i];
+                sortedMasks[k] = masks[i];
+                sortedSources[k] = sources[i];
+            }
+            ffeIds = sortedIds;
+            masks = sortedMasks;
+            sources = sortedSources;
+        }
+
+        writeString(out, release);
+        writeVarint(out, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(out, ffeIds[i] - previous);
+            previous = ffeIds[i];
+        }
+        for (int i = 0; i < count; i++) {
+            out.write(masks[i]);
+        }
+        int[][] columns = { players.standard, players.rapid, players.blitz };
+        int[] bits = { CHANGED_STANDARD, CHANGED_RAPID, CHANGED_BLITZ };
+        for (int c = 0; c < 3; c++) {
+            for (int i = 0; i < count; i++) {
+                if ((masks[i] & bits[c]) != 0) {
+                    int slot = slots.get(ffeIds[i], -1);
+                    int before = slot < 0 ? 0 : c == 0 ? slotStandard[slot] : c == 1 ? slotRapid[slot] : slotBlitz[slot];
+                    writeZigzag(out, columns[c][sources[i]] - before);
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_TYPES) != 0) {
+                out.write(players.types[sources[i]]);
+            }
+        }
+        Map<String, Integer> clubIndexes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_CLUB) != 0) {
+                clubIndexes.putIfAbsent(players.clubs[sources[i]], clubIndexes.size());
+            }
+        }
+        writeVarint(out, clubIndexes.size());
+        for (String club : clubIndexes.keySet()) {
+            writeString(out, club);
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_CLUB) != 0) {
+                writeVarint(out, clubIndexes.get(players.clubs[sources[i]]));
+            }
+        }
+
+        // Apply the block as a reader would
+        decodeBlock(ByteBuffer.wrap(out.toByteArray()));
+        return count;
+    }
+
+    /**
+     * Gets the change bits of a player of the release against its latest state.
+     */
+    private int changes(int slot, Release players, int i) {
+        int standard = slot < 0 ? 0 : slotStandard[slot];
+        int rapid = slot < 0 ? 0 : slotRapid[slot];
+        int blitz = slot < 0 ? 0 : slotBlitz[slot];
+        int types = slot < 0 ? 0 : slotTypes[slot];
+        String club = slot < 0 ? "" : slotClubs[slot];
+        int mask = 0;
+        if (players.standard[i] != standard) {
+            mask |= CHANGED_STANDARD;
+        }
+        if (players.rapid[i] != rapid) {
+            mask |= CHANGED_RAPID;
+        }
+        if (players.blitz[i] != blitz) {
+            mask |= CHANGED_BLITZ;
+        }
+        if (players.types[i] != types) {
+            mask |= CHANGED_TYPES;
+        }
+        if (!players.clubs[i].equals(club)) {
+            mask |= CHANGED_CLUB;
+        }
+        return mask;
+    }
+
+    /**
+     * Applies a block to the latest state and adds its history records.
+     */
+    private void decodeBlock(ByteBuffer in) {
+        int release = releases.size();
+        releases.add(readString(in));
+        int count = readVarint(in);
+        int[] blockSlots = new int[count];
+        int ffeId = 0;
+        for (int i = 0; i < count; i++) {
+            ffeId += readVarint(in);
+            blockSlots[i] = slot(ffeId);
+        }
+        int[] masks = new int[count];
+        for (int i = 0; i < count; i++) {
+            masks[i] = in.get() & 0xFF;
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_STANDARD) != 0) {
+                slotStandard[blockSlots[i]] += readZigzag(in);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_RAPID) != 0) {
+                slotRapid[blockSlots[i]] += readZigzag(in);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_BLITZ) != 0) {
+                slotBlitz[blockSlots[i]] += readZigzag(in);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_TYPES) != 0) {
+                slotTypes[blockSlots[i]] = in.get() & 0xFF;
+            }
+        }
+        String[] clubNames = new String[readVarint(in)];
+        for (int i = 0; i < clubNames.length; i++) {
+            clubNames[i] = readString(in);
+        }
+        for (int i = 0; i < count; i++) {
+            if ((masks[i] & CHANGED_CLUB) != 0) {
+                slotClubs[blockSlots[i]] = clubNames[readVarint(in)];
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int slot = blockSlots[i];
+            if ((masks[i] & ADDED) != 0) {
+                slotPresent[slot] = true;
+            } else if ((masks[i] & REMOVED) != 0) {
+                slotPresent[slot] = false;
+            }
+            addRecord(slot, release, masks[i]);
+        }
+    }
+
+    /**
+     * Gets the slot of a player, created with zero values if needed.
+     */
+    private int slot(int ffeId) {
+        int slot = slots.get(ffeId, -1);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (slotCount == slotFfeIds.length) {
+            int capacity = slotCount * 2;
+            slotFfeIds = Arrays.copyOf(slotFfeIds, capacity);
+            slotStandard = Arrays.copyOf(slotStandard, capacity);
+            slotRapid = Arrays.copyOf(slotRapid, capacity);
+            slotBlitz = Arrays.copyOf(slotBlitz, capacity);
+            slotTypes = Arrays.copyOf(slotTypes, capacity);
+            slotClubs = Arrays.copyOf(slotClubs, capacity);
+            slotPresent = Arrays.copyOf(slotPresent, capacity);
+            slotFirstRecord = Arrays.copyOf(slotFirstRecord, capacity);
+            slotLastRecord = Arrays.copyOf(slotLastRecord, capacity);
+        }
+        slot = slotCount++;
+        slotFfeIds[slot] = ffeId;
+        slotClubs[slot] = "";
+        slotFirstRecord[slot] = -1;
+        slotLastRecord[slot] = -1;
+        slots.put(ffeId, slot);
+        return slot;
+    }
+
+    private void addRecord(int slot, int release, int flags) {
+        if (recordCount == recordRelease.length) {
+            int capacity = recordCount * 2;
+            recordRelease = Arrays.copyOf(recordRelease, capacity);
+            recordFlags = Arrays.copyOf(recordFlags, capacity);
+            recordStandard = Arrays.copyOf(recordStandard, capacity);
+            recordRapid = Arrays.copyOf(recordRapid, capacity);
+            recordBlitz = Arrays.copyOf(recordBlitz, capacity);
+            recordTypes = Arrays.copyOf(recordTypes, capacity);
+            recordClubs = Arrays.copyOf(recordClubs, capacity);
+            recordNext = Arrays.copyOf(recordNext, capacity);
+        }
+        int record = recordCount++;
+        recordRelease[record] = release;
+        recordFlags[record] = flags;
+        recordStandard[record] = slotStandard[slot];
+        recordRapid[record] = slotRapid[slot];
+        recordBlitz[record] = slotBlitz[slot];
+        recordTypes[record] = slotTypes[slot];
+        recordClubs[record] = slotClubs[slot];
+        recordNext[record] = -1;
+        if (slotLastRecord[slot] < 0) {
+            slotFirstRecord[slot] = record;
+        } else {
+            recordNext[slotLastRecord[slot]] = record;
+        }
+        slotLastRecord[slot] = record;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeZigzag(ByteArrayOutputStream out, int value) {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int readZigzag(ByteBuffer in) {
+        int zigzag = readVarint(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package org.sharlychess.papiconverter;
+
+/**
+ * Pairing and result of a player in one round, as in the JSON "rounds" object.
+ * Each value is null when absent from the JSON.
+ */
+public final class RoundData {
+    final String color;
+    final Integer opponent;
+    final Integer result;
+
+    /**
+     * @param color Color code (B, N, R or F), or null
+     * @param opponent JSON index (0-based) of the opponent, or null
+     * @param result Result code, or null
+     */
+    public RoundData(String color, Integer opponent, Integer result) {
+        this.color = color;
+        this.opponent = opponent;
+        this.result = result;
+    }
+
+    /** @return The color code, or null */
+    public String getColor() {
+        return color;
+    }
+
+    /** @return The JSON index of the opponent, or null */
+    public Integer getOpponent() {
+        return opponent;
+    }
+
+    /** @return The result code, or null */
+    public Integer getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,340 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import com.healthmarketscience.jackcess.*;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Writes the results of a single round into an existing PAPI file.
+ *
+ * Only the RdNNCl, RdNNAdv and RdNNRes columns of the affected JOUEUR rows
+ * are written. Each entry is mirrored on the opponent's row (or on EXEMPT for
+ * a bye), and players who were previously paired with an affected player in
+ * that round are unpaired.
+ */
+public class RoundResultsIngester {
+
+    /**
+     * Result of one player in the round, as submitted by result entry.
+     * Player and opponent are JSON player indexes (0-based).
+     */
+    public static class RoundResult {
+        final int player;
+        final Integer opponent;
+        final String color;
+        final int result;
+
+        public RoundResult(int player, Integer opponent, String color, int result) {
+            this.player = player;
+            this.opponent = opponent;
+            this.color = color;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Desired content of the round columns of one row. A null color keeps the current one.
+     */
+    private static final class Slot {
+        final String color;
+        final Integer opponent;
+        final int result;
+
+        Slot(String color, Integer opponent, int result) {
+            this.color = color;
+            this.opponent = opponent;
+            this.result = result;
+        }
+
+        /**
+         * Merges two descriptions of the same row; a missing color is compatible with any color.
+         * @return The merged slot, or null if they conflict
+         */
+        Slot merge(Slot other) {
+            if (!Objects.equals(opponent, other.opponent) || result != other.result) {
+                return null;
+            }
+            if (color != null && other.color != null && !color.equals(other.color)) {
+                return null;
+            }
+            return color != null ? this : other;
+        }
+    }
+
+    /**
+     * Reads round results from a JSON file and writes them to a PAPI file.
+     * The JSON file contains the round number and the list of results:
+     * {"round": 5, "results": [{"player": 0, "opponent": 3, "color": "B", "result": 3}, ...]}
+     * @param resultsFile Path to the JSON results file
+     * @param mdbFile Path to the PAPI file to update
+     * @throws Exception if the results are invalid or cannot be written
+     */
+    public static void ingest(String resultsFile, String mdbFile) throws Exception {
+        if (!Files.exists(Paths.get(mdbFile))) {
+            throw new Exception("PAPI file not found: " + mdbFile);
+        }
+
+        VerboseOutput.println("Reading round results from: " + resultsFile);
+        Integer roundNum = null;
+        List<RoundResult> results = null;
+        try (InputStream in = Files.newInputStream(Paths.get(resultsFile));
+             JsonParser parser = TournamentJson.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new Exception("Expected a JSON object in " + resultsFile);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("round".equals(name) && token.isNumeric()) {
+                    roundNum = parser.getValueAsInt();
+                } else if ("results".equals(name) && token == JsonToken.START_ARRAY) {
+                    results = readResults(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (roundNum == null) {
+            throw new Exception("Missing 'round' number in " + resultsFile);
+        }
+        if (results == null) {
+            throw new Exception("Missing 'results' array in " + resultsFile);
+        }
+        validate(roundNum, results);
+
+        long start = System.nanoTime();
+        Database db = DatabaseBuilder.open(new File(mdbFile));
+        int updatedRows;
+        try {
+            updatedRows = apply(db, roundNum, results);
+        } finally {
+            db.close();
+        }
+
+        VerboseOutput.alwaysPrintln("Round " + roundNum + ": " + results.size() + " results, "
+            + updatedRows + " rows updated in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Reads the entries of the "results" array.
+     */
+    private static List<RoundResult> readResults(JsonParser parser) throws Exception {
+        List<RoundResult> results = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            Integer player = null;
+            Integer opponent = null;
+            String color = null;
+            Integer result = null;
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if (!valueToken.isScalarValue() || valueToken == JsonToken.VALUE_NULL) {
+                        parser.skipChildren();
+                    } else if ("player".equals(name)) {
+                        player = parser.getValueAsInt();
+                    } else if ("opponent".equals(name)) {
+                        opponent = parser.getValueAsInt();
+                    } else if ("color".equals(name)) {
+                        color = parser.getValueAsString();
+                    } else if ("result".equals(name)) {
+                        result = parser.getValueAsInt();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+            if (player == null || result == null) {
+                throw new Exception("Each result needs 'player' and 'result' (entry " + (results.size() + 1) + ")");
+            }
+            results.add(new RoundResult(player, opponent, color, result));
+        }
+        return results;
+    }
+
+    /**
+     * Writes the results of a round to the JOUEUR table of an open database.
+     * Nothing is written if an entry is invalid or refers to an unknown player.
+     * @param db The open PAPI database
+     * @param roundNum The round number (1-24)
+     * @param results The results of the round
+     * @return The number of JOUEUR rows updated
+     * @throws Exception if the results are invalid or cannot be written
+     */
+    public static int apply(Database db, int roundNum, List<RoundResult> results) throws Exception {
+        validate(roundNum, results);
+
+        Table playerTable = db.getTable("JOUEUR");
+        // JSON indexes are positions in Ref order, as in the exported document
+        PlayerIndex players = PlayerRowIndex.players(playerTable);
+        checkPlayers(roundNum, results, players);
+
+        // Desired round columns for every affected row, including mirrored sides
+        Map<Integer, Slot> slots = new LinkedHashMap<>();
+        for (RoundResult entry : results) {
+            int playerRef = players.ref(entry.player);
+            if (entry.opponent != null) {
+                int mirroredResult = PairingRules.mirrorResult(entry.result);
+                int opponentRef = players.ref(entry.opponent);
+                putSlot(slots, players, playerRef, new Slot(entry.color, opponentRef, entry.result), roundNum);
+                putSlot(slots, players, opponentRef, new Slot(PairingRules.mirrorColor(entry.color), playerRef, mirroredResult), roundNum);
+            } else if (entry.result == PairingRules.BYE_RESULT) {
+                putSlot(slots, players, playerRef, new Slot(entry.color, PairingRules.EXEMPT_REF, entry.result), roundNum);
+                // EXEMPT follows the last bye, as in the JSON import
+                slots.put(PairingRules.EXEMPT_REF, new Slot(PairingRules.EXEMPT_COLOR, playerRef, PairingRules.EXEMPT_RESULT));
+            } else {
+                putSlot(slots, players, playerRef, new Slot(entry.color, 0, entry.result), roundNum);
+            }
+        }
+
+        PlayerRowIndex index = PlayerRowIndex.create(playerTable);
+        String prefix = PairingRules.roundPrefix(roundNum);
+
+        // Resolve every row before writing anything
+        Map<Integer, Row> rows = new LinkedHashMap<>();
+        for (int ref : slots.keySet()) {
+            Row row = index.get(ref);
+            if (row == null) {
+                throw new Exception("Row of " + describe(players, ref) + " not found (Ref " + ref + ")");
+            }
+            rows.put(ref, row);
+        }
+
+        // Previous opponents that are not part of this batch still point to an affected player
+        Map<Integer, Integer> formerOpponents = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Slot> entry : slots.entrySet()) {
+            Object previous = rows.get(entry.getKey()).get(prefix + "Adv");
+            if (previous instanceof Number) {
+                int previousRef = ((Number)previous).intValue();
+                if (previousRef > 0 && !slots.containsKey(previousRef) && !Integer.valueOf(previousRef).equals(entry.getValue().opponent)) {
+                    formerOpponents.put(previousRef, entry.getKey());
+                }
+            }
+        }
+
+        int updatedRows = 0;
+        for (Map.Entry<Integer, Slot> entry : slots.entrySet()) {
+            if (writeSlot(playerTable, rows.get(entry.getKey()), prefix, entry.getValue())) {
+                updatedRows++;
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : formerOpponents.entrySet()) {
+            Row row = index.get(entry.getKey());
+            if (row != null && row.get(prefix + "Adv") instanceof Number
+                    && ((Number)row.get(prefix + "Adv")).intValue() == entry.getValue()) {
+                VerboseOutput.println("  Unpairing Ref " + entry.getKey() + " from Ref " + entry.getValue() + " in round " + roundNum);
+                if (writeSlot(playerTable, row, prefix, new Slot("R", 0, 0))) {
+                    updatedRows++;
+                }
+            }
+        }
+        return updatedRows;
+    }
+
+    /**
+     * Checks the round number and the codes of every entry with the rules of the JSON
+     * import, before the database is opened.
+     * @param roundNum The round number (1-24)
+     * @param results The results of the round
+     * @throws Exception listing every invalid entry, if there is one
+     */
+    static void validate(int roundNum, List<RoundResult> results) throws Exception {
+        if (roundNum < 1 || roundNum > PairingRules.MAX_ROUNDS) {
+            throw new Exception("Round must be between 1 and " + PairingRules.MAX_ROUNDS + ": " + roundNum);
+        }
+        List<String> problems = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            RoundResult entry = results.get(i);
+            String location = "Entry " + (i + 1) + " (player " + entry.player + "): ";
+            if (entry.player < 0) {
+                problems.add(location + "invalid player index");
+            }
+            if (!PairingRules.isValidColor(entry.color)) {
+                problems.add(location + "invalid color '" + entry.color + "'");
+            }
+            if (!PairingRules.isValidResult(entry.result)) {
+                problems.add(location + "invalid result " + entry.result);
+                continue;
+            }
+            if (entry.opponent == null) {
+                if (PairingRules.needsOpponent(entry.result)) {
+                    problems.add(location + "result " + entry.result + " without opponent");
+                }
+            } else if (entry.opponent < 0 || entry.opponent == entry.player) {
+                problems.add(location + "invalid opponent " + entry.opponent);
+            } else if (PairingRules.mirrorResult(entry.result) < 0) {
+                problems.add(location + "result " + entry.result + " cannot have an opponent");
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new Exception(problems.size() + " invalid result(s) for round " + roundNum + ", nothing written:"
+                + System.lineSeparator() + "  " + String.join(System.lineSeparator() + "  ", problems));
+        }
+    }
+
+    /**
+     * Checks that the player and opponent indexes of every entry exist in the file.
+     */
+    private static void checkPlayers(int roundNum, List<RoundResult> results, PlayerIndex players) throws Exception {
+        List<String> problems = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            RoundResult entry = results.get(i);
+            if (entry.player >= players.size()) {
+                problems.add("Entry " + (i + 1) + ": player " + entry.player + " not found");
+            }
+            if (entry.opponent != null && entry.opponent >= players.size()) {
+                problems.add("Entry " + (i + 1) + " (player " + entry.player + "): opponent " + entry.opponent + " not found");
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new Exception(problems.size() + " invalid result(s) for round " + roundNum + ", nothing written ("
+                + players.size() + " players, indexed from 0):"
+                + System.lineSeparator() + "  " + String.join(System.lineSeparator() + "  ", problems));
+        }
+    }
+
+    /**
+     * Names the player of a Ref by its JSON index, or EXEMPT.
+     */
+    private static String describe(PlayerIndex players, int ref) {
+        int index = players.indexOf(ref);
+        return index >= 0 ? "player " + index : ref == PairingRules.EXEMPT_REF ? "EXEMPT" : "Ref " + ref;
+    }
+
+    private static void putSlot(Map<Integer, Slot> slots, PlayerIndex players, int ref, Slot slot, int roundNum) throws Exception {
+        Slot existing = slots.get(ref);
+        if (existing == null) {
+            slots.put(ref, slot);
+            return;
+        }
+        Slot merged = existing.merge(slot);
+        if (merged == null) {
+            throw new Exception("Conflicting results for " + describe(players, ref) + " in round " + roundNum);
+        }
+        slots.put(ref, merged);
+    }
+
+    private static boolean writeSlot(Table playerTable, Row row, String prefix, Slot slot) throws Exception {
+        boolean changed = false;
+        if (slot.color != null) {
+            changed |= PlayerConverter.putIfDifferent(row, prefix + "Cl", slot.color);
+        }
+        changed |= PlayerConverter.putIfDifferent(row, prefix + "Adv", slot.opponent);
+        changed |= PlayerConverter.putIfDifferent(row, prefix + "Res", slot.result);
+        if (changed) {
+            playerTable.updateRow(row);
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,46 @@
+package org.sharlychess.papiconverter;
+
+import com.healthmarketscience.jackcess.Row;
+
+/**
+ * Computes a 64-bit fingerprint of a database row, used to detect rows that
+ * changed between two reads of the same table without comparing every field.
+ */
+public class RowFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Computes the fingerprint of all values of a row, in column order.
+     * @param row The database row
+     * @return A 64-bit FNV-1a hash of the row values
+     */
+    public static long of(Row row) {
+        long hash = FNV_OFFSET_BASIS;
+        for (Object value : row.values()) {
+            if (value == null) {
+                hash = mix(hash, 0);
+            } else {
+                // Include the type so that "1" and 1 give different fingerprints
+                hash = mixString(hash, value.getClass().getSimpleName());
+                hash = mixString(hash, value.toString());
+            }
+            hash = mix(hash, 0xff); // Column separator
+        }
+        return hash;
+    }
+
+    private static long mixString(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = mix(hash, c & 0xff);
+            hash = mix(hash, c >>> 8);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int octet) {
+        return (hash ^ octet) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,100 @@
+package org.sharlychess.papiconverter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Reads PAPI files that may be open and written by PAPI at the same time.
+ *
+ * The file is opened read-only through a positional channel that shares read
+ * and write access with other processes, so no write lock is ever taken. The
+ * file's size and modification time are compared before and after the read;
+ * when they changed, the read may have mixed pages from two saves and is
+ * retried.
+ */
+public class SnapshotReader {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_MS = 200;
+
+    /**
+     * Reads data from an open database.
+     * @param <T> The type of data read
+     */
+    @FunctionalInterface
+    public interface DatabaseReader<T> {
+        T read(Database db) throws Exception;
+    }
+
+    /**
+     * Modification stamp of a file.
+     */
+    private static final class FileStamp {
+        final long size;
+        final FileTime modified;
+
+        FileStamp(long size, FileTime modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        boolean sameAs(FileStamp other) {
+            return size == other.size && modified.equals(other.modified);
+        }
+    }
+
+    /**
+     * Reads a consistent snapshot of an Access file.
+     * @param <T> The type of data read
+     * @param file Path to the Access file
+     * @param reader Reads the data from the open database; may be called several times
+     * @return The data read from an unchanged file
+     * @throws Exception if the file cannot be read or keeps changing
+     */
+    public static <T> T read(Path file, DatabaseReader<T> reader) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            FileStamp before = stamp(file);
+            T result;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Database db = AccessChannels.open(file.toFile(), channel, true);
+                try {
+                    result = reader.read(db);
+                } finally {
+                    db.close();
+                }
+            } catch (Exception e) {
+                // A read that overlapped a save can also fail to decode
+                if (attempt < MAX_ATTEMPTS && !before.sameAs(stamp(file))) {
+                    VerboseOutput.println("  File changed while reading (" + e.getMessage() + "), retrying...");
+                    pause();
+                    continue;
+                }
+                throw e;
+            }
+
+            if (before.sameAs(stamp(file))) {
+                return result;
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new Exception("File kept changing while being read: " + file);
+            }
+            VerboseOutput.println("  File changed while reading, retrying...");
+            pause();
+        }
+    }
+
+    private static FileStamp stamp(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new FileStamp(attributes.size(), attributes.lastModifiedTime());
+    }
+
+    private static void pause() throws InterruptedException {
+        Thread.sleep(RETRY_DELAY_MS);
+    }
+}
@@ -0,0 +1,65 @@
+package org.sharlychess.papiconverter;
+
+import java.util.List;
+
+/**
+ * Ranking of the players of a tournament, computed by {@link StandingsEngine}.
+ */
+public final class Standings {
+    private final List<Tiebreak> tiebreaks;
+    private final int[] order;
+    private final int[] ranks;
+    private final int[] halfPoints;
+    private final double[][] values;
+
+    Standings(List<Tiebreak> tiebreaks, int[] order, int[] ranks, int[] halfPoints, double[][] values) {
+        this.tiebreaks = tiebreaks;
+        this.order = order;
+        this.ranks = ranks;
+        this.halfPoints = halfPoints;
+        this.values = values;
+    }
+
+    /** @return The tiebreaks, in the order they are applied */
+    public List<Tiebreak> getTiebreaks() {
+        return tiebreaks;
+    }
+
+    /** @return Number of ranked players */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @param position Position in the standings (0-based)
+     * @return JSON index of the player at that position
+     */
+    public int player(int position) {
+        return order[position];
+    }
+
+    /**
+     * @param position Position in the standings (0-based)
+     * @return Rank at that position (1-based, shared by players tied on score and all tiebreaks)
+     */
+    public int rank(int position) {
+        return ranks[position];
+    }
+
+    /**
+     * @param player JSON index of the player
+     * @return The player's score in points
+     */
+    public double score(int player) {
+        return halfPoints[player] / 2.0;
+    }
+
+    /**
+     * @param tiebreak Index of the tiebreak in {@link #getTiebreaks()}
+     * @param player JSON index of the player
+     * @return The tiebreak value of the player
+     */
+    public double tiebreak(int tiebreak, int player) {
+        return values[tiebreak][player];
+    }
+}
@@ -0,0 +1,241 @@
+package org.sharlychess.papiconverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes scores, tiebreaks and ranks from {@link TournamentColumns}.
+ *
+ * Scores are counted in half-points (1, 1/2 or 0 points per game). All tiebreaks are computed
+ * in two passes over the round columns, so the cost is O(players x rounds) plus the
+ * final sort. Buchholz-type tiebreaks use the final scores of the opponents met in
+ * rounds that have a result; virtual opponents for unplayed rounds are not modelled.
+ */
+public class StandingsEngine {
+
+    /** Variables holding the tiebreak names, in the order they are applied */
+    private static final String[] TIEBREAK_VARIABLES = { "tiebreak1", "tiebreak2", "tiebreak3" };
+
+    /** Half-points and wins by result code (as an unsigned byte), so the passes don't branch on results */
+    private static final byte[] HALF_POINTS = new byte[256];
+    private static final byte[] WINS = new byte[256];
+
+    static {
+        for (int result = 0; result < 256; result++) {
+            HALF_POINTS[result] = (byte) halfPoints(result);
+        }
+        WINS[3] = 1;  // Win
+        WINS[6] = 1;  // Forfeit win
+        WINS[13] = 1; // Unrated win
+    }
+
+    /**
+     * Gets the points of a result code, in half-points.
+     * @param result Result code (see the README)
+     * @return 2 for a win, 1 for a draw, 0 otherwise
+     */
+    public static int halfPoints(int result) {
+        switch (result) {
+            case 2:  // Draw
+            case 8:  // Half point bye
+            case 12: // Unrated draw
+                return 1;
+            case 3:  // Win
+            case 6:  // Forfeit win
+            case 9:  // Pairing allocated bye
+            case 10: // Full point bye
+            case 13: // Unrated win
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Gets the tiebreaks named by the tiebreak1, tiebreak2 and tiebreak3 variables (Dep1-Dep3).
+     * Names that are not supported are reported and skipped.
+     * @param variables Tournament variables by English name, may be null
+     * @return The supported tiebreaks, in order
+     */
+    public static List<Tiebreak> tiebreaksOf(Map<String, String> variables) {
+        List<Tiebreak> tiebreaks = new ArrayList<>();
+        if (variables == null) {
+            return tiebreaks;
+        }
+        for (String variable : TIEBREAK_VARIABLES) {
+            String name = variables.get(variable);
+            if (name == null || name.trim().isEmpty()) {
+                continue;
+            }
+            Tiebreak tiebreak = Tiebreak.forName(name);
+            if (tiebreak == null) {
+                VerboseOutput.println("  Tiebreak not supported by the standings, skipped: " + name);
+            } else if (!tiebreaks.contains(tiebreak)) {
+                tiebreaks.add(tiebreak);
+            }
+        }
+        return tiebreaks;
+    }
+
+    /**
+     * Computes the standings.
+     * @param columns Pairings and results
+     * @param tiebreaks Tiebreaks applied after the score, in order
+     * @return The standings
+     */
+    public static Standings compute(TournamentColumns columns, List<Tiebreak> tiebreaks) {
+        int playerCount = columns.playerCount();
+        int roundCount = columns.roundCount();
+
+        // Pass 1: scores, running scores and wins
+        int[] halfPoints = new int[playerCount];
+        int[] cumulative = new int[playerCount];
+        int[] wins = new int[playerCount];
+        for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+            byte[] results = columns.results(roundNum);
+            for (int i = 0; i < playerCount; i++) {
+                int result = results[i] & 0xFF;
+                int score = halfPoints[i] + HALF_POINTS[result];
+                halfPoints[i] = score;
+                cumulative[i] += score;
+                wins[i] += WINS[result];
+            }
+        }
+
+        // Pass 2: opponent-based tiebreaks, from the final scores
+        int[] buchholz = new int[playerCount];
+        int[] lowest = new int[playerCount];
+        int[] highest = new int[playerCount];
+        int[] opponentsMet = new int[playerCount];
+        int[] sonnebornBerger = new int[playerCount];
+        long[] ratingSum = new long[playerCount];
+        int[] ratedGames = new int[playerCount];
+        int[] ratedBalance = new int[playerCount];
+        Arrays.fill(lowest, Integer.MAX_VALUE);
+        Arrays.fill(highest, Integer.MIN_VALUE);
+        int[] ratings = columns.ratings();
+        for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+            int[] opponents = columns.opponents(roundNum);
+            byte[] results = columns.results(roundNum);
+            for (int i = 0; i < playerCount; i++) {
+                int opponent = opponents[i];
+                int result = results[i] & 0xFF;
+                if (opponent < 0 || result == 0) {
+                    continue;
+                }
+                int opponentScore = halfPoints[opponent];
+                buchholz[i] += opponentScore;
+                lowest[i] = Math.min(lowest[i], opponentScore);
+                highest[i] = Math.max(highest[i], opponentScore);
+                opponentsMet[i]++;
+                sonnebornBerger[i] += opponentScore * HALF_POINTS[result];
+                // Performance only counts rated games played over the board
+                if (result >= 1 && result <= 3 && ratings[opponent] > 0) {
+                    ratingSum[i] += ratings[opponent];
+                    ratedGames[i]++;
+                    ratedBalance[i] += result - 2;
+                }
+            }
+        }
+
+        double[][] values = new double[tiebreaks.size()][playerCount];
+        for (int t = 0; t < tiebreaks.size(); t++) {
+            double[] column = values[t];
+            for (int i = 0; i < playerCount; i++) {
+                switch (tiebreaks.get(t)) {
+                    case BUCHHOLZ:
+                        column[i] = buchholz[i] / 2.0;
+                        break;
+                    case BRESILIEN:
+                        column[i] = (opponentsMet[i] > 0 ? buchholz[i] - lowest[i] : 0) / 2.0;
+                        break;
+                    case MEDIAN:
+                        column[i] = (opponentsMet[i] > 1 ? buchholz[i] - lowest[i] - highest[i] : 0) / 2.0;
+                        break;
+                    case SONNEBORN_BERGER:
+                        column[i] = sonnebornBerger[i] / 4.0;
+                        break;
+                    case CUMULATIVE:
+                        column[i] = cumulative[i] / 2.0;
+                        break;
+                    case PERFORMANCE:
+                        column[i] = ratedGames[i] > 0
+                            ? Math.round((double) ratingSum[i] / ratedGames[i] + 400.0 * ratedBalance[i] / ratedGames[i])
+                            : 0;
+                        break;
+                    default:
+                        column[i] = wins[i];
+                        break;
+                }
+            }
+        }
+
+        // Rank by score with a primitive sort (key: score descending, then JSON index),
+        // then sort each group of equal scores by the tiebreaks
+        long[] keys = new long[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            keys[i] = ((long) -halfPoints[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[playerCount];
+        for (int position = 0; position < playerCount; position++) {
+            order[position] = (int) keys[position];
+        }
+        if (values.length > 0) {
+            int start = 0;
+            while (start < playerCount) {
+                int end = start + 1;
+                while (end < playerCount && halfPoints[order[end]] == halfPoints[order[start]]) {
+                    end++;
+                }
+                if (end - start > 1) {
+                    sortByTiebreaks(order, start, end, values);
+                }
+                start = end;
+            }
+        }
+
+        int[] ranks = new int[playerCount];
+        for (int position = 0; position < playerCount; position++) {
+            ranks[position] = position > 0 && tied(order[position - 1], order[position], halfPoints, values)
+                ? ranks[position - 1] : position + 1;
+        }
+        return new Standings(tiebreaks, order, ranks, halfPoints, values);
+    }
+
+    /**
+     * Sorts players with equal scores by tiebreak values (descending), then by JSON index.
+     */
+    private static void sortByTiebreaks(int[] order, int start, int end, double[][] values) {
+        Integer[] group = new Integer[end - start];
+        for (int i = 0; i < group.length; i++) {
+            group[i] = order[start + i];
+        }
+        Arrays.sort(group, (a, b) -> {
+            for (double[] column : values) {
+                int compare = Double.compare(column[b], column[a]);
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return Integer.compare(a, b);
+        });
+        for (int i = 0; i < group.length; i++) {
+            order[start + i] = group[i];
+        }
+    }
+
+    private static boolean tied(int a, int b, int[] halfPoints, double[][] values) {
+        if (halfPoints[a] != halfPoints[b]) {
+            return false;
+        }
+        for (double[] column : values) {
+            if (column[a] != column[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
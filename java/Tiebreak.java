@@ -0,0 +1,59 @@
+package org.sharlychess.papiconverter;
+
+import java.text.Normalizer;
+
+/**
+ * Tiebreaks computed by {@link StandingsEngine}, as named in the Dep1, Dep2 and Dep3 variables.
+ */
+public enum Tiebreak {
+    /** Sum of the opponents' scores */
+    BUCHHOLZ("Buchholz", "buchholz"),
+    /** Buchholz without the lowest opponent score (Buchholz cut 1) */
+    BRESILIEN("Br\u00e9silien", "bresilien", "buchholztronque", "buchholzcut1"),
+    /** Buchholz without the lowest and highest opponent scores */
+    MEDIAN("M\u00e9dian", "median", "buchholzmedian"),
+    /** Sum of the scores of the opponents beaten, plus half of those drawn */
+    SONNEBORN_BERGER("Sonneborn-Berger", "sonnebornberger", "sb"),
+    /** Sum of the running scores after each round */
+    CUMULATIVE("Cumulatif", "cumulatif", "cumulative", "progressif"),
+    /** Average rating of the rated opponents plus 400 x (wins - losses) / games */
+    PERFORMANCE("Performance", "performance", "perf"),
+    /** Number of wins, forfeit wins included */
+    WINS("Victoires", "victoires", "nombredevictoires", "wins");
+
+    private final String label;
+    private final String[] names;
+
+    Tiebreak(String label, String... names) {
+        this.label = label;
+        this.names = names;
+    }
+
+    /** @return Name of the tiebreak in PAPI and in the standings JSON */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Finds a tiebreak by name, ignoring case, accents, spaces and dashes.
+     * @param name Tiebreak name, as in Dep1, Dep2 or Dep3
+     * @return The tiebreak, or null if it is not supported
+     */
+    public static Tiebreak forName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String key = Normalizer.normalize(name, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .replaceAll("[^A-Za-z0-9]", "")
+            .toLowerCase();
+        for (Tiebreak tiebreak : values()) {
+            for (String candidate : tiebreak.names) {
+                if (candidate.equals(key)) {
+                    return tiebreak;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,738 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Archives a directory tree of PAPI files into a single SQLite dump.
+ *
+ * PAPI files are read on a pool of worker threads; each worker reads the INFO and
+ * JOUEUR tables of a file once into primitive columns. A single writer (the calling
+ * thread) appends the normalised tournament, player_entry and game rows to an H2
+ * database kept next to the dump, players being deduplicated by FFE Ref (RefFFE).
+ * The H2 database also records the size and modification time of every archived
+ * file, so a re-run only reads the files that are new or modified.
+ */
+public class TournamentArchive {
+
+    /**
+     * Files archived per transaction: a run that fails keeps the files committed before.
+     */
+    private static final int FILES_PER_COMMIT = 100;
+
+    /**
+     * INFO variables stored in the tournament table, by column.
+     */
+    private static final String[][] TOURNAMENT_VARIABLES = {
+        { "name", "Nom" },
+        { "venue", "Lieu" },
+        { "start_date", "DateDebut" },
+        { "end_date", "DateFin" },
+        { "rounds", "NbrRondes" },
+        { "time_control", "Cadence" },
+        { "homologation", "Homologation" }
+    };
+
+    private static final String H2_SCHEMA = """
+        CREATE TABLE IF NOT EXISTS archive_file (
+            path VARCHAR(1024) NOT NULL,
+            size BIGINT NOT NULL,
+            modified BIGINT NOT NULL,
+            tournament_id INTEGER NOT NULL,
+            PRIMARY KEY(path)
+        );
+        CREATE TABLE IF NOT EXISTS tournament (
+            id INTEGER NOT NULL,
+            path VARCHAR(1024) NOT NULL,
+            name VARCHAR(255),
+            venue VARCHAR(255),
+            start_date VARCHAR(50),
+            end_date VARCHAR(50),
+            rounds VARCHAR(50),
+            time_control VARCHAR(255),
+            homologation VARCHAR(50),
+            player_count INTEGER NOT NULL,
+            PRIMARY KEY(id)
+        );
+        CREATE TABLE IF NOT EXISTS player (
+            id INTEGER NOT NULL,
+            ffe_ref INTEGER NOT NULL,
+            last_name VARCHAR(255),
+            first_name VARCHAR(255),
+            PRIMARY KEY(id)
+        );
+        CREATE TABLE IF NOT EXISTS player_entry (
+            tournament_id INTEGER NOT NULL,
+            ref INTEGER NOT NULL,
+            player_id INTEGER,
+            last_name VARCHAR(255),
+            first_name VARCHAR(255),
+            rating INTEGER NOT NULL,
+            federation VARCHAR(10),
+            club VARCHAR(255),
+            score DOUBLE PRECISION NOT NULL,
+            PRIMARY KEY(tournament_id, ref)
+        );
+        CREATE TABLE IF NOT EXISTS game (
+            tournament_id INTEGER NOT NULL,
+            round INTEGER NOT NULL,
+            player_ref INTEGER NOT NULL,
+            opponent_ref INTEGER,
+            color VARCHAR(1),
+            result INTEGER NOT NULL,
+            opponent_result INTEGER
+        );
+        CREATE INDEX IF NOT EXISTS game_tournament ON game(tournament_id);
+        """;
+
+    private static final String SQLITE_SCHEMA = """
+        CREATE TABLE tournament (
+            id INTEGER PRIMARY KEY,
+            path TEXT NOT NULL,
+            name TEXT,
+            venue TEXT,
+            start_date TEXT,
+            end_date TEXT,
+            rounds TEXT,
+            time_control TEXT,
+            homologation TEXT,
+            player_count INTEGER NOT NULL
+        );
+        CREATE TABLE player (
+            id INTEGER PRIMARY KEY,
+            ffe_ref INTEGER NOT NULL UNIQUE,
+            last_name TEXT,
+            first_name TEXT
+        );
+        CREATE TABLE player_entry (
+            tournament_id INTEGER NOT NULL REFERENCES tournament(id),
+            ref INTEGER NOT NULL,
+            player_id INTEGER REFERENCES player(id),
+            last_name TEXT,
+            first_name TEXT,
+            rating INTEGER NOT NULL,
+            federation TEXT,
+            club TEXT,
+            score REAL NOT NULL,
+            PRIMARY KEY(tournament_id, ref)
+        );
+        CREATE TABLE game (
+            tournament_id INTEGER NOT NULL REFERENCES tournament(id),
+            round INTEGER NOT NULL,
+            player_ref INTEGER NOT NULL,
+            opponent_ref INTEGER,
+            color TEXT,
+            result INTEGER NOT NULL,
+            opponent_result INTEGER
+        );
+        """;
+
+    /** Tables of the dump, with the order their rows are written in */
+    private static final String[][] DUMP_TABLES = {
+        { "tournament", "id" },
+        { "player", "id" },
+        { "player_entry", "tournament_id, ref" },
+        { "game", "tournament_id, round, player_ref" }
+    };
+
+    /**
+     * Size and modification time of a PAPI file, relative to the archived directory.
+     */
+    private static final class ArchiveFile {
+        final Path file;
+        final String path;
+        final long size;
+        final long modified;
+
+        ArchiveFile(Path file, String path, long size, long modified) {
+            this.file = file;
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * Archived state of a file: its stamp and the tournament it was stored as.
+     */
+    private static final class ArchivedStamp {
+        final long size;
+        final long modified;
+        final int tournamentId;
+
+        ArchivedStamp(long size, long modified, int tournamentId) {
+            this.size = size;
+            this.modified = modified;
+            this.tournamentId = tournamentId;
+        }
+    }
+
+    /**
+     * The content of a PAPI file needed by the archive, read by a worker.
+     * Player columns are indexed by position in Ref order; games are parallel columns.
+     */
+    private static final class TournamentRecord {
+        final ArchiveFile source;
+        final Map<String, String> variables = new HashMap<>();
+        int playerCount;
+        int[] refs;
+        int[] ffeRefs;
+        String[] lastNames;
+        String[] firstNames;
+        int[] ratings;
+        String[] federations;
+        String[] clubs;
+        int[] halfPoints;
+        int gameCount;
+        int[] gameRounds = new int[64];
+        int[] gamePlayers = new int[64];
+        int[] gameOpponents = new int[64];
+        String[] gameColors = new String[64];
+        int[] gameResults = new int[64];
+        int[] gameOpponentResults = new int[64];
+
+        TournamentRecord(ArchiveFile source) {
+            this.source = source;
+        }
+
+        void addGame(int roundNum, int playerRef, int opponentRef, String color, int result, int opponentResult) {
+            if (gameCount == gameRounds.length) {
+                int capacity = gameCount * 2;
+                gameRounds = Arrays.copyOf(gameRounds, capacity);
+                gamePlayers = Arrays.copyOf(gamePlayers, capacity);
+                gameOpponents = Arrays.copyOf(gameOpponents, capacity);
+                gameColors = Arrays.copyOf(gameColors, capacity);
+                gameResults = Arrays.copyOf(gameResults, capacity);
+                gameOpponentResults = Arrays.copyOf(gameOpponentResults, capacity);
+            }
+            gameRounds[gameCount] = roundNum;
+            gamePlayers[gameCount] = playerRef;
+            gameOpponents[gameCount] = opponentRef;
+            gameColors[gameCount] = color;
+            gameResults[gameCount] = result;
+            gameOpponentResults[gameCount] = opponentResult;
+            gameCount++;
+        }
+    }
+
+    private final Connection h2Conn;
+    private final Map<String, ArchivedStamp> archived = new HashMap<>();
+    private final Map<Integer, Integer> playerIds = new HashMap<>();
+    private int nextTournamentId = 1;
+    private int nextPlayerId = 1;
+
+    private PreparedStatement insertFile;
+    private PreparedStatement insertTournament;
+    private PreparedStatement insertPlayer;
+    private PreparedStatement insertEntry;
+    private PreparedStatement insertGame;
+
+    private TournamentArchive(Connection h2Conn) {
+        this.h2Conn = h2Conn;
+    }
+
+    /**
+     * Archives every PAPI file of a directory tree and writes the SQLite dump.
+     * @param papiDir Root of the directory tree
+     * @param outputFile Path to the SQL dump, or null for archive.sql in the directory
+     * @throws Exception if the directory or the archive cannot be read or written
+     */
+    public static void archive(String papiDir, String outputFile) throws Exception {
+        Path root = Paths.get(papiDir).toAbsolutePath();
+        if (!Files.isDirectory(root)) {
+            throw new Exception("Archive directory not found: " + papiDir);
+        }
+        if (outputFile == null) {
+            outputFile = root.resolve("archive.sql").toString();
+        }
+        File outFile = new File(outputFile);
+        File parentDir = outFile.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            if (!parentDir.mkdirs()) {
+                throw new Exception("Failed to create directory: " + parentDir.getAbsolutePath());
+            }
+            VerboseOutput.alwaysPrintln("Created directory: " + parentDir.getAbsolutePath());
+        }
+
+        VerboseOutput.alwaysPrintln("Archiving PAPI files of " + root);
+        VerboseOutput.alwaysPrintln("Output: " + outputFile);
+
+        // The H2 database persists between runs: it holds the archive and the stamps of the files
+        Class.forName("org.h2.Driver");
+        String stateDb = outFile.getAbsolutePath().replaceFirst("\\.sql$", "") + "_state";
+        try (Connection h2Conn = DriverManager.getConnection("jdbc:h2:" + stateDb)) {
+            h2Conn.setAutoCommit(false);
+            TournamentArchive archive = new TournamentArchive(h2Conn);
+            archive.open();
+            archive.update(root);
+            VerboseOutput.alwaysPrintln("Exporting to SQL format...");
+            archive.export(outFile);
+            VerboseOutput.alwaysPrintln("SQL dump completed: " + outputFile);
+        }
+    }
+
+    /**
+     * Creates the tables if needed and loads the archived state.
+     */
+    private void open() throws Exception {
+        try (Statement stmt = h2Conn.createStatement()) {
+            stmt.execute(H2_SCHEMA);
+            try (ResultSet rs = stmt.executeQuery("SELECT path, size, modified, tournament_id FROM archive_file")) {
+                while (rs.next()) {
+                    archived.put(rs.getString(1), new ArchivedStamp(rs.getLong(2), rs.getLong(3), rs.getInt(4)));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id, ffe_ref FROM player")) {
+                while (rs.next()) {
+                    playerIds.put(rs.getInt(2), rs.getInt(1));
+                    nextPlayerId = Math.max(nextPlayerId, rs.getInt(1) + 1);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM tournament")) {
+                rs.next();
+                nextTournamentId = rs.getInt(1) + 1;
+            }
+        }
+        h2Conn.commit();
+
+        insertFile = h2Conn.prepareStatement("MERGE INTO archive_file KEY(path) VALUES (?, ?, ?, ?)");
+        insertTournament = h2Conn.prepareStatement("INSERT INTO tournament VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        insertPlayer = h2Conn.prepareStatement("INSERT INTO player VALUES (?, ?, ?, ?)");
+        insertEntry = h2Conn.prepareStatement("INSERT INTO player_entry VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        insertGame = h2Conn.prepareStatement("INSERT INTO game VALUES (?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    /**
+     * Reads the new and modified files in parallel and writes them to the archive.
+     */
+    private void update(Path root) throws Exception {
+        long start = System.nanoTime();
+        List<ArchiveFile> files = scan(root);
+
+        List<ArchiveFile> changed = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        for (ArchiveFile file : files) {
+            present.add(file.path);
+            ArchivedStamp stamp = archived.get(file.path);
+            if (stamp == null || stamp.size != file.size || stamp.modified != file.modified) {
+                changed.add(file);
+            }
+        }
+        List<String> removed = archived.keySet().stream()
+            .filter(path -> !present.contains(path))
+            .sorted()
+            .collect(Collectors.toList());
+        for (String path : removed) {
+            VerboseOutput.println("  Removed from the archive: " + path);
+            delete(path);
+        }
+        h2Conn.commit();
+
+        VerboseOutput.alwaysPrintln("Found " + files.size() + " PAPI files, " + changed.size() + " new or modified");
+
+        int threads = Math.max(1, Math.min(changed.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "papi-archive-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<TournamentRecord> completion = new ExecutorCompletionService<>(workers);
+
+        // Keep a bounded number of files in flight so read files don't pile up ahead of the writer
+        int maxInFlight = threads * 4;
+        int submitted = 0;
+        int done = 0;
+        int archivedCount = 0;
+        int failed = 0;
+        try {
+            while (done < changed.size()) {
+                while (submitted < changed.size() && submitted - done < maxInFlight) {
+                    ArchiveFile file = changed.get(submitted++);
+                    completion.submit(() -> read(file));
+                }
+                TournamentRecord record;
+                try {
+                    record = completion.take().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    VerboseOutput.errorPrintln("Error archiving " + cause.getMessage());
+                    if (VerboseOutput.isVerbose()) {
+                        cause.printStackTrace();
+                    }
+                    failed++;
+                    continue;
+                } finally {
+                    done++;
+                }
+                write(record);
+                archivedCount++;
+                if (archivedCount % FILES_PER_COMMIT == 0) {
+                    h2Conn.commit();
+                    VerboseOutput.println("  Archived " + archivedCount + " files...");
+                    VerboseOutput.flush();
+                    Metrics.progress("files", done, changed.size());
+                }
+            }
+            h2Conn.commit();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Metrics.add(Metrics.ROWS_WRITTEN, archivedCount);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        VerboseOutput.alwaysPrintln(String.format("Archived %d files (%d unchanged, %d removed, %d failed) in %.2f s (%.1f files/s)",
+            archivedCount, files.size() - changed.size(), removed.size(), failed, seconds,
+            seconds > 0 ? archivedCount / seconds : 0.0));
+    }
+
+    /**
+     * Lists the PAPI files of a directory tree, in path order.
+     */
+    private static List<ArchiveFile> scan(Path root) throws IOException {
+        List<ArchiveFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) paths::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.toLowerCase().endsWith(".papi") || name.startsWith(".") || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                files.add(new ArchiveFile(file, path, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+            }
+        }
+        files.sort((a, b) -> a.path.compareTo(b.path));
+        return files;
+    }
+
+    /**
+     * Reads the INFO and JOUEUR tables of a file. Runs on a worker thread.
+     */
+    private static TournamentRecord read(ArchiveFile file) throws Exception {
+        try {
+            return SnapshotReader.read(file.file, db -> read(db, new TournamentRecord(file)));
+        } catch (Exception e) {
+            throw new Exception(file.path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static TournamentRecord read(Database db, TournamentRecord record) throws Exception {
+        for (Row row : db.getTable("INFO")) {
+            Object variable = row.get("Variable");
+            Object value = row.get("Value");
+            if (variable != null && value != null) {
+                record.variables.put(variable.toString(), value.toString());
+            }
+        }
+
+        // One scan of JOUEUR: player columns, and the pairings of every round slot
+        Table joueurTable = db.getTable("JOUEUR");
+        int capacity = Math.max(16, joueurTable.getRowCount());
+        int count = 0;
+        int[] refs = new int[capacity];
+        Row[] rows = new Row[capacity];
+        int[][] opponents = new int[PairingRules.MAX_ROUNDS][capacity];
+        int[][] results = new int[PairingRules.MAX_ROUNDS][capacity];
+        String[][] colors = new String[PairingRules.MAX_ROUNDS][capacity];
+        String[] roundPrefixes = new String[PairingRules.MAX_ROUNDS];
+        for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+            roundPrefixes[r] = PairingRules.roundPrefix(r + 1);
+        }
+        for (Row row : joueurTable) {
+            Object refObj = row.get("Ref");
+            if (!(refObj instanceof Number) || ((Number) refObj).intValue() == PairingRules.EXEMPT_REF) {
+                continue;
+            }
+            if (count == refs.length) {
+                refs = Arrays.copyOf(refs, count * 2);
+                rows = Arrays.copyOf(rows, count * 2);
+                for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+                    opponents[r] = Arrays.copyOf(opponents[r], count * 2);
+                    results[r] = Arrays.copyOf(results[r], count * 2);
+                    colors[r] = Arrays.copyOf(colors[r], count * 2);
+                }
+            }
+            refs[count] = ((Number) refObj).intValue();
+            rows[count] = row;
+            for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+                opponents[r][count] = intValue(row.get(roundPrefixes[r] + "Adv"));
+                results[r][count] = intValue(row.get(roundPrefixes[r] + "Res"));
+                colors[r][count] = stringValue(row.get(roundPrefixes[r] + "Cl"));
+            }
+            count++;
+        }
+
+        // Positions in Ref order
+        long[] keys = new long[count];
+        for (int p = 0; p < count; p++) {
+            keys[p] = ((long) refs[p] << 32) | p;
+        }
+        Arrays.sort(keys);
+        int[] sortedRefs = new int[count];
+        int[] rowOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            sortedRefs[i] = (int) (keys[i] >> 32);
+            rowOf[i] = (int) keys[i];
+        }
+        PlayerIndex index = PlayerIndex.of(sortedRefs);
+
+        record.playerCount = count;
+        record.refs = sortedRefs;
+        record.ffeRefs = new int[count];
+        record.lastNames = new String[count];
+        record.firstNames = new String[count];
+        record.ratings = new int[count];
+        record.federations = new String[count];
+        record.clubs = new String[count];
+        record.halfPoints = new int[count];
+        for (int i = 0; i < count; i++) {
+            Row row = rows[rowOf[i]];
+            record.ffeRefs[i] = intValue(row.get(PlayerField.REF_FFE.column()));
+            record.lastNames[i] = stringValue(row.get(PlayerField.LAST_NAME.column()));
+            record.firstNames[i] = stringValue(row.get(PlayerField.FIRST_NAME.column()));
+            record.ratings[i] = intValue(row.get(PlayerField.ELO.column()));
+            record.federations[i] = stringValue(row.get(PlayerField.FEDERATION.column()));
+            record.clubs[i] = stringValue(row.get(PlayerField.CLUB.column()));
+        }
+
+        // Games: a pairing is stored once, from the lower Ref; byes and unpaired results without opponent
+        for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+            for (int i = 0; i < count; i++) {
+                int p = rowOf[i];
+                int ref = sortedRefs[i];
+                int opponentRef = opponents[r][p];
+                int result = results[r][p];
+                record.halfPoints[i] += StandingsEngine.halfPoints(result);
+                if (opponentRef <= 0 || opponentRef == PairingRules.EXEMPT_REF) {
+                    if (result != 0 || opponentRef == PairingRules.EXEMPT_REF) {
+                        record.addGame(r + 1, ref, 0, colors[r][p], result, -1);
+                    }
+                    continue;
+                }
+                int opponentIndex = index.indexOf(opponentRef);
+                int q = opponentIndex >= 0 ? rowOf[opponentIndex] : -1;
+                boolean symmetric = q >= 0 && opponents[r][q] == ref;
+                if (symmetric && ref > opponentRef) {
+                    continue;
+                }
+                record.addGame(r + 1, ref, opponentRef, colors[r][p], result, symmetric ? results[r][q] : -1);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Writes a file read by a worker, replacing its previous version. Runs on the writer thread only.
+     */
+    private void write(TournamentRecord record) throws Exception {
+        String path = record.source.path;
+        if (archived.containsKey(path)) {
+            delete(path);
+        }
+        int tournamentId = nextTournamentId++;
+
+        insertTournament.setInt(1, tournamentId);
+        insertTournament.setString(2, path);
+        for (int v = 0; v < TOURNAMENT_VARIABLES.length; v++) {
+            setString(insertTournament, 3 + v, record.variables.get(TOURNAMENT_VARIABLES[v][1]));
+        }
+        insertTournament.setInt(3 + TOURNAMENT_VARIABLES.length, record.playerCount);
+        insertTournament.executeUpdate();
+
+        boolean newPlayers = false;
+        for (int i = 0; i < record.playerCount; i++) {
+            Integer playerId = null;
+            int ffeRef = record.ffeRefs[i];
+            if (ffeRef > 0) {
+                playerId = playerIds.get(ffeRef);
+                if (playerId == null) {
+                    playerId = nextPlayerId++;
+                    playerIds.put(ffeRef, playerId);
+                    insertPlayer.setInt(1, playerId);
+                    insertPlayer.setInt(2, ffeRef);
+                    setString(insertPlayer, 3, record.lastNames[i]);
+                    setString(insertPlayer, 4, record.firstNames[i]);
+                    insertPlayer.addBatch();
+                    newPlayers = true;
+                }
+            }
+            insertEntry.setInt(1, tournamentId);
+            insertEntry.setInt(2, record.refs[i]);
+            if (playerId != null) {
+                insertEntry.setInt(3, playerId);
+            } else {
+                insertEntry.setNull(3, Types.INTEGER);
+            }
+            setString(insertEntry, 4, record.lastNames[i]);
+            setString(insertEntry, 5, record.firstNames[i]);
+            insertEntry.setInt(6, record.ratings[i]);
+            setString(insertEntry, 7, record.federations[i]);
+            setString(insertEntry, 8, record.clubs[i]);
+            insertEntry.setDouble(9, record.halfPoints[i] / 2.0);
+            insertEntry.addBatch();
+        }
+        if (newPlayers) {
+            insertPlayer.executeBatch();
+        }
+        if (record.playerCount > 0) {
+            insertEntry.executeBatch();
+        }
+
+        for (int g = 0; g < record.gameCount; g++) {
+            insertGame.setInt(1, tournamentId);
+            insertGame.setInt(2, record.gameRounds[g]);
+            insertGame.setInt(3, record.gamePlayers[g]);
+            if (record.gameOpponents[g] > 0) {
+                insertGame.setInt(4, record.gameOpponents[g]);
+            } else {
+                insertGame.setNull(4, Types.INTEGER);
+            }
+            setString(insertGame, 5, record.gameColors[g]);
+            insertGame.setInt(6, record.gameResults[g]);
+            if (record.gameOpponentResults[g] >= 0) {
+                insertGame.setInt(7, record.gameOpponentResults[g]);
+            } else {
+                insertGame.setNull(7, Types.INTEGER);
+            }
+            insertGame.addBatch();
+        }
+        if (record.gameCount > 0) {
+            insertGame.executeBatch();
+        }
+
+        insertFile.setString(1, path);
+        insertFile.setLong(2, record.source.size);
+        insertFile.setLong(3, record.source.modified);
+        insertFile.setInt(4, tournamentId);
+        insertFile.executeUpdate();
+        archived.put(path, new ArchivedStamp(record.source.size, record.source.modified, tournamentId));
+        VerboseOutput.println("  Archived " + path + " (" + record.playerCount + " players, " + record.gameCount + " games)");
+    }
+
+    /**
+     * Removes an archived file and its rows. Deduplicated players are kept.
+     */
+    private void delete(String path) throws Exception {
+        ArchivedStamp stamp = archived.remove(path);
+        if (stamp == null) {
+            return;
+        }
+        String[] deletes = {
+            "DELETE FROM game WHERE tournament_id = ?",
+            "DELETE FROM player_entry WHERE tournament_id = ?",
+            "DELETE FROM tournament WHERE id = ?"
+        };
+        for (String sql : deletes) {
+            try (PreparedStatement stmt = h2Conn.prepareStatement(sql)) {
+                stmt.setInt(1, stamp.tournamentId);
+                stmt.executeUpdate();
+            }
+        }
+        try (PreparedStatement stmt = h2Conn.prepareStatement("DELETE FROM archive_file WHERE path = ?")) {
+            stmt.setString(1, path);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Writes the SQLite-compatible dump of the archive tables.
+     */
+    private void export(File outFile) throws Exception {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outFile));
+             Statement stmt = h2Conn.createStatement()) {
+            writer.println("-- SQLite-compatible database dump");
+            writer.println("-- Generated by PAPI Converter (Pure Java)");
+            writer.println();
+            writer.println("PRAGMA foreign_keys=OFF;");
+            writer.println("BEGIN TRANSACTION;");
+            writer.println();
+            writer.println(SQLITE_SCHEMA);
+
+            for (String[] table : DUMP_TABLES) {
+                int rows = 0;
+                try (ResultSet rs = stmt.executeQuery("SELECT * FROM " + table[0] + " ORDER BY " + table[1])) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    StringBuilder line = new StringBuilder();
+                    while (rs.next()) {
+                        line.setLength(0);
+                        line.append("INSERT INTO ").append(table[0]).append(" VALUES (");
+                        for (int c = 1; c <= columns; c++) {
+                            if (c > 1) {
+                                line.append(',');
+                            }
+                            Object value = rs.getObject(c);
+                            if (value == null) {
+                                line.append("NULL");
+                            } else if (value instanceof Number) {
+                                line.append(value);
+                            } else {
+                                line.append('\'').append(value.toString().replace("'", "''")).append('\'');
+                            }
+                        }
+                        writer.println(line.append(");"));
+                        rows++;
+                    }
+                }
+                VerboseOutput.println("  Exported " + rows + " " + table[0] + " rows");
+            }
+
+            writer.println();
+            writer.println("CREATE INDEX game_player ON game(tournament_id, player_ref);");
+            writer.println("CREATE INDEX player_entry_player ON player_entry(player_id);");
+            writer.println("COMMIT;");
+        }
+    }
+
+    private static void setString(PreparedStatement stmt, int index, String value) throws Exception {
+        if (value == null || value.isEmpty()) {
+            stmt.setNull(index, Types.VARCHAR);
+        } else {
+            stmt.setString(index, value);
+        }
+    }
+
+    private static int intValue(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? value.toString().trim() : "";
+    }
+}
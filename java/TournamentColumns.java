@@ -0,0 +1,184 @@
+package org.sharlychess.papiconverter;
+
+import java.util.Arrays;
+import java.util.List;
+import com.healthmarketscience.jackcess.Row;
+
+/**
+ * Columnar view of the pairings and results of a tournament, for computations over
+ * all players and rounds (see {@link StandingsEngine}).
+ *
+ * Players are identified by their JSON index. Each round is stored as primitive
+ * arrays with one entry per player: opponent, color and result.
+ */
+public final class TournamentColumns {
+    /** Opponent of a player without an opponent in a round (unpaired, bye, EXEMPT) */
+    public static final int NO_OPPONENT = -1;
+
+    private final int playerCount;
+    private final int roundCount;
+    private final int[] ratings;
+    private final int[][] opponents;
+    private final byte[][] colors;
+    private final byte[][] results;
+
+    private TournamentColumns(int playerCount, int roundCount) {
+        this.playerCount = playerCount;
+        this.roundCount = roundCount;
+        this.ratings = new int[playerCount];
+        this.opponents = new int[roundCount][playerCount];
+        this.colors = new byte[roundCount][playerCount];
+        this.results = new byte[roundCount][playerCount];
+        for (int[] round : opponents) {
+            Arrays.fill(round, NO_OPPONENT);
+        }
+    }
+
+    /**
+     * Loads the columns from JOUEUR rows.
+     * @param playerRows Player rows (EXEMPT excluded), in JSON index order
+     * @param playerIndex Index of the same players
+     * @return The columns
+     */
+    public static TournamentColumns fromRows(List<Row> playerRows, PlayerIndex playerIndex) {
+        String[] colorColumns = new String[PairingRules.MAX_ROUNDS + 1];
+        String[] opponentColumns = new String[PairingRules.MAX_ROUNDS + 1];
+        String[] resultColumns = new String[PairingRules.MAX_ROUNDS + 1];
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            String prefix = PairingRules.roundPrefix(roundNum);
+            colorColumns[roundNum] = prefix + "Cl";
+            opponentColumns[roundNum] = prefix + "Adv";
+            resultColumns[roundNum] = prefix + "Res";
+        }
+
+        // Rounds after the last one with a pairing or a result are not allocated
+        int roundCount = 0;
+        for (Row row : playerRows) {
+            for (int roundNum = PairingRules.MAX_ROUNDS; roundNum > roundCount; roundNum--) {
+                if (intValue(row.get(opponentColumns[roundNum])) > 0 || intValue(row.get(resultColumns[roundNum])) > 0) {
+                    roundCount = roundNum;
+                    break;
+                }
+            }
+        }
+
+        TournamentColumns columns = new TournamentColumns(playerRows.size(), roundCount);
+        for (int i = 0; i < playerRows.size(); i++) {
+            Row row = playerRows.get(i);
+            columns.ratings[i] = intValue(row.get(PlayerField.ELO.column()));
+            for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+                int opponentRef = intValue(row.get(opponentColumns[roundNum]));
+                if (opponentRef > PairingRules.EXEMPT_REF) {
+                    columns.opponents[roundNum - 1][i] = playerIndex.indexOf(opponentRef);
+                }
+                columns.colors[roundNum - 1][i] = colorCode(row.get(colorColumns[roundNum]));
+                columns.results[roundNum - 1][i] = (byte) intValue(row.get(resultColumns[roundNum]));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Loads the columns from players of a tournament document.
+     * @param players Players in JSON index order
+     * @return The columns
+     */
+    public static TournamentColumns fromPlayers(List<PlayerData> players) {
+        int roundCount = 0;
+        for (PlayerData player : players) {
+            for (int roundNum = PairingRules.MAX_ROUNDS; roundNum > roundCount; roundNum--) {
+                if (player.getRound(roundNum) != null) {
+                    roundCount = roundNum;
+                    break;
+                }
+            }
+        }
+
+        TournamentColumns columns = new TournamentColumns(players.size(), roundCount);
+        for (int i = 0; i < players.size(); i++) {
+            PlayerData player = players.get(i);
+            columns.ratings[i] = intValue(player.get(PlayerField.ELO));
+            for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+                RoundData round = player.getRound(roundNum);
+                if (round == null) {
+                    continue;
+                }
+                if (round.opponent != null && round.opponent >= 0 && round.opponent < players.size()) {
+                    columns.opponents[roundNum - 1][i] = round.opponent;
+                }
+                columns.colors[roundNum - 1][i] = colorCode(round.color);
+                columns.results[roundNum - 1][i] = round.result != null ? round.result.byteValue() : 0;
+            }
+        }
+        return columns;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static byte colorCode(Object color) {
+        if (color == null) {
+            return 0;
+        }
+        String text = color.toString();
+        return text.isEmpty() ? 0 : (byte) text.charAt(0);
+    }
+
+    /** @return Number of players */
+    public int playerCount() {
+        return playerCount;
+    }
+
+    /** @return Number of rounds, up to the last one with a pairing or a result */
+    public int roundCount() {
+        return roundCount;
+    }
+
+    /**
+     * @param player JSON index of the player
+     * @return The player's Elo rating, or 0 if unrated
+     */
+    public int rating(int player) {
+        return ratings[player];
+    }
+
+    /**
+     * @param roundNum Round number (1-based)
+     * @param player JSON index of the player
+     * @return JSON index of the opponent, or {@link #NO_OPPONENT}
+     */
+    public int opponent(int roundNum, int player) {
+        return opponents[roundNum - 1][player];
+    }
+
+    /**
+     * @param roundNum Round number (1-based)
+     * @param player JSON index of the player
+     * @return Color code (B, N, R or F), or 0 if absent
+     */
+    public char color(int roundNum, int player) {
+        return (char) colors[roundNum - 1][player];
+    }
+
+    /**
+     * @param roundNum Round number (1-based)
+     * @param player JSON index of the player
+     * @return Result code, or 0 if no result
+     */
+    public int result(int roundNum, int player) {
+        return results[roundNum - 1][player];
+    }
+
+    int[] ratings() {
+        return ratings;
+    }
+
+    int[] opponents(int roundNum) {
+        return opponents[roundNum - 1];
+    }
+
+    byte[] results(int roundNum) {
+        return results[roundNum - 1];
+    }
+}
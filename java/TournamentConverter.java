@@ -0,0 +1,323 @@
+package org.sharlychess.papiconverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import com.healthmarketscience.jackcess.*;
+import com.healthmarketscience.jackcess.util.MemFileChannel;
+
+/**
+ * Converter for applications that embed the library, such as a tournament server.
+ *
+ * An instance is built once with its options and the PAPI template loaded in memory,
+ * then serves any number of conversions, from any number of threads at the same time:
+ * it is immutable, and every conversion works on its own in-memory copy of the
+ * database. Conversions print nothing and never exit the program; failures are
+ * thrown, invalid documents included, and warnings are returned with the result.
+ *
+ * <pre>
+ * TournamentConverter converter = TournamentConverter.builder().standings(true).build();
+ * TournamentConverter.Result json = converter.toDocument(Paths.get("tournament.papi"));
+ * TournamentConverter.Result papi = converter.toPapi(json.getData());
+ * </pre>
+ */
+public final class TournamentConverter {
+
+    private final TournamentFormat format;
+    private final boolean standings;
+    private final byte[] template;
+    private final PlayerDirectory directory;
+
+    private TournamentConverter(Builder builder, byte[] template) {
+        this.format = builder.format;
+        this.standings = builder.standings;
+        this.template = template;
+        this.directory = builder.directory;
+    }
+
+    /**
+     * Conversion run with the messages of the thread captured.
+     */
+    private interface Conversion {
+        Result run(List<String> warnings) throws Exception;
+    }
+
+    /**
+     * Options of a converter.
+     */
+    public static final class Builder {
+        private TournamentFormat format = TournamentFormat.JSON;
+        private boolean standings;
+        private Path templateFile;
+        private byte[] template;
+        private PlayerDirectory directory;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the encoding of the tournament documents read and written (JSON by default).
+         * @param format The document format
+         * @return This builder
+         */
+        public Builder format(TournamentFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Adds the standings computed from the results to the documents written (JSON only).
+         * @param standings true to add the standings
+         * @return This builder
+         */
+        public Builder standings(boolean standings) {
+            this.standings = standings;
+            return this;
+        }
+
+        /**
+         * Sets the PAPI template that new PAPI files are created from.
+         * By default, the template is searched like the command line does.
+         * @param templateFile Path to the template
+         * @return This builder
+         */
+        public Builder template(Path templateFile) {
+            this.templateFile = templateFile;
+            this.template = null;
+            return this;
+        }
+
+        /**
+         * Sets the content of the PAPI template that new PAPI files are created from.
+         * @param template The template file content, copied
+         * @return This builder
+         */
+        public Builder template(byte[] template) {
+            this.template = template.clone();
+            this.templateFile = null;
+            return this;
+        }
+
+        /**
+         * Fills in the ratings, clubs and FIDE fields missing from the players of the
+         * documents converted to PAPI from a player database, loaded once and shared.
+         * @param directory The player database index, or null
+         * @return This builder
+         */
+        public Builder players(PlayerDirectory directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Builds the converter, loading the template.
+         * @return The converter
+         * @throws Exception if the options are inconsistent or the template cannot be read
+         */
+        public TournamentConverter build() throws Exception {
+            if (format == null) {
+                throw new Exception("A document format is required");
+            }
+            if (standings && format != TournamentFormat.JSON) {
+                throw new Exception("Standings only apply to JSON documents");
+            }
+            byte[] content = template;
+            if (content == null) {
+                Path file = templateFile;
+                if (file == null) {
+                    VerboseOutput.startCapture();
+                    try {
+                        file = Paths.get(JsonToPapiConverter.locateTemplateFile());
+                    } finally {
+                        VerboseOutput.endCapture();
+                    }
+                }
+                content = Files.readAllBytes(file);
+            }
+            return new TournamentConverter(this, content);
+        }
+    }
+
+    /**
+     * Result of a conversion.
+     */
+    public static final class Result {
+        private final byte[] data;
+        private final TournamentData tournament;
+        private final List<String> warnings;
+
+        private Result(byte[] data, TournamentData tournament, List<String> warnings) {
+            this.data = data;
+            this.tournament = tournament;
+            this.warnings = Collections.unmodifiableList(warnings);
+        }
+
+        /** @return The converted file content: a tournament document or a PAPI file */
+        public byte[] getData() {
+            return data;
+        }
+
+        /** @return The tournament read or written */
+        public TournamentData getTournament() {
+            return tournament;
+        }
+
+        /** @return The warnings of the conversion, empty if there were none */
+        public List<String> getWarnings() {
+            return warnings;
+        }
+    }
+
+    /**
+     * Creates a builder with the default options: JSON documents without standings,
+     * and the template found next to the application.
+     * @return A new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** @return The encoding of the tournament documents */
+    public TournamentFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Converts a PAPI file to a tournament document. The file is read as a consistent
+     * snapshot, without locking it, so PAPI may keep it open.
+     * @param papiFile Path to the PAPI file
+     * @return The document
+     * @throws Exception if the conversion fails
+     */
+    public Result toDocument(Path papiFile) throws Exception {
+        return capture(warnings -> {
+            TournamentData tournament = SnapshotReader.read(papiFile,
+                db -> PapiToJsonConverter.readTournament(db, standings));
+            return new Result(encode(tournament), tournament, warnings);
+        });
+    }
+
+    /**
+     * Converts the content of a PAPI file to a tournament document.
+     * @param papi The PAPI file content, not modified
+     * @return The document
+     * @throws Exception if the conversion fails
+     */
+    public Result toDocument(byte[] papi) throws Exception {
+        return toDocument(new ByteArrayInputStream(papi));
+    }
+
+    /**
+     * Converts a PAPI file read from a stream to a tournament document.
+     * @param papiIn Stream containing the PAPI file, read to its end and left open
+     * @return The document
+     * @throws Exception if the conversion fails
+     */
+    public Result toDocument(InputStream papiIn) throws Exception {
+        return capture(warnings -> {
+            TournamentData tournament;
+            try (MemFileChannel channel = AccessChannels.readToMemory(papiIn)) {
+                Database db = AccessChannels.open(channel, true);
+                try {
+                    tournament = PapiToJsonConverter.readTournament(db, standings);
+                } finally {
+                    db.close();
+                }
+            }
+            return new Result(encode(tournament), tournament, warnings);
+        });
+    }
+
+    /**
+     * Converts a tournament document file to a PAPI file.
+     * @param documentFile Path to the document
+     * @return The PAPI file
+     * @throws Exception if the conversion fails
+     */
+    public Result toPapi(Path documentFile) throws Exception {
+        return capture(warnings -> {
+            TournamentData tournament = format.read(documentFile);
+            return new Result(createPapi(tournament), tournament, warnings);
+        });
+    }
+
+    /**
+     * Converts the content of a tournament document to a PAPI file.
+     * @param document The document content
+     * @return The PAPI file
+     * @throws Exception if the conversion fails
+     */
+    public Result toPapi(byte[] document) throws Exception {
+        return toPapi(new ByteArrayInputStream(document));
+    }
+
+    /**
+     * Converts a tournament document read from a stream to a PAPI file.
+     * @param documentIn Stream containing the document, left open
+     * @return The PAPI file
+     * @throws Exception if the conversion fails
+     */
+    public Result toPapi(InputStream documentIn) throws Exception {
+        return capture(warnings -> {
+            TournamentData tournament = format.read(documentIn);
+            return new Result(createPapi(tournament), tournament, warnings);
+        });
+    }
+
+    /**
+     * Converts a tournament to a PAPI file.
+     * @param tournament The tournament, whose players are completed if a player database is set
+     * @return The PAPI file
+     * @throws Exception if the conversion fails
+     */
+    public Result toPapi(TournamentData tournament) throws Exception {
+        return capture(warnings -> new Result(createPapi(tournament), tournament, warnings));
+    }
+
+    /**
+     * Runs a conversion with the messages of the current thread captured.
+     */
+    private static Result capture(Conversion conversion) throws Exception {
+        List<String> warnings = VerboseOutput.startCapture();
+        try {
+            return conversion.run(warnings);
+        } finally {
+            VerboseOutput.endCapture();
+        }
+    }
+
+    /**
+     * Encodes a tournament in the document format.
+     */
+    private byte[] encode(TournamentData tournament) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.write(tournament, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a tournament to an in-memory copy of the template.
+     */
+    private byte[] createPapi(TournamentData tournament) throws Exception {
+        if (directory != null) {
+            directory.enrich(tournament.getPlayers());
+        }
+        TournamentValidator.validate(tournament);
+        try (MemFileChannel channel = AccessChannels.readToMemory(new ByteArrayInputStream(template))) {
+            Database db = AccessChannels.open(channel, false);
+            try {
+                JsonToPapiConverter.writeTournament(db, tournament);
+            } finally {
+                db.close();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) channel.size());
+            AccessChannels.writeTo(channel, out);
+            return out.toByteArray();
+        }
+    }
+}
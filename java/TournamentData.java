@@ -0,0 +1,48 @@
+package org.sharlychess.papiconverter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tournament of the JSON schema: the INFO variables (English names) and the players,
+ * in JSON index order, with optional computed standings.
+ */
+public final class TournamentData {
+    private final Map<String, String> variables;
+    private final List<PlayerData> players;
+    private final Standings standings;
+
+    /**
+     * @param variables Variables by English name, in document order, or null if absent
+     * @param players Players in JSON index order, or null if absent
+     */
+    public TournamentData(Map<String, String> variables, List<PlayerData> players) {
+        this(variables, players, null);
+    }
+
+    /**
+     * @param variables Variables by English name, in document order, or null if absent
+     * @param players Players in JSON index order, or null if absent
+     * @param standings Standings exported with the players, or null
+     */
+    public TournamentData(Map<String, String> variables, List<PlayerData> players, Standings standings) {
+        this.variables = variables;
+        this.players = players;
+        this.standings = standings;
+    }
+
+    /** @return Variables by English name, or null if the document has none */
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    /** @return Players in JSON index order, or null if the document has none */
+    public List<PlayerData> getPlayers() {
+        return players;
+    }
+
+    /** @return Standings to export, or null (they are never read back from a document) */
+    public Standings getStandings() {
+        return standings;
+    }
+}
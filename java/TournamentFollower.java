@@ -0,0 +1,462 @@
+package org.sharlychess.papiconverter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.healthmarketscience.jackcess.*;
+
+/**
+ * Follows a single PAPI file and publishes what changes in it as NDJSON events,
+ * one JSON object per line, for live broadcasts.
+ *
+ * The previous INFO variables and JOUEUR columns are kept in primitive arrays (see
+ * {@link ConsistencyChecker.JoueurColumns}); two sets of arrays are reused in turn,
+ * so following a tournament for days does not grow the memory. The file is only
+ * read again when its size or modification time changed and then stayed the same
+ * for one check interval, which is when PAPI has finished saving. Between saves the
+ * follower blocks on the folder's watch service, waking up every check interval to
+ * compare the file's stamp (a single stat call) on platforms where file events are slow.
+ *
+ * Events, with "event" giving the type and "time" when the change was seen:
+ * <ul>
+ *   <li>"loaded": the file was read for the first time ("players", "variables")</li>
+ *   <li>"variable": an INFO variable changed ("name", "from", "to")</li>
+ *   <li>"player-added", "player-removed": a JOUEUR row ("ref", "player")</li>
+ *   <li>"pairing": a player's opponent or color changed in a round ("round", "ref", "player", "color",
+ *       "opponentRef", "opponent"; "opponentRef" is null when the player is no longer paired)</li>
+ *   <li>"result": a game result was entered or corrected ("round", "ref", "player", "opponentRef",
+ *       "opponent", "result", "previousResult", with PAPI result codes)</li>
+ * </ul>
+ * A game is reported once, from the side of the lower Ref, when both sides changed.
+ */
+public class TournamentFollower {
+
+    /**
+     * Interval between two checks of the file's stamp, and quiet period before reading a save.
+     */
+    private static final long CHECK_INTERVAL_MS = 200;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Size and modification time of the followed file.
+     */
+    private static final class FileStamp {
+        final long size;
+        final long modified;
+
+        FileStamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static FileStamp of(Path file) {
+            try {
+                return new FileStamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                return null; // File is being replaced
+            }
+        }
+
+        boolean sameAs(FileStamp other) {
+            return other != null && size == other.size && modified == other.modified;
+        }
+    }
+
+    /**
+     * The INFO variables and JOUEUR columns of one read, with the row of each Ref.
+     */
+    static final class State {
+        final Map<String, String> variables = new LinkedHashMap<>();
+        final ConsistencyChecker.JoueurColumns players = new ConsistencyChecker.JoueurColumns(0);
+        PlayerIndex index = PlayerIndex.of(new int[0]);
+        long[] keys = new long[0];
+        int[] rowsByRef = new int[0];
+
+        /**
+         * Indexes the rows by Ref, as ConsistencyChecker.check does: the rows are sorted by Ref,
+         * so the arrays follow the number of rows and not the largest Ref.
+         */
+        void index() {
+            int count = players.count;
+            if (keys.length < count) {
+                keys = new long[count];
+                rowsByRef = new int[count];
+            }
+            for (int p = 0; p < count; p++) {
+                keys[p] = ((long) players.refs[p] << 32) | p;
+            }
+            Arrays.sort(keys, 0, count);
+            int[] sortedRefs = new int[count];
+            for (int i = 0; i < count; i++) {
+                rowsByRef[i] = (int) keys[i];
+                sortedRefs[i] = (int) (keys[i] >> 32);
+            }
+            index = PlayerIndex.of(sortedRefs);
+        }
+
+        int rowOf(int ref) {
+            int i = index.indexOf(ref);
+            return i >= 0 ? rowsByRef[i] : -1;
+        }
+
+        String nameOf(int ref) {
+            int row = rowOf(ref);
+            return row >= 0 ? players.names[row] : "";
+        }
+    }
+
+    /**
+     * Destination of the events: standard output, or the clients of a local socket.
+     */
+    static final class EventFeed {
+        private final ServerSocket server;
+        private final List<OutputStream> clients = new CopyOnWriteArrayList<>();
+
+        private EventFeed(ServerSocket server) {
+            this.server = server;
+        }
+
+        /**
+         * Creates a feed writing to standard output.
+         */
+        static EventFeed standardOutput() {
+            return new EventFeed(null);
+        }
+
+        /**
+         * Creates a feed accepting clients on a port of the loopback interface.
+         * @param port The TCP port
+         * @throws IOException if the port cannot be opened
+         */
+        static EventFeed localSocket(int port) throws IOException {
+            ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+            EventFeed feed = new EventFeed(server);
+            Thread acceptor = new Thread(feed::accept, "papi-follow-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            return feed;
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket client = server.accept();
+                    client.shutdownInput();
+                    clients.add(new BufferedOutputStream(client.getOutputStream()));
+                    VerboseOutput.println("Client connected from " + client.getRemoteSocketAddress());
+                    VerboseOutput.flush();
+                } catch (IOException e) {
+                    if (!server.isClosed()) {
+                        VerboseOutput.errorPrintln("Warning: Could not accept a client: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Publishes the events of one save, then flushes them.
+         */
+        void publish(List<String> lines) {
+            if (lines.isEmpty()) {
+                return;
+            }
+            if (server == null) {
+                for (String line : lines) {
+                    System.out.println(line);
+                }
+                System.out.flush();
+                return;
+            }
+            byte[] data = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+            for (OutputStream client : clients) {
+                try {
+                    client.write(data);
+                    client.flush();
+                } catch (IOException e) {
+                    clients.remove(client); // Client went away
+                    try {
+                        client.close();
+                    } catch (IOException ignored) {
+                        // Nothing else to do
+                    }
+                }
+            }
+        }
+
+        void close() throws IOException {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private final Path file;
+    private final EventFeed feed;
+    private State previous = new State();
+    private State current = new State();
+
+    private TournamentFollower(Path file, EventFeed feed) {
+        this.file = file;
+        this.feed = feed;
+    }
+
+    /**
+     * Follows a PAPI file and publishes its changes until the thread is interrupted.
+     * @param papiFile Path to the PAPI file
+     * @param port TCP port on the loopback interface to publish to, or 0 for standard output
+     * @throws Exception if the file cannot be read or the port cannot be opened
+     */
+    public static void follow(String papiFile, int port) throws Exception {
+        Path file = Paths.get(papiFile).toAbsolutePath();
+        if (!Files.isRegularFile(file)) {
+            throw new Exception("PAPI file not found: " + papiFile);
+        }
+        EventFeed feed = port > 0 ? EventFeed.localSocket(port) : EventFeed.standardOutput();
+        try {
+            new TournamentFollower(file, feed).run();
+        } finally {
+            feed.close();
+        }
+    }
+
+    private void run() throws Exception {
+        FileStamp read = FileStamp.of(file);
+        load(previous);
+        feed.publish(List.of(event("loaded", generator -> {
+            generator.writeNumberField("players", previous.players.count);
+            generator.writeNumberField("variables", previous.variables.size());
+        })));
+        VerboseOutput.alwaysPrintln("Following " + file + (feed.server != null
+            ? " (events on 127.0.0.1:" + feed.server.getLocalPort() + ")" : ""));
+        VerboseOutput.flush();
+
+        try (WatchService watchService = file.getFileSystem().newWatchService()) {
+            file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+            FileStamp seen = read;
+            while (true) {
+                try {
+                    // Wakes up on a folder event, or after the interval on platforms without native events
+                    WatchKey key = watchService.poll(CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                FileStamp stamp = FileStamp.of(file);
+                if (stamp == null || stamp.sameAs(read)) {
+                    seen = stamp;
+                    continue;
+                }
+                if (!stamp.sameAs(seen)) {
+                    seen = stamp; // Still being saved: read once it stays the same for an interval
+                    continue;
+                }
+                try {
+                    load(current);
+                    read = stamp;
+                    feed.publish(changes(previous, current));
+                    State swap = previous;
+                    previous = current;
+                    current = swap;
+                } catch (Exception e) {
+                    VerboseOutput.errorPrintln("Warning: Could not read " + file + ": " + e.getMessage());
+                }
+                VerboseOutput.flush();
+            }
+        }
+    }
+
+    /**
+     * Reads a consistent snapshot of the file into a state.
+     */
+    private void load(State state) throws Exception {
+        Metrics.Phase tableScanPhase = Metrics.phase("table scan");
+        try {
+            SnapshotReader.read(file, db -> {
+                state.variables.clear();
+                for (Row row : db.getTable("INFO")) {
+                    Object variableObj = row.get("Variable");
+                    Object valueObj = row.get("Value");
+                    if (variableObj != null && VariableMapping.isValidFrenchVariable(variableObj.toString())) {
+                        String englishName = VariableMapping.frenchToEnglish(variableObj.toString());
+                        state.variables.put(englishName != null ? englishName : variableObj.toString(),
+                            valueObj != null ? valueObj.toString() : null);
+                    }
+                }
+                ConsistencyChecker.load(db, state.players);
+                return state;
+            });
+        } finally {
+            tableScanPhase.close();
+        }
+        state.index();
+        Metrics.add(Metrics.ROWS_READ, state.players.count + state.variables.size());
+    }
+
+    /**
+     * Lists the change events from one state to the next.
+     */
+    static List<String> changes(State before, State after) throws IOException {
+        List<String> events = new ArrayList<>();
+        String time = Instant.now().toString();
+
+        for (Map.Entry<String, String> variable : after.variables.entrySet()) {
+            String previousValue = before.variables.get(variable.getKey());
+            if (!PlayerConverter.valuesEqual(previousValue, variable.getValue())) {
+                events.add(event("variable", time, generator -> {
+                    generator.writeStringField("name", variable.getKey());
+                    generator.writeStringField("from", previousValue);
+                    generator.writeStringField("to", variable.getValue());
+                }));
+            }
+        }
+        for (Map.Entry<String, String> variable : before.variables.entrySet()) {
+            if (!after.variables.containsKey(variable.getKey())) {
+                events.add(event("variable", time, generator -> {
+                    generator.writeStringField("name", variable.getKey());
+                    generator.writeStringField("from", variable.getValue());
+                    generator.writeNullField("to");
+                }));
+            }
+        }
+
+        ConsistencyChecker.JoueurColumns players = after.players;
+        for (int p = 0; p < players.count; p++) {
+            int ref = players.refs[p];
+            int old = before.rowOf(ref);
+            if (old < 0) {
+                events.add(playerEvent("player-added", time, ref, players.names[p]));
+                continue;
+            }
+            for (int r = 0; r < PairingRules.MAX_ROUNDS; r++) {
+                if (!slotChanged(before, after, r, ref) || reportedByOpponent(before, after, r, ref)) {
+                    continue;
+                }
+                int roundNum = r + 1;
+                int opponent = players.opponents[r][p];
+                if (opponent != before.players.opponents[r][old] || players.colors[r][p] != before.players.colors[r][old]) {
+                    byte color = players.colors[r][p];
+                    events.add(event("pairing", time, generator -> {
+                        writeSlot(generator, after, roundNum, ref, opponent);
+                        generator.writeStringField("color", color != 0 ? String.valueOf((char) color) : null);
+                    }));
+                }
+                int result = players.results[r][p];
+                int previousResult = before.players.results[r][old];
+                if (result != previousResult) {
+                    events.add(event("result", time, generator -> {
+                        writeSlot(generator, after, roundNum, ref, opponent);
+                        generator.writeNumberField("result", result);
+                        generator.writeNumberField("previousResult", previousResult);
+                    }));
+                }
+            }
+        }
+        for (int p = 0; p < before.players.count; p++) {
+            if (after.rowOf(before.players.refs[p]) < 0) {
+                events.add(playerEvent("player-removed", time, before.players.refs[p], before.players.names[p]));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Tells whether the opponent, color or result of a player changed in a round.
+     */
+    private static boolean slotChanged(State before, State after, int r, int ref) {
+        int old = before.rowOf(ref);
+        int row = after.rowOf(ref);
+        if (old < 0 || row < 0) {
+            return false;
+        }
+        return after.players.opponents[r][row] != before.players.opponents[r][old]
+            || after.players.colors[r][row] != before.players.colors[r][old]
+            || after.players.results[r][row] != before.players.results[r][old];
+    }
+
+    /**
+     * Tells whether the game is reported from the opponent's side: the opponent has a lower
+     * Ref, is paired back with the player and changed too.
+     */
+    private static boolean reportedByOpponent(State before, State after, int r, int ref) {
+        int opponent = after.players.opponents[r][after.rowOf(ref)];
+        if (opponent <= PairingRules.EXEMPT_REF || opponent >= ref) {
+            return false;
+        }
+        int opponentRow = after.rowOf(opponent);
+        return opponentRow >= 0 && after.players.opponents[r][opponentRow] == ref
+            && slotChanged(before, after, r, opponent);
+    }
+
+    private static void writeSlot(JsonGenerator generator, State state, int roundNum, int ref, int opponent)
+            throws IOException {
+        generator.writeNumberField("round", roundNum);
+        generator.writeNumberField("ref", ref);
+        generator.writeStringField("player", state.nameOf(ref));
+        if (opponent > 0) {
+            generator.writeNumberField("opponentRef", opponent);
+            generator.writeStringField("opponent", state.nameOf(opponent));
+        } else {
+            generator.writeNullField("opponentRef");
+        }
+    }
+
+    private static String playerEvent(String type, String time, int ref, String name) throws IOException {
+        return event(type, time, generator -> {
+            generator.writeNumberField("ref", ref);
+            generator.writeStringField("player", name);
+        });
+    }
+
+    /**
+     * Writer of the fields of an event.
+     */
+    private interface EventWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static String event(String type, EventWriter writer) throws IOException {
+        return event(type, Instant.now().toString(), writer);
+    }
+
+    private static String event(String type, String time, EventWriter writer) throws IOException {
+        StringWriter line = new StringWriter();
+        try (JsonGenerator generator = FACTORY.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeStringField("event", type);
+            generator.writeStringField("time", time);
+            writer.write(generator);
+            generator.writeEndObject();
+        }
+        return line.toString();
+    }
+}
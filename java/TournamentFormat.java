@@ -0,0 +1,119 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Encodings of the tournament document on the non-PAPI side of a conversion.
+ */
+public enum TournamentFormat {
+    /** JSON document (default) */
+    JSON("json", ".json", "JSON"),
+    /** Binary snapshot, see {@link TournamentSnapshot} */
+    SNAPSHOT("bin", TournamentSnapshot.EXTENSION, "snapshot");
+
+    private final String formatName;
+    private final String extension;
+    private final String label;
+
+    TournamentFormat(String formatName, String extension, String label) {
+        this.formatName = formatName;
+        this.extension = extension;
+        this.label = label;
+    }
+
+    /** @return Name used by --format, --from and --to */
+    public String formatName() {
+        return formatName;
+    }
+
+    /** @return File extension, including the dot */
+    public String extension() {
+        return extension;
+    }
+
+    /** @return Name used in progress messages */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Finds a format by its --format name.
+     * @param name Format name (json or bin)
+     * @return The format, or null if unknown
+     */
+    public static TournamentFormat forName(String name) {
+        for (TournamentFormat format : values()) {
+            if (format.formatName.equals(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a format by file extension.
+     * @param fileName File name
+     * @return The format, or null if the extension is not a tournament document one
+     */
+    public static TournamentFormat forFile(String fileName) {
+        String lower = fileName.toLowerCase();
+        for (TournamentFormat format : values()) {
+            if (lower.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a tournament document from a file.
+     * @param file Path to the file
+     * @return The tournament
+     * @throws Exception if the file cannot be read or parsed
+     */
+    public TournamentData read(Path file) throws Exception {
+        return this == SNAPSHOT ? TournamentSnapshot.read(file) : TournamentJson.read(file);
+    }
+
+    /**
+     * Reads a tournament document from a stream.
+     * @param in Stream containing the document, left open
+     * @return The tournament
+     * @throws Exception if the stream cannot be read or parsed
+     */
+    public TournamentData read(InputStream in) throws Exception {
+        return this == SNAPSHOT ? TournamentSnapshot.read(in) : TournamentJson.read(in);
+    }
+
+    /**
+     * Writes a tournament document to a file.
+     * @param tournament The tournament
+     * @param file The output file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(TournamentData tournament, File file) throws IOException {
+        if (this == SNAPSHOT) {
+            TournamentSnapshot.write(tournament, file);
+        } else {
+            TournamentJson.write(tournament, file);
+        }
+    }
+
+    /**
+     * Writes a tournament document to a stream.
+     * @param tournament The tournament
+     * @param out Stream receiving the document, flushed and left open
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(TournamentData tournament, OutputStream out) throws IOException {
+        if (this == SNAPSHOT) {
+            TournamentSnapshot.write(tournament, out);
+        } else {
+            TournamentJson.write(tournament, out);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package org.sharlychess.papiconverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+/**
+ * Streaming JSON codec for the tournament schema, on top of jackson-core.
+ *
+ * Documents are read token by token into {@link TournamentData} and written
+ * back with the default pretty printer, without reflection or intermediate
+ * trees. Both the dictionary and the legacy array "rounds" formats are read;
+ * rounds are always written as a dictionary. Unknown properties (such as the
+ * exported "standings") are skipped and null values are treated as absent.
+ */
+public class TournamentJson {
+
+    /** Streams passed in by callers (such as standard input/output) are left open */
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    private static final String[] ROUND_KEYS = createRoundKeys();
+
+    private static String[] createRoundKeys() {
+        String[] keys = new String[PairingRules.MAX_ROUNDS + 1];
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            keys[roundNum] = String.valueOf(roundNum);
+        }
+        return keys;
+    }
+
+    /**
+     * Creates a parser sharing the codec's settings, for other JSON documents of the converter.
+     * @param in Stream containing the JSON document, left open
+     * @return The parser
+     * @throws IOException if the parser cannot be created
+     */
+    static JsonParser createParser(InputStream in) throws IOException {
+        return FACTORY.createParser(in);
+    }
+
+    /**
+     * Reads a tournament from a JSON file.
+     * @param jsonFile Path to the JSON file
+     * @return The tournament
+     * @throws Exception if the file cannot be read or is not a JSON object
+     */
+    public static TournamentData read(Path jsonFile) throws Exception {
+        try (InputStream in = Files.newInputStream(jsonFile)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a tournament from a JSON stream.
+     * @param in Stream containing the JSON document, left open
+     * @return The tournament
+     * @throws Exception if the stream cannot be read or is not a JSON object
+     */
+    public static TournamentData read(InputStream in) throws Exception {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new Exception("Expected a JSON object at " + describeLocation(parser));
+            }
+            Map<String, String> variables = null;
+            List<PlayerData> players = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("variables".equals(name) && token == JsonToken.START_OBJECT) {
+                    variables = readVariables(parser);
+                } else if ("players".equals(name) && token == JsonToken.START_ARRAY) {
+                    players = readPlayers(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new TournamentData(variables, players);
+        }
+    }
+
+    private static Map<String, String> readVariables(JsonParser parser) throws IOException {
+        Map<String, String> variables = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                variables.put(name, parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return variables;
+    }
+
+    private static List<PlayerData> readPlayers(JsonParser parser) throws IOException {
+        List<PlayerData> players = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            PlayerData player = new PlayerData();
+            if (token == JsonToken.START_OBJECT) {
+                readPlayer(parser, player);
+            } else {
+                // Keep the slot so that opponent indexes stay aligned
+                parser.skipChildren();
+            }
+            players.add(player);
+        }
+        return players;
+    }
+
+    private static void readPlayer(JsonParser parser, PlayerData player) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("rounds".equals(name)) {
+                if (token == JsonToken.START_OBJECT) {
+                    readRoundDictionary(parser, player);
+                } else if (token == JsonToken.START_ARRAY) {
+                    readRoundArray(parser, player);
+                } else {
+                    parser.skipChildren();
+                }
+                continue;
+            }
+            PlayerField field = PlayerField.forJsonName(name);
+            if (field != null) {
+                player.set(field, readScalar(parser, token));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads rounds keyed by round number: {"1": {...}, "3": {...}}.
+     * Keys that are not round numbers (1-24) are recorded on the player, for the validator.
+     */
+    private static void readRoundDictionary(JsonParser parser, PlayerData player) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            JsonToken token = parser.nextToken();
+            int roundNum;
+            try {
+                roundNum = Integer.parseInt(key);
+            } catch (NumberFormatException e) {
+                roundNum = -1;
+            }
+            if (roundNum < 1 || roundNum > PairingRules.MAX_ROUNDS) {
+                player.addInvalidRound(key);
+                parser.skipChildren();
+            } else if (token == JsonToken.START_OBJECT) {
+                player.setRound(roundNum, readRound(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads rounds of the legacy format, where the position gives the round number: [{...}, {...}].
+     */
+    private static void readRoundArray(JsonParser parser, PlayerData player) throws IOException {
+        int roundNum = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            roundNum++;
+            if (token == JsonToken.START_OBJECT && roundNum <= PairingRules.MAX_ROUNDS) {
+                player.setRound(roundNum, readRound(parser));
+            } else {
+                if (token == JsonToken.START_OBJECT) {
+                    player.addInvalidRound(String.valueOf(roundNum));
+                }
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static RoundData readRound(JsonParser parser) throws IOException {
+        String color = null;
+        Integer opponent = null;
+        Integer result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (!token.isScalarValue() || token == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+            } else if ("color".equals(name)) {
+                color = parser.getValueAsString();
+            } else if ("opponent".equals(name)) {
+                opponent = parser.getValueAsInt();
+            } else if ("result".equals(name)) {
+                result = parser.getValueAsInt();
+            }
+        }
+        return new RoundData(color, opponent, result);
+    }
+
+    /**
+     * Reads a scalar value: Integer (or Double if it does not fit), Double, String or Boolean.
+     * @return The value, or null for null and non-scalar values
+     */
+    private static Object readScalar(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+                if (parser.getNumberType() == JsonParser.NumberType.INT) {
+                    return parser.getIntValue();
+                }
+                return parser.getDoubleValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                parser.skipChildren();
+                return null;
+        }
+    }
+
+    private static String describeLocation(JsonParser parser) {
+        return "line " + parser.currentLocation().getLineNr() + ", column " + parser.currentLocation().getColumnNr();
+    }
+
+    /**
+     * Writes a tournament to a JSON file.
+     * @param tournament The tournament
+     * @param jsonFile The output file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(TournamentData tournament, File jsonFile) throws IOException {
+        try (JsonGenerator generator = createGenerator(FACTORY.createGenerator(jsonFile, JsonEncoding.UTF8))) {
+            writeTournament(generator, tournament);
+        }
+    }
+
+    /**
+     * Writes a tournament to a stream.
+     * @param tournament The tournament
+     * @param out Stream receiving the JSON document, flushed and left open
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(TournamentData tournament, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(FACTORY.createGenerator(out, JsonEncoding.UTF8))) {
+            writeTournament(generator, tournament);
+        }
+    }
+
+    /**
+     * Serializes a player to the fragment spliced in by {@link #writeWithPlayerFragments}.
+     * The fragment is indented one level, as an element of the players array.
+     * @param player The player
+     * @return The JSON fragment
+     * @throws IOException if the player cannot be serialized
+     */
+    public static String writePlayerFragment(PlayerData player) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = createGenerator(FACTORY.createGenerator(out))) {
+            writePlayer(generator, player);
+        }
+        return out.toString().replace("\n", "\n  ");
+    }
+
+    /**
+     * Writes a tournament whose players are already serialized with {@link #writePlayerFragment}.
+     * The result is identical to writing the whole tournament with {@link #write(TournamentData, File)}.
+     * @param variables Variables by English name
+     * @param playerFragments JSON fragment of each player, in JSON index order
+     * @param standings Standings to write after the players, or null
+     * @param jsonFile The output file
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeWithPlayerFragments(Map<String, String> variables, List<String> playerFragments,
+            Standings standings, File jsonFile) throws IOException {
+        try (JsonGenerator generator = createGenerator(FACTORY.createGenerator(jsonFile, JsonEncoding.UTF8))) {
+            generator.writeStartObject();
+            generator.writeFieldName("variables");
+            writeVariables(generator, variables);
+            generator.writeFieldName("players");
+            generator.writeStartArray();
+            for (String fragment : playerFragments) {
+                generator.writeRawValue(fragment);
+            }
+            generator.writeEndArray();
+            if (standings != null) {
+                generator.writeFieldName("standings");
+                writeStandings(generator, standings);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static JsonGenerator createGenerator(JsonGenerator generator) {
+        generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        return generator;
+    }
+
+    private static void writeTournament(JsonGenerator generator, TournamentData tournament) throws IOException {
+        generator.writeStartObject();
+        if (tournament.getVariables() != null) {
+            generator.writeFieldName("variables");
+            writeVariables(generator, tournament.getVariables());
+        }
+        if (tournament.getPlayers() != null) {
+            generator.writeFieldName("players");
+            generator.writeStartArray();
+            for (PlayerData player : tournament.getPlayers()) {
+                writePlayer(generator, player);
+            }
+            generator.writeEndArray();
+        }
+        if (tournament.getStandings() != null) {
+            generator.writeFieldName("standings");
+            writeStandings(generator, tournament.getStandings());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the standings as an array in rank order:
+     * {"rank", "player" (JSON index), "score", "tiebreaks": {name: value}}.
+     */
+    private static void writeStandings(JsonGenerator generator, Standings standings) throws IOException {
+        List<Tiebreak> tiebreaks = standings.getTiebreaks();
+        generator.writeStartArray();
+        for (int position = 0; position < standings.size(); position++) {
+            int player = standings.player(position);
+            generator.writeStartObject();
+            generator.writeNumberField("rank", standings.rank(position));
+            generator.writeNumberField("player", player);
+            generator.writeFieldName("score");
+            writePoints(generator, standings.score(player));
+            generator.writeFieldName("tiebreaks");
+            generator.writeStartObject();
+            for (int t = 0; t < tiebreaks.size(); t++) {
+                generator.writeFieldName(tiebreaks.get(t).label());
+                writePoints(generator, standings.tiebreak(t, player));
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes a score or tiebreak value, without a fraction when it is whole.
+     */
+    private static void writePoints(JsonGenerator generator, double value) throws IOException {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            generator.writeNumber((long) value);
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeVariables(JsonGenerator generator, Map<String, String> variables) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            generator.writeStringField(variable.getKey(), variable.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writePlayer(JsonGenerator generator, PlayerData player) throws IOException {
+        generator.writeStartObject();
+        for (PlayerField field : PlayerField.all()) {
+            Object value = player.get(field);
+            if (value != null) {
+                generator.writeFieldName(field.jsonName());
+                writeScalar(generator, value);
+            }
+        }
+        if (player.hasRounds()) {
+            generator.writeFieldName("rounds");
+            generator.writeStartObject();
+            for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+                RoundData round = player.getRound(roundNum);
+                if (round == null) {
+                    continue;
+                }
+                generator.writeFieldName(ROUND_KEYS[roundNum]);
+                generator.writeStartObject();
+                if (round.color != null) {
+                    generator.writeStringField("color", round.color);
+                }
+                if (round.opponent != null) {
+                    generator.writeNumberField("opponent", round.opponent);
+                }
+                if (round.result != null) {
+                    generator.writeNumberField("result", round.result);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a value read from JSON or from a JOUEUR column.
+     */
+    private static void writeScalar(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package org.sharlychess.papiconverter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link TournamentData}, an alternative to the JSON export
+ * for clients that poll full tournament snapshots.
+ *
+ * All strings are stored once in a string table and referenced by index. Variables
+ * and player fields carry their JSON names, so the format is self-describing. Player
+ * fields are stored column by column, and rounds as fixed-width columns (one entry
+ * per player). The full layout is described in the README ("Binary snapshot format").
+ * Multi-byte integers are big-endian; varints are unsigned LEB128.
+ */
+public class TournamentSnapshot {
+
+    /** File extension of snapshot files */
+    public static final String EXTENSION = ".tsnap";
+
+    /** Current version of the format */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'P', 'A', 'P', 'S' };
+
+    private static final int FLAG_VARIABLES = 1;
+    private static final int FLAG_PLAYERS = 2;
+
+    private static final int TAG_ABSENT = 0;
+    private static final int TAG_INTEGER = 1;
+    private static final int TAG_DOUBLE = 2;
+    private static final int TAG_STRING = 3;
+    private static final int TAG_FALSE = 4;
+    private static final int TAG_TRUE = 5;
+    private static final int TAG_DECIMAL = 6;
+
+    /** Absent value of 4-byte round columns */
+    private static final int ABSENT_INT = Integer.MIN_VALUE;
+
+    /**
+     * Strings in order of first use, with their index.
+     */
+    private static final class StringTable {
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = strings.size();
+                indexes.put(value, index);
+                strings.add(value);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Growable big-endian byte buffer; snapshots are small enough to be built in memory.
+     */
+    private static final class Encoder {
+        byte[] bytes = new byte[8192];
+        int length;
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeShort(int value) {
+            ensure(2);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            bytes[length++] = (byte) (value >>> 24);
+            bytes[length++] = (byte) (value >>> 16);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            writeInt((int) (bits >>> 32));
+            writeInt((int) bits);
+        }
+
+        void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, length, data.length);
+            length += data.length;
+        }
+    }
+
+    /**
+     * Writes a tournament snapshot to a file.
+     * @param tournament The tournament
+     * @param file The output file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(TournamentData tournament, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+            write(tournament, out);
+        }
+    }
+
+    /**
+     * Writes a tournament snapshot to a stream.
+     * @param tournament The tournament
+     * @param out Stream receiving the snapshot, flushed and left open
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(TournamentData tournament, OutputStream out) throws IOException {
+        // The string table comes first but is only known once the body is encoded
+        StringTable strings = new StringTable();
+        Encoder body = new Encoder();
+
+        int flags = 0;
+        if (tournament.getVariables() != null) {
+            flags |= FLAG_VARIABLES;
+            writeVarint(body, tournament.getVariables().size());
+            for (Map.Entry<String, String> variable : tournament.getVariables().entrySet()) {
+                writeVarint(body, strings.indexOf(variable.getKey()));
+                writeVarint(body, strings.indexOf(variable.getValue()));
+            }
+        }
+        if (tournament.getPlayers() != null) {
+            flags |= FLAG_PLAYERS;
+            writePlayers(body, tournament.getPlayers(), strings);
+        }
+
+        Encoder header = new Encoder();
+        header.write(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(flags);
+        writeVarint(header, strings.strings.size());
+        for (String value : strings.strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(header, bytes.length);
+            header.write(bytes);
+        }
+        out.write(header.bytes, 0, header.length);
+        out.write(body.bytes, 0, body.length);
+        out.flush();
+    }
+
+    private static void writePlayers(Encoder out, List<PlayerData> players, StringTable strings) throws IOException {
+        int playerCount = players.size();
+        writeVarint(out, playerCount);
+
+        // Field columns, only for fields that at least one player has
+        List<PlayerField> fields = new ArrayList<>();
+        for (PlayerField field : PlayerField.all()) {
+            for (PlayerData player : players) {
+                if (player.get(field) != null) {
+                    fields.add(field);
+                    break;
+                }
+            }
+        }
+        if (fields.isEmpty() && playerCount > 0) {
+            // An absent column, so that every player takes at least one byte and readers can bound the count
+            fields.add(PlayerField.LAST_NAME);
+        }
+        writeVarint(out, fields.size());
+        for (PlayerField field : fields) {
+            writeVarint(out, strings.indexOf(field.jsonName()));
+            for (PlayerData player : players) {
+                writeValue(out, player.get(field), strings);
+            }
+        }
+
+        // Round columns: highest round used, value widths and color codes
+        int roundCount = 0;
+        Map<String, Integer> colorCodes = new LinkedHashMap<>();
+        for (PlayerData player : players) {
+            for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+                RoundData round = player.getRound(roundNum);
+                if (round != null) {
+                    roundCount = Math.max(roundCount, roundNum);
+                    if (round.color != null && !colorCodes.containsKey(round.color)) {
+                        if (colorCodes.size() == 255) {
+                            throw new IOException("Too many distinct round colors for a snapshot (255 maximum)");
+                        }
+                        colorCodes.put(round.color, colorCodes.size() + 1);
+                    }
+                }
+            }
+        }
+        int opponentWidth = columnWidth(players, roundCount, true);
+        int resultWidth = columnWidth(players, roundCount, false);
+
+        out.writeByte(roundCount);
+        out.writeByte(opponentWidth);
+        out.writeByte(resultWidth);
+        writeVarint(out, colorCodes.size());
+        for (String color : colorCodes.keySet()) {
+            writeVarint(out, strings.indexOf(color));
+        }
+
+        byte[] presence = new byte[(playerCount + 7) / 8];
+        for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+            Arrays.fill(presence, (byte) 0);
+            for (int i = 0; i < playerCount; i++) {
+                if (players.get(i).getRound(roundNum) != null) {
+                    presence[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            out.write(presence);
+            for (PlayerData player : players) {
+                RoundData round = player.getRound(roundNum);
+                out.writeByte(round != null && round.color != null ? colorCodes.get(round.color) : 0);
+            }
+            for (PlayerData player : players) {
+                RoundData round = player.getRound(roundNum);
+                writeFixed(out, opponentWidth, round != null ? round.opponent : null);
+            }
+            for (PlayerData player : players) {
+                RoundData round = player.getRound(roundNum);
+                writeFixed(out, resultWidth, round != null ? round.result : null);
+            }
+        }
+    }
+
+    /**
+     * Picks the narrowest width (1, 2 or 4 bytes) that holds every opponent or result value.
+     */
+    private static int columnWidth(List<PlayerData> players, int roundCount, boolean opponents) {
+        int width = 1;
+        for (PlayerData player : players) {
+            for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+                RoundData round = player.getRound(roundNum);
+                Integer value = round == null ? null : (opponents ? round.opponent : round.result);
+                if (value == null) {
+                    continue;
+                }
+                if (value < 0 || value > 0xFFFE) {
+                    return 4;
+                }
+                if (value > 0xFE) {
+                    width = 2;
+                }
+            }
+        }
+        return width;
+    }
+
+    private static void writeFixed(Encoder out, int width, Integer value) {
+        switch (width) {
+            case 1:
+                out.writeByte(value == null ? 0 : value + 1);
+                break;
+            case 2:
+                out.writeShort(value == null ? 0 : value + 1);
+                break;
+            default:
+                out.writeInt(value == null ? ABSENT_INT : value);
+                break;
+        }
+    }
+
+    private static void writeValue(Encoder out, Object value, StringTable strings) {
+        if (value == null) {
+            out.writeByte(TAG_ABSENT);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Long) {
+            out.writeByte(TAG_INTEGER);
+            long number = ((Number) value).longValue();
+            writeVarlong(out, (number << 1) ^ (number >> 63));
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float || value instanceof BigDecimal || value instanceof BigInteger) {
+            // Kept as text so that the number is written back exactly as before
+            out.writeByte(TAG_DECIMAL);
+            writeVarint(out, strings.indexOf(value.toString()));
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else {
+            out.writeByte(TAG_STRING);
+            writeVarint(out, strings.indexOf(value.toString()));
+        }
+    }
+
+    /**
+     * Reads a tournament snapshot from a file.
+     * @param file Path to the snapshot file
+     * @return The tournament
+     * @throws Exception if the file cannot be read or is not a valid snapshot
+     */
+    public static TournamentData read(Path file) throws Exception {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a tournament snapshot from a stream.
+     * @param stream Stream containing the snapshot, left open
+     * @return The tournament
+     * @throws Exception if the stream cannot be read or is not a valid snapshot
+     */
+    public static TournamentData read(InputStream stream) throws Exception {
+        ByteBuffer in = ByteBuffer.wrap(stream.readAllBytes());
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new Exception("Not a tournament snapshot (bad magic number)");
+            }
+            int version = readUnsignedByte(in);
+            if (version != VERSION) {
+                throw new Exception("Unsupported tournament snapshot version " + version + " (expected " + VERSION + ")");
+            }
+            int flags = readUnsignedByte(in);
+
+            String[] strings = new String[readBoundedCount(in)];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readCount(in);
+                if (length > in.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                strings[i] = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+
+            Map<String, String> variables = null;
+            if ((flags & FLAG_VARIABLES) != 0) {
+                int count = readBoundedCount(in);
+                variables = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String name = readString(in, strings);
+                    variables.put(name, readString(in, strings));
+                }
+            }
+
+            List<PlayerData> players = null;
+            if ((flags & FLAG_PLAYERS) != 0) {
+                players = readPlayers(in, strings);
+            }
+            return new TournamentData(variables, players);
+        } catch (BufferUnderflowException e) {
+            throw new Exception("Truncated tournament snapshot", e);
+        }
+    }
+
+    private static List<PlayerData> readPlayers(ByteBuffer in, String[] strings) throws Exception {
+        int playerCount = readBoundedCount(in);
+        List<PlayerData> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(new PlayerData());
+        }
+
+        int fieldCount = readBoundedCount(in);
+        for (int f = 0; f < fieldCount; f++) {
+            // Fields unknown to this version are read and dropped
+            PlayerField field = PlayerField.forJsonName(readString(in, strings));
+            for (PlayerData player : players) {
+                Object value = readValue(in, strings);
+                if (field != null) {
+                    player.set(field, value);
+                }
+            }
+        }
+
+        int roundCount = readUnsignedByte(in);
+        int opponentWidth = readWidth(in);
+        int resultWidth = readWidth(in);
+        String[] colors = new String[readBoundedCount(in) + 1];
+        for (int c = 1; c < colors.length; c++) {
+            colors[c] = readString(in, strings);
+        }
+
+        // Columns are decoded in place from the backing array
+        byte[] data = in.array();
+        int blockSize = (playerCount + 7) / 8 + playerCount * (1 + opponentWidth + resultWidth);
+        for (int roundNum = 1; roundNum <= roundCount; roundNum++) {
+            if (blockSize > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            int presence = in.position();
+            int colorColumn = presence + (playerCount + 7) / 8;
+            int opponentColumn = colorColumn + playerCount;
+            int resultColumn = opponentColumn + playerCount * opponentWidth;
+            in.position(presence + blockSize);
+            if (roundNum > PairingRules.MAX_ROUNDS) {
+                continue;
+            }
+            for (int i = 0; i < playerCount; i++) {
+                if ((data[presence + (i >>> 3)] & (1 << (i & 7))) == 0) {
+                    continue;
+                }
+                int colorCode = data[colorColumn + i] & 0xFF;
+                if (colorCode >= colors.length) {
+                    throw new Exception("Invalid color code " + colorCode + " in tournament snapshot");
+                }
+                players.get(i).setRound(roundNum, new RoundData(colors[colorCode],
+                    readFixed(data, opponentColumn + i * opponentWidth, opponentWidth),
+                    readFixed(data, resultColumn + i * resultWidth, resultWidth)));
+            }
+        }
+        return players;
+    }
+
+    private static int readWidth(ByteBuffer in) throws Exception {
+        int width = readUnsignedByte(in);
+        if (width != 1 && width != 2 && width != 4) {
+            throw new Exception("Invalid column width " + width + " in tournament snapshot");
+        }
+        return width;
+    }
+
+    private static Integer readFixed(byte[] column, int offset, int width) {
+        switch (width) {
+            case 1: {
+                int stored = column[offset] & 0xFF;
+                return stored == 0 ? null : stored - 1;
+            }
+            case 2: {
+                int stored = ((column[offset] & 0xFF) << 8) | (column[offset + 1] & 0xFF);
+                return stored == 0 ? null : stored - 1;
+            }
+            default: {
+                int stored = ((column[offset] & 0xFF) << 24) | ((column[offset + 1] & 0xFF) << 16)
+                    | ((column[offset + 2] & 0xFF) << 8) | (column[offset + 3] & 0xFF);
+                return stored == ABSENT_INT ? null : stored;
+            }
+        }
+    }
+
+    private static Object readValue(ByteBuffer in, String[] strings) throws Exception {
+        int tag = readUnsignedByte(in);
+        switch (tag) {
+            case TAG_ABSENT:
+                return null;
+            case TAG_INTEGER: {
+                long zigzag = readVarlong(in);
+                long number = (zigzag >>> 1) ^ -(zigzag & 1);
+                if (number == (int) number) {
+                    return (int) number;
+                }
+                return number;
+            }
+            case TAG_DOUBLE:
+                return in.getDouble();
+            case TAG_STRING:
+                return readString(in, strings);
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_DECIMAL:
+                return new BigDecimal(readString(in, strings));
+            default:
+                throw new Exception("Invalid value tag " + tag + " in tournament snapshot");
+        }
+    }
+
+    private static String readString(ByteBuffer in, String[] strings) throws Exception {
+        int index = readCount(in);
+        if (index >= strings.length) {
+            throw new Exception("Invalid string index " + index + " in tournament snapshot");
+        }
+        return strings[index];
+    }
+
+    private static int readCount(ByteBuffer in) throws Exception {
+        long value = readVarlong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new Exception("Invalid count " + value + " in tournament snapshot");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the number of items that follow, each taking at least one byte: a count larger
+     * than the bytes left comes from a truncated or corrupt snapshot, and is rejected before
+     * anything is allocated for it.
+     */
+    private static int readBoundedCount(ByteBuffer in) throws Exception {
+        int count = readCount(in);
+        if (count > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static void writeVarint(Encoder out, int value) {
+        writeVarlong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarlong(Encoder out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readUnsignedByte(ByteBuffer in) {
+        return in.get() & 0xFF;
+    }
+
+    private static long readVarlong(ByteBuffer in) throws Exception {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readUnsignedByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new Exception("Malformed varint in tournament snapshot");
+    }
+}
@@ -0,0 +1,230 @@
+package org.sharlychess.papiconverter;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a tournament document before it is written to a PAPI file.
+ *
+ * One pass over the players and their round slots, on the parsed document only, so an
+ * invalid document is rejected before the template is copied or a database is opened,
+ * with every problem reported at once instead of the first one. Checked:
+ * opponent indexes within the players, symmetric pairings with mirrored colors and
+ * results, byes (results that need an opponent must have one, except the bye result
+ * which is paired against EXEMPT), round numbers, color and result codes, birth dates,
+ * and the length of text values against the JOUEUR and INFO column limits.
+ */
+public final class TournamentValidator {
+
+    private static final DateTimeFormatter BIRTH_DATE_FORMAT =
+        DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    /**
+     * A problem of the document, located by player and round.
+     */
+    public static final class Problem {
+        private final int player;
+        private final int round;
+        private final String name;
+        private final String message;
+
+        Problem(int player, int round, String name, String message) {
+            this.player = player;
+            this.round = round;
+            this.name = name;
+            this.message = message;
+        }
+
+        /** @return JSON index (0-based) of the player, or -1 for a tournament variable */
+        public int getPlayer() {
+            return player;
+        }
+
+        /** @return Round number (1-24), or 0 if the problem is not tied to a round */
+        public int getRound() {
+            return round;
+        }
+
+        /** @return Description of the problem */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            String location = player < 0 ? "Variables" : "Player " + player + (name.isEmpty() ? "" : " (" + name + ")");
+            return location + (round > 0 ? ", round " + round : "") + ": " + message;
+        }
+    }
+
+    private TournamentValidator() {
+    }
+
+    /**
+     * Checks a document and rejects it if it has any problem.
+     * @param tournament The parsed document
+     * @throws Exception listing every problem, if there is one
+     */
+    public static void validate(TournamentData tournament) throws Exception {
+        long start = System.nanoTime();
+        List<Problem> problems;
+        Metrics.Phase validationPhase = Metrics.phase("validation");
+        try {
+            problems = check(tournament);
+        } finally {
+            validationPhase.close();
+        }
+        VerboseOutput.println(String.format("Validated %d players in %.1f ms",
+            tournament.getPlayers() != null ? tournament.getPlayers().size() : 0, (System.nanoTime() - start) / 1e6));
+        if (problems.isEmpty()) {
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(problems.size()).append(" problem(s) in the tournament document, nothing written:");
+        for (Problem problem : problems) {
+            report.append(System.lineSeparator()).append("  ").append(problem);
+        }
+        throw new Exception(report.toString());
+    }
+
+    /**
+     * Checks a document.
+     * @param tournament The parsed document
+     * @return The problems, by player then by round
+     */
+    public static List<Problem> check(TournamentData tournament) {
+        List<Problem> problems = new ArrayList<>();
+        checkVariables(tournament.getVariables(), problems);
+        List<PlayerData> players = tournament.getPlayers();
+        if (players == null) {
+            return problems;
+        }
+        PlayerData[] byIndex = players.toArray(new PlayerData[0]);
+        for (int p = 0; p < byIndex.length; p++) {
+            checkFields(byIndex[p], p, problems);
+            for (String key : byIndex[p].getInvalidRounds()) {
+                problems.add(problem(byIndex[p], p, 0, "invalid round number '" + key + "' (1 to " + PairingRules.MAX_ROUNDS + ")"));
+            }
+            for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+                RoundData round = byIndex[p].getRound(roundNum);
+                if (round != null) {
+                    checkRound(byIndex, p, roundNum, round, problems);
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static void checkVariables(Map<String, String> variables, List<Problem> problems) {
+        if (variables == null) {
+            return;
+        }
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            String value = variable.getValue();
+            if (value != null && value.length() > JsonToPapiConverter.MAX_INFO_VALUE_LENGTH) {
+                problems.add(new Problem(-1, 0, "", variable.getKey() + " is " + value.length()
+                    + " characters long, the limit is " + JsonToPapiConverter.MAX_INFO_VALUE_LENGTH));
+            }
+        }
+    }
+
+    /**
+     * Checks the text lengths and the birth date of a player.
+     */
+    private static void checkFields(PlayerData player, int p, List<Problem> problems) {
+        for (PlayerField field : PlayerField.all()) {
+            Object value = player.get(field);
+            if (value == null || value instanceof Number) {
+                continue;
+            }
+            String text = value.toString();
+            if (field.kind() == PlayerField.Kind.DATE) {
+                if (!text.isEmpty()) {
+                    try {
+                        LocalDate.parse(text, BIRTH_DATE_FORMAT);
+                    } catch (DateTimeParseException e) {
+                        problems.add(problem(player, p, 0, field.jsonName() + " '" + text + "' is not a valid DD/MM/YYYY date"));
+                    }
+                }
+            } else if (field.maxLength() > 0 && text.length() > field.maxLength()) {
+                problems.add(problem(player, p, 0, field.jsonName() + " is " + text.length()
+                    + " characters long, the limit is " + field.maxLength()));
+            }
+        }
+    }
+
+    /**
+     * Checks one round slot of a player; a symmetric pair is compared once, from the lower index.
+     */
+    private static void checkRound(PlayerData[] players, int p, int roundNum, RoundData round, List<Problem> problems) {
+        String color = round.color;
+        if (!PairingRules.isValidColor(color)) {
+            problems.add(problem(players[p], p, roundNum, "invalid color '" + color + "'"));
+        }
+        int result = round.result != null ? round.result : 0;
+        if (!PairingRules.isValidResult(result)) {
+            problems.add(problem(players[p], p, roundNum, "invalid result " + result));
+            return;
+        }
+
+        if (round.opponent == null) {
+            // A bye result without opponent is paired against EXEMPT by the conversion
+            if (PairingRules.needsOpponent(result)) {
+                problems.add(problem(players[p], p, roundNum, "result " + result + " without opponent"));
+            }
+            return;
+        }
+        int q = round.opponent;
+        if (q < 0 || q >= players.length) {
+            problems.add(problem(players[p], p, roundNum, "opponent " + q + " out of range (0 to " + (players.length - 1) + ")"));
+            return;
+        }
+        if (q == p) {
+            problems.add(problem(players[p], p, roundNum, "paired against itself"));
+            return;
+        }
+
+        RoundData opponentRound = players[q].getRound(roundNum);
+        Integer mirroredOpponent = opponentRound != null ? opponentRound.opponent : null;
+        if (mirroredOpponent == null || mirroredOpponent != p) {
+            problems.add(problem(players[p], p, roundNum, "plays " + q + ", but " + q + " has "
+                + (mirroredOpponent == null ? "no opponent" : mirroredOpponent + " as opponent")));
+            return;
+        }
+        if (p > q) {
+            return;
+        }
+        String opponentColor = opponentRound.color;
+        if (!PairingRules.mirrorColor(colorCode(color)).equals(colorCode(opponentColor))) {
+            problems.add(problem(players[p], p, roundNum, "color " + colorCode(color) + " against " + q
+                + " with color " + colorCode(opponentColor)));
+        }
+        int opponentResult = opponentRound.result != null ? opponentRound.result : 0;
+        int expectedResult = PairingRules.mirrorResult(result);
+        if (expectedResult < 0) {
+            problems.add(problem(players[p], p, roundNum, "result " + result + " cannot have an opponent (" + q + ")"));
+        } else if (opponentResult != expectedResult) {
+            problems.add(problem(players[p], p, roundNum, "result " + result + " against " + q
+                + " with result " + opponentResult + ", expected " + expectedResult));
+        }
+    }
+
+    /**
+     * Gets the color written to the JOUEUR table: R (unplayed) when absent.
+     */
+    private static String colorCode(String color) {
+        return color == null || color.isEmpty() ? "R" : color;
+    }
+
+    private static Problem problem(PlayerData player, int p, int roundNum, String message) {
+        String lastName = player.getText(PlayerField.LAST_NAME);
+        String firstName = player.getText(PlayerField.FIRST_NAME);
+        String name = (lastName != null ? lastName : "") + " " + (firstName != null ? firstName : "");
+        return new Problem(p, roundNum, name.trim(), message);
+    }
+}
@@ -1,13 +1,37 @@
 package org.sharlychess.papiconverter;
 
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Utility class to manage verbose output throughout the application.
  * This allows progress messages to be controlled by a --verbose flag.
+ *
+ * Messages are buffered, so printing them does not slow down the loops they are
+ * printed from; the buffer is flushed before errors, by {@link #flush()}, and when
+ * the program exits. With --progress, messages sent to standard error are streamed
+ * as NDJSON "log" events instead (see {@link Metrics}).
+ *
+ * Conversions run through {@link TournamentConverter} capture the messages of their
+ * thread: nothing is printed and warnings are collected for the result.
  */
 public class VerboseOutput {
-    
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private static boolean verboseMode = false;
+    private static PrintStream messageTarget = System.out;
+    private static PrintStream messageStream = buffered(System.out);
     
+    /** Warnings of the library conversion running on the thread, null when messages are printed */
+    private static final ThreadLocal<List<String>> capturedWarnings = new ThreadLocal<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(VerboseOutput::flush, "papi-output-flush"));
+    }
+
     /**
      * Sets the verbose mode for the application.
      * @param verbose true to enable verbose output, false to disable
@@ -15,44 +39,91 @@ public class VerboseOutput {
     public static void setVerbose(boolean verbose) {
         verboseMode = verbose;
     }
-    
+
+    /**
+     * Sets the stream used for progress messages. Messages are sent to
+     * standard error when the converted data itself is written to standard output.
+     * @param stream the stream for progress messages
+     */
+    public static synchronized void setMessageStream(PrintStream stream) {
+        messageStream.flush();
+        messageTarget = stream;
+        messageStream = buffered(stream);
+    }
+
     /**
      * Prints a message only if verbose mode is enabled.
      * @param message the message to print
      */
     public static void println(String message) {
         if (verboseMode) {
-            System.out.println(message);
+            print("info", message);
         }
     }
-    
+
     /**
      * Prints a formatted message only if verbose mode is enabled.
      * @param format the format string
      * @param args the arguments for formatting
      */
     public static void printf(String format, Object... args) {
-        if (verboseMode) {
-            System.out.printf(format, args);
+        if (verboseMode && capturedWarnings.get() == null) {
+            if (isNdjson()) {
+                Metrics.log("info", String.format(format, args).stripTrailing());
+            } else {
+                messageStream.printf(format, args);
+            }
         }
     }
-    
+
     /**
      * Always prints a message regardless of verbose mode (for important output).
      * @param message the message to print
      */
     public static void alwaysPrintln(String message) {
-        System.out.println(message);
+        print("info", message);
     }
-    
+
+    /**
+     * Always prints a warning about the converted data, and counts it in the metrics.
+     * @param message the warning to print
+     */
+    public static void warningPrintln(String message) {
+        Metrics.add(Metrics.WARNINGS, 1);
+        List<String> warnings = capturedWarnings.get();
+        if (warnings != null) {
+            warnings.add(message.strip());
+        } else {
+            print("warning", message);
+        }
+    }
+
     /**
      * Always prints an error message regardless of verbose mode.
+     * Buffered messages are written first, so the error appears after them.
      * @param message the error message to print
      */
     public static void errorPrintln(String message) {
-        System.err.println(message);
+        List<String> warnings = capturedWarnings.get();
+        if (warnings != null) {
+            warnings.add(message.strip());
+            return;
+        }
+        flush();
+        if (Metrics.isProgress()) {
+            Metrics.log("error", message);
+        } else {
+            System.err.println(message);
+        }
     }
-    
+
+    /**
+     * Writes the buffered messages. Long-running modes call it once a unit of work is done.
+     */
+    public static void flush() {
+        messageStream.flush();
+    }
+
     /**
      * Returns whether verbose mode is enabled.
      * @return true if verbose mode is enabled
@@ -60,4 +131,44 @@ public class VerboseOutput {
     public static boolean isVerbose() {
         return verboseMode;
     }
+
+    /**
+     * Captures the messages of the current thread until {@link #endCapture()}:
+     * they are not printed, and warnings and errors are collected instead.
+     * @return The list receiving the warnings
+     */
+    static List<String> startCapture() {
+        List<String> warnings = new ArrayList<>();
+        capturedWarnings.set(warnings);
+        return warnings;
+    }
+    
+    /**
+     * Prints the messages of the current thread again.
+     */
+    static void endCapture() {
+        capturedWarnings.remove();
+    }
+    
+    private static void print(String level, String message) {
+        if (capturedWarnings.get() != null) {
+            return;
+        }
+        if (isNdjson()) {
+            Metrics.log(level, message);
+        } else {
+            messageStream.println(message);
+        }
+    }
+
+    /**
+     * Messages become NDJSON events when they go to standard error and --progress is set.
+     */
+    private static boolean isNdjson() {
+        return messageTarget == System.err && Metrics.isProgress();
+    }
+
+    private static PrintStream buffered(PrintStream stream) {
+        return new PrintStream(new BufferedOutputStream(stream, BUFFER_SIZE), false);
+    }
 }
@@ -1,3 +1,6 @@
 @echo off
+setlocal
 set DIR=%~dp0
-"%DIR%\jre-win\bin\java.exe" -cp "%DIR%\dist\java\papiconverter.jar" org.sharlychess.papiconverter.PapiConverter %*
+set JAVA_OPTS=-Xlog:disable -Xlog:all=warning:stderr
+if exist "%DIR%\jre-win\lib\papiconverter.jsa" set JAVA_OPTS=%JAVA_OPTS% -XX:SharedArchiveFile="%DIR%\jre-win\lib\papiconverter.jsa" -Xshare:auto
+"%DIR%\jre-win\bin\java.exe" %JAVA_OPTS% -cp "%DIR%\dist\java\papiconverter.jar" org.sharlychess.papiconverter.PapiConverter %*
@@ -0,0 +1,55 @@
+#!/bin/bash
+set -e
+
+# Runs the training workload on an instrumented native binary (built with --pgo-instrument)
+# and collects one profile per conversion mode.
+# Usage: ./pgo_training.sh <instrumented-binary> <profile-dir>
+#
+# Set PGO_PLAYERDB to the path of an FFE Data.mdb to also train the player database conversion.
+
+ROOT_DIR="$(cd "$(dirname "$0")" && pwd)"
+BINARY="$1"
+PROFILE_DIR="$2"
+
+if [ -z "$BINARY" ] || [ -z "$PROFILE_DIR" ]; then
+  echo "Usage: $0 <instrumented-binary> <profile-dir>"
+  exit 1
+fi
+
+WORK_DIR="$PROFILE_DIR/work"
+rm -rf "$PROFILE_DIR"
+mkdir -p "$WORK_DIR"
+
+# The template is looked up in ./static when running from the repository root
+cd "$ROOT_DIR"
+
+echo "Generating training tournament..."
+"$ROOT_DIR/generate_training_tournament.sh" "$WORK_DIR/training.json" 2048 9
+
+run_mode() {
+  local name="$1"
+  shift
+  echo "Training: $name"
+  "$BINARY" -XX:ProfilesDumpFile="$PROFILE_DIR/$name.iprof" "$@" > /dev/null
+}
+
+run_mode json-to-papi "$WORK_DIR/training.json" "$WORK_DIR/training.papi"
+run_mode bulk --bulk "$WORK_DIR/training.json" "$WORK_DIR/training-bulk.papi"
+run_mode papi-to-json "$WORK_DIR/training.papi" "$WORK_DIR/training-export.json"
+run_mode standings --standings "$WORK_DIR/training.papi" "$WORK_DIR/training-standings.json"
+run_mode metrics --metrics="$WORK_DIR/metrics.json" --progress "$WORK_DIR/training.papi" "$WORK_DIR/training-metrics.json" 2> /dev/null
+run_mode check --check "$WORK_DIR/training.papi" || true
+mkdir -p "$WORK_DIR/archive"
+cp "$WORK_DIR/training.papi" "$WORK_DIR/archive/"
+run_mode archive --archive "$WORK_DIR/archive" "$WORK_DIR/archive.sql"
+run_mode snapshot --format bin "$WORK_DIR/training.papi" "$WORK_DIR/training.tsnap"
+run_mode snapshot-to-papi "$WORK_DIR/training.tsnap" "$WORK_DIR/training-snapshot.papi"
+run_mode diff --diff "$WORK_DIR/training-snapshot.papi" "$WORK_DIR/training.papi" "$WORK_DIR/diff.json"
+
+if [ -n "$PGO_PLAYERDB" ] && [ -f "$PGO_PLAYERDB" ]; then
+  run_mode playerdb --playerdb "$PGO_PLAYERDB" "$WORK_DIR/players.sql"
+else
+  echo "Warning: PGO_PLAYERDB not set, the player database conversion is not trained"
+fi
+
+echo "Profiles written to $PROFILE_DIR"
@@ -40,16 +40,10 @@ curl -L -o lib/commons-lang3-3.12.0.jar "https://repo1.maven.org/maven2/org/apac
 echo "Downloading Apache Commons Logging..."
 curl -L -o lib/commons-logging-1.2.jar "https://repo1.maven.org/maven2/commons-logging/commons-logging/1.2/commons-logging-1.2.jar"
 
-# Download Jackson JSON libraries
+# Download Jackson JSON library (streaming API only)
 echo "Downloading Jackson Core..."
 curl -L -o lib/jackson-core-2.15.2.jar "https://repo1.maven.org/maven2/com/fasterxml/jackson/core/jackson-core/2.15.2/jackson-core-2.15.2.jar"
 
-echo "Downloading Jackson Databind..."
-curl -L -o lib/jackson-databind-2.15.2.jar "https://repo1.maven.org/maven2/com/fasterxml/jackson/core/jackson-databind/2.15.2/jackson-databind-2.15.2.jar"
-
-echo "Downloading Jackson Annotations..."
-curl -L -o lib/jackson-annotations-2.15.2.jar "https://repo1.maven.org/maven2/com/fasterxml/jackson/core/jackson-annotations/2.15.2/jackson-annotations-2.15.2.jar"
-
 # Download H2 Database (pure Java SQLite alternative)
 echo "Downloading H2 Database..."
 curl -L -o lib/h2-2.2.224.jar "https://repo1.maven.org/maven2/com/h2database/h2/2.2.224/h2-2.2.224.jar"
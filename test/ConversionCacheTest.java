@@ -0,0 +1,109 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+import static org.sharlychess.papiconverter.TestRunner.createTempDirectory;
+import static org.sharlychess.papiconverter.TestRunner.deleteTree;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests of the hits, misses and evictions of the conversion cache.
+ */
+public class ConversionCacheTest {
+
+    /** Counts the conversions run, each writing the input upper-cased to the output */
+    private static int conversions;
+
+    private static boolean convert(ConversionCache cache, Path input, Path output) throws Exception {
+        return cache.convert(List.of(input), "test", output, () -> {
+            conversions++;
+            Files.writeString(output, Files.readString(input).toUpperCase());
+        });
+    }
+
+    static void testMissThenHit() throws Exception {
+        Path dir = createTempDirectory();
+        try {
+            ConversionCache cache = new ConversionCache(dir.resolve("cache"), ConversionCache.DEFAULT_MAX_BYTES);
+            Path input = Files.writeString(dir.resolve("in.txt"), "abc");
+            conversions = 0;
+            assertTrue(!convert(cache, input, dir.resolve("out1.txt")), "first conversion is a miss");
+            assertTrue(convert(cache, input, dir.resolve("out2.txt")), "second conversion is a hit");
+            assertEquals(1, conversions, "conversions run");
+            assertEquals("ABC", Files.readString(dir.resolve("out2.txt")), "output served from the cache");
+
+            Files.writeString(input, "abcd");
+            assertTrue(!convert(cache, input, dir.resolve("out3.txt")), "changed input is a miss");
+            assertEquals("ABCD", Files.readString(dir.resolve("out3.txt")), "output of the changed input");
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    static void testEditedOutputsDoNotChangeTheCache() throws Exception {
+        Path dir = createTempDirectory();
+        try {
+            ConversionCache cache = new ConversionCache(dir.resolve("cache"), ConversionCache.DEFAULT_MAX_BYTES);
+            Path input = Files.writeString(dir.resolve("in.txt"), "abc");
+            Path stored = dir.resolve("stored.txt");
+            Path served = dir.resolve("served.txt");
+            convert(cache, input, stored);
+            convert(cache, input, served);
+            for (Path entry : entries(dir.resolve("cache"))) {
+                assertTrue(!Files.isSameFile(entry, stored) && !Files.isSameFile(entry, served), "entry shares a file with an output");
+            }
+
+            // In place, as an editor or a later conversion to the same path would
+            Files.write(stored, "edited".getBytes(StandardCharsets.UTF_8));
+            Files.write(served, "edited too".getBytes(StandardCharsets.UTF_8));
+            Path output = dir.resolve("out.txt");
+            assertTrue(convert(cache, input, output), "hit after the edits");
+            assertEquals("ABC", Files.readString(output), "cached output");
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    static void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        Path dir = createTempDirectory();
+        try {
+            // Room for two 6-byte outputs
+            ConversionCache cache = new ConversionCache(dir.resolve("cache"), 15);
+            Path a = Files.writeString(dir.resolve("a.txt"), "aaaaaa");
+            Path b = Files.writeString(dir.resolve("b.txt"), "bbbbbb");
+            Path c = Files.writeString(dir.resolve("c.txt"), "cccccc");
+            Path output = dir.resolve("out.txt");
+            convert(cache, a, output);
+            Thread.sleep(50);
+            convert(cache, b, output);
+            Thread.sleep(50);
+            assertTrue(convert(cache, a, output), "a is cached");
+            Thread.sleep(50);
+            convert(cache, c, output);
+
+            assertEquals(2, entries(dir.resolve("cache")).size(), "entries after eviction");
+            conversions = 0;
+            assertTrue(convert(cache, a, output), "a was used after b and is kept");
+            assertTrue(convert(cache, c, output), "c is kept");
+            assertEquals(0, conversions, "conversions run for kept entries");
+            assertTrue(!convert(cache, b, output), "b is evicted");
+            assertEquals("BBBBBB", Files.readString(output), "output of the evicted entry");
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    private static List<Path> entries(Path cacheDir) throws Exception {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.out")) {
+            stream.forEach(entries::add);
+        }
+        return entries;
+    }
+}
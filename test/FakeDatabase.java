@@ -0,0 +1,164 @@
+package org.sharlychess.papiconverter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Row;
+import com.healthmarketscience.jackcess.Table;
+
+/**
+ * In-memory JOUEUR table behind the Jackcess interfaces, so the code writing rows can be
+ * tested without an Access file. Only the calls made on the JOUEUR table are supported:
+ * scanning, adding, updating and deleting rows. The table has no primary key.
+ */
+final class FakeDatabase {
+
+    private final List<String> columns = new ArrayList<>();
+    private final List<Row> rows = new ArrayList<>();
+    private int updates;
+
+    /**
+     * Creates a database whose JOUEUR table has the modeled columns, Ref and ClubRef.
+     */
+    FakeDatabase() {
+        columns.add("Ref");
+        columns.add("ClubRef");
+        columns.addAll(PlayerConverter.MODELED_COLUMNS);
+    }
+
+    /**
+     * Adds a row as PAPI stores a player without rounds.
+     * @param ref The Ref of the row
+     * @param lastName The last name of the player
+     * @return The row, to set other columns
+     */
+    Row addPlayer(int ref, String lastName) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("Ref", ref);
+        values.put(PlayerField.LAST_NAME.column(), lastName);
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            String prefix = PairingRules.roundPrefix(roundNum);
+            values.put(prefix + "Cl", "R");
+            values.put(prefix + "Adv", 0);
+            values.put(prefix + "Res", 0);
+        }
+        Row row = row(values);
+        rows.add(row);
+        return row;
+    }
+
+    /** @return The row with a Ref, or null */
+    Row get(int ref) {
+        for (Row row : rows) {
+            if (Integer.valueOf(ref).equals(row.get("Ref"))) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    /** @return The Refs of the rows, in table order */
+    List<Integer> refs() {
+        List<Integer> refs = new ArrayList<>();
+        for (Row row : rows) {
+            refs.add(((Number) row.get("Ref")).intValue());
+        }
+        return refs;
+    }
+
+    /** @return Number of updateRow calls */
+    int updates() {
+        return updates;
+    }
+
+    /** @return The database, whose only table is JOUEUR */
+    Database database() {
+        Table table = proxy(Table.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "JOUEUR";
+                case "iterator":
+                    return new ArrayList<>(rows).iterator();
+                case "getRowCount":
+                    return rows.size();
+                case "getColumnCount":
+                    return columns.size();
+                case "getColumns":
+                    List<Column> list = new ArrayList<>();
+                    for (String name : columns) {
+                        list.add(proxy(Column.class, (m, a) -> "getName".equals(m.getName()) ? name : unsupported(m)));
+                    }
+                    return list;
+                case "addRow":
+                    Object[] values = (Object[]) args[0];
+                    Map<String, Object> map = new HashMap<>();
+                    for (int i = 0; i < columns.size(); i++) {
+                        map.put(columns.get(i), values[i]);
+                    }
+                    rows.add(row(map));
+                    return values;
+                case "updateRow":
+                    updates++;
+                    return args[0];
+                case "deleteRow":
+                    rows.remove(args[0]);
+                    return args[0];
+                case "getPrimaryKeyIndex":
+                    throw new IllegalArgumentException("No primary key");
+                default:
+                    return unsupported(method);
+            }
+        });
+        return proxy(Database.class, (method, args) -> "getTable".equals(method.getName())
+            ? ("JOUEUR".equals(args[0]) ? table : null) : unsupported(method));
+    }
+
+    /**
+     * Creates a row backed by a map; rows are only equal to themselves, like table rows.
+     */
+    private static Row row(Map<String, Object> values) {
+        Map<String, Object> map = new LinkedHashMap<>(values);
+        Row[] self = new Row[1];
+        self[0] = proxy(Row.class, (method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return args[0] == self[0];
+                case "hashCode":
+                    return System.identityHashCode(self[0]);
+                case "toString":
+                    return map.toString();
+                default:
+                    try {
+                        return Map.class.getMethod(method.getName(), method.getParameterTypes()).invoke(map, args);
+                    } catch (NoSuchMethodException e) {
+                        return unsupported(method);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        });
+        return self[0];
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[] { type },
+            (proxy, method, args) -> handler.invoke(method, args)));
+    }
+
+    private static Object unsupported(Method method) {
+        throw new UnsupportedOperationException(method.getName() + Arrays.toString(method.getParameterTypes()));
+    }
+}
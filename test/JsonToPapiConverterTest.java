@@ -0,0 +1,57 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+
+import java.util.List;
+
+/**
+ * Tests of --update on JOUEUR tables whose Refs have gaps, as left by players deleted in PAPI.
+ */
+public class JsonToPapiConverterTest {
+
+    /** Exported from Refs 2, 3 and 5: A plays C in round 1 */
+    private static final String EXPORTED = "{\"players\": ["
+        + "{\"lastName\": \"A\", \"rounds\": {\"1\": {\"color\": \"B\", \"opponent\": 2, \"result\": 3}}},"
+        + "{\"lastName\": \"B\"},"
+        + "{\"lastName\": \"C\", \"rounds\": {\"1\": {\"color\": \"N\", \"opponent\": 0, \"result\": 1}}}";
+
+    private static FakeDatabase fileWithGap() {
+        FakeDatabase file = new FakeDatabase();
+        file.addPlayer(PairingRules.EXEMPT_REF, "EXEMPT");
+        file.addPlayer(2, "A");
+        file.addPlayer(3, "B");
+        file.addPlayer(5, "C").put("Note", "kept");
+        return file;
+    }
+
+    static void testUpdateMatchesPlayersInRefOrder() throws Exception {
+        FakeDatabase file = fileWithGap();
+        List<PlayerData> players = TournamentValidatorTest.parse(EXPORTED
+            + ",{\"lastName\": \"D\"}]}").getPlayers();
+        JsonToPapiConverter.updatePlayers(file.database(), players);
+
+        assertEquals(List.of(1, 2, 3, 5, 6), file.refs(), "Refs after the update");
+        assertEquals("C", file.get(5).get(PlayerField.LAST_NAME.column()), "player after the gap");
+        assertEquals("kept", file.get(5).get("Note"), "unmodeled column of the player after the gap");
+        assertEquals(5, file.get(2).get("Rd01Adv"), "opponent after the gap");
+        assertEquals(2, file.get(5).get("Rd01Adv"), "opponent before the gap");
+        assertEquals("D", file.get(6).get(PlayerField.LAST_NAME.column()), "added player");
+    }
+
+    static void testSecondUpdateWritesNothing() throws Exception {
+        FakeDatabase file = fileWithGap();
+        List<PlayerData> players = TournamentValidatorTest.parse(EXPORTED + "]}").getPlayers();
+        JsonToPapiConverter.updatePlayers(file.database(), players);
+        int updates = file.updates();
+        JsonToPapiConverter.updatePlayers(file.database(), players);
+        assertEquals(List.of(1, 2, 3, 5), file.refs(), "Refs after the updates");
+        assertEquals(updates, file.updates(), "rows updated by the second update");
+    }
+
+    static void testUpdateDeletesRowsBeyondThePlayers() throws Exception {
+        FakeDatabase file = fileWithGap();
+        JsonToPapiConverter.updatePlayers(file.database(), TournamentValidatorTest.parse(
+            "{\"players\": [{\"lastName\": \"A\"}, {\"lastName\": \"B\"}]}").getPlayers());
+        assertEquals(List.of(1, 2, 3), file.refs(), "Refs after the update");
+    }
+}
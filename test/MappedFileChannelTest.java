@@ -0,0 +1,60 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertThrows;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of the read-only memory-mapped channel on the edge cases of map and lock.
+ */
+public class MappedFileChannelTest {
+
+    static void testMapOutsideTheFileThrowsIOException() throws Exception {
+        Path directory = TestRunner.createTempDirectory();
+        try {
+            Path empty = Files.createFile(directory.resolve("empty.mdb"));
+            Path file = Files.write(directory.resolve("file.mdb"), new byte[] { 1, 2, 3, 4 });
+            try (MappedFileChannel channel = MappedFileChannel.open(empty)) {
+                Exception e = assertThrows(() -> channel.map(MapMode.READ_ONLY, 0, 0), "empty file mapped");
+                assertTrue(e instanceof IOException, e.toString());
+            }
+            try (MappedFileChannel channel = MappedFileChannel.open(file)) {
+                assertEquals((byte) 4, channel.map(MapMode.READ_ONLY, 2, 2).get(1), "mapped byte");
+                Exception e = assertThrows(() -> channel.map(MapMode.READ_ONLY, 3, 2), "region past the end mapped");
+                assertTrue(e instanceof IOException, e.toString());
+            }
+        } finally {
+            TestRunner.deleteTree(directory);
+        }
+    }
+
+    static void testLocksBehaveAsOnAReadOnlyFileChannel() throws Exception {
+        Path directory = TestRunner.createTempDirectory();
+        try {
+            Path file = Files.write(directory.resolve("file.mdb"), new byte[] { 1, 2, 3, 4 });
+            MappedFileChannel channel = MappedFileChannel.open(file);
+            try {
+                Exception e = assertThrows(() -> channel.lock(0, Long.MAX_VALUE, false), "exclusive lock granted");
+                assertTrue(e instanceof NonWritableChannelException, e.toString());
+                FileLock lock = channel.tryLock(0, Long.MAX_VALUE, true);
+                assertTrue(lock.isShared() && lock.isValid(), "shared lock");
+                lock.release();
+                assertTrue(!lock.isValid(), "released lock is valid");
+                FileLock other = channel.lock(0, 4, true);
+                channel.close();
+                assertTrue(!other.isValid(), "lock valid after close");
+            } finally {
+                channel.close();
+            }
+        } finally {
+            TestRunner.deleteTree(directory);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests of the JOUEUR row values made from JSON players and of the --update diff.
+ */
+public class PlayerConverterTest {
+
+    private static final String DOCUMENT = "{\"players\": ["
+        + "{\"lastName\": \"A\", \"firstName\": \"a\", \"elo\": 1800, \"birthDate\": \"01/02/2003\", \"checkedIn\": true,"
+        + " \"rounds\": {\"1\": {\"color\": \"B\", \"opponent\": 1, \"result\": 3}, \"2\": {\"result\": 6}}},"
+        + "{\"lastName\": \"B\", \"rounds\": {\"1\": {\"color\": \"N\", \"opponent\": 0, \"result\": 1}}}]}";
+
+    static void testValuesEqual() {
+        assertTrue(PlayerConverter.valuesEqual(null, ""), "null and empty text");
+        assertTrue(PlayerConverter.valuesEqual(null, false), "null and false");
+        assertTrue(PlayerConverter.valuesEqual(0, null), "0 and null");
+        assertTrue(PlayerConverter.valuesEqual((short) 0, null), "short 0 and null");
+        assertTrue(PlayerConverter.valuesEqual((short) 5, 5), "numbers of different types");
+        assertTrue(PlayerConverter.valuesEqual(1.5, 1.50), "decimals");
+        assertTrue(!PlayerConverter.valuesEqual(1, null), "1 and null");
+        assertTrue(!PlayerConverter.valuesEqual("0", null), "text 0 and null");
+        assertTrue(!PlayerConverter.valuesEqual("A", "B"), "different text");
+    }
+
+    static void testUnpairedRoundsHaveOpponentZero() throws Exception {
+        PlayerData player = TournamentValidatorTest.parse(DOCUMENT).getPlayers().get(0);
+        List<Integer> byeRounds = new ArrayList<>();
+        Map<String, Object> rowData = PlayerConverter.createRowData(player, 2, byeRounds);
+        assertEquals(3, rowData.get("Rd01Adv"), "paired round");
+        assertEquals(PairingRules.EXEMPT_REF, rowData.get("Rd02Adv"), "bye round");
+        assertEquals(0, rowData.get("Rd03Adv"), "unpaired round");
+        assertEquals(List.of(2), byeRounds, "bye rounds");
+    }
+
+    /**
+     * An --update with the document the file was written from changes no column.
+     */
+    static void testUpdateWithUnchangedDocumentWritesNothing() throws Exception {
+        List<PlayerData> players = TournamentValidatorTest.parse(DOCUMENT).getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            int ref = PlayerConverter.jsonRefToPapiRef(i);
+            Map<String, Object> stored = storedAsPapi(PlayerConverter.createRowData(players.get(i), ref, new ArrayList<>()));
+            Map<String, Object> desired = PlayerConverter.createRowData(players.get(i), ref, new ArrayList<>());
+            assertEquals(0, PlayerConverter.putChangedColumns(stored, desired), "columns changed for player " + i);
+        }
+    }
+
+    static void testUpdateWritesChangedColumnsOnly() throws Exception {
+        List<PlayerData> players = TournamentValidatorTest.parse(DOCUMENT).getPlayers();
+        Map<String, Object> stored = storedAsPapi(PlayerConverter.createRowData(players.get(1), 3, new ArrayList<>()));
+        players.get(1).set(PlayerField.ELO, 1500);
+        players.get(1).setRound(1, new RoundData("N", 0, 2));
+        Map<String, Object> desired = PlayerConverter.createRowData(players.get(1), 3, new ArrayList<>());
+        assertEquals(2, PlayerConverter.putChangedColumns(stored, desired), "columns changed");
+        assertEquals(1500, stored.get("Elo"), "Elo");
+        assertEquals(2, stored.get("Rd01Res"), "result");
+    }
+
+    /**
+     * Gets a row as PAPI saves it: unset numbers as 0, unset text as empty, unset flags as false.
+     */
+    private static Map<String, Object> storedAsPapi(Map<String, Object> rowData) {
+        Map<String, Object> row = new HashMap<>(rowData);
+        for (PlayerField field : PlayerField.all()) {
+            if (row.get(field.column()) == null) {
+                row.put(field.column(), field.kind() == PlayerField.Kind.BOOLEAN ? Boolean.FALSE
+                    : field.kind() == PlayerField.Kind.DATE ? null : field.maxLength() > 0 ? "" : (Object) 0);
+            }
+        }
+        for (int roundNum = 1; roundNum <= PairingRules.MAX_ROUNDS; roundNum++) {
+            row.putIfAbsent(PairingRules.roundPrefix(roundNum) + "Adv", 0);
+        }
+        return row;
+    }
+}
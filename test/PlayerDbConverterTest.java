@@ -0,0 +1,40 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests of the FIDE ID index of the --fide-list join.
+ */
+public class PlayerDbConverterTest {
+
+    private static List<Integer> players(PlayerDbConverter.FideIdIndex index, int fideId) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = index.first(fideId); id != 0; id = index.next(id)) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    static void testNonPositiveFideIdsAreIgnored() {
+        PlayerDbConverter.FideIdIndex index = new PlayerDbConverter.FideIdIndex(4);
+        index.add(PlayerDbConverter.getFideIdFromCode("-5"), 1);
+        index.add(0, 2);
+        index.add(PlayerDbConverter.getFideIdFromCode("'651012'"), 3);
+        assertEquals(1, index.size(), "players indexed");
+        assertEquals(List.of(3), players(index, 651012), "players of a FIDE ID");
+        assertEquals(List.of(), players(index, -5), "players of a negative FIDE ID");
+    }
+
+    static void testPlayersSharingAFideIdAreAllFound() {
+        PlayerDbConverter.FideIdIndex index = new PlayerDbConverter.FideIdIndex(0);
+        for (int id = 1; id <= 40; id++) {
+            index.add(id % 3 == 0 ? 1000 : 2000 + id, id);
+        }
+        assertEquals(List.of(39, 36, 33, 30, 27, 24, 21, 18, 15, 12, 9, 6, 3), players(index, 1000), "players sharing a FIDE ID");
+        assertEquals(List.of(40), players(index, 2040), "player with its own FIDE ID");
+        assertEquals(List.of(), players(index, 3000), "unknown FIDE ID");
+    }
+}
@@ -0,0 +1,62 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.util.List;
+
+/**
+ * Tests of the Ref lookups of PlayerIndex and of the Ref checks of --check.
+ */
+public class PlayerIndexTest {
+
+    static void testSequentialRefs() {
+        PlayerIndex index = PlayerIndex.of(new int[] {2, 3, 4, 6});
+        assertEquals(4, index.size(), "size");
+        assertEquals(0, index.indexOf(2), "first Ref");
+        assertEquals(3, index.indexOf(6), "last Ref");
+        assertEquals(-1, index.indexOf(5), "missing Ref");
+        assertEquals(-1, index.indexOf(1), "missing EXEMPT");
+        assertEquals(-1, index.indexOf(-3), "negative lookup");
+        assertEquals(-1, index.indexOf(1000), "Ref past the last one");
+        assertEquals(6, index.ref(3), "Ref of an index");
+    }
+
+    static void testNegativeRefs() {
+        PlayerIndex index = PlayerIndex.of(new int[] {-5, 0, 2, 3});
+        assertEquals(0, index.indexOf(-5), "negative Ref");
+        assertEquals(1, index.indexOf(0), "Ref 0");
+        assertEquals(3, index.indexOf(3), "positive Ref");
+        assertEquals(-1, index.indexOf(-4), "missing negative Ref");
+    }
+
+    static void testSparseRefs() {
+        PlayerIndex index = PlayerIndex.of(new int[] {2, 50000, Integer.MAX_VALUE});
+        assertEquals(1, index.indexOf(50000), "sparse Ref");
+        assertEquals(2, index.indexOf(Integer.MAX_VALUE), "largest Ref");
+        assertEquals(-1, index.indexOf(3), "missing Ref");
+    }
+
+    static void testEmpty() {
+        PlayerIndex index = PlayerIndex.of(new int[0]);
+        assertEquals(0, index.size(), "size");
+        assertEquals(-1, index.indexOf(0), "Ref 0");
+        assertEquals(-1, index.indexOf(1), "Ref 1");
+    }
+
+    static void testCheckReportsRefsBelowOne() {
+        ConsistencyChecker.JoueurColumns columns = new ConsistencyChecker.JoueurColumns(3);
+        columns.count = 3;
+        columns.refs[0] = 2;
+        columns.refs[1] = -7;
+        columns.refs[2] = 0;
+        for (int p = 0; p < columns.count; p++) {
+            columns.names[p] = "";
+        }
+        List<ConsistencyChecker.Violation> violations = ConsistencyChecker.check(columns);
+        assertEquals(2, violations.size(), "violations " + violations);
+        assertEquals(-7, violations.get(0).getRef(), "negative Ref");
+        assertEquals(0, violations.get(1).getRef(), "Ref 0");
+        assertTrue(violations.get(0).getMessage().startsWith("invalid Ref"), violations.get(0).getMessage());
+    }
+}
@@ -0,0 +1,95 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertThrows;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.util.List;
+
+import org.sharlychess.papiconverter.RoundResultsIngester.RoundResult;
+
+/**
+ * Tests of the checks made on --results entries before the database is opened.
+ */
+public class RoundResultsIngesterTest {
+
+    static void testValidResultsAreAccepted() throws Exception {
+        RoundResultsIngester.validate(3, List.of(
+            new RoundResult(0, 1, "B", 3),
+            new RoundResult(1, 0, "N", 1),
+            new RoundResult(2, null, null, PairingRules.BYE_RESULT),
+            new RoundResult(3, null, "R", 0)));
+    }
+
+    static void testInvalidCodesAreRejected() {
+        Exception e = assertThrows(() -> RoundResultsIngester.validate(1, List.of(
+            new RoundResult(0, 1, "X", 3),
+            new RoundResult(1, 0, "N", PairingRules.MAX_RESULT + 1),
+            new RoundResult(2, 3, "B", -1))), "invalid codes");
+        assertTrue(e.getMessage().startsWith("3 invalid result(s) for round 1"), e.getMessage());
+        assertTrue(e.getMessage().contains("invalid color 'X'"), e.getMessage());
+        assertTrue(e.getMessage().contains("invalid result " + (PairingRules.MAX_RESULT + 1)), e.getMessage());
+        assertTrue(e.getMessage().contains("invalid result -1"), e.getMessage());
+    }
+
+    static void testResultWithoutOpponentIsRejected() {
+        Exception e = assertThrows(() -> RoundResultsIngester.validate(1, List.of(
+            new RoundResult(0, null, "B", 3))), "win without opponent");
+        assertTrue(e.getMessage().contains("result 3 without opponent"), e.getMessage());
+    }
+
+    static void testInvalidOpponentAndRoundAreRejected() {
+        Exception e = assertThrows(() -> RoundResultsIngester.validate(1, List.of(
+            new RoundResult(0, 0, "B", 3),
+            new RoundResult(-1, 2, "B", 3))), "invalid opponent and player");
+        assertTrue(e.getMessage().contains("invalid opponent 0"), e.getMessage());
+        assertTrue(e.getMessage().contains("invalid player index"), e.getMessage());
+        assertThrows(() -> RoundResultsIngester.validate(PairingRules.MAX_ROUNDS + 1, List.of()), "round out of range");
+    }
+
+    static void testApplyValidatesBeforeTouchingTheDatabase() {
+        // A null database would fail on first use: the batch must be rejected before
+        Exception e = assertThrows(() -> RoundResultsIngester.apply(null, 1, List.of(
+            new RoundResult(0, 1, "Z", 3))), "apply with invalid color");
+        assertTrue(e.getMessage().contains("invalid color 'Z'"), e.getMessage());
+    }
+
+    /**
+     * A file whose Ref 4 was deleted: the exported players 0, 1 and 2 are Refs 2, 3 and 5.
+     * In round 1, Ref 3 played Ref 5.
+     */
+    private static FakeDatabase fileWithGap() {
+        FakeDatabase file = new FakeDatabase();
+        file.addPlayer(PairingRules.EXEMPT_REF, "EXEMPT");
+        file.addPlayer(2, "A");
+        file.addPlayer(3, "B").put("Rd01Adv", 5);
+        file.addPlayer(5, "C").put("Rd01Adv", 3);
+        return file;
+    }
+
+    static void testPlayersAreResolvedInRefOrder() throws Exception {
+        FakeDatabase file = fileWithGap();
+        RoundResultsIngester.apply(file.database(), 1, List.of(new RoundResult(0, 2, "B", 3)));
+        assertEquals(5, file.get(2).get("Rd01Adv"), "opponent of player 0");
+        assertEquals(2, file.get(5).get("Rd01Adv"), "mirrored opponent of player 2");
+        assertEquals("N", file.get(5).get("Rd01Cl"), "mirrored color");
+        assertEquals(1, file.get(5).get("Rd01Res"), "mirrored result");
+        assertEquals(0, file.get(3).get("Rd01Adv"), "former opponent of player 2 unpaired");
+    }
+
+    static void testByeIsMirroredOnExempt() throws Exception {
+        FakeDatabase file = fileWithGap();
+        RoundResultsIngester.apply(file.database(), 2, List.of(new RoundResult(2, null, null, PairingRules.BYE_RESULT)));
+        assertEquals(PairingRules.EXEMPT_REF, file.get(5).get("Rd02Adv"), "bye of player 2");
+        assertEquals(5, file.get(PairingRules.EXEMPT_REF).get("Rd02Adv"), "EXEMPT side");
+    }
+
+    static void testUnknownPlayersAreRejected() {
+        FakeDatabase file = fileWithGap();
+        Exception e = assertThrows(() -> RoundResultsIngester.apply(file.database(), 1, List.of(
+            new RoundResult(0, 1, "B", 3),
+            new RoundResult(3, null, "R", 0))), "player past the last one");
+        assertTrue(e.getMessage().contains("player 3 not found"), e.getMessage());
+        assertEquals(0, file.updates(), "rows updated");
+    }
+}
@@ -0,0 +1,98 @@
+package org.sharlychess.papiconverter;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Runs the behavioral tests without a test framework, so they build with the same
+ * javac command line as the application and the benchmarks.
+ *
+ * Every static, parameterless method whose name starts with "test" in the classes
+ * given on the command line is run; a test fails by throwing. The exit status is 1
+ * if any test failed.
+ * Usage: TestRunner <test-class>...
+ */
+public final class TestRunner {
+
+    private TestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int run = 0;
+        int failed = 0;
+        for (String className : args) {
+            Method[] methods = Class.forName(className).getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || !Modifier.isStatic(method.getModifiers())
+                        || method.getParameterCount() != 0) {
+                    continue;
+                }
+                run++;
+                String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+                try {
+                    method.setAccessible(true);
+                    method.invoke(null);
+                    System.out.println("PASS " + name);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAIL " + name + ": " + e.getCause());
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.println(run + " tests, " + failed + " failed");
+        System.exit(failed > 0 ? 1 : 0);
+    }
+
+    static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    /**
+     * Runs code that must throw, and returns the exception for further checks.
+     */
+    static Exception assertThrows(Action action, String message) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            return e;
+        }
+        throw new AssertionError(message + ": no exception thrown");
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Creates a temporary directory, deleted with its content by {@link #deleteTree(Path)}.
+     */
+    static Path createTempDirectory() throws IOException {
+        return Files.createTempDirectory("papiconverter-test");
+    }
+
+    static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
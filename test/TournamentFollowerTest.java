@@ -0,0 +1,42 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.util.List;
+
+/**
+ * Tests of the events of the follow mode.
+ */
+public class TournamentFollowerTest {
+
+    private static TournamentFollower.State state(int... refs) {
+        TournamentFollower.State state = new TournamentFollower.State();
+        for (int ref : refs) {
+            state.players.ensureCapacity();
+            state.players.refs[state.players.count] = ref;
+            state.players.names[state.players.count] = "Player " + ref;
+            state.players.count++;
+        }
+        state.index();
+        return state;
+    }
+
+    static void testUnchangedPlayersGiveNoEvents() throws Exception {
+        int[] refs = { 5, -3, Integer.MAX_VALUE, 2, 0 };
+        TournamentFollower.State before = state(refs);
+        TournamentFollower.State after = state(refs);
+        assertEquals(List.of(), TournamentFollower.changes(before, after), "events");
+        assertEquals(1, after.rowOf(-3), "row of a negative Ref");
+        assertEquals(2, after.rowOf(Integer.MAX_VALUE), "row of a huge Ref");
+        assertEquals(-1, after.rowOf(3), "row of a missing Ref");
+        assertEquals("Player -3", after.nameOf(-3), "name of a negative Ref");
+    }
+
+    static void testAddedAndRemovedPlayers() throws Exception {
+        List<String> events = TournamentFollower.changes(state(2, -1, 4), state(4, 7, 2));
+        assertEquals(2, events.size(), "events");
+        assertTrue(events.get(0).contains("\"player-added\"") && events.get(0).contains("\"ref\":7"), events.get(0));
+        assertTrue(events.get(1).contains("\"player-removed\"") && events.get(1).contains("\"ref\":-1"), events.get(1));
+    }
+}
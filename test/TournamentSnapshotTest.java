@@ -0,0 +1,62 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertThrows;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Tests of the bounds checks of the snapshot reader on truncated or corrupt snapshots.
+ */
+public class TournamentSnapshotTest {
+
+    private static byte[] write(String json) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TournamentSnapshot.write(TournamentValidatorTest.parse(json), out);
+        return out.toByteArray();
+    }
+
+    private static TournamentData read(byte[] snapshot) throws Exception {
+        return TournamentSnapshot.read(new ByteArrayInputStream(snapshot));
+    }
+
+    static void testEmptyPlayersRoundTrip() throws Exception {
+        byte[] snapshot = write("{\"players\": [" + "{}, ".repeat(99) + "{}]}");
+        assertEquals(100, read(snapshot).getPlayers().size(), "players");
+    }
+
+    static void testHugeCountsAreRejectedAsTruncated() {
+        // Magic, version, players flag, then a count of 2^31 - 1 with nothing after it
+        byte[] header = { 'P', 'A', 'P', 'S', TournamentSnapshot.VERSION, 2 };
+        byte[] count = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+        byte[] hugeStringTable = concat(header, count);
+        byte[] hugePlayerCount = concat(header, new byte[] { 0 }, count);
+        for (byte[] snapshot : new byte[][] { hugeStringTable, hugePlayerCount }) {
+            Exception e = assertThrows(() -> read(snapshot), "huge count accepted");
+            assertEquals("Truncated tournament snapshot", e.getMessage(), "error");
+        }
+    }
+
+    static void testEveryTruncationIsRejected() throws Exception {
+        byte[] snapshot = write("{\"variables\": {\"name\": \"Open\"}, \"players\": ["
+            + "{\"lastName\": \"A\", \"elo\": 1800, \"rounds\": {\"1\": {\"color\": \"B\", \"opponent\": 1, \"result\": 3}}},"
+            + "{\"lastName\": \"B\", \"rounds\": {\"1\": {\"color\": \"N\", \"opponent\": 0, \"result\": 1}}}]}");
+        for (int length = 0; length < snapshot.length; length++) {
+            byte[] truncated = Arrays.copyOf(snapshot, length);
+            Exception e = assertThrows(() -> read(truncated), "snapshot truncated to " + length + " bytes accepted");
+            assertTrue(e.getMessage() != null, "error of a snapshot truncated to " + length + " bytes");
+        }
+        assertEquals(2, read(snapshot).getPlayers().size(), "players of the full snapshot");
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package org.sharlychess.papiconverter;
+
+import static org.sharlychess.papiconverter.TestRunner.assertEquals;
+import static org.sharlychess.papiconverter.TestRunner.assertThrows;
+import static org.sharlychess.papiconverter.TestRunner.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Tests of the checks run on a tournament document before it is written to a PAPI file.
+ */
+public class TournamentValidatorTest {
+
+    static TournamentData parse(String json) throws Exception {
+        return TournamentJson.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<TournamentValidator.Problem> check(String json) throws Exception {
+        return TournamentValidator.check(parse(json));
+    }
+
+    private static void assertProblem(List<TournamentValidator.Problem> problems, int player, int round, String text) {
+        for (TournamentValidator.Problem problem : problems) {
+            if (problem.getPlayer() == player && problem.getRound() == round && problem.getMessage().contains(text)) {
+                return;
+            }
+        }
+        throw new AssertionError("No problem '" + text + "' for player " + player + " in round " + round + ": " + problems);
+    }
+
+    static void testValidDocumentHasNoProblem() throws Exception {
+        List<TournamentValidator.Problem> problems = check("{\"variables\": {\"name\": \"Open\"}, \"players\": ["
+            + "{\"lastName\": \"A\", \"birthDate\": \"29/02/2000\", \"rounds\": {\"1\": {\"color\": \"B\", \"opponent\": 1, \"result\": 3}, \"2\": {\"result\": 6}}},"
+            + "{\"lastName\": \"B\", \"rounds\": {\"1\": {\"color\": \"N\", \"opponent\": 0, \"result\": 1}}}]}");
+        assertEquals(0, problems.size(), "problems of a valid document " + problems);
+    }
+
+    static void testOpponentOutOfRangeAndSelf() throws Exception {
+        List<TournamentValidator.Problem> problems = check("{\"players\": ["
+            + "{\"rounds\": {\"1\": {\"opponent\": 5, \"result\": 3}, \"2\": {\"opponent\": 0, \"result\": 3}}}]}");
+        assertProblem(problems, 0, 1, "out of range");
+        assertProblem(problems, 0, 2, "itself");
+    }
+
+    static void testAsymmetricPairing() throws Exception {
+        List<TournamentValidator.Problem> problems = check("{\"players\": ["
+            + "{\"rounds\": {\"1\": {\"color\": \"B\", \"opponent\": 1, \"result\": 3}}},"
+            + "{\"rounds\": {\"1\": {\"color\": \"B\", \"opponent\": 0, \"result\": 3}}},"
+            + "{\"rounds\": {\"1\": {\"color\": \"N\", \"opponent\": 0, \"result\": 1}}}]}");
+        assertProblem(problems, 0, 1, "color B against 1 with color B");
+        assertProblem(problems, 0, 1, "expected 1");
+        assertProblem(problems, 2, 1, "plays 0, but 0 has 1 as opponent");
+    }
+
+    static void testByesAndCodes() throws Exception {
+        List<TournamentValidator.Problem> problems = check("{\"players\": ["
+            + "{\"rounds\": {\"1\": {\"result\": 6}, \"2\": {\"result\": 2}, \"3\": {\"color\": \"X\", \"result\": 99}}}]}");
+        assertEquals(3, problems.size(), "problems " + problems);
+        assertProblem(problems, 0, 2, "result 2 without opponent");
+        assertProblem(problems, 0, 3, "invalid color 'X'");
+        assertProblem(problems, 0, 3, "invalid result 99");
+    }
+
+    static void testInvalidRoundNumbers() throws Exception {
+        List<TournamentValidator.Problem> problems = check("{\"players\": ["
+            + "{\"rounds\": {\"0\": {\"result\": 0}, \"25\": {\"result\": 0}, \"first\": {}, \"24\": {\"result\": 0}}},"
+            + "{\"rounds\": [" + "{}, ".repeat(PairingRules.MAX_ROUNDS) + "{\"result\": 0}]}]}");
+        assertEquals(4, problems.size(), "problems " + problems);
+        assertProblem(problems, 0, 0, "invalid round number '0'");
+        assertProblem(problems, 0, 0, "invalid round number '25'");
+        assertProblem(problems, 0, 0, "invalid round number 'first'");
+        assertProblem(problems, 1, 0, "invalid round number '25'");
+    }
+
+    static void testDatesAndLengths() throws Exception {
+        List<TournamentValidator.Problem> problems = check("{\"variables\": {\"venue\": \"" + "x".repeat(51) + "\"}, \"players\": ["
+            + "{\"birthDate\": \"31/02/2000\", \"nrFFE\": \"A1234567\", \"lastName\": \"" + "y".repeat(20) + "\"}]}");
+        assertEquals(3, problems.size(), "problems " + problems);
+        assertProblem(problems, -1, 0, "venue is 51 characters long");
+        assertProblem(problems, 0, 0, "birthDate '31/02/2000'");
+        assertProblem(problems, 0, 0, "nrFFE is 8 characters long, the limit is 6");
+    }
+
+    static void testValidateReportsEveryProblem() throws Exception {
+        TournamentData tournament = parse("{\"players\": [{\"rounds\": {\"1\": {\"result\": 1}, \"2\": {\"result\": 3}}}]}");
+        Exception e = assertThrows(() -> TournamentValidator.validate(tournament), "invalid document accepted");
+        assertTrue(e.getMessage().startsWith("2 problem(s)"), e.getMessage());
+        assertTrue(e.getMessage().contains("round 1") && e.getMessage().contains("round 2"), e.getMessage());
+    }
+}
@@ -0,0 +1,25 @@
+#!/bin/bash
+set -e
+
+# Compiles the converter with the behavioral tests and runs every *Test class.
+# Usage: ./test/run_tests.sh
+
+TEST_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$TEST_DIR")"
+OUT_DIR="$ROOT_DIR/build/test"
+
+CP=""
+for jar in "$ROOT_DIR"/lib/*.jar; do
+  CP="${CP:+$CP:}$jar"
+done
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -cp "$CP" -d "$OUT_DIR" "$ROOT_DIR"/java/*.java "$TEST_DIR"/*.java
+
+CLASSES=""
+for test in "$TEST_DIR"/*Test.java; do
+  CLASSES="$CLASSES org.sharlychess.papiconverter.$(basename "$test" .java)"
+done
+
+java -cp "$OUT_DIR:$CP" org.sharlychess.papiconverter.TestRunner $CLASSES